@@ -0,0 +1,28 @@
+package com.farm.benchmark;
+
+
+import com.farm.entity.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ClassName BenchmarkUsers
+ * @Author phx
+ * @Date 2025/5/16 10:05
+ * @Description 基准测试用的用户数据，id 从 1 开始连续编号
+ */
+
+public final class BenchmarkUsers {
+
+    private BenchmarkUsers() {
+    }
+
+    public static List<User> users(int size) {
+        List<User> users = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            users.add(new User(i, "用户名" + i));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,73 @@
+package com.farm.benchmark;
+
+
+import com.farm.order.entity.Order;
+import com.farm.order.exception.OrderRejectedException;
+import com.farm.order.ingest.IngestionProperties;
+import com.farm.order.ingest.OrderIngestionService;
+import com.farm.order.store.OrderStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName OrderIngestionBenchmark
+ * @Author phx
+ * @Date 2025/5/23 16:00
+ * @Description 订单摄入的持续吞吐量（orders/s）
+ * <p>
+ * 多个线程并发下单，队列有界，被拒绝时重试，测得的是摄入线程能持续写入仓库的速率，而不是填满队列的速率。
+ * 每轮迭代重建订单仓库，避免仓库无限增长。用 -t 调整生产者线程数
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class OrderIngestionBenchmark {
+
+    @Param({"4096"})
+    private int batchSize;
+
+    private OrderIngestionService ingestionService;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        IngestionProperties properties = new IngestionProperties();
+        properties.setBatchSize(batchSize);
+        ingestionService = new OrderIngestionService(new OrderStore(), properties);
+        ingestionService.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        ingestionService.stop();
+    }
+
+    @Benchmark
+    public Order place() {
+        while (true) {
+            try {
+                return ingestionService.place(1, "土鸡蛋", 2990);
+            } catch (OrderRejectedException e) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
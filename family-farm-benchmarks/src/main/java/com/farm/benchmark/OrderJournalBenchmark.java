@@ -0,0 +1,150 @@
+package com.farm.benchmark;
+
+
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderStatus;
+import com.farm.order.ingest.OrderEvent;
+import com.farm.order.journal.JournalProperties;
+import com.farm.order.journal.OrderJournal;
+import com.farm.order.store.OrderStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName OrderJournalBenchmark
+ * @Author phx
+ * @Date 2025/5/27 14:00
+ * @Description 订单日志的追加吞吐量与启动恢复耗时
+ * <p>
+ * append：每次调用追加一批下单事件并组提交，结果按订单数计（orders/s），fsync 参数对比每批刷盘与不刷盘；
+ * recover：回放 orders 个订单的日志并写入仓库，单次计时，即启动时恢复所需的时间
+ */
+
+@Fork(1)
+public class OrderJournalBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private static Order order(long id) {
+        return new Order(id, (int) (id % 1000) + 1, "土鸡蛋", 2990, OrderStatus.CREATED, 1747962000000L + id);
+    }
+
+    private static JournalProperties properties(Path dir, boolean fsync) {
+        JournalProperties properties = new JournalProperties();
+        properties.setDir(dir.toString());
+        properties.setFsync(fsync);
+        properties.setCompactThreshold(Integer.MAX_VALUE);
+        return properties;
+    }
+
+    @State(Scope.Benchmark)
+    public static class AppendState {
+
+        @Param({"true", "false"})
+        private boolean fsync;
+
+        private final List<OrderEvent> batch = new ArrayList<>(BATCH_SIZE);
+        private Path dir;
+        private OrderJournal journal;
+
+        @Setup(Level.Iteration)
+        public void setup() throws IOException {
+            for (long id = 1; id <= BATCH_SIZE; id++) {
+                batch.add(OrderEvent.place(order(id)));
+            }
+            dir = Files.createTempDirectory("order-journal-bench");
+            journal = new OrderJournal(properties(dir, fsync));
+            journal.replay(event -> {
+            });
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            journal.close();
+            batch.clear();
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoverState {
+
+        @Param({"1000000"})
+        private int orders;
+
+        private Path dir;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            dir = Files.createTempDirectory("order-journal-bench");
+            OrderJournal journal = new OrderJournal(properties(dir, false));
+            journal.replay(event -> {
+            });
+            List<OrderEvent> batch = new ArrayList<>(BATCH_SIZE);
+            for (long id = 1; id <= orders; id++) {
+                batch.add(OrderEvent.place(order(id)));
+                if (batch.size() == BATCH_SIZE || id == orders) {
+                    journal.append(batch);
+                    batch.clear();
+                }
+            }
+            journal.close();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void append(AppendState state) {
+        state.journal.append(state.batch);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public OrderStore recover(RecoverState state) {
+        OrderStore orderStore = new OrderStore();
+        List<OrderEvent> batch = new ArrayList<>(BATCH_SIZE);
+        OrderJournal journal = new OrderJournal(properties(state.dir, false));
+        journal.replay(event -> {
+            batch.add(event);
+            if (batch.size() == BATCH_SIZE) {
+                orderStore.apply(batch);
+                batch.clear();
+            }
+        });
+        orderStore.apply(batch);
+        journal.close();
+        return orderStore;
+    }
+}
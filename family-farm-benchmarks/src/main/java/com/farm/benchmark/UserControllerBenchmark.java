@@ -0,0 +1,105 @@
+package com.farm.benchmark;
+
+
+import com.farm.FamilyFarmDemoApplication;
+import com.farm.store.UserStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName UserControllerBenchmark
+ * @Author phx
+ * @Date 2025/5/16 11:10
+ * @Description UserController 完整请求链路的基准测试
+ * <p>
+ * 启动完整的应用（随机端口），分别通过 MockMvc（不经过网络，包含 DispatcherServlet、参数解析、消息转换）
+ * 和真实 HTTP 请求（包含 Tomcat 与本机网络）访问用户接口。
+ * 关闭用户缓存，测量的是实际的读路径；所有请求来自同一个客户端，同时关闭准入控制
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserControllerBenchmark {
+
+    @Param({"100", "10000"})
+    private int storeSize;
+
+    private ServletWebServerApplicationContext context;
+    private MockMvc mockMvc;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    @Setup
+    public void setup() {
+        context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(FamilyFarmDemoApplication.class)
+                .run("--server.port=0",
+                        "--logging.level.root=warn",
+                        "--logging.level.org.springframework=warn",
+                        "--farm.user.cache.enabled=false",
+                        "--farm.admission.enabled=false");
+        context.getBean(UserStore.class).replaceAll(BenchmarkUsers.users(storeSize));
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        httpClient = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + context.getWebServer().getPort() + "/family/farm/demo";
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] mockMvcGetUserByIndex() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .get("/family/farm/demo/user/{index}", ThreadLocalRandom.current().nextInt(storeSize))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] mockMvcGetUserList() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .get("/family/farm/demo/list")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] httpGetUserByIndex() throws Exception {
+        URI uri = URI.create(baseUrl + "/user/" + ThreadLocalRandom.current().nextInt(storeSize));
+        return httpClient.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    public byte[] httpGetUserList() throws Exception {
+        URI uri = URI.create(baseUrl + "/list");
+        return httpClient.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+}
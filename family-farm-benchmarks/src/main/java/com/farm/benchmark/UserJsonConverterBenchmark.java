@@ -0,0 +1,107 @@
+package com.farm.benchmark;
+
+
+import com.farm.common.json.PreEncodedJsonHttpMessageConverter;
+import com.farm.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName UserJsonConverterBenchmark
+ * @Author phx
+ * @Date 2025/5/29 15:00
+ * @Description 对比 Jackson 默认转换器与预编码转换器输出 User、List&lt;User&gt; 的耗时
+ * <p>
+ * 两者都经过 HttpMessageConverter.write，包含设置响应头，写到空输出流；
+ * 预编码转换器在 setup 中预热过缓存，测的是稳态（用户数据不变、反复查询）下的开销
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserJsonConverterBenchmark {
+
+    private static final Type USER_LIST = new ParameterizedTypeReference<List<User>>() {
+    }.getType();
+
+    @Param({"1", "100", "10000"})
+    private int listSize;
+
+    private MappingJackson2HttpMessageConverter jackson;
+    private PreEncodedJsonHttpMessageConverter<User> preEncoded;
+    private User user;
+    private List<User> users;
+
+    /**
+     * 响应体写到空输出流，每次调用新建响应头，与真实请求一致
+     */
+    private static HttpOutputMessage outputMessage() {
+        HttpHeaders headers = new HttpHeaders();
+        return new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return OutputStream.nullOutputStream();
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        jackson = new MappingJackson2HttpMessageConverter(objectMapper);
+        preEncoded = new PreEncodedJsonHttpMessageConverter<>(User.class, objectMapper, 100_000);
+        users = BenchmarkUsers.users(listSize);
+        user = users.get(0);
+        preEncoded.write(users, USER_LIST, MediaType.APPLICATION_JSON, outputMessage());
+    }
+
+    @Benchmark
+    public void jacksonUser() throws IOException {
+        jackson.write(user, User.class, MediaType.APPLICATION_JSON, outputMessage());
+    }
+
+    @Benchmark
+    public void preEncodedUser() throws IOException {
+        preEncoded.write(user, User.class, MediaType.APPLICATION_JSON, outputMessage());
+    }
+
+    @Benchmark
+    public void jacksonUserList() throws IOException {
+        jackson.write(users, USER_LIST, MediaType.APPLICATION_JSON, outputMessage());
+    }
+
+    @Benchmark
+    public void preEncodedUserList() throws IOException {
+        preEncoded.write(users, USER_LIST, MediaType.APPLICATION_JSON, outputMessage());
+    }
+}
@@ -0,0 +1,86 @@
+package com.farm.benchmark;
+
+
+import com.farm.common.compression.ContentCoding;
+import com.farm.common.compression.PrecompressedBodyCache;
+import com.farm.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName UserListCompressionBenchmark
+ * @Author phx
+ * @Date 2025/6/16 16:00
+ * @Description 用户列表压缩输出的单次请求耗时：每次请求序列化并压缩，与按版本缓存的预压缩结果对比
+ * <p>
+ * perRequest 相当于容器层的动态压缩（server.compression），每次请求都序列化、压缩；
+ * cached 为 /list 的预压缩路径，数据版本不变时只是查一次缓存。压缩前后的字节数在 Setup 时打印到输出中。
+ * <p>
+ * 运行：java -jar family-farm-benchmarks/target/benchmarks.jar UserListCompressionBenchmark
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserListCompressionBenchmark {
+
+    @Param({"GZIP", "DEFLATE"})
+    private ContentCoding coding;
+
+    @Param({"1000", "100000"})
+    private int listSize;
+
+    @Param({"1", "6"})
+    private int level;
+
+    private ObjectMapper objectMapper;
+    private List<User> users;
+    private PrecompressedBodyCache cache;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        users = BenchmarkUsers.users(listSize);
+        cache = new PrecompressedBodyCache(level, 0);
+        byte[] raw = objectMapper.writeValueAsBytes(users);
+        System.out.printf("%n报文大小: coding=%s listSize=%d level=%d raw=%d compressed=%d%n",
+                coding, listSize, level, raw.length, coding.encode(raw, level).length);
+    }
+
+    @Benchmark
+    public byte[] perRequest() throws IOException {
+        return coding.encode(objectMapper.writeValueAsBytes(users), level);
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return cache.get(1, coding, this::json);
+    }
+
+    private byte[] json() {
+        try {
+            return objectMapper.writeValueAsBytes(users);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.farm.benchmark;
+
+
+import com.farm.entity.User;
+import com.farm.service.impl.UserServiceImpl;
+import com.farm.store.NameSearchIndex;
+import com.farm.store.UserStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName UserSearchBenchmark
+ * @Author phx
+ * @Date 2025/6/11 16:00
+ * @Description 名称搜索的基准测试：百万级用户下不同类型查询的延迟，以及单个用户改名时索引增量更新的耗时
+ * <p>
+ * 名称由常见姓氏 + 一到两个常用字组成，重名和共同前缀很多，接近真实数据的分布。查询类型：
+ * 单字姓氏（大量前缀匹配）、完整姓名（精确匹配）、名字中间的字（子串匹配）、不存在的名字（交集为空）
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserSearchBenchmark {
+
+    private static final String SURNAMES = "王李张刘陈杨黄赵吴周徐孙马朱胡郭何高林罗";
+    private static final String GIVEN = "伟芳娜秀英敏静丽强磊军洋勇艳杰娟涛明超秀兰霞平刚桂英华玉萍红娥玲芬燕彩春菊";
+
+    @Param({"1000000"})
+    private int storeSize;
+
+    @Param({"张", "张伟", "秀英", "龘龘"})
+    private String query;
+
+    private UserServiceImpl userService;
+    private NameSearchIndex nameIndex;
+    private List<User> users;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        users = users(storeSize);
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(users);
+        nameIndex = userStore.nameIndex();
+        userService = new UserServiceImpl(userStore);
+    }
+
+    @Benchmark
+    public List<User> search() {
+        return userService.searchUsers(query, 20);
+    }
+
+    /**
+     * 单个用户改名时名称索引的增量更新（不含快照重建），常见字的倒排列表有几十万个 id，只复制其增量部分
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void renameOne() {
+        User user = users.get(cursor++ % users.size());
+        User renamed = new User(user.getId(), user.getName() + "改");
+        nameIndex.update(List.of(user), List.of(renamed));
+        nameIndex.update(List.of(renamed), List.of(user));
+    }
+
+    static List<User> users(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<User> users = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            StringBuilder name = new StringBuilder();
+            name.append(SURNAMES.charAt(random.nextInt(SURNAMES.length())));
+            int given = 1 + random.nextInt(2);
+            for (int j = 0; j < given; j++) {
+                name.append(GIVEN.charAt(random.nextInt(GIVEN.length())));
+            }
+            users.add(new User(i, name.toString()));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,65 @@
+package com.farm.benchmark;
+
+
+import com.farm.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName UserSerializationBenchmark
+ * @Author phx
+ * @Date 2025/5/16 10:45
+ * @Description User 的 Jackson 序列化基准测试
+ * <p>
+ * ObjectMapper 与 Spring Boot 默认配置一致（Jackson2ObjectMapperBuilder），
+ * 写到空输出流，与 MVC 写响应体的方式相同，不计入 byte[] 扩容
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private User user;
+    private List<User> users;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        users = BenchmarkUsers.users(listSize);
+        user = users.get(0);
+    }
+
+    @Benchmark
+    public void writeUser() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), user);
+    }
+
+    @Benchmark
+    public void writeUserList() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), users);
+    }
+}
@@ -0,0 +1,93 @@
+package com.farm.benchmark;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserPage;
+import com.farm.service.impl.UserServiceImpl;
+import com.farm.store.UserStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName UserServiceBenchmark
+ * @Author phx
+ * @Date 2025/5/16 10:20
+ * @Description UserServiceImpl 读路径的基准测试，按仓库中的用户数量参数化
+ * <p>
+ * 查询的下标、ID 预先随机生成，避免在测量中计入随机数和缓存命中偏差。
+ * 加 -prof gc 可以看到每次调用的分配字节数（gc.alloc.rate.norm）
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserServiceBenchmark {
+
+    private static final int SAMPLES = 1 << 12;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"100", "10000", "1000000"})
+    private int storeSize;
+
+    private UserServiceImpl userService;
+    private int[] indexes;
+    private int[][] batches;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(BenchmarkUsers.users(storeSize));
+        userService = new UserServiceImpl(userStore);
+
+        SplittableRandom random = new SplittableRandom(42);
+        indexes = new int[SAMPLES];
+        batches = new int[SAMPLES][];
+        for (int i = 0; i < SAMPLES; i++) {
+            indexes[i] = random.nextInt(storeSize);
+            // 一半的ID不存在，覆盖部分未命中的情况
+            batches[i] = random.ints(BATCH_SIZE, 1, storeSize * 2 + 1).toArray();
+        }
+    }
+
+    private int next() {
+        return cursor++ & (SAMPLES - 1);
+    }
+
+    @Benchmark
+    public User getUserByIndex() {
+        return userService.getUserByIndex(indexes[next()]);
+    }
+
+    @Benchmark
+    public List<User> getUserList() {
+        return userService.getUserList();
+    }
+
+    @Benchmark
+    public UserPage getUserPage() {
+        return userService.getUserPage(indexes[next()], 100);
+    }
+
+    @Benchmark
+    public UserBatchResult getUsersByIds() {
+        return userService.getUsersByIds(batches[next()]);
+    }
+}
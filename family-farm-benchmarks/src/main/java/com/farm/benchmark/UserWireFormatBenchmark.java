@@ -0,0 +1,80 @@
+package com.farm.benchmark;
+
+
+import com.farm.entity.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName UserWireFormatBenchmark
+ * @Author phx
+ * @Date 2025/6/13 10:30
+ * @Description 用户接口各响应格式（JSON、CBOR、Smile）的编码、解码耗时与报文大小
+ * <p>
+ * 三种格式都用 Jackson2ObjectMapperBuilder 构建，与应用中转换器的配置一致。
+ * 编码写到空输出流；解码从预先编码好的字节数组读取。报文字节数在 Setup 时打印到输出中。
+ * <p>
+ * 运行：java -jar family-farm-benchmarks/target/benchmarks.jar UserWireFormatBenchmark
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserWireFormatBenchmark {
+
+    private static final TypeReference<List<User>> USER_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1", "1000"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<User> users;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException("未知格式: " + format);
+        };
+        users = BenchmarkUsers.users(listSize);
+        encoded = objectMapper.writeValueAsBytes(users);
+        System.out.printf("%n报文大小: format=%s listSize=%d bytes=%d%n", format, listSize, encoded.length);
+    }
+
+    @Benchmark
+    public void encode() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), users);
+    }
+
+    @Benchmark
+    public List<User> decode() throws IOException {
+        return objectMapper.readValue(encoded, USER_LIST);
+    }
+}
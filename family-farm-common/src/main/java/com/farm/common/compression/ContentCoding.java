@@ -0,0 +1,125 @@
+package com.farm.common.compression;
+
+
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @ClassName ContentCoding
+ * @Author phx
+ * @Date 2025/6/16 9:30
+ * @Description HTTP 响应体的压缩编码（Content-Encoding），只包含 JDK 自带实现的 gzip 与 deflate
+ */
+
+public enum ContentCoding {
+
+    GZIP("gzip"),
+
+    /**
+     * HTTP 的 deflate 是带 zlib 头的格式，即 Deflater 的默认格式（nowrap=false）
+     */
+    DEFLATE("deflate");
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Content-Encoding 头中的名称
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * 按给定的压缩级别（0~9，-1 为默认）压缩
+     */
+    public byte[] encode(byte[] body, int level) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try {
+            if (this == GZIP) {
+                try (OutputStream out = new LeveledGzipOutputStream(buffer, level)) {
+                    out.write(body);
+                }
+            } else {
+                // 自行传入的 Deflater 不会随输出流关闭，需要手动释放本地内存
+                Deflater deflater = new Deflater(level);
+                try (OutputStream out = new DeflaterOutputStream(buffer, deflater)) {
+                    out.write(body);
+                } finally {
+                    deflater.end();
+                }
+            }
+        } catch (IOException e) {
+            // 写入内存，不会发生
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 按 Accept-Encoding 选择压缩编码：q 值最高者优先，相同时 gzip 优先；
+     * 明确写了 identity 且其 q 值更高、或 gzip 与 deflate 都不可接受时返回 null，即不压缩
+     */
+    @Nullable
+    public static ContentCoding negotiate(@Nullable String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double identity = -1;
+        double any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=") || param.startsWith("Q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (params[0].trim().toLowerCase(Locale.ROOT)) {
+                case "gzip", "x-gzip" -> gzip = q;
+                case "deflate" -> deflate = q;
+                case "identity" -> identity = q;
+                case "*" -> any = q;
+                default -> {
+                }
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        ContentCoding best = gzip >= deflate ? GZIP : DEFLATE;
+        double quality = Math.max(gzip, deflate);
+        if (quality <= 0 || identity > quality) {
+            return null;
+        }
+        return best;
+    }
+
+    /**
+     * GZIPOutputStream 没有提供设置压缩级别的构造方法
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        private LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+    }
+}
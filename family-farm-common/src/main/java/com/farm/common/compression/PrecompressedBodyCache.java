@@ -0,0 +1,106 @@
+package com.farm.common.compression;
+
+
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName PrecompressedBodyCache
+ * @Author phx
+ * @Date 2025/6/16 10:00
+ * @Description 按数据版本缓存一个大响应体的各压缩编码，稳态下每次请求只是复制一份内存中的字节
+ * <p>
+ * 只保留最新版本的一组压缩结果：请求带着更新的版本号到来时整组替换，旧版本随即成为垃圾。
+ * 每种编码在首次被请求时才生成（序列化 + 压缩），同一版本、同一编码的并发请求只有一个在生成，其余等待结果。
+ * <p>
+ * 未压缩的响应体小于 minSize 时不值得压缩，记录下来后直接返回 null，由调用方走普通的输出路径。
+ */
+
+public final class PrecompressedBodyCache {
+
+    /**
+     * 不压缩的标记，压缩结果不会是空数组
+     */
+    private static final byte[] UNCOMPRESSED = new byte[0];
+
+    private final int level;
+    private final int minSize;
+    private volatile Entry entry;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param level   压缩级别，0~9，-1 为默认（6）；每个版本只压缩一次，可以选择较高的级别
+     * @param minSize 未压缩的响应体小于该字节数时不压缩
+     */
+    public PrecompressedBodyCache(int level, int minSize) {
+        if (level < -1 || level > 9) {
+            throw new IllegalArgumentException("level 取值范围 -1~9: " + level);
+        }
+        this.level = level;
+        this.minSize = minSize;
+    }
+
+    /**
+     * 返回版本 version 的响应体按 coding 压缩后的字节，调用方不能修改返回的数组
+     *
+     * @param body 生成未压缩的响应体，只在该版本、该编码第一次被请求时调用
+     * @return 未压缩的响应体小于 minSize 时返回 null
+     */
+    @Nullable
+    public byte[] get(long version, ContentCoding coding, Supplier<byte[]> body) {
+        Entry current = entry;
+        if (current == null || current.version != version) {
+            current = advance(version);
+        }
+        byte[] compressed = current.bodies.get(coding);
+        if (compressed != null) {
+            hits.increment();
+        } else {
+            compressed = current.bodies.computeIfAbsent(coding, key -> {
+                misses.increment();
+                byte[] raw = body.get();
+                return raw.length < minSize ? UNCOMPRESSED : key.encode(raw, level);
+            });
+        }
+        return compressed == UNCOMPRESSED ? null : compressed;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 切换到新版本；版本号比当前缓存的还旧时（读到版本号后被其它写入抢先）不替换，
+     * 返回一个不发布的临时条目，避免新旧版本来回替换
+     */
+    private synchronized Entry advance(long version) {
+        Entry current = entry;
+        if (current != null && current.version > version) {
+            return new Entry(version);
+        }
+        if (current == null || current.version < version) {
+            current = new Entry(version);
+            entry = current;
+        }
+        return current;
+    }
+
+    private static final class Entry {
+
+        private final long version;
+        private final Map<ContentCoding, byte[]> bodies = new ConcurrentHashMap<>(4);
+
+        private Entry(long version) {
+            this.version = version;
+        }
+    }
+}
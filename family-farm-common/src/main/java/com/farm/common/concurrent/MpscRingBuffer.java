@@ -0,0 +1,121 @@
+package com.farm.common.concurrent;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName MpscRingBuffer
+ * @Author phx
+ * @Date 2025/5/21 9:30
+ * @Description 有界、无锁的多生产者单消费者环形队列
+ * <p>
+ * 生产者通过 CAS 抢占写入位置，队列满时 {@link #offer} 立即返回 false，由调用方决定丢弃还是重试，
+ * 生产者永远不会阻塞；消费者只能有一个线程，按写入位置的顺序批量取出元素。
+ * 生产者抢到位置后才写入元素，消费者遇到已抢占但尚未写入的位置时停止本次取出，下次再取。
+ */
+
+public final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 写入一个元素，可由任意线程并发调用
+     *
+     * @return 队列已满时返回 false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        long capacity = mask + 1;
+        while (true) {
+            long producer = producerIndex.get();
+            if (producer - consumerIndex.get() >= capacity) {
+                return false;
+            }
+            if (producerIndex.compareAndSet(producer, producer + 1)) {
+                buffer.lazySet((int) producer & mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 取出一个元素，只能由消费者线程调用
+     *
+     * @return 队列为空（或下一个位置尚未写入完成）时返回 null
+     */
+    public E poll() {
+        long consumer = consumerIndex.get();
+        int offset = (int) consumer & mask;
+        E element = buffer.get(offset);
+        if (element == null) {
+            return null;
+        }
+        buffer.lazySet(offset, null);
+        consumerIndex.lazySet(consumer + 1);
+        return element;
+    }
+
+    /**
+     * 批量取出元素，只能由消费者线程调用
+     *
+     * @param limit 最多取出的个数
+     * @return 实际取出的个数
+     */
+    public int drain(Consumer<? super E> consumer, int limit) {
+        long index = consumerIndex.get();
+        int drained = 0;
+        while (drained < limit) {
+            int offset = (int) index & mask;
+            E element = buffer.get(offset);
+            if (element == null) {
+                break;
+            }
+            buffer.lazySet(offset, null);
+            index++;
+            drained++;
+            consumer.accept(element);
+        }
+        if (drained > 0) {
+            consumerIndex.lazySet(index);
+        }
+        return drained;
+    }
+
+    /**
+     * 当前元素个数（近似值）
+     */
+    public int size() {
+        long size = producerIndex.get() - consumerIndex.get();
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+
+    public boolean isEmpty() {
+        return producerIndex.get() == consumerIndex.get();
+    }
+}
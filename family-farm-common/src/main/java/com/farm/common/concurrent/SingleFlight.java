@@ -0,0 +1,85 @@
+package com.farm.common.concurrent;
+
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName SingleFlight
+ * @Author phx
+ * @Date 2025/6/18 9:30
+ * @Description 合并并发的相同调用：同一个键同时只执行一次，执行期间到达的调用等待并共享这一次的结果
+ * <p>
+ * 第一个到达的调用在自己的线程上执行，并把结果（或异常）放进 CompletableFuture；
+ * 其余调用等待同一个 CompletableFuture。执行结束后立即移除，之后到达的调用重新执行——只合并同时进行的调用，不缓存结果。
+ * <p>
+ * 执行抛出的异常原样抛给所有等待的调用（同一个异常实例）。
+ * 执行过程中不能以相同的键再次调用，否则会等待自己而死锁
+ */
+
+public final class SingleFlight<K> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return (V) await(existing);
+        }
+        executions.increment();
+        try {
+            V value = supplier.get();
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 实际执行的次数
+     */
+    public long executionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * 等待其它调用结果、没有自己执行的次数
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 正在执行的键的个数
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
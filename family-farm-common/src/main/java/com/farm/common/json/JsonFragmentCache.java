@@ -0,0 +1,80 @@
+package com.farm.common.json;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName JsonFragmentCache
+ * @Author phx
+ * @Date 2025/5/29 9:30
+ * @Description 不可变对象 -> 其 JSON 编码（UTF-8 字节）的缓存
+ * <p>
+ * 以对象本身为键（按 equals/hashCode 比较），因此只能用于值语义的不可变对象：
+ * 内容相同的对象共享同一份编码，内容变化后就是另一个键，不会读到旧的编码。
+ * 编码由传入的 ObjectMapper 完成，与直接用 Jackson 序列化的字节完全一致。
+ * 条目数由 Caffeine 限制在上限内（W-TinyLFU 淘汰），数据集超过上限时只淘汰访问频率低的条目，
+ * 热点对象的编码保留在缓存中，不会因为一次整体清空而全部重新编码
+ */
+
+public final class JsonFragmentCache<T> {
+
+    private final ObjectWriter writer;
+    private final Cache<T, byte[]> fragments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public JsonFragmentCache(Class<T> type, ObjectMapper objectMapper, int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize 必须大于0: " + maximumSize);
+        }
+        this.writer = objectMapper.writerFor(type);
+        this.fragments = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                // 淘汰在调用线程上完成，不占用公共线程池
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * 返回对象的 JSON 编码，调用方不能修改返回的数组
+     */
+    public byte[] get(T value) {
+        byte[] fragment = fragments.getIfPresent(value);
+        if (fragment != null) {
+            hits.increment();
+            return fragment;
+        }
+        misses.increment();
+        try {
+            fragment = writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("JSON 编码失败: " + e.getOriginalMessage(), e);
+        }
+        fragments.put(value, fragment);
+        return fragment;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        fragments.cleanUp();
+        return (int) fragments.estimatedSize();
+    }
+
+    public void clear() {
+        fragments.invalidateAll();
+    }
+}
@@ -0,0 +1,122 @@
+package com.farm.common.json;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * @ClassName PreEncodedJsonHttpMessageConverter
+ * @Author phx
+ * @Date 2025/5/29 10:00
+ * @Description 用预先编码好的 JSON 片段输出某个不可变类型及其集合的 HttpMessageConverter
+ * <p>
+ * 每个对象只在第一次输出时经过 Jackson 编码，之后直接从 {@link JsonFragmentCache} 取出字节写入响应流；
+ * 集合按 [片段,片段,...] 拼接写出，不再为每个元素反射取值、转义、编码字符串。输出与 Jackson 默认的紧凑格式逐字节一致。
+ * <p>
+ * 只负责写，不负责读；只匹配 application/json，且声明的返回类型是 T 或 Collection&lt;T&gt;，其它类型交给后面的转换器。
+ * 注册为 Spring Bean 后 Spring Boot 会把它排在默认转换器之前
+ */
+
+public class PreEncodedJsonHttpMessageConverter<T> extends AbstractGenericHttpMessageConverter<Object> {
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final Class<T> elementType;
+    private final JsonFragmentCache<T> cache;
+
+    /**
+     * @param elementType 值语义的不可变类型，按 equals/hashCode 缓存编码
+     * @param maximumSize 最多缓存的对象数
+     */
+    public PreEncodedJsonHttpMessageConverter(Class<T> elementType, ObjectMapper objectMapper, int maximumSize) {
+        super(MediaType.APPLICATION_JSON);
+        this.elementType = elementType;
+        this.cache = new JsonFragmentCache<>(elementType, objectMapper, maximumSize);
+    }
+
+    public JsonFragmentCache<T> getCache() {
+        return cache;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return elementType.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return canWrite(mediaType) && isElementOrCollection(type != null ? type : clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream body = outputMessage.getBody();
+        if (value instanceof Collection<?> collection) {
+            body.write('[');
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) {
+                    body.write(',');
+                }
+                body.write(element == null ? NULL : cache.get(elementType.cast(element)));
+                first = false;
+            }
+            body.write(']');
+        } else {
+            body.write(cache.get(elementType.cast(value)));
+        }
+    }
+
+    /**
+     * 单个对象的长度已知，写出 Content-Length；集合不预先计算长度，避免每个元素查两次缓存
+     */
+    @Override
+    protected Long getContentLength(Object value, @Nullable MediaType contentType) {
+        return elementType.isInstance(value) ? (long) cache.get(elementType.cast(value)).length : null;
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支持读取", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支持读取", inputMessage);
+    }
+
+    private boolean isElementOrCollection(Type type) {
+        if (type instanceof Class<?> clazz) {
+            return elementType.isAssignableFrom(clazz);
+        }
+        if (type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw
+                && Collection.class.isAssignableFrom(raw)) {
+            Type[] arguments = parameterized.getActualTypeArguments();
+            return arguments.length == 1 && arguments[0] instanceof Class<?> argument
+                    && elementType.isAssignableFrom(argument);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,71 @@
+package com.farm.common.web;
+
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * @ClassName RequestCompletion
+ * @Author phx
+ * @Date 2025/5/21 15:00
+ * @Description 过滤器在请求结束时执行收尾动作（记录指标、访问日志、归还并发名额）的公共逻辑
+ * <p>
+ * 同步请求在 filterChain.doFilter 返回后即已结束；异步请求（如 NDJSON 流式输出）doFilter 返回时还在处理，
+ * 收尾动作注册为 AsyncListener，异步处理完成时执行。onComplete 在正常完成、超时、出错后都会被调用且只调用一次
+ */
+
+public final class RequestCompletion {
+
+    private RequestCompletion() {
+    }
+
+    /**
+     * 请求已进入异步处理时注册 callback，在异步处理完成时执行
+     *
+     * @return 已注册返回 true，调用方不再同步执行收尾动作；请求不是异步请求时返回 false
+     */
+    public static boolean whenAsyncComplete(HttpServletRequest request, Runnable callback) {
+        if (!request.isAsyncStarted()) {
+            return false;
+        }
+        request.getAsyncContext().addListener(new CompletionListener(callback));
+        return true;
+    }
+
+    /**
+     * doFilter 抛出未处理异常时请求的状态码：此时响应状态仍是默认的 200，
+     * 响应未提交时容器随后返回 500，已提交时客户端收到的是已写出的状态。
+     * OncePerRequestFilter 不处理之后的 ERROR 分派，过滤器只能在捕获异常时按这个状态记录
+     */
+    public static int statusOnError(HttpServletResponse response) {
+        return response.isCommitted() ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+    }
+
+    private static final class CompletionListener implements AsyncListener {
+
+        private final Runnable callback;
+
+        private CompletionListener(Runnable callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            callback.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.farm.common.compression;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * @ClassName PrecompressedBodyCacheTest
+ * @Author phx
+ * @Date 2025/6/16 11:00
+ * @Description 测试压缩编码协商、压缩结果可还原，以及按版本缓存、并发只生成一次、小响应体不压缩
+ */
+
+public class PrecompressedBodyCacheTest {
+
+    private static final byte[] BODY = "[{\"id\":1,\"name\":\"用户名1\"}]".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    private static byte[] decode(ContentCoding coding, byte[] compressed) throws IOException {
+        try (InputStream in = coding == ContentCoding.GZIP
+                ? new GZIPInputStream(new ByteArrayInputStream(compressed))
+                : new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * q 值最高者优先，相同时 gzip 优先；identity 更高、全部不可接受或未带 Accept-Encoding 时不压缩
+     */
+    @Test
+    public void negotiateTest() {
+        Assertions.assertNull(ContentCoding.negotiate(null));
+        Assertions.assertNull(ContentCoding.negotiate(""));
+        Assertions.assertNull(ContentCoding.negotiate("br"));
+        Assertions.assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("gzip, deflate, br"));
+        Assertions.assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("deflate, gzip"));
+        Assertions.assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("X-GZIP"));
+        Assertions.assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0.5, deflate"));
+        Assertions.assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0, *"));
+        Assertions.assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("*"));
+        Assertions.assertNull(ContentCoding.negotiate("gzip;q=0, deflate;q=0"));
+        Assertions.assertNull(ContentCoding.negotiate("gzip;q=0.5, identity"));
+        Assertions.assertNull(ContentCoding.negotiate("*;q=0"));
+    }
+
+    /**
+     * 各编码、各压缩级别的结果都能还原为原始字节，且比原始字节小
+     */
+    @Test
+    public void encodeTest() throws IOException {
+        for (ContentCoding coding : ContentCoding.values()) {
+            for (int level : new int[]{-1, 1, 9}) {
+                byte[] compressed = coding.encode(BODY, level);
+                Assertions.assertTrue(compressed.length < BODY.length);
+                Assertions.assertArrayEquals(BODY, decode(coding, compressed));
+            }
+        }
+    }
+
+    /**
+     * 同一版本、同一编码只生成一次；版本变化后重新生成；旧版本的请求不替换新版本的缓存
+     */
+    @Test
+    public void versionTest() throws IOException {
+        PrecompressedBodyCache cache = new PrecompressedBodyCache(6, 0);
+        AtomicInteger generated = new AtomicInteger();
+
+        byte[] first = cache.get(1, ContentCoding.GZIP, () -> {
+            generated.incrementAndGet();
+            return BODY;
+        });
+        Assertions.assertArrayEquals(BODY, decode(ContentCoding.GZIP, first));
+        Assertions.assertSame(first, cache.get(1, ContentCoding.GZIP, () -> {
+            throw new AssertionError("不应重新生成");
+        }));
+        Assertions.assertEquals(1, generated.get());
+        Assertions.assertEquals(1, cache.hitCount());
+        Assertions.assertEquals(1, cache.missCount());
+
+        // 另一种编码单独生成
+        byte[] deflated = cache.get(1, ContentCoding.DEFLATE, () -> BODY);
+        Assertions.assertArrayEquals(BODY, decode(ContentCoding.DEFLATE, deflated));
+
+        byte[] changed = "[]".repeat(10).getBytes(StandardCharsets.UTF_8);
+        Assertions.assertArrayEquals(changed, decode(ContentCoding.GZIP, cache.get(2, ContentCoding.GZIP, () -> changed)));
+
+        // 旧版本得到按旧数据生成的结果，但不影响版本 2 的缓存
+        Assertions.assertArrayEquals(BODY, decode(ContentCoding.GZIP, cache.get(1, ContentCoding.GZIP, () -> BODY)));
+        Assertions.assertArrayEquals(changed, decode(ContentCoding.GZIP, cache.get(2, ContentCoding.GZIP, () -> {
+            throw new AssertionError("不应重新生成");
+        })));
+    }
+
+    /**
+     * 未压缩的响应体小于 minSize 时返回 null，且同一版本不再生成
+     */
+    @Test
+    public void minSizeTest() {
+        PrecompressedBodyCache cache = new PrecompressedBodyCache(6, BODY.length + 1);
+        AtomicInteger generated = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertNull(cache.get(1, ContentCoding.GZIP, () -> {
+                generated.incrementAndGet();
+                return BODY;
+            }));
+        }
+        Assertions.assertEquals(1, generated.get());
+    }
+
+    /**
+     * 同一版本的并发请求只生成一次，所有请求得到同一份结果
+     */
+    @Test
+    public void concurrentTest() throws Exception {
+        PrecompressedBodyCache cache = new PrecompressedBodyCache(6, 0);
+        AtomicInteger generated = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            byte[][] results = new byte[threads][];
+            for (int i = 0; i < threads; i++) {
+                int index = i;
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    results[index] = cache.get(7, ContentCoding.GZIP, () -> {
+                        generated.incrementAndGet();
+                        return BODY;
+                    });
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            Assertions.assertEquals(1, generated.get());
+            for (byte[] result : results) {
+                Assertions.assertSame(results[0], result);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
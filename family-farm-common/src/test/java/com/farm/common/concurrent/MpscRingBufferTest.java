@@ -0,0 +1,88 @@
+package com.farm.common.concurrent;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @ClassName MpscRingBufferTest
+ * @Author phx
+ * @Date 2025/5/21 10:40
+ * @Description 测试多生产者单消费者环形队列
+ */
+
+public class MpscRingBufferTest {
+
+    /**
+     * 容量取整为 2 的幂，满了之后 offer 返回 false，取出后可以继续写入
+     */
+    @Test
+    public void capacityTest() {
+        MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<>(3);
+        Assertions.assertEquals(4, ringBuffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(ringBuffer.offer(i));
+        }
+        Assertions.assertFalse(ringBuffer.offer(4));
+        Assertions.assertEquals(0, ringBuffer.poll());
+        Assertions.assertTrue(ringBuffer.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        Assertions.assertEquals(4, ringBuffer.drain(drained::add, 10));
+        Assertions.assertEquals(List.of(1, 2, 3, 4), drained);
+        Assertions.assertTrue(ringBuffer.isEmpty());
+        Assertions.assertNull(ringBuffer.poll());
+    }
+
+    /**
+     * 多个生产者并发写入，消费者取出的元素不重不漏，且每个生产者内部保持写入顺序
+     */
+    @Test
+    public void concurrentTest() throws Exception {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscRingBuffer<long[]> ringBuffer = new MpscRingBuffer<>(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!ringBuffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        long[] next = new long[producers];
+        long received = 0;
+        while (received < (long) producers * perProducer) {
+            long[] element = ringBuffer.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Assertions.assertEquals(next[(int) element[0]]++, element[1]);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertTrue(ringBuffer.isEmpty());
+    }
+}
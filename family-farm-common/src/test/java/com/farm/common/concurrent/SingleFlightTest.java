@@ -0,0 +1,126 @@
+package com.farm.common.concurrent;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @ClassName SingleFlightTest
+ * @Author phx
+ * @Date 2025/6/18 10:00
+ * @Description 测试合并并发调用：相同的键只执行一次并共享结果与异常，不同的键、执行结束后的调用各自执行
+ */
+
+public class SingleFlightTest {
+
+    private static final int THREADS = 8;
+
+    /**
+     * 第一个调用阻塞在执行中，其余线程全部到达后再放行，只执行一次，所有线程拿到同一个结果
+     */
+    @Test
+    public void coalesceTest() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return result;
+                })));
+            }
+            waitUntil(() -> singleFlight.coalescedCount() == THREADS - 1);
+            Assertions.assertEquals(1, singleFlight.inFlightCount());
+            release.countDown();
+            for (Future<Object> future : futures) {
+                Assertions.assertSame(result, future.get(5, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(1, executions.get());
+            Assertions.assertEquals(1, singleFlight.executionCount());
+            Assertions.assertEquals(0, singleFlight.inFlightCount());
+
+            // 执行结束后不缓存，再次调用重新执行
+            singleFlight.execute("key", executions::incrementAndGet);
+            Assertions.assertEquals(2, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 执行抛出的异常原样抛给所有等待的调用
+     */
+    @Test
+    public void exceptionTest() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("查询失败");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return singleFlight.execute("key", () -> {
+                            await(release);
+                            throw failure;
+                        });
+                    } catch (IllegalStateException e) {
+                        return e;
+                    }
+                }));
+            }
+            waitUntil(() -> singleFlight.coalescedCount() == THREADS - 1);
+            release.countDown();
+            for (Future<Object> future : futures) {
+                Assertions.assertSame(failure, future.get(5, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(0, singleFlight.inFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 不同的键互不等待
+     */
+    @Test
+    public void keyTest() {
+        SingleFlight<Integer> singleFlight = new SingleFlight<>();
+        Assertions.assertEquals("2", singleFlight.execute(1, () -> singleFlight.execute(2, () -> "2")));
+        Assertions.assertEquals(2, singleFlight.executionCount());
+        Assertions.assertEquals(0, singleFlight.coalescedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(1);
+        }
+    }
+}
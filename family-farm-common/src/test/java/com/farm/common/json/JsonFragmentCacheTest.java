@@ -0,0 +1,52 @@
+package com.farm.common.json;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @ClassName JsonFragmentCacheTest
+ * @Author phx
+ * @Date 2025/5/29 11:40
+ * @Description 测试 JSON 片段缓存在数据集超过上限时的淘汰与命中
+ */
+
+public class JsonFragmentCacheTest {
+
+    public record Item(int id, String name) {
+    }
+
+    /**
+     * 对象数是上限的两倍并反复全量输出时，缓存仍保留部分编码，命中率大于0，条目数不超过上限
+     */
+    @Test
+    public void overCapacityTest() {
+        JsonFragmentCache<Item> cache = new JsonFragmentCache<>(Item.class, new ObjectMapper(), 1000);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 2000; i++) {
+                cache.get(new Item(i, "用户名" + i));
+            }
+        }
+
+        Assertions.assertTrue(cache.hitCount() > 0);
+        Assertions.assertEquals(10_000, cache.hitCount() + cache.missCount());
+        Assertions.assertTrue(cache.size() <= 1000);
+    }
+
+    /**
+     * 少数热点对象夹在大量冷门对象中访问时，热点对象的编码不被冷门对象挤出
+     */
+    @Test
+    public void hotEntriesTest() {
+        JsonFragmentCache<Item> cache = new JsonFragmentCache<>(Item.class, new ObjectMapper(), 1000);
+        for (int i = 0; i < 100_000; i++) {
+            cache.get(new Item(i % 10, "热点"));
+            cache.get(new Item(1_000_000 + i, "冷门"));
+        }
+
+        // 10 个热点对象各只需编码一次左右，冷门对象全部未命中
+        Assertions.assertTrue(cache.hitCount() > 99_000);
+        Assertions.assertTrue(cache.size() <= 1000);
+    }
+}
@@ -0,0 +1,112 @@
+package com.farm.common.json;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @ClassName PreEncodedJsonHttpMessageConverterTest
+ * @Author phx
+ * @Date 2025/5/29 11:00
+ * @Description 测试预编码 JSON 转换器：输出与 Jackson 一致、只匹配目标类型、重复输出命中缓存
+ */
+
+public class PreEncodedJsonHttpMessageConverterTest {
+
+    public record Item(int id, String name) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static Type typeOf(ParameterizedTypeReference<?> reference) {
+        return reference.getType();
+    }
+
+    private byte[] write(PreEncodedJsonHttpMessageConverter<Item> converter, Object value, Type type) throws IOException {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        converter.write(value, type, MediaType.APPLICATION_JSON, outputMessage);
+        Assertions.assertEquals(MediaType.APPLICATION_JSON, outputMessage.getHeaders().getContentType());
+        return outputMessage.getBodyAsBytes();
+    }
+
+    /**
+     * 单个对象、列表、空列表、含 null 的列表，输出都与 Jackson 逐字节一致，含需要转义的字符和中文
+     */
+    @Test
+    public void sameAsJacksonTest() throws IOException {
+        PreEncodedJsonHttpMessageConverter<Item> converter =
+                new PreEncodedJsonHttpMessageConverter<>(Item.class, objectMapper, 100);
+        Type listType = typeOf(new ParameterizedTypeReference<List<Item>>() {
+        });
+
+        Item item = new Item(1, "用户名\"1\"\n\\");
+        Assertions.assertArrayEquals(objectMapper.writeValueAsBytes(item), write(converter, item, Item.class));
+
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(new Item(i, "用户名" + i));
+        }
+        Assertions.assertArrayEquals(objectMapper.writeValueAsBytes(items), write(converter, items, listType));
+        Assertions.assertArrayEquals(objectMapper.writeValueAsBytes(List.of()), write(converter, List.of(), listType));
+        List<Item> withNull = Arrays.asList(item, null);
+        Assertions.assertArrayEquals(objectMapper.writeValueAsBytes(withNull), write(converter, withNull, listType));
+    }
+
+    /**
+     * 只匹配 T 与 Collection&lt;T&gt; 且只写 application/json，不读
+     */
+    @Test
+    public void canWriteTest() {
+        PreEncodedJsonHttpMessageConverter<Item> converter =
+                new PreEncodedJsonHttpMessageConverter<>(Item.class, objectMapper, 100);
+        Assertions.assertTrue(converter.canWrite(Item.class, Item.class, MediaType.APPLICATION_JSON));
+        Assertions.assertTrue(converter.canWrite(typeOf(new ParameterizedTypeReference<List<Item>>() {
+        }), List.class, MediaType.APPLICATION_JSON));
+        Assertions.assertTrue(converter.canWrite(typeOf(new ParameterizedTypeReference<Set<Item>>() {
+        }), Set.class, null));
+        Assertions.assertFalse(converter.canWrite(typeOf(new ParameterizedTypeReference<List<String>>() {
+        }), List.class, MediaType.APPLICATION_JSON));
+        Assertions.assertFalse(converter.canWrite(typeOf(new ParameterizedTypeReference<Map<String, Item>>() {
+        }), Map.class, MediaType.APPLICATION_JSON));
+        Assertions.assertFalse(converter.canWrite(List.class, List.class, MediaType.APPLICATION_JSON));
+        Assertions.assertFalse(converter.canWrite(Item.class, Item.class, MediaType.APPLICATION_XML));
+        Assertions.assertFalse(converter.canWrite(Item.class, Item.class, MediaType.APPLICATION_NDJSON));
+        Assertions.assertFalse(converter.canRead(Item.class, Item.class, MediaType.APPLICATION_JSON));
+    }
+
+    /**
+     * 内容相同的对象共享缓存；超过上限后淘汰部分条目，条目数不超过上限
+     */
+    @Test
+    public void cacheTest() throws IOException {
+        PreEncodedJsonHttpMessageConverter<Item> converter =
+                new PreEncodedJsonHttpMessageConverter<>(Item.class, objectMapper, 2);
+        JsonFragmentCache<Item> cache = converter.getCache();
+
+        write(converter, new Item(1, "a"), Item.class);
+        write(converter, new Item(1, "a"), Item.class);
+        Assertions.assertEquals(1, cache.missCount());
+        Assertions.assertEquals(1, cache.size());
+
+        // 内容变化后是新的键
+        byte[] renamed = write(converter, new Item(1, "b"), Item.class);
+        Assertions.assertArrayEquals(objectMapper.writeValueAsBytes(new Item(1, "b")), renamed);
+        Assertions.assertEquals(2, cache.size());
+
+        write(converter, new Item(2, "c"), Item.class);
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(3, cache.missCount());
+    }
+}
@@ -2,6 +2,7 @@ package com.farm;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
 
 /**
  * @ClassName FamilyFarmDemoApplication
@@ -10,6 +11,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @Description TODO
  */
 
+@EnableAsync
 @SpringBootApplication
 public class FamilyFarmDemoApplication {
     public static void main(String[] args) {
@@ -0,0 +1,50 @@
+package com.farm.accesslog;
+
+
+import com.farm.common.web.RequestCompletion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * @ClassName AccessLogFilter
+ * @Author phx
+ * @Date 2025/5/21 15:10
+ * @Description 采集访问日志记录交给 {@link AsyncAccessLogWriter}，请求线程上不做任何格式化和 I/O
+ * <p>
+ * 异步请求在异步处理完成时记录，处理中抛出未处理异常的请求按 500 记录。由 AccessLogConfig 注册
+ */
+
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AsyncAccessLogWriter accessLogWriter;
+
+    public AccessLogFilter(AsyncAccessLogWriter accessLogWriter) {
+        this.accessLogWriter = accessLogWriter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } catch (Throwable e) {
+            append(request, start, RequestCompletion.statusOnError(response));
+            throw e;
+        }
+        if (!RequestCompletion.whenAsyncComplete(request, () -> append(request, start, response.getStatus()))) {
+            append(request, start, response.getStatus());
+        }
+    }
+
+    private void append(HttpServletRequest request, long start, int status) {
+        accessLogWriter.append(new AccessLogRecord(System.currentTimeMillis(), request.getRemoteAddr(),
+                request.getMethod(), request.getRequestURI(), request.getQueryString(),
+                status, System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,55 @@
+package com.farm.accesslog;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @ClassName AccessLogProperties
+ * @Author phx
+ * @Date 2025/5/21 14:10
+ * @Description 访问日志配置，前缀 farm.access-log
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.access-log")
+public class AccessLogProperties {
+
+    /**
+     * 是否记录访问日志
+     */
+    private boolean enabled = true;
+
+    /**
+     * 日志文件路径，滚动后的文件依次为 access.log.1、access.log.2 ...
+     */
+    private String file = "logs/access.log";
+
+    /**
+     * 环形缓冲区容量，写满后新的记录直接丢弃并计数
+     */
+    private int bufferSize = 65536;
+
+    /**
+     * 后台线程每批最多格式化、写出的记录数
+     */
+    private int batchSize = 1024;
+
+    /**
+     * 单个日志文件的最大大小，超过后滚动
+     */
+    private DataSize maxFileSize = DataSize.ofMegabytes(100);
+
+    /**
+     * 保留的历史文件个数
+     */
+    private int maxHistory = 7;
+
+    /**
+     * 缓冲区为空时后台线程的休眠时间
+     */
+    private Duration idleWait = Duration.ofMillis(10);
+}
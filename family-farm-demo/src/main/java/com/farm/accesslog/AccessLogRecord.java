@@ -0,0 +1,25 @@
+package com.farm.accesslog;
+
+
+import lombok.Value;
+
+/**
+ * @ClassName AccessLogRecord
+ * @Author phx
+ * @Date 2025/5/21 14:05
+ * @Description 一条访问日志，请求线程上只采集原始字段，格式化在后台线程完成
+ */
+
+@Value
+public class AccessLogRecord {
+    /**
+     * 请求结束时间（毫秒时间戳）
+     */
+    private long timestamp;
+    private String remoteAddr;
+    private String method;
+    private String uri;
+    private String query;
+    private int status;
+    private long durationNanos;
+}
@@ -0,0 +1,30 @@
+package com.farm.accesslog;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+/**
+ * @ClassName AccessLogStats
+ * @Author phx
+ * @Date 2025/5/21 14:15
+ * @Description 访问日志的计数
+ */
+
+@Value
+public class AccessLogStats {
+    @Schema(description = "写入缓冲区的记录数", example = "10000")
+    private long accepted;
+    @Schema(description = "缓冲区已满而丢弃的记录数", example = "0")
+    private long dropped;
+    @Schema(description = "已写入文件的记录数", example = "9990")
+    private long written;
+    @Schema(description = "已写入文件的批次数", example = "120")
+    private long batches;
+    @Schema(description = "写文件失败的次数", example = "0")
+    private long writeErrors;
+    @Schema(description = "文件滚动次数", example = "0")
+    private long rolls;
+    @Schema(description = "缓冲区中等待写出的记录数", example = "10")
+    private int pending;
+}
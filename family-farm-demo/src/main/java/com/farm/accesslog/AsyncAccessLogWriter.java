@@ -0,0 +1,219 @@
+package com.farm.accesslog;
+
+
+import com.farm.common.concurrent.MpscRingBuffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @ClassName AsyncAccessLogWriter
+ * @Author phx
+ * @Date 2025/5/21 14:30
+ * @Description 异步访问日志：请求线程把记录放进无锁环形缓冲区后立即返回，后台线程批量格式化并追加写入滚动文件
+ * <p>
+ * 缓冲区满时直接丢弃新记录并计数，请求线程永远不会因为日志而阻塞；
+ * 文件超过大小上限时滚动为 access.log.1、access.log.2 ...，超出保留个数的最旧文件被覆盖。
+ * 滚动失败（如重命名出错）时继续追加写入当前文件，下一批再尝试滚动。
+ * 关闭时先写完缓冲区中剩余的记录。
+ */
+
+@Slf4j
+public class AsyncAccessLogWriter implements Closeable {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ISO_INSTANT;
+
+    private final MpscRingBuffer<AccessLogRecord> buffer;
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxHistory;
+    private final int batchSize;
+    private final long idleWaitNanos;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * 以下字段只由后台线程修改
+     */
+    private volatile long written;
+    private volatile long batches;
+    private volatile long writeErrors;
+    private volatile long rolls;
+    private final StringBuilder batch = new StringBuilder(64 * 1024);
+    private OutputStream out;
+    private long fileSize;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public AsyncAccessLogWriter(AccessLogProperties properties) {
+        this.buffer = new MpscRingBuffer<>(properties.getBufferSize());
+        this.file = Path.of(properties.getFile());
+        this.maxFileSize = properties.getMaxFileSize().toBytes();
+        this.maxHistory = properties.getMaxHistory();
+        this.batchSize = properties.getBatchSize();
+        this.idleWaitNanos = properties.getIdleWait().toNanos();
+    }
+
+    /**
+     * 在请求线程上调用，只做一次无锁入队
+     *
+     * @return 缓冲区已满、记录被丢弃时返回 false
+     */
+    public boolean append(AccessLogRecord record) {
+        if (buffer.offer(record)) {
+            accepted.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        open();
+        running = true;
+        thread = new Thread(this::run, "access-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public AccessLogStats stats() {
+        return new AccessLogStats(accepted.sum(), dropped.sum(), written, batches, writeErrors, rolls, buffer.size());
+    }
+
+    private void run() {
+        while (running) {
+            if (writeBatch() == 0) {
+                LockSupport.parkNanos(idleWaitNanos);
+            }
+        }
+        while (writeBatch() > 0) {
+            // 写完剩余的记录
+        }
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.warn("关闭访问日志文件失败: {}", file, e);
+        }
+    }
+
+    /**
+     * 取出一批记录，格式化后一次写入文件
+     *
+     * @return 本批记录数
+     */
+    int writeBatch() {
+        batch.setLength(0);
+        int count = buffer.drain(this::format, batchSize);
+        if (count == 0) {
+            return 0;
+        }
+        byte[] bytes = batch.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (out == null) {
+                // 上次滚动后重新打开失败，本批再试一次
+                open();
+            }
+            if (fileSize > 0 && fileSize + bytes.length > maxFileSize) {
+                roll();
+            }
+            out.write(bytes);
+            fileSize += bytes.length;
+            written += count;
+            batches++;
+        } catch (IOException e) {
+            writeErrors++;
+            log.warn("写入访问日志失败，丢弃 {} 条记录: {}", count, file, e);
+        }
+        return count;
+    }
+
+    /**
+     * 格式：时间 客户端地址 方法 URI[?参数] 状态码 耗时(微秒)
+     */
+    private void format(AccessLogRecord record) {
+        TIME_FORMATTER.formatTo(Instant.ofEpochMilli(record.getTimestamp()), batch);
+        batch.append(' ').append(record.getRemoteAddr())
+                .append(' ').append(record.getMethod())
+                .append(' ').append(record.getUri());
+        if (record.getQuery() != null) {
+            batch.append('?').append(record.getQuery());
+        }
+        batch.append(' ').append(record.getStatus())
+                .append(' ').append(record.getDurationNanos() / 1000).append("us\n");
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new FileOutputStream(file.toFile(), true);
+        fileSize = Files.size(file);
+    }
+
+    /**
+     * 关闭当前文件并滚动，无论滚动是否成功都重新打开 file：
+     * 重命名失败时 file 仍是原文件，继续追加写入，日志不会因为一次滚动失败而停止
+     */
+    private void roll() throws IOException {
+        OutputStream current = out;
+        out = null;
+        current.close();
+        try {
+            if (maxHistory > 0) {
+                for (int i = maxHistory - 1; i >= 1; i--) {
+                    Path source = history(i);
+                    if (Files.exists(source)) {
+                        Files.move(source, history(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(file, history(1), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.delete(file);
+            }
+            rolls++;
+        } catch (IOException e) {
+            log.warn("滚动访问日志失败，继续写入当前文件: {}", file, e);
+        } finally {
+            open();
+        }
+    }
+
+    private Path history(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
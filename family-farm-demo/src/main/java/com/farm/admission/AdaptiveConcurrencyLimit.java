@@ -0,0 +1,148 @@
+package com.farm.admission;
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName AdaptiveConcurrencyLimit
+ * @Author phx
+ * @Date 2025/6/17 10:00
+ * @Description 自适应的全局并发上限：处理中的请求数达到上限时直接拒绝，排队在延迟崩溃之前就被挡在外面
+ * <p>
+ * 上限按延迟梯度调整：每个窗口（window，且至少 minWindowSamples 个样本）结束时，
+ * 用窗口内的平均延迟（短期）与长期平均延迟（基线）比较，
+ * gradient = clamp(rttTolerance * 长期 / 短期, 0.5, 1)，新上限 = 上限 * gradient + sqrt(上限)，再做平滑。
+ * 延迟正常时 gradient 为 1，上限每个窗口增加约 sqrt(上限)；延迟明显升高时上限按比例收缩。
+ * 处理中的请求数从未超过上限一半的窗口不增加上限，避免空闲时上限无限增长。
+ * <p>
+ * 放行是对处理中请求数的一次 CAS；延迟样本用 LongAdder 累加，只有关闭窗口的那个线程计算新的上限
+ */
+
+public final class AdaptiveConcurrencyLimit {
+
+    /**
+     * 长期延迟每个窗口向短期延迟靠近的比例
+     */
+    private static final double LONG_RTT_ALPHA = 0.05;
+
+    /**
+     * 新上限与旧上限的平滑系数
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private volatile double longRttNanos;
+
+    private final AtomicLong windowStart;
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance,
+                                    long windowNanos, int minWindowSamples) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("需满足 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (rttTolerance < 1) {
+            throw new IllegalArgumentException("rttTolerance 不能小于 1: " + rttTolerance);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.limit = initialLimit;
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 处理中的请求数未达到上限时占用一个名额，之后必须调用一次 {@link #release}
+     */
+    public boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还名额
+     *
+     * @param rttNanos 请求处理耗时，小于 0 表示不作为延迟样本（如异步请求，耗时取决于响应大小而不是负载）
+     */
+    public void release(long rttNanos) {
+        release(rttNanos, System.nanoTime());
+    }
+
+    void release(long rttNanos, long now) {
+        inFlight.decrementAndGet();
+        if (rttNanos < 0) {
+            return;
+        }
+        windowRttSum.add(rttNanos);
+        windowSamples.increment();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowSamples.sum() >= minWindowSamples
+                && windowStart.compareAndSet(start, now)) {
+            update(windowRttSum.sumThenReset(), windowSamples.sumThenReset(), windowMaxInFlight.getAndSet(inFlight.get()));
+        }
+    }
+
+    private void update(long rttSum, long samples, int maxInFlight) {
+        if (samples == 0) {
+            return;
+        }
+        double shortRtt = (double) rttSum / samples;
+        double longRtt = longRttNanos;
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) * LONG_RTT_ALPHA;
+            // 负载下降后短期延迟远低于基线，让基线更快回落，否则之后的延迟升高要很久才能被察觉
+            if (longRtt > shortRtt * 2) {
+                longRtt *= 0.95;
+            }
+        }
+        longRttNanos = longRtt;
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double next = current * gradient + Math.sqrt(current);
+        next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        if (next > current && maxInFlight < current / 2) {
+            return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 长期平均延迟（毫秒），还没有完整的窗口时为 0
+     */
+    public double getBaselineRttMillis() {
+        return longRttNanos / 1_000_000;
+    }
+}
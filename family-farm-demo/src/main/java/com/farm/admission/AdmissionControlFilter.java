@@ -0,0 +1,115 @@
+package com.farm.admission;
+
+
+import com.farm.common.web.RequestCompletion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName AdmissionControlFilter
+ * @Author phx
+ * @Date 2025/6/17 11:00
+ * @Description 准入控制：先按客户端限流，再检查全局并发上限，任一不满足直接返回 429，不进入后续处理
+ * <p>
+ * 先限流再占并发名额，单个客户端刷接口时在自己的令牌桶上被拒绝，不会占满全局并发名额；
+ * 429 带 Retry-After（秒），没有响应体，拒绝的开销尽量小。
+ * 异步请求（如 NDJSON 流式输出）在异步处理完成时归还名额，其耗时不作为延迟样本。
+ * 由 AdmissionConfig 注册，排在指标和访问日志之后，被拒绝的请求在两者中都有记录
+ */
+
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final int TOP_CLIENTS = 10;
+
+    private final ClientRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final String clientIdHeader;
+    private final List<String> excludePaths;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder concurrencyLimited = new LongAdder();
+
+    public AdmissionControlFilter(ClientRateLimiter rateLimiter, AdaptiveConcurrencyLimit concurrencyLimit,
+                                  AdmissionProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimit = concurrencyLimit;
+        this.clientIdHeader = properties.getClientIdHeader();
+        this.excludePaths = List.copyOf(properties.getExcludePaths());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String pattern : excludePaths) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long wait = rateLimiter.tryAcquire(clientId(request));
+        if (wait > 0) {
+            rateLimited.increment();
+            reject(response, wait);
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            concurrencyLimited.increment();
+            reject(response, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        admitted.increment();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } catch (Throwable e) {
+            concurrencyLimit.release(System.nanoTime() - start);
+            throw e;
+        }
+        // 异步请求完成（含超时、出错后完成）时归还名额
+        if (!RequestCompletion.whenAsyncComplete(request, () -> concurrencyLimit.release(-1))) {
+            concurrencyLimit.release(System.nanoTime() - start);
+        }
+    }
+
+    private String clientId(HttpServletRequest request) {
+        if (StringUtils.hasLength(clientIdHeader)) {
+            String clientId = request.getHeader(clientIdHeader);
+            if (StringUtils.hasLength(clientId)) {
+                return clientId;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    }
+
+    public AdmissionStats stats() {
+        return new AdmissionStats(admitted.sum(), rateLimited.sum(), concurrencyLimited.sum(),
+                concurrencyLimit.getLimit(), concurrencyLimit.getInFlight(), concurrencyLimit.getBaselineRttMillis(),
+                rateLimiter.clients(), rateLimiter.topRejected(TOP_CLIENTS));
+    }
+}
@@ -0,0 +1,87 @@
+package com.farm.admission;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ClassName AdmissionProperties
+ * @Author phx
+ * @Date 2025/6/17 10:30
+ * @Description 准入控制配置，前缀 farm.admission
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.admission")
+public class AdmissionProperties {
+
+    /**
+     * 是否启用准入控制（按客户端限流 + 自适应并发上限），默认关闭；
+     * 在反向代理之后启用时必须设置 clientIdHeader，否则所有请求都按代理地址共用一个令牌桶
+     */
+    private boolean enabled = false;
+
+    /**
+     * 不做准入控制的路径（Ant 风格），如指标查询、批量导入
+     */
+    private List<String> excludePaths = new ArrayList<>(List.of(
+            "/family/farm/demo/metrics/**", "/family/farm/demo/users:import"));
+
+    /**
+     * 标识客户端的请求头，为空或请求中没有该头时按来源地址区分；
+     * 请求头可以被任意设置，只应在可信的内部调用方之间使用，或由代理覆盖写入
+     */
+    private String clientIdHeader = "";
+
+    private final Rate rate = new Rate();
+
+    private final Concurrency concurrency = new Concurrency();
+
+    @Data
+    public static class Rate {
+
+        /**
+         * 每个客户端每秒的请求数
+         */
+        private double permitsPerSecond = 1000;
+
+        /**
+         * 令牌桶容量，即允许的突发请求数
+         */
+        private int burst = 2000;
+
+        /**
+         * 最多同时跟踪的客户端数，超出后新客户端共用一个令牌桶
+         */
+        private int maxClients = 100_000;
+    }
+
+    @Data
+    public static class Concurrency {
+
+        private int initialLimit = 64;
+
+        private int minLimit = 8;
+
+        private int maxLimit = 1024;
+
+        /**
+         * 延迟容忍倍数：窗口平均延迟超过长期平均延迟的该倍数后开始收缩并发上限
+         */
+        private double rttTolerance = 1.5;
+
+        /**
+         * 调整并发上限的窗口
+         */
+        private Duration window = Duration.ofMillis(100);
+
+        /**
+         * 一个窗口至少需要的延迟样本数，不足时窗口延长
+         */
+        private int minWindowSamples = 10;
+    }
+}
@@ -0,0 +1,34 @@
+package com.farm.admission;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * @ClassName AdmissionStats
+ * @Author phx
+ * @Date 2025/6/17 10:40
+ * @Description 准入控制的计数与当前状态
+ */
+
+@Value
+public class AdmissionStats {
+    @Schema(description = "放行的请求数", example = "100000")
+    private long admitted;
+    @Schema(description = "客户端超过速率而拒绝的请求数", example = "120")
+    private long rateLimited;
+    @Schema(description = "超过并发上限而拒绝的请求数", example = "0")
+    private long concurrencyLimited;
+    @Schema(description = "当前并发上限", example = "64")
+    private int limit;
+    @Schema(description = "处理中的请求数", example = "3")
+    private int inFlight;
+    @Schema(description = "长期平均延迟（毫秒）", example = "0.4")
+    private double baselineRttMillis;
+    @Schema(description = "持有令牌桶的客户端数", example = "12")
+    private int clients;
+    @Schema(description = "被限流次数最多的客户端及次数，溢出桶记为*")
+    private Map<String, Long> topRateLimitedClients;
+}
@@ -0,0 +1,157 @@
+package com.farm.admission;
+
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @ClassName ClientRateLimiter
+ * @Author phx
+ * @Date 2025/6/17 9:30
+ * @Description 按客户端限流：每个客户端一个令牌桶，速率 permitsPerSecond，容量 burst
+ * <p>
+ * 令牌桶按 GCRA 实现，每个桶只有一个 long（下一个令牌的理论到达时间），放行是一次 CAS，没有锁，
+ * 不同客户端之间互不争用；桶放在 ConcurrentHashMap 中，查找已有客户端是无锁读。
+ * <p>
+ * 桶空闲到装满后与不存在等价：客户端数达到 maxClients 时（至多每秒一次）清掉已装满的桶；
+ * 清理后仍然满，新客户端共用一个溢出桶，伪造大量客户端标识也无法绕过限流
+ */
+
+public final class ClientRateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    /**
+     * 产生一个令牌的间隔
+     */
+    private final long intervalNanos;
+
+    /**
+     * 桶的容量换算成时间：理论到达时间最多领先当前时间这么多
+     */
+    private final long capacityNanos;
+    private final int maxClients;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicLong nextSweep;
+
+    public ClientRateLimiter(double permitsPerSecond, int burst, int maxClients) {
+        if (permitsPerSecond <= 0 || burst < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("permitsPerSecond、burst、maxClients 必须为正数");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.capacityNanos = intervalNanos * burst;
+        this.maxClients = maxClients;
+        long now = System.nanoTime();
+        this.overflow = new TokenBucket(now);
+        this.nextSweep = new AtomicLong(now);
+    }
+
+    /**
+     * 取一个令牌
+     *
+     * @return 0 表示放行，否则为至少还要等待的纳秒数
+     */
+    public long tryAcquire(String client) {
+        return tryAcquire(client, System.nanoTime());
+    }
+
+    long tryAcquire(String client, long now) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = bucketFor(client, now);
+        }
+        long wait = bucket.tryAcquire(now, intervalNanos, capacityNanos);
+        if (wait > 0) {
+            bucket.rejected.incrementAndGet();
+        }
+        return wait;
+    }
+
+    private TokenBucket bucketFor(String client, long now) {
+        if (buckets.size() >= maxClients) {
+            sweep(now);
+            if (buckets.size() >= maxClients) {
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(client, key -> new TokenBucket(now));
+    }
+
+    /**
+     * 清掉已装满的桶。与清理并发的请求可能在被移除的桶上取到令牌，之后该客户端新建的桶是满的，
+     * 最多多放行一个桶的容量，换来清理不需要加锁
+     */
+    private void sweep(long now) {
+        long next = nextSweep.get();
+        if (now - next < 0 || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * 当前持有令牌桶的客户端数，不含溢出桶
+     */
+    public int clients() {
+        return buckets.size();
+    }
+
+    /**
+     * 被拒绝次数最多的 limit 个客户端（只统计仍持有令牌桶的客户端，溢出桶记为 "*"），按次数降序
+     */
+    public Map<String, Long> topRejected(int limit) {
+        List<Map.Entry<String, Long>> rejected = new ArrayList<>();
+        buckets.forEach((client, bucket) -> {
+            long count = bucket.rejected.get();
+            if (count > 0) {
+                rejected.add(Map.entry(client, count));
+            }
+        });
+        if (overflow.rejected.get() > 0) {
+            rejected.add(Map.entry("*", overflow.rejected.get()));
+        }
+        rejected.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : rejected.subList(0, Math.min(limit, rejected.size()))) {
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return top;
+    }
+
+    private static final class TokenBucket {
+
+        /**
+         * 下一个令牌的理论到达时间（System.nanoTime），不晚于当前时间表示桶是满的
+         */
+        private final AtomicLong theoreticalArrival;
+        private final AtomicLong rejected = new AtomicLong();
+
+        private TokenBucket(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        private long tryAcquire(long now, long intervalNanos, long capacityNanos) {
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long next = (arrival - now < 0 ? now : arrival) + intervalNanos;
+                long ahead = next - now;
+                if (ahead > capacityNanos) {
+                    return ahead - capacityNanos;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        private boolean isFull(long now) {
+            return theoreticalArrival.get() - now <= 0;
+        }
+    }
+}
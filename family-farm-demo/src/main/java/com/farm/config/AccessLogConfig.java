@@ -0,0 +1,42 @@
+package com.farm.config;
+
+
+import com.farm.accesslog.AccessLogFilter;
+import com.farm.accesslog.AccessLogProperties;
+import com.farm.accesslog.AsyncAccessLogWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.io.IOException;
+
+/**
+ * @ClassName AccessLogConfig
+ * @Author phx
+ * @Date 2025/5/21 15:30
+ * @Description 异步访问日志，farm.access-log.enabled=false 时关闭
+ */
+
+@Configuration
+@EnableConfigurationProperties(AccessLogProperties.class)
+@ConditionalOnProperty(prefix = "farm.access-log", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogConfig {
+
+    @Bean(destroyMethod = "close")
+    public AsyncAccessLogWriter accessLogWriter(AccessLogProperties properties) throws IOException {
+        AsyncAccessLogWriter writer = new AsyncAccessLogWriter(properties);
+        writer.start();
+        return writer;
+    }
+
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AsyncAccessLogWriter accessLogWriter) {
+        FilterRegistrationBean<AccessLogFilter> registration =
+                new FilterRegistrationBean<>(new AccessLogFilter(accessLogWriter));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
@@ -0,0 +1,48 @@
+package com.farm.config;
+
+
+import com.farm.admission.AdaptiveConcurrencyLimit;
+import com.farm.admission.AdmissionControlFilter;
+import com.farm.admission.AdmissionProperties;
+import com.farm.admission.ClientRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * @ClassName AdmissionConfig
+ * @Author phx
+ * @Date 2025/6/17 11:30
+ * @Description 准入控制，只作用于 /family/farm/demo 下的接口，farm.admission.enabled=true 时启用（默认关闭）
+ */
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ConditionalOnProperty(prefix = "farm.admission", name = "enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    @Bean
+    public AdmissionControlFilter admissionControlFilter(AdmissionProperties properties) {
+        AdmissionProperties.Rate rate = properties.getRate();
+        AdmissionProperties.Concurrency concurrency = properties.getConcurrency();
+        return new AdmissionControlFilter(
+                new ClientRateLimiter(rate.getPermitsPerSecond(), rate.getBurst(), rate.getMaxClients()),
+                new AdaptiveConcurrencyLimit(concurrency.getInitialLimit(), concurrency.getMinLimit(),
+                        concurrency.getMaxLimit(), concurrency.getRttTolerance(), concurrency.getWindow().toNanos(),
+                        concurrency.getMinWindowSamples()),
+                properties);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilterRegistration(
+            AdmissionControlFilter admissionControlFilter) {
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(admissionControlFilter);
+        registration.addUrlPatterns("/family/farm/demo/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 30);
+        return registration;
+    }
+}
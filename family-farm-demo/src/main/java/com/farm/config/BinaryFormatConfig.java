@@ -0,0 +1,35 @@
+package com.farm.config;
+
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * @ClassName BinaryFormatConfig
+ * @Author phx
+ * @Date 2025/6/13 9:30
+ * @Description 二进制响应格式：CBOR（application/cbor）与 Smile（application/x-jackson-smile），供内部服务间调用
+ * <p>
+ * 与 JSON 使用同一套 Jackson 配置（Spring Boot 提供的 Jackson2ObjectMapperBuilder，每次注入是新的实例），字段与 JSON 一一对应。
+ * 与 Spring MVC 默认的同类转换器同类型，Spring Boot 会在默认列表中原位替换，仍排在 JSON 之后：
+ * 请求不带 Accept 或 Accept 为 *&#47;* 时依然返回 JSON，只有明确要求二进制格式时才使用
+ */
+
+@Configuration
+public class BinaryFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
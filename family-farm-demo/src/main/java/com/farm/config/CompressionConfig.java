@@ -0,0 +1,28 @@
+package com.farm.config;
+
+
+import com.farm.common.compression.PrecompressedBodyCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @ClassName CompressionConfig
+ * @Author phx
+ * @Date 2025/6/16 14:10
+ * @Description 用户列表的预压缩缓存：按数据版本缓存 gzip、deflate 压缩后的 JSON，数据不变时不再序列化和压缩
+ * <p>
+ * 只用于 /list 的 JSON 表示；关闭后该接口不压缩，与其它接口一样
+ */
+
+@Configuration
+@EnableConfigurationProperties(PrecompressedProperties.class)
+@ConditionalOnProperty(prefix = "farm.json.precompressed", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CompressionConfig {
+
+    @Bean
+    public PrecompressedBodyCache userListBodyCache(PrecompressedProperties properties) {
+        return new PrecompressedBodyCache(properties.getLevel(), properties.getMinSize());
+    }
+}
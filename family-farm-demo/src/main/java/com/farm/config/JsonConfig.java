@@ -0,0 +1,31 @@
+package com.farm.config;
+
+
+import com.farm.common.json.PreEncodedJsonHttpMessageConverter;
+import com.farm.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @ClassName JsonConfig
+ * @Author phx
+ * @Date 2025/5/29 14:10
+ * @Description 注册 User 的预编码 JSON 转换器，Spring Boot 把 HttpMessageConverter 类型的 Bean 排在 Jackson 之前
+ * <p>
+ * User 不可变、按值比较，同一个用户的 JSON 只编码一次；编码使用应用的 ObjectMapper，输出与 Jackson 一致。
+ * UserPage、UserBatchResult 等其它类型仍由 Jackson 输出
+ */
+
+@Configuration
+@EnableConfigurationProperties(JsonProperties.class)
+@ConditionalOnProperty(prefix = "farm.json.pre-encoded", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JsonConfig {
+
+    @Bean
+    public PreEncodedJsonHttpMessageConverter<User> userJsonConverter(ObjectMapper objectMapper, JsonProperties properties) {
+        return new PreEncodedJsonHttpMessageConverter<>(User.class, objectMapper, properties.getMaximumSize());
+    }
+}
@@ -0,0 +1,27 @@
+package com.farm.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @ClassName JsonProperties
+ * @Author phx
+ * @Date 2025/5/29 14:00
+ * @Description 预编码 JSON 配置，前缀 farm.json.pre-encoded
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.json.pre-encoded")
+public class JsonProperties {
+
+    /**
+     * 是否用预编码的 JSON 片段输出 User 与 List&lt;User&gt;，关闭后由 Jackson 逐个序列化
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存编码的 User 数，超出后按访问频率淘汰
+     */
+    private int maximumSize = 100_000;
+}
@@ -0,0 +1,28 @@
+package com.farm.config;
+
+
+import com.farm.metrics.MetricsRegistry;
+import com.farm.metrics.RequestMetricsFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * @ClassName MetricsConfig
+ * @Author phx
+ * @Date 2025/5/19 16:10
+ * @Description 注册请求指标过滤器，排在最前面，统计的延迟包含其它过滤器的耗时
+ */
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestMetricsFilter> requestMetricsFilter(MetricsRegistry metricsRegistry) {
+        FilterRegistrationBean<RequestMetricsFilter> registration =
+                new FilterRegistrationBean<>(new RequestMetricsFilter(metricsRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
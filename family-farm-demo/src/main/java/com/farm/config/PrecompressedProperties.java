@@ -0,0 +1,32 @@
+package com.farm.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @ClassName PrecompressedProperties
+ * @Author phx
+ * @Date 2025/6/16 14:00
+ * @Description 用户列表预压缩配置，前缀 farm.json.precompressed
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.json.precompressed")
+public class PrecompressedProperties {
+
+    /**
+     * 是否按 Accept-Encoding 返回预先压缩好的用户列表（gzip、deflate）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 压缩级别 0~9，每个数据版本只压缩一次，默认 6
+     */
+    private int level = 6;
+
+    /**
+     * 未压缩的响应体小于该字节数时不压缩
+     */
+    private int minSize = 1024;
+}
@@ -0,0 +1,37 @@
+package com.farm.config;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @ClassName StartupConfig
+ * @Author phx
+ * @Date 2025/6/5 10:10
+ * @Description 启动训练运行，farm.startup.exit-on-ready=true 时应用就绪（Web服务器已启动）后立即退出
+ * <p>
+ * 供 fast-startup 构建生成 CDS 归档使用：JVM 以 -XX:ArchiveClassesAtExit 启动应用，退出时把启动过程中加载的类写入归档。
+ * 开关在运行时读取而不是用 @ConditionalOnProperty，AOT 构建会在编译期固定条件判断的结果
+ */
+
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> exitOnReadyListener(
+            @Value("${farm.startup.exit-on-ready:false}") boolean exitOnReady) {
+        return event -> {
+            if (!exitOnReady) {
+                return;
+            }
+            log.info("========启动训练运行完成，退出========");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.farm.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @ClassName UserCacheProperties
+ * @Author phx
+ * @Date 2025/5/12 9:40
+ * @Description 用户查询缓存配置，前缀 farm.user.cache
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.user.cache")
+public class UserCacheProperties {
+
+    /**
+     * 是否启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的条目数，超出后按 W-TinyLFU 策略淘汰
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * 写入后多久过期
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+}
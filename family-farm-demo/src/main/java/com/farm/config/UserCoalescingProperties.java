@@ -0,0 +1,37 @@
+package com.farm.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @ClassName UserCoalescingProperties
+ * @Author phx
+ * @Date 2025/6/18 11:30
+ * @Description 用户查询请求合并配置，前缀 farm.user.coalescing
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.user.coalescing")
+public class UserCoalescingProperties {
+
+    /**
+     * 是否合并并发的相同查询，默认关闭：底层是内存仓库时合并的开销高于查询本身，底层较慢时再启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 合并键是否包含数据版本号，为 false 时数据变化后到达的调用也可能共享变化前开始的查询
+     */
+    private boolean keyByVersion = true;
+
+    /**
+     * 参与合并的 UserService 方法名
+     */
+    private Set<String> methods = new LinkedHashSet<>(List.of("getUser", "getUserByIndex", "getUserList",
+            "getUserPage", "getUsersByIds", "getUsersChangedSince", "searchUsers"));
+}
@@ -0,0 +1,36 @@
+package com.farm.config;
+
+
+import com.farm.userimport.UserImportProperties;
+import com.farm.userimport.UserImportService;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+
+/**
+ * @ClassName UserImportConfig
+ * @Author phx
+ * @Date 2025/6/12 11:00
+ * @Description 用户批量导入，配置 farm.user.import.startup-file 时在启动过程中导入该文件
+ * <p>
+ * 导入在 Web 服务器启动之后、应用就绪之前执行，导入失败时启动失败；
+ * 文件路径在运行时读取，同一个 AOT 构建可以导入不同的文件
+ */
+
+@Configuration
+@EnableConfigurationProperties(UserImportProperties.class)
+public class UserImportConfig {
+
+    @Bean
+    public ApplicationRunner userImportRunner(UserImportProperties properties, UserImportService userImportService) {
+        return args -> {
+            if (StringUtils.hasText(properties.getStartupFile())) {
+                userImportService.importFile(Path.of(properties.getStartupFile()));
+            }
+        };
+    }
+}
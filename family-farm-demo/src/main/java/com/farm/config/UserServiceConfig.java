@@ -0,0 +1,89 @@
+package com.farm.config;
+
+
+import com.farm.metrics.MeteredUserService;
+import com.farm.metrics.MetricsRegistry;
+import com.farm.service.UserService;
+import com.farm.service.cache.CachingUserService;
+import com.farm.service.coalesce.CoalescingUserService;
+import com.farm.service.impl.ColumnarUserServiceImpl;
+import com.farm.service.impl.UserServiceImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * @ClassName UserServiceConfig
+ * @Author phx
+ * @Date 2025/5/12 9:55
+ * @Description 组装 UserService：在 {@link UserServiceImpl} 外层依次包装装饰器，
+ * 最外层声明为 @Primary，按类型注入 UserService 的地方（如 UserController）自动使用装饰后的实例
+ * <p>
+ * 调用顺序：MeteredUserService -> CachingUserService（可关闭） -> CoalescingUserService（默认关闭） -> UserServiceImpl
+ * <p>
+ * farm.user.store.type=columnar 时最内层改为列式存储的 {@link ColumnarUserServiceImpl}
+ * <p>
+ * 各层按 bean 名称注入 UserService 接口而不是具体类，其他 BeanPostProcessor 用 JDK 动态代理包装后仍能装配
+ */
+
+@Configuration
+@EnableConfigurationProperties({UserCacheProperties.class, UserCoalescingProperties.class})
+public class UserServiceConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "farm.user.coalescing", name = "enabled", havingValue = "true")
+    public CoalescingUserService coalescingUserService(@Qualifier("columnarUserServiceImpl") ObjectProvider<UserService> columnarUserService,
+                                                       @Qualifier("userServiceImpl") UserService userServiceImpl,
+                                                       UserCoalescingProperties properties) {
+        return new CoalescingUserService(base(columnarUserService, userServiceImpl),
+                properties.getMethods(), properties.isKeyByVersion());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "farm.user.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CachingUserService cachingUserService(@Qualifier("coalescingUserService") ObjectProvider<UserService> coalescingUserService,
+                                                 @Qualifier("columnarUserServiceImpl") ObjectProvider<UserService> columnarUserService,
+                                                 @Qualifier("userServiceImpl") UserService userServiceImpl,
+                                                 UserCacheProperties properties) {
+        // 版本号直接读最内层实现的存储快照，缓存命中时不经过请求合并层
+        UserService base = base(columnarUserService, userServiceImpl);
+        return new CachingUserService(coalesced(coalescingUserService, columnarUserService, userServiceImpl),
+                base::getVersion, properties.getMaximumSize(), properties.getTtl());
+    }
+
+    @Bean
+    @Primary
+    public MeteredUserService meteredUserService(@Qualifier("cachingUserService") ObjectProvider<UserService> cachingUserService,
+                                                 @Qualifier("coalescingUserService") ObjectProvider<UserService> coalescingUserService,
+                                                 @Qualifier("columnarUserServiceImpl") ObjectProvider<UserService> columnarUserService,
+                                                 @Qualifier("userServiceImpl") UserService userServiceImpl,
+                                                 MetricsRegistry metricsRegistry) {
+        UserService caching = cachingUserService.getIfAvailable();
+        UserService delegate = caching != null ? caching
+                : coalesced(coalescingUserService, columnarUserService, userServiceImpl);
+        return new MeteredUserService(delegate, metricsRegistry);
+    }
+
+    /**
+     * 最内层实现加上请求合并（启用时）
+     */
+    private static UserService coalesced(ObjectProvider<UserService> coalescingUserService,
+                                         ObjectProvider<UserService> columnarUserService,
+                                         UserService userServiceImpl) {
+        UserService coalescing = coalescingUserService.getIfAvailable();
+        return coalescing != null ? coalescing : base(columnarUserService, userServiceImpl);
+    }
+
+    /**
+     * 最内层的实现：启用列式存储时使用 ColumnarUserServiceImpl，否则使用 UserServiceImpl
+     */
+    private static UserService base(ObjectProvider<UserService> columnarUserService,
+                                    UserService userServiceImpl) {
+        UserService columnar = columnarUserService.getIfAvailable();
+        return columnar != null ? columnar : userServiceImpl;
+    }
+}
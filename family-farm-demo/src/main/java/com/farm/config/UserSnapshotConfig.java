@@ -0,0 +1,53 @@
+package com.farm.config;
+
+
+import com.farm.persistence.UserSnapshotProperties;
+import com.farm.persistence.UserSnapshotService;
+import com.farm.store.ColumnarUserStore;
+import com.farm.store.UserStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * @ClassName UserSnapshotConfig
+ * @Author phx
+ * @Date 2025/6/20 11:40
+ * @Description 用户仓库快照文件，farm.user.snapshot.enabled=true 时启用
+ * <p>
+ * 恢复在所有单例初始化之后（UserService 写入默认用户之后）、Web 服务器启动之前执行，第一个请求读到的就是恢复的数据；
+ * 快照文件无效时启动失败。应用关闭时先停止 Web 服务器，再销毁本 Bean 写最后一次快照
+ */
+
+@Configuration
+@EnableConfigurationProperties(UserSnapshotProperties.class)
+@ConditionalOnProperty(prefix = "farm.user.snapshot", name = "enabled", havingValue = "true")
+public class UserSnapshotConfig {
+
+    @Bean(destroyMethod = "close")
+    public UserSnapshotService userSnapshotService(UserSnapshotProperties properties, UserStore userStore,
+                                                   ObjectProvider<ColumnarUserStore> columnarUserStore) {
+        return new UserSnapshotService(properties, userStore, columnarUserStore.getIfAvailable());
+    }
+
+    @Bean
+    public SmartInitializingSingleton userSnapshotRestorer(UserSnapshotProperties properties,
+                                                           UserSnapshotService userSnapshotService) {
+        return () -> {
+            if (properties.isRestoreOnStartup()) {
+                try {
+                    userSnapshotService.restore();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            userSnapshotService.start();
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.farm.config;
+
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+/**
+ * @ClassName VirtualThreadConfig
+ * @Author phx
+ * @Date 2025/5/14 16:20
+ * @Description 虚拟线程执行模式，farm.threads.virtual.enabled=true 时生效
+ * <p>
+ * 1. Tomcat 处理请求的线程池替换为每个任务一个虚拟线程，请求在 I/O 上阻塞时不再占用平台线程，
+ * 并发不再受 server.tomcat.threads.max 限制（仍受 server.tomcat.max-connections 限制）；
+ * 2. 替换 Spring Boot 默认的 applicationTaskExecutor，@Async 方法和 StreamingResponseBody 等 MVC 异步任务同样运行在虚拟线程上。
+ * <p>
+ * 默认关闭，使用 Tomcat 默认的平台线程池
+ */
+
+@Configuration
+@ConditionalOnProperty(prefix = "farm.threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,90 @@
+package com.farm.controller;
+
+
+import com.farm.admission.AdmissionControlFilter;
+import com.farm.admission.AdmissionStats;
+import com.farm.entity.UserCoalescingStats;
+import com.farm.accesslog.AccessLogStats;
+import com.farm.accesslog.AsyncAccessLogWriter;
+import com.farm.metrics.MetricsRegistry;
+import com.farm.metrics.MetricsStats;
+import com.farm.persistence.UserSnapshotService;
+import com.farm.persistence.UserSnapshotStats;
+import com.farm.service.coalesce.CoalescingUserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * @ClassName MetricsController
+ * @Author phx
+ * @Date 2025/5/19 16:00
+ * @Description 本地指标查询
+ */
+
+@RestController
+@RequestMapping("/family/farm/demo/metrics")
+@Tag(name = "指标", description = "接口与Service方法的延迟分布、调用次数、响应大小、分配字节数")
+public class MetricsController {
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Autowired
+    private ObjectProvider<AsyncAccessLogWriter> accessLogWriter;
+
+    @Autowired
+    private ObjectProvider<AdmissionControlFilter> admissionControlFilter;
+
+    @Autowired
+    private ObjectProvider<CoalescingUserService> coalescingUserService;
+
+    @Autowired
+    private ObjectProvider<UserSnapshotService> userSnapshotService;
+
+    @GetMapping("/endpoints")
+    @Operation(summary = "查询接口指标", description = "按HTTP方法+路径模板统计，延迟单位为微秒")
+    public Map<String, MetricsStats> getEndpointStats() {
+        return metricsRegistry.endpointStats();
+    }
+
+    @GetMapping("/services")
+    @Operation(summary = "查询Service方法指标", description = "按方法名统计，延迟单位为微秒")
+    public Map<String, MetricsStats> getServiceStats() {
+        return metricsRegistry.serviceStats();
+    }
+
+    @GetMapping("/access-log")
+    @Operation(summary = "查询访问日志计数", description = "接收、丢弃、写出的记录数，未启用访问日志时返回空")
+    public AccessLogStats getAccessLogStats() {
+        AsyncAccessLogWriter writer = accessLogWriter.getIfAvailable();
+        return writer == null ? null : writer.stats();
+    }
+
+    @GetMapping("/admission")
+    @Operation(summary = "查询准入控制计数", description = "放行、限流拒绝、并发上限拒绝的请求数，当前并发上限与被限流最多的客户端，未启用准入控制时返回空")
+    public AdmissionStats getAdmissionStats() {
+        AdmissionControlFilter filter = admissionControlFilter.getIfAvailable();
+        return filter == null ? null : filter.stats();
+    }
+
+    @GetMapping("/coalescing")
+    @Operation(summary = "查询请求合并计数", description = "参与合并的调用数、实际执行数、共享结果数与合并率，未启用请求合并时返回空")
+    public UserCoalescingStats getCoalescingStats() {
+        CoalescingUserService service = coalescingUserService.getIfAvailable();
+        return service == null ? null : service.stats();
+    }
+
+    @GetMapping("/snapshot")
+    @Operation(summary = "查询用户快照文件计数", description = "启动时恢复的用户数与耗时，写入次数、失败次数与最近一次写入的版本、大小、耗时，未启用快照文件时返回空")
+    public UserSnapshotStats getSnapshotStats() {
+        UserSnapshotService service = userSnapshotService.getIfAvailable();
+        return service == null ? null : service.stats();
+    }
+}
@@ -0,0 +1,42 @@
+package com.farm.controller;
+
+
+import com.farm.entity.UserCacheStats;
+import com.farm.service.cache.CachingUserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * @ClassName UserCacheController
+ * @Author phx
+ * @Date 2025/5/12 10:40
+ * @Description 用户查询缓存的统计与清理，未启用缓存时不注册
+ */
+
+@RestController
+@RequestMapping("/family/farm/demo/cache")
+@Tag(name = "用户缓存", description = "用户查询缓存的统计与清理")
+@ConditionalOnProperty(prefix = "farm.user.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class UserCacheController {
+
+    @Autowired
+    private CachingUserService cachingUserService;
+
+    @GetMapping("/stats")
+    @Operation(summary = "查询缓存统计", description = "命中、未命中、淘汰次数与当前条目数")
+    public UserCacheStats getStats() {
+        return cachingUserService.stats();
+    }
+
+    @DeleteMapping
+    @Operation(summary = "清空缓存", description = "底层用户数据变化后，手动使缓存失效")
+    public void invalidate() {
+        cachingUserService.invalidateAll();
+    }
+}
@@ -1,21 +1,54 @@
 package com.farm.controller;
 
 
+import com.farm.common.compression.ContentCoding;
+import com.farm.common.compression.PrecompressedBodyCache;
 import com.farm.entity.User;
+import com.farm.entity.UserBatchRequest;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserDelta;
+import com.farm.entity.UserPage;
+import com.farm.entity.UserUpdateRequest;
 import com.farm.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @ClassName UserController
@@ -29,9 +62,61 @@ import java.util.List;
 @Tag(name = "用户模块", description = "用户的添加、查询与取消")
 public class UserController {
 
+    /**
+     * 分页查询单页最多返回的用户数
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 批量查询单次最多的用户ID数
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * 流式输出时每写出多少个用户刷新一次，让客户端尽早收到数据
+     */
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+
+    /**
+     * 名称搜索单次最多返回的用户数
+     */
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    /**
+     * 名称搜索查询串的最大长度
+     */
+    private static final int MAX_QUERY_LENGTH = 64;
+
+    /**
+     * 用户名称的最大长度（按字符计），与批量导入一致
+     */
+    private static final int MAX_NAME_LENGTH = 64;
+
+    /**
+     * NDJSON 表示的 ETag 后缀，与同一 URL 的 JSON 表示区分
+     */
+    private static final String NDJSON_ETAG_SUFFIX = "-ndjson";
+
+    /**
+     * CBOR、Smile 表示的 ETag 后缀
+     */
+    private static final String CBOR_ETAG_SUFFIX = "-cbor";
+    private static final String SMILE_ETAG_SUFFIX = "-smile";
+
+    private static final MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 用户列表的预压缩缓存，farm.json.precompressed.enabled 为 false 时没有
+     */
+    @Autowired(required = false)
+    private PrecompressedBodyCache userListBodyCache;
+
 
     @GetMapping("/user")
     @Operation(summary = "查询用户信息", description = "这里固定获取第一个用户，无需参数", responses = {
@@ -55,28 +140,273 @@ public class UserController {
     }
 
 
+    /**
+     * 用户数据相关的读接口都以数据版本号作为强 ETag：先比较 If-None-Match，未变化时直接返回 304，
+     * 不查询、不序列化；同一 URL 的不同表示（JSON 与 NDJSON）使用不同的 ETag
+     */
     @GetMapping("/list")
-    @Operation(summary = "查询用户列表", description = "返回所有用户信息，无需参数")
-    public List<User> getUserList() {
-        return userService.getUserList();
+    @Operation(summary = "查询用户列表", description = "返回所有用户信息，无需参数；支持ETag，If-None-Match未变化时返回304；"
+            + "Accept为application/cbor或application/x-jackson-smile时返回对应的二进制格式；"
+            + "JSON按Accept-Encoding返回gzip或deflate压缩的预先生成的响应体")
+    public List<User> getUserList(WebRequest webRequest, HttpServletResponse response) throws IOException {
+        long version = userService.getVersion();
+        String representation = representation(webRequest);
+        ContentCoding coding = null;
+        if (userListBodyCache != null && "".equals(representation)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            coding = ContentCoding.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        }
+        if (coding == null) {
+            if (webRequest.checkNotModified(etag(webRequest, version))) {
+                return null;
+            }
+            return userService.getUserList();
+        }
+        if (webRequest.checkNotModified(etag(webRequest, version, "-" + coding.token()))) {
+            return null;
+        }
+        byte[] body = userListBodyCache.get(version, coding, this::userListJson);
+        if (body == null) {
+            // 响应体太小，不值得压缩，按普通 JSON 输出；ETag 保持不变，客户端下次带回时仍能得到 304
+            return userService.getUserList();
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, coding.token());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        return null;
+    }
+
+    @GetMapping(value = "/list", params = {"since", "!limit"})
+    @Operation(summary = "增量同步用户列表", description = "返回版本since之后新增或修改的用户与当前版本号；full为true时返回的是全部用户；支持ETag")
+    public UserDelta getUsersChangedSince(
+            @Parameter(name = "since", description = "上次同步得到的版本号", example = "1748570000001", required = true)
+            @RequestParam long since,
+            WebRequest webRequest
+    ) {
+        if (webRequest.checkNotModified(etag(webRequest, userService.getVersion()))) {
+            return null;
+        }
+        return userService.getUsersChangedSince(since);
+    }
+
+    @GetMapping(value = "/list", params = "limit")
+    @Operation(summary = "分页查询用户列表", description = "游标分页，返回用户ID大于after的前limit个用户，响应中的nextCursor作为下一页的after；支持ETag")
+    public UserPage getUserPage(
+            @Parameter(name = "after", description = "游标，即上一页的nextCursor，为空时从第一个用户开始", example = "1")
+            @RequestParam(required = false) Integer after,
+            @Parameter(name = "limit", description = "每页数量，取值范围1~1000", example = "100", required = true)
+            @RequestParam int limit,
+            WebRequest webRequest
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit取值范围1~" + MAX_PAGE_SIZE);
+        }
+        if (webRequest.checkNotModified(etag(webRequest, userService.getVersion()))) {
+            return null;
+        }
+        return userService.getUserPage(after, limit);
+    }
+
+    @GetMapping(value = "/list", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式查询用户列表", description = "Accept: application/x-ndjson，每行一个用户，边遍历边写出，内存占用与用户数量无关")
+    public ResponseEntity<StreamingResponseBody> streamUserList(
+            @Parameter(name = "after", description = "游标，只输出用户ID大于after的用户，为空时从第一个用户开始", example = "1")
+            @RequestParam(required = false) Integer after,
+            WebRequest webRequest
+    ) {
+        if (webRequest.checkNotModified(etag(webRequest, userService.getVersion(), NDJSON_ETAG_SUFFIX))) {
+            return null;
+        }
+        // 在请求线程上取定快照视图，写出过程中看到的数据保持一致
+        List<User> users = userService.getUserPage(after, Integer.MAX_VALUE).getUsers();
+        StreamingResponseBody body = out -> writeNdjson(users, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/user/{index}")
-    @Operation(summary = "查询用户信息", description = "需提供用户列表的INDEX")
+    @Operation(summary = "查询用户信息", description = "需提供用户列表的INDEX", responses = {
+            @ApiResponse(responseCode = "200", description = "成功",
+                    content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "404", description = "用户不存在")
+    })
     public User getUserByIndex(
             @Parameter(name = "index", description = "列表下标", example = "1", required = true)
-            @PathVariable int index
+            @PathVariable int index,
+            WebRequest webRequest
     ) {
-        return userService.getUserList().get(index);
+        if (webRequest.checkNotModified(etag(webRequest, userService.getVersion()))) {
+            return null;
+        }
+        return userService.getUserByIndex(index);
     }
 
     @GetMapping("/user/info")
     @Operation(summary = "查询用户信息", description = "需提供用户列表的INDEX")
     public User getUserInfo(
             @Parameter(name = "index", description = "列表下标", example = "1", required = true)
-            int index
+            int index,
+            WebRequest webRequest
     ) {
+        if (webRequest.checkNotModified(etag(webRequest, userService.getVersion()))) {
+            return null;
+        }
         return userService.getUserByIndex(index);
     }
 
+    @GetMapping("/user/search")
+    @Operation(summary = "按名称搜索用户", description = "精确匹配在前，其次前缀匹配，最后子串匹配，同一类按用户ID升序；不区分大小写，全角与半角等价；支持ETag")
+    public List<User> searchUsers(
+            @Parameter(name = "q", description = "查询串，1~64个字符", example = "张三", required = true)
+            @RequestParam String q,
+            @Parameter(name = "limit", description = "最多返回的用户数，取值范围1~100", example = "20")
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest webRequest
+    ) {
+        if (q.isBlank() || q.length() > MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q不能为空，且最多" + MAX_QUERY_LENGTH + "个字符");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit取值范围1~" + MAX_SEARCH_LIMIT);
+        }
+        if (webRequest.checkNotModified(etag(webRequest, userService.getVersion()))) {
+            return null;
+        }
+        return userService.searchUsers(q, limit);
+    }
+
+    @PostMapping("/users:batchGet")
+    @Operation(summary = "批量查询用户信息", description = "一次请求按用户ID查询多个用户，不存在的ID在missingIds中返回；ids为空数组时返回空结果")
+    public UserBatchResult batchGetUsers(@RequestBody UserBatchRequest request) {
+        int[] ids = request.getIds();
+        if (ids == null || ids.length > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids必填，且最多" + MAX_BATCH_SIZE + "个");
+        }
+        return userService.getUsersByIds(ids);
+    }
+
+    @PostMapping("/users")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "新增用户", description = "用户ID为正整数，名称不能为空且最多" + MAX_NAME_LENGTH + "个字符；写入不阻塞查询", responses = {
+            @ApiResponse(responseCode = "201", description = "成功",
+                    content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "400", description = "参数不合法"),
+            @ApiResponse(responseCode = "409", description = "用户已存在")
+    })
+    public User createUser(@RequestBody User user) {
+        validate(user.getId(), user.getName());
+        return userService.createUser(user);
+    }
+
+    @PutMapping("/users/{id}")
+    @Operation(summary = "修改用户", description = "按用户ID修改名称", responses = {
+            @ApiResponse(responseCode = "200", description = "成功",
+                    content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "400", description = "参数不合法"),
+            @ApiResponse(responseCode = "404", description = "用户不存在")
+    })
+    public User updateUser(@Parameter(description = "用户ID") @PathVariable int id, @RequestBody UserUpdateRequest request) {
+        validate(id, request.getName());
+        return userService.updateUser(new User(id, request.getName()));
+    }
+
+    @DeleteMapping("/users/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "删除用户", description = "按用户ID删除", responses = {
+            @ApiResponse(responseCode = "204", description = "成功"),
+            @ApiResponse(responseCode = "404", description = "用户不存在")
+    })
+    public void deleteUser(@Parameter(description = "用户ID") @PathVariable int id) {
+        userService.deleteUser(id);
+    }
+
+    private static void validate(int id, String name) {
+        if (id <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id必须为正整数");
+        }
+        if (name == null || name.isBlank() || name.codePointCount(0, name.length()) > MAX_NAME_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name不能为空，且最多" + MAX_NAME_LENGTH + "个字符");
+        }
+    }
+
+    /**
+     * 强 ETag，先读版本号再读数据：数据只会比版本号新，客户端最多多拉取一次，不会缓存到旧数据
+     * <p>
+     * 同一 URL 按 Accept 返回 JSON、CBOR 或 Smile，ETag 按表示区分，并带上 Vary: Accept
+     */
+    private static String etag(WebRequest webRequest, long version) {
+        return etag(webRequest, version, Objects.requireNonNullElse(representation(webRequest), ""));
+    }
+
+    private static String etag(WebRequest webRequest, long version, String suffix) {
+        if (webRequest instanceof ServletWebRequest servletWebRequest && servletWebRequest.getResponse() != null) {
+            servletWebRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return "\"" + version + suffix + "\"";
+    }
+
+    /**
+     * 按 Accept 判断将返回的表示，结果为该表示的 ETag 后缀，JSON 为空串：与内容协商一致，
+     * 按质量值与具体程度排序后取第一个可接受的格式，同等优先时 JSON 在前（转换器顺序中 JSON 排在二进制格式之前）；
+     * 没有可接受的格式时返回 null，由内容协商响应 406
+     */
+    @Nullable
+    private static String representation(WebRequest webRequest) {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return "";
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        MimeTypeUtils.sortBySpecificity(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return "";
+            }
+            if (mediaType.includes(MediaType.APPLICATION_CBOR)) {
+                return CBOR_ETAG_SUFFIX;
+            }
+            if (mediaType.includes(APPLICATION_SMILE)) {
+                return SMILE_ETAG_SUFFIX;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 未压缩的用户列表 JSON，与预编码转换器、Jackson 的输出一致
+     */
+    private byte[] userListJson() {
+        try {
+            return objectMapper.writeValueAsBytes(userService.getUserList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeNdjson(List<User> users, OutputStream out) throws IOException {
+        // 关闭每写一个值就flush，由下面按批次flush，避免每个用户一次网络写
+        ObjectWriter writer = objectMapper.writerFor(User.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            int count = 0;
+            for (User user : users) {
+                writer.writeValue(generator, user);
+                generator.writeRaw('\n');
+                if (++count % STREAM_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+
 }
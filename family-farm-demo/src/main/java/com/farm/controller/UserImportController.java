@@ -0,0 +1,43 @@
+package com.farm.controller;
+
+
+import com.farm.entity.UserImportResult;
+import com.farm.userimport.UserImportFormat;
+import com.farm.userimport.UserImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @ClassName UserImportController
+ * @Author phx
+ * @Date 2025/6/12 10:50
+ * @Description 用户批量导入，请求体直接作为输入流解析，不经过消息转换器，不会整体读入内存
+ */
+
+@RestController
+@RequestMapping("/family/farm/demo")
+@Tag(name = "用户导入", description = "从CSV/NDJSON批量导入用户")
+public class UserImportController {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @PostMapping(value = "/users:import",
+            consumes = {UserImportFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "批量导入用户", description = "Content-Type为text/csv（两列id,name，可带表头）或application/x-ndjson（每行一个{\"id\":1,\"name\":\"用户名1\"}）；"
+            + "新增或按id覆盖，校验失败的行跳过并在结果中说明；返回行数、耗时与每秒行数")
+    public UserImportResult importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                        InputStream body) throws IOException {
+        return userImportService.importUsers(body, UserImportFormat.of(contentType));
+    }
+}
@@ -2,18 +2,16 @@ package com.farm.entity;
 
 
 import io.swagger.v3.oas.annotations.media.Schema;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 
 /**
  * @ClassName User
  * @Author phx
  * @Date 2025/4/24 19:20
- * @Description TODO
+ * @Description 用户实体，不可变：同一个实例会被用户仓库的快照共享给所有读请求
  */
 
-@Data
-@AllArgsConstructor
+@Value
 public class User {
     @Schema(description = "用户ID", example = "1")
     private int id;
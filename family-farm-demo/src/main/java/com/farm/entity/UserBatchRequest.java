@@ -0,0 +1,22 @@
+package com.farm.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @ClassName UserBatchRequest
+ * @Author phx
+ * @Date 2025/5/9 10:16
+ * @Description 批量查询用户的请求体
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchRequest {
+    @Schema(description = "用户ID列表", example = "[1, 2, 3]")
+    private int[] ids;
+}
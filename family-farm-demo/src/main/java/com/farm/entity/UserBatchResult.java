@@ -0,0 +1,22 @@
+package com.farm.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * @ClassName UserBatchResult
+ * @Author phx
+ * @Date 2025/5/9 10:20
+ * @Description 批量查询用户的结果，部分用户不存在时不影响其它用户的返回
+ */
+
+@Value
+public class UserBatchResult {
+    @Schema(description = "查询到的用户，顺序与请求中的用户ID一致")
+    private List<User> users;
+    @Schema(description = "不存在的用户ID", example = "[3]")
+    private int[] missingIds;
+}
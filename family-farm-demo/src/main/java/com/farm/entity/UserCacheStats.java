@@ -0,0 +1,26 @@
+package com.farm.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+/**
+ * @ClassName UserCacheStats
+ * @Author phx
+ * @Date 2025/5/12 10:30
+ * @Description 用户查询缓存的统计信息
+ */
+
+@Value
+public class UserCacheStats {
+    @Schema(description = "命中次数", example = "990")
+    private long hitCount;
+    @Schema(description = "未命中次数", example = "10")
+    private long missCount;
+    @Schema(description = "命中率", example = "0.99")
+    private double hitRate;
+    @Schema(description = "淘汰次数（容量超限或过期）", example = "0")
+    private long evictionCount;
+    @Schema(description = "当前缓存条目数", example = "10")
+    private long size;
+}
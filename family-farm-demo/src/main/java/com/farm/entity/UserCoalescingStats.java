@@ -0,0 +1,26 @@
+package com.farm.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+/**
+ * @ClassName UserCoalescingStats
+ * @Author phx
+ * @Date 2025/6/18 11:20
+ * @Description 用户查询请求合并的统计信息
+ */
+
+@Value
+public class UserCoalescingStats {
+    @Schema(description = "参与合并的调用次数", example = "1000")
+    private long calls;
+    @Schema(description = "实际调用被装饰实现的次数", example = "10")
+    private long executions;
+    @Schema(description = "共享其它调用结果的次数", example = "990")
+    private long coalesced;
+    @Schema(description = "合并率", example = "0.99")
+    private double coalescedRate;
+    @Schema(description = "正在执行的查询数", example = "0")
+    private int inFlight;
+}
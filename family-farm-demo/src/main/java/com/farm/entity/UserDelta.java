@@ -0,0 +1,24 @@
+package com.farm.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * @ClassName UserDelta
+ * @Author phx
+ * @Date 2025/5/30 10:10
+ * @Description 增量同步结果：某个版本之后新增或修改的用户
+ */
+
+@Value
+public class UserDelta {
+    @Schema(description = "当前版本号，作为下次同步的since", example = "1748570000002")
+    private long version;
+    @Schema(description = "为true时users是全部用户，客户端应整体替换本地数据（期间有用户被删除，或since比当前版本还新）", example = "false")
+    private boolean full;
+    @Schema(description = "since之后新增或修改的用户，按用户ID升序")
+    private List<User> users;
+}
@@ -0,0 +1,32 @@
+package com.farm.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * @ClassName UserImportResult
+ * @Author phx
+ * @Date 2025/6/12 10:40
+ * @Description 批量导入用户的结果，校验失败的行跳过，不影响其它行的导入
+ */
+
+@Value
+public class UserImportResult {
+    @Schema(description = "数据行数，不含表头和空行", example = "1000000")
+    private long rows;
+    @Schema(description = "导入（新增或覆盖）的用户数", example = "999998")
+    private long imported;
+    @Schema(description = "校验失败被跳过的行数", example = "2")
+    private long rejected;
+    @Schema(description = "写入仓库的批次数", example = "5")
+    private int batches;
+    @Schema(description = "耗时，毫秒", example = "1800")
+    private long millis;
+    @Schema(description = "每秒处理的行数", example = "555555")
+    private long rowsPerSecond;
+    @Schema(description = "部分失败行的明细，格式为 第N行: 原因", example = "[\"第3行: id不是整数\"]")
+    private List<String> errors;
+}
@@ -0,0 +1,22 @@
+package com.farm.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * @ClassName UserPage
+ * @Author phx
+ * @Date 2025/5/8 15:02
+ * @Description 游标分页结果
+ */
+
+@Value
+public class UserPage {
+    @Schema(description = "本页用户，按用户ID升序")
+    private List<User> users;
+    @Schema(description = "下一页游标（本页最后一个用户ID），没有下一页时为空", example = "2")
+    private Integer nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.farm.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @ClassName UserUpdateRequest
+ * @Author phx
+ * @Date 2025/6/19 11:00
+ * @Description 修改用户的请求体，用户ID在路径中
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserUpdateRequest {
+    @Schema(description = "用户名称", example = "张三")
+    private String name;
+}
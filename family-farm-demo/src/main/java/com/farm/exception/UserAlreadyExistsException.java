@@ -0,0 +1,26 @@
+package com.farm.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * @ClassName UserAlreadyExistsException
+ * @Author phx
+ * @Date 2025/6/19 10:30
+ * @Description 新增的用户 id 已存在，接口返回 409
+ * <p>
+ * 与 {@link UserNotFoundException} 一样属于业务分支，不填充异常栈
+ */
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UserAlreadyExistsException extends RuntimeException {
+
+    public UserAlreadyExistsException(String message) {
+        super(message, null, false, false);
+    }
+
+    public static UserAlreadyExistsException ofId(int id) {
+        return new UserAlreadyExistsException("用户已存在，id=" + id);
+    }
+}
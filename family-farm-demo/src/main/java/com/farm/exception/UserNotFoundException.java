@@ -0,0 +1,30 @@
+package com.farm.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * @ClassName UserNotFoundException
+ * @Author phx
+ * @Date 2025/5/6 11:05
+ * @Description 用户不存在，接口返回 404
+ * <p>
+ * 查询不存在的用户是正常的业务分支而不是程序错误，这里不填充异常栈，避免高频 404 时的栈采集开销
+ */
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(String message) {
+        super(message, null, false, false);
+    }
+
+    public static UserNotFoundException ofIndex(int index) {
+        return new UserNotFoundException("用户不存在，index=" + index);
+    }
+
+    public static UserNotFoundException ofId(int id) {
+        return new UserNotFoundException("用户不存在，id=" + id);
+    }
+}
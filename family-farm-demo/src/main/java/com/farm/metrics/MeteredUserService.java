@@ -0,0 +1,156 @@
+package com.farm.metrics;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserDelta;
+import com.farm.entity.UserPage;
+import com.farm.service.UserService;
+
+import java.util.List;
+
+/**
+ * @ClassName MeteredUserService
+ * @Author phx
+ * @Date 2025/5/19 15:30
+ * @Description UserService 的指标装饰器，记录每个方法的调用延迟
+ * <p>
+ * 每个方法对应的指标在构造时解析好，调用时不查表
+ */
+
+public class MeteredUserService implements UserService {
+
+    private final UserService delegate;
+    private final RequestMetrics getUser;
+    private final RequestMetrics getUserByIndex;
+    private final RequestMetrics getUserList;
+    private final RequestMetrics getUserPage;
+    private final RequestMetrics getUsersByIds;
+    private final RequestMetrics getUsersChangedSince;
+    private final RequestMetrics searchUsers;
+    private final RequestMetrics createUser;
+    private final RequestMetrics updateUser;
+    private final RequestMetrics deleteUser;
+
+    public MeteredUserService(UserService delegate, MetricsRegistry metricsRegistry) {
+        this.delegate = delegate;
+        this.getUser = metricsRegistry.service("UserService.getUser");
+        this.getUserByIndex = metricsRegistry.service("UserService.getUserByIndex");
+        this.getUserList = metricsRegistry.service("UserService.getUserList");
+        this.getUserPage = metricsRegistry.service("UserService.getUserPage");
+        this.getUsersByIds = metricsRegistry.service("UserService.getUsersByIds");
+        this.getUsersChangedSince = metricsRegistry.service("UserService.getUsersChangedSince");
+        this.searchUsers = metricsRegistry.service("UserService.searchUsers");
+        this.createUser = metricsRegistry.service("UserService.createUser");
+        this.updateUser = metricsRegistry.service("UserService.updateUser");
+        this.deleteUser = metricsRegistry.service("UserService.deleteUser");
+    }
+
+    @Override
+    public User getUser() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUser();
+        } finally {
+            getUser.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public User getUserByIndex(int index) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUserByIndex(index);
+        } finally {
+            getUserByIndex.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<User> getUserList() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUserList();
+        } finally {
+            getUserList.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public UserPage getUserPage(Integer after, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUserPage(after, limit);
+        } finally {
+            getUserPage.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public UserBatchResult getUsersByIds(int[] ids) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUsersByIds(ids);
+        } finally {
+            getUsersByIds.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 只读取一个 volatile 字段，不计入指标
+     */
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    @Override
+    public UserDelta getUsersChangedSince(long since) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUsersChangedSince(since);
+        } finally {
+            getUsersChangedSince.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<User> searchUsers(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchUsers(query, limit);
+        } finally {
+            searchUsers.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public User createUser(User user) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createUser(user);
+        } finally {
+            createUser.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public User updateUser(User user) {
+        long start = System.nanoTime();
+        try {
+            return delegate.updateUser(user);
+        } finally {
+            updateUser.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteUser(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteUser(id);
+        } finally {
+            deleteUser.recordLatency(System.nanoTime() - start);
+        }
+    }
+}
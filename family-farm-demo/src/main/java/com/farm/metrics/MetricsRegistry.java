@@ -0,0 +1,51 @@
+package com.farm.metrics;
+
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @ClassName MetricsRegistry
+ * @Author phx
+ * @Date 2025/5/19 11:20
+ * @Description 指标注册表：按接口（HTTP方法 + 路径模板）和 Service 方法名分别登记
+ * <p>
+ * 查找已存在的指标是 ConcurrentHashMap 的无锁读，只有第一次出现的键才会创建
+ */
+
+@Component
+public class MetricsRegistry {
+
+    private final ConcurrentHashMap<String, RequestMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RequestMetrics> services = new ConcurrentHashMap<>();
+
+    public RequestMetrics endpoint(String key) {
+        return lookup(endpoints, key);
+    }
+
+    public RequestMetrics service(String key) {
+        return lookup(services, key);
+    }
+
+    private static RequestMetrics lookup(ConcurrentHashMap<String, RequestMetrics> metrics, String key) {
+        RequestMetrics found = metrics.get(key);
+        return found != null ? found : metrics.computeIfAbsent(key, k -> new RequestMetrics());
+    }
+
+    public Map<String, MetricsStats> endpointStats() {
+        return stats(endpoints);
+    }
+
+    public Map<String, MetricsStats> serviceStats() {
+        return stats(services);
+    }
+
+    private static Map<String, MetricsStats> stats(Map<String, RequestMetrics> metrics) {
+        Map<String, MetricsStats> stats = new TreeMap<>();
+        metrics.forEach((key, value) -> stats.put(key, value.stats()));
+        return stats;
+    }
+}
@@ -0,0 +1,40 @@
+package com.farm.metrics;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+/**
+ * @ClassName MetricsStats
+ * @Author phx
+ * @Date 2025/5/19 11:05
+ * @Description 指标统计结果，延迟单位为微秒
+ */
+
+@Value
+public class MetricsStats {
+    @Schema(description = "调用次数", example = "1000")
+    private long count;
+    @Schema(description = "4xx次数", example = "0")
+    private long clientErrors;
+    @Schema(description = "5xx次数", example = "0")
+    private long serverErrors;
+    @Schema(description = "平均延迟（微秒）", example = "85.2")
+    private double meanMicros;
+    @Schema(description = "p50延迟（微秒）", example = "70.1")
+    private double p50Micros;
+    @Schema(description = "p90延迟（微秒）", example = "120.3")
+    private double p90Micros;
+    @Schema(description = "p99延迟（微秒）", example = "350.7")
+    private double p99Micros;
+    @Schema(description = "p99.9延迟（微秒）", example = "900.0")
+    private double p999Micros;
+    @Schema(description = "最大延迟（微秒）", example = "2100.0")
+    private double maxMicros;
+    @Schema(description = "响应体总字节数", example = "30000")
+    private long responseBytes;
+    @Schema(description = "平均响应体字节数", example = "30")
+    private long avgResponseBytes;
+    @Schema(description = "平均每次请求在请求线程上分配的字节数", example = "20480")
+    private long avgAllocatedBytes;
+}
@@ -0,0 +1,65 @@
+package com.farm.metrics;
+
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName RequestMetrics
+ * @Author phx
+ * @Date 2025/5/19 10:50
+ * @Description 一个接口（或一个 Service 方法）的指标：延迟分布、调用次数、错误数、响应字节数、分配字节数
+ * <p>
+ * 计数都用 LongAdder，高并发下按线程分散累加，不会争用同一个缓存行
+ */
+
+public final class RequestMetrics {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder allocationSamples = new LongAdder();
+
+    public void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    /**
+     * @param status    HTTP 状态码
+     * @param bytes     响应体字节数
+     * @param allocated 请求线程上分配的字节数，无法统计时传负数
+     */
+    public void recordRequest(long nanos, int status, long bytes, long allocated) {
+        latency.record(nanos);
+        if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        }
+        responseBytes.add(bytes);
+        if (allocated >= 0) {
+            allocatedBytes.add(allocated);
+            allocationSamples.increment();
+        }
+    }
+
+    public MetricsStats stats() {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        long count = snapshot.count();
+        long samples = allocationSamples.sum();
+        return new MetricsStats(
+                count,
+                clientErrors.sum(),
+                serverErrors.sum(),
+                snapshot.mean() / 1000,
+                snapshot.percentile(50) / 1000.0,
+                snapshot.percentile(90) / 1000.0,
+                snapshot.percentile(99) / 1000.0,
+                snapshot.percentile(99.9) / 1000.0,
+                snapshot.max() / 1000.0,
+                responseBytes.sum(),
+                count == 0 ? 0 : responseBytes.sum() / count,
+                samples == 0 ? 0 : allocatedBytes.sum() / samples);
+    }
+}
@@ -0,0 +1,65 @@
+package com.farm.metrics;
+
+
+import com.farm.common.web.RequestCompletion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * @ClassName RequestMetricsFilter
+ * @Author phx
+ * @Date 2025/5/19 14:45
+ * @Description 按接口记录请求延迟、状态码、响应体字节数和请求线程上的分配字节数
+ * <p>
+ * 接口按 "HTTP方法 + 路径模板" 归类（如 GET /family/farm/demo/user/{index}），没有匹配到处理器的请求归为 UNMATCHED。
+ * 异步请求（如 NDJSON 流式输出）在异步处理完成时记录，写出发生在其它线程，不统计分配字节数。
+ * 处理中抛出未处理异常的请求按 500 记录。
+ * 由 MetricsConfig 注册
+ */
+
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private static final String UNMATCHED = "UNMATCHED";
+
+    private final MetricsRegistry metricsRegistry;
+
+    public RequestMetricsFilter(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        long allocatedStart = ThreadAllocation.current();
+        CountingResponseWrapper wrapper = new CountingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } catch (Throwable e) {
+            record(request, wrapper, start, allocated(allocatedStart), RequestCompletion.statusOnError(wrapper));
+            throw e;
+        }
+        if (!RequestCompletion.whenAsyncComplete(request, () -> record(request, wrapper, start, -1, wrapper.getStatus()))) {
+            record(request, wrapper, start, allocated(allocatedStart), wrapper.getStatus());
+        }
+    }
+
+    private static long allocated(long allocatedStart) {
+        long allocatedEnd = ThreadAllocation.current();
+        return allocatedStart < 0 || allocatedEnd < 0 ? -1 : allocatedEnd - allocatedStart;
+    }
+
+    private void record(HttpServletRequest request, CountingResponseWrapper response, long start, long allocated,
+                        int status) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String key = pattern == null ? UNMATCHED : request.getMethod() + " " + pattern;
+        metricsRegistry.endpoint(key).recordRequest(System.nanoTime() - start, status,
+                response.getBytesWritten(), allocated);
+    }
+}
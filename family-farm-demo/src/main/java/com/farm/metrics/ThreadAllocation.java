@@ -0,0 +1,34 @@
+package com.farm.metrics;
+
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * @ClassName ThreadAllocation
+ * @Author phx
+ * @Date 2025/5/19 14:02
+ * @Description 当前线程累计分配的堆内存字节数（HotSpot 按 TLAB 统计，读取开销为几十纳秒）
+ */
+
+final class ThreadAllocation {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMxBean();
+
+    private ThreadAllocation() {
+    }
+
+    private static com.sun.management.ThreadMXBean threadMxBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean;
+        }
+        return null;
+    }
+
+    /**
+     * @return 不支持统计时（非 HotSpot、虚拟线程）返回 -1
+     */
+    static long current() {
+        return THREAD_MX_BEAN == null ? -1 : THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,44 @@
+package com.farm.persistence;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @ClassName UserSnapshotProperties
+ * @Author phx
+ * @Date 2025/6/20 11:00
+ * @Description 用户仓库快照文件配置，前缀 farm.user.snapshot
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.user.snapshot")
+public class UserSnapshotProperties {
+
+    /**
+     * 是否定期写快照文件并在启动时恢复
+     */
+    private boolean enabled = false;
+
+    /**
+     * 快照文件路径，写入时先写同目录下的 .tmp 文件再替换
+     */
+    private String file = "data/users.snapshot";
+
+    /**
+     * 两次写入的间隔，数据版本没有变化时不写
+     */
+    private Duration interval = Duration.ofMinutes(1);
+
+    /**
+     * 启动时文件存在则从文件恢复，文件无效时启动失败
+     */
+    private boolean restoreOnStartup = true;
+
+    /**
+     * 应用关闭时（Web 服务器停止之后）再写一次
+     */
+    private boolean writeOnShutdown = true;
+}
@@ -0,0 +1,170 @@
+package com.farm.persistence;
+
+
+import com.farm.store.ColumnarUserSnapshot;
+import com.farm.store.ColumnarUserStore;
+import com.farm.store.UserSnapshot;
+import com.farm.store.UserSnapshotFile;
+import com.farm.store.UserStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName UserSnapshotService
+ * @Author phx
+ * @Date 2025/6/20 11:20
+ * @Description 定期把当前启用的用户仓库写入快照文件，启动时从快照文件恢复
+ * <p>
+ * 写入在单独的后台线程上进行，读取的是不可变的仓库快照，不持有仓库的写锁，查询与写入都不受影响；
+ * 数据版本没有变化时跳过。格式与恢复方式见 {@link UserSnapshotFile}。
+ */
+
+@Slf4j
+public class UserSnapshotService implements Closeable {
+
+    private final UserSnapshotProperties properties;
+    private final UserStore userStore;
+    @Nullable
+    private final ColumnarUserStore columnarUserStore;
+    private final Path file;
+    private ScheduledExecutorService scheduler;
+
+    private long writtenVersion = Long.MIN_VALUE;
+    private long writes;
+    private long failures;
+    private long lastWriteBytes;
+    private long lastWriteMillis;
+    private int restoredUsers;
+    private long restoreMillis;
+
+    /**
+     * @param columnarUserStore farm.user.store.type=columnar 时的列式仓库，否则为 null，使用对象仓库
+     */
+    public UserSnapshotService(UserSnapshotProperties properties, UserStore userStore,
+                               @Nullable ColumnarUserStore columnarUserStore) {
+        this.properties = properties;
+        this.userStore = userStore;
+        this.columnarUserStore = columnarUserStore;
+        this.file = Path.of(properties.getFile());
+    }
+
+    /**
+     * 快照文件存在时用它整体替换仓库中的数据
+     *
+     * @return 文件不存在时返回 false
+     */
+    public synchronized boolean restore() throws IOException {
+        if (!Files.exists(file)) {
+            log.info("用户快照文件不存在，跳过恢复: {}", file);
+            return false;
+        }
+        long start = System.nanoTime();
+        if (columnarUserStore != null) {
+            columnarUserStore.restore(file);
+            restoredUsers = columnarUserStore.snapshot().size();
+            writtenVersion = columnarUserStore.snapshot().version();
+        } else {
+            userStore.restore(file);
+            restoredUsers = userStore.snapshot().size();
+            writtenVersion = userStore.snapshot().version();
+        }
+        restoreMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("========从快照文件恢复 {} 个用户，耗时 {}ms: {}========", restoredUsers, restoreMillis, file);
+        return true;
+    }
+
+    /**
+     * 启动定期写入
+     */
+    public synchronized void start() {
+        long interval = properties.getInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> Thread.ofPlatform().name("user-snapshot-writer").daemon().unstarted(runnable));
+        scheduler.scheduleWithFixedDelay(this::writeQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 数据版本与上次写入时不同则写一次
+     *
+     * @return 是否写入
+     */
+    public synchronized boolean writeIfChanged() throws IOException {
+        long start = System.nanoTime();
+        long version;
+        int size;
+        long bytes;
+        if (columnarUserStore != null) {
+            ColumnarUserSnapshot snapshot = columnarUserStore.snapshot();
+            if (snapshot.version() == writtenVersion) {
+                return false;
+            }
+            bytes = UserSnapshotFile.write(snapshot, file);
+            version = snapshot.version();
+            size = snapshot.size();
+        } else {
+            UserSnapshot snapshot = userStore.snapshot();
+            if (snapshot.version() == writtenVersion) {
+                return false;
+            }
+            bytes = UserSnapshotFile.write(snapshot, file);
+            version = snapshot.version();
+            size = snapshot.size();
+        }
+        writtenVersion = version;
+        writes++;
+        lastWriteBytes = bytes;
+        lastWriteMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("用户快照已写入: {} 个用户，{} 字节，版本 {}，耗时 {}ms", size, bytes, version, lastWriteMillis);
+        return true;
+    }
+
+    public synchronized UserSnapshotStats stats() {
+        return new UserSnapshotStats(file.toString(), restoredUsers, restoreMillis, writes, failures,
+                writtenVersion == Long.MIN_VALUE ? 0 : writtenVersion, lastWriteBytes, lastWriteMillis);
+    }
+
+    /**
+     * 停止定期写入，配置了 write-on-shutdown 时再写一次
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = scheduler;
+            scheduler = null;
+        }
+        if (current != null) {
+            current.shutdown();
+            try {
+                current.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (properties.isWriteOnShutdown()) {
+            writeQuietly();
+        }
+    }
+
+    /**
+     * 定时任务抛出异常后不会再执行，这里只记录失败
+     */
+    private void writeQuietly() {
+        try {
+            writeIfChanged();
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                failures++;
+            }
+            log.error("用户快照写入失败: {}", file, e);
+        }
+    }
+}
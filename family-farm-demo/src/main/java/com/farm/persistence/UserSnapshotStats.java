@@ -0,0 +1,32 @@
+package com.farm.persistence;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+/**
+ * @ClassName UserSnapshotStats
+ * @Author phx
+ * @Date 2025/6/20 11:10
+ * @Description 用户快照文件的写入与恢复统计
+ */
+
+@Value
+public class UserSnapshotStats {
+    @Schema(description = "快照文件路径", example = "data/users.snapshot")
+    private String file;
+    @Schema(description = "启动时恢复的用户数，未恢复时为 0", example = "5000000")
+    private int restoredUsers;
+    @Schema(description = "启动时恢复的耗时（毫秒）", example = "180")
+    private long restoreMillis;
+    @Schema(description = "成功写入的次数", example = "12")
+    private long writes;
+    @Schema(description = "写入失败的次数", example = "0")
+    private long failures;
+    @Schema(description = "最近一次写入的数据版本号", example = "1750389000123")
+    private long writtenVersion;
+    @Schema(description = "最近一次写入的文件字节数", example = "98000000")
+    private long lastWriteBytes;
+    @Schema(description = "最近一次写入的耗时（毫秒）", example = "350")
+    private long lastWriteMillis;
+}
@@ -2,6 +2,9 @@ package com.farm.service;
 
 
 import com.farm.entity.User;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserDelta;
+import com.farm.entity.UserPage;
 
 import java.util.List;
 
@@ -21,4 +24,67 @@ public interface UserService {
 
     List<User> getUserList();
 
+    /**
+     * 游标分页查询，返回用户ID大于 after 的前 limit 个用户（按用户ID升序）
+     *
+     * @param after 游标，为空时从第一个用户开始
+     * @param limit 本页最多返回的用户数
+     */
+    UserPage getUserPage(Integer after, int limit);
+
+    /**
+     * 按用户ID批量查询，一次完成所有ID的查找
+     *
+     * @param ids 用户ID
+     * @return 查询到的用户，以及不存在的用户ID
+     */
+    UserBatchResult getUsersByIds(int[] ids);
+
+    /**
+     * 用户数据的当前版本号，任何用户新增、修改、删除后变大，用于生成 ETag
+     */
+    long getVersion();
+
+    /**
+     * 增量同步，返回版本 since 之后新增或修改的用户
+     * <p>
+     * 期间有用户被删除，或 since 比当前版本还新（如服务重启前的版本号）时返回全部用户，并标记 full
+     *
+     * @param since 客户端上次同步得到的版本号
+     */
+    UserDelta getUsersChangedSince(long since);
+
+    /**
+     * 按名称搜索用户：精确匹配在前，其次前缀匹配，最后子串匹配，同一类按用户ID升序
+     * <p>
+     * 不区分大小写，全角与半角字符等价
+     *
+     * @param query 查询串
+     * @param limit 最多返回的用户数
+     */
+    List<User> searchUsers(String query, int limit);
+
+    /**
+     * 新增用户，成功后版本号变大
+     * <p>
+     * 写入不阻塞查询：查询读取写入前或写入后的完整快照，不会看到写了一半的数据
+     *
+     * @throws com.farm.exception.UserAlreadyExistsException 用户 id 已存在
+     */
+    User createUser(User user);
+
+    /**
+     * 按用户 id 修改用户
+     *
+     * @throws com.farm.exception.UserNotFoundException 用户不存在
+     */
+    User updateUser(User user);
+
+    /**
+     * 按用户 id 删除用户
+     *
+     * @throws com.farm.exception.UserNotFoundException 用户不存在
+     */
+    void deleteUser(int id);
+
 }
@@ -0,0 +1,136 @@
+package com.farm.service.cache;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserCacheStats;
+import com.farm.entity.UserDelta;
+import com.farm.entity.UserPage;
+import com.farm.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * @ClassName CachingUserService
+ * @Author phx
+ * @Date 2025/5/12 10:05
+ * @Description UserService 的缓存装饰器，可以包装任意 UserService 实现
+ * <p>
+ * 所有查询方法共用一个容量受限的 Caffeine 缓存（W-TinyLFU 淘汰 + 写入后过期），缓存键区分方法和参数。
+ * 同一个键并发未命中时只有一个线程调用被装饰的实现，其余线程等待结果。
+ * 查询抛出的异常（如用户不存在）不会被缓存。
+ * 批量查询的ID组合几乎不会重复，不走缓存；增量同步本身只访问变化的用户，也不走缓存。
+ * 名称搜索的热门查询重复度高，按查询串缓存。
+ * <p>
+ * 缓存键包含查询时的数据版本号，数据变化后旧条目不再命中，由容量和过期时间淘汰，
+ * 因此不会在数据修改后继续返回旧数据，也不会出现 ETag 是新版本、内容是旧版本的情况。
+ * 版本号由 version 直接读取（通常是最内层实现的存储快照），命中时不经过内层装饰器。
+ */
+
+public class CachingUserService implements UserService {
+
+    private final UserService delegate;
+    private final LongSupplier version;
+    private final Cache<CacheKey, Object> cache;
+
+    public CachingUserService(UserService delegate, long maximumSize, Duration ttl) {
+        this(delegate, delegate::getVersion, maximumSize, ttl);
+    }
+
+    /**
+     * @param version 读取当前数据版本号，应直接读存储快照，避免每次命中都穿过整条装饰链
+     */
+    public CachingUserService(UserService delegate, LongSupplier version, long maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        this.version = version;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public User getUser() {
+        return (User) cache.get(new CacheKey("getUser", null, null, version.getAsLong()), key -> delegate.getUser());
+    }
+
+    @Override
+    public User getUserByIndex(int index) {
+        return (User) cache.get(new CacheKey("getUserByIndex", index, null, version.getAsLong()), key -> delegate.getUserByIndex(index));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<User> getUserList() {
+        return (List<User>) cache.get(new CacheKey("getUserList", null, null, version.getAsLong()), key -> delegate.getUserList());
+    }
+
+    @Override
+    public UserPage getUserPage(Integer after, int limit) {
+        return (UserPage) cache.get(new CacheKey("getUserPage", after, limit, version.getAsLong()), key -> delegate.getUserPage(after, limit));
+    }
+
+    @Override
+    public UserBatchResult getUsersByIds(int[] ids) {
+        return delegate.getUsersByIds(ids);
+    }
+
+    @Override
+    public long getVersion() {
+        return version.getAsLong();
+    }
+
+    @Override
+    public UserDelta getUsersChangedSince(long since) {
+        return delegate.getUsersChangedSince(since);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<User> searchUsers(String query, int limit) {
+        return (List<User>) cache.get(new CacheKey("searchUsers", query, limit, version.getAsLong()), key -> delegate.searchUsers(query, limit));
+    }
+
+    /**
+     * 写入不经过缓存：写入后版本号变大，旧版本的缓存条目不再命中，无需清空缓存
+     */
+    @Override
+    public User createUser(User user) {
+        return delegate.createUser(user);
+    }
+
+    @Override
+    public User updateUser(User user) {
+        return delegate.updateUser(user);
+    }
+
+    @Override
+    public void deleteUser(int id) {
+        delegate.deleteUser(id);
+    }
+
+    /**
+     * 清空缓存，底层数据变化后调用
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public UserCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new UserCacheStats(stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), cache.estimatedSize());
+    }
+
+    /**
+     * 缓存键：方法名 + 参数 + 数据版本号
+     */
+    private record CacheKey(String method, Object arg1, Integer arg2, long version) {
+    }
+}
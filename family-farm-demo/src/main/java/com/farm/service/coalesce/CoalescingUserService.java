@@ -0,0 +1,150 @@
+package com.farm.service.coalesce;
+
+
+import com.farm.common.concurrent.SingleFlight;
+import com.farm.entity.User;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserCoalescingStats;
+import com.farm.entity.UserDelta;
+import com.farm.entity.UserPage;
+import com.farm.service.UserService;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName CoalescingUserService
+ * @Author phx
+ * @Date 2025/6/18 11:00
+ * @Description UserService 的请求合并装饰器：并发的相同查询只调用一次被装饰的实现，其余调用共享结果
+ * <p>
+ * 键为方法名 + 参数，keyByVersion 为 true 时再加上数据版本号：数据变化后到达的调用不会共享变化前开始的查询，
+ * 与缓存键的约定一致；为 false 时合并范围更大，但可能拿到刚被修改前的数据。
+ * 只合并 methods 中列出的方法，其余方法直接调用被装饰的实现；getVersion 总是直接调用。
+ * <p>
+ * 与缓存不同，查询结束后不保留结果。放在缓存之内：缓存未命中、缓存关闭，
+ * 以及不走缓存的增量同步与批量查询，在被装饰的实现较慢时（如远程存储）都不会因并发而放大负载
+ */
+
+public class CoalescingUserService implements UserService {
+
+    /**
+     * 可以合并的方法
+     */
+    private static final Set<String> SUPPORTED_METHODS = Set.of("getUser", "getUserByIndex", "getUserList",
+            "getUserPage", "getUsersByIds", "getUsersChangedSince", "searchUsers");
+
+    private final UserService delegate;
+    private final Set<String> methods;
+    private final boolean keyByVersion;
+    private final SingleFlight<FlightKey> singleFlight = new SingleFlight<>();
+
+    public CoalescingUserService(UserService delegate, Set<String> methods, boolean keyByVersion) {
+        for (String method : methods) {
+            if (!SUPPORTED_METHODS.contains(method)) {
+                throw new IllegalArgumentException("不支持合并的方法: " + method + "，可选: " + SUPPORTED_METHODS);
+            }
+        }
+        this.delegate = delegate;
+        this.methods = Set.copyOf(methods);
+        this.keyByVersion = keyByVersion;
+    }
+
+    @Override
+    public User getUser() {
+        return coalesce("getUser", null, null, delegate::getUser);
+    }
+
+    @Override
+    public User getUserByIndex(int index) {
+        return coalesce("getUserByIndex", index, null, () -> delegate.getUserByIndex(index));
+    }
+
+    @Override
+    public List<User> getUserList() {
+        return coalesce("getUserList", null, null, delegate::getUserList);
+    }
+
+    @Override
+    public UserPage getUserPage(Integer after, int limit) {
+        return coalesce("getUserPage", after, limit, () -> delegate.getUserPage(after, limit));
+    }
+
+    @Override
+    public UserBatchResult getUsersByIds(int[] ids) {
+        return coalesce("getUsersByIds", new Ids(ids), null, () -> delegate.getUsersByIds(ids));
+    }
+
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    @Override
+    public UserDelta getUsersChangedSince(long since) {
+        return coalesce("getUsersChangedSince", since, null, () -> delegate.getUsersChangedSince(since));
+    }
+
+    @Override
+    public List<User> searchUsers(String query, int limit) {
+        return coalesce("searchUsers", query, limit, () -> delegate.searchUsers(query, limit));
+    }
+
+    /**
+     * 写入不合并：写入后版本号变大，之后到达的查询不会共享写入前开始的查询
+     */
+    @Override
+    public User createUser(User user) {
+        return delegate.createUser(user);
+    }
+
+    @Override
+    public User updateUser(User user) {
+        return delegate.updateUser(user);
+    }
+
+    @Override
+    public void deleteUser(int id) {
+        delegate.deleteUser(id);
+    }
+
+    private <V> V coalesce(String method, Object arg1, Integer arg2, Supplier<V> call) {
+        if (!methods.contains(method)) {
+            return call.get();
+        }
+        long version = keyByVersion ? delegate.getVersion() : 0;
+        return singleFlight.execute(new FlightKey(method, arg1, arg2, version), call);
+    }
+
+    public UserCoalescingStats stats() {
+        long executions = singleFlight.executionCount();
+        long coalesced = singleFlight.coalescedCount();
+        long calls = executions + coalesced;
+        return new UserCoalescingStats(calls, executions, coalesced,
+                calls == 0 ? 0 : (double) coalesced / calls, singleFlight.inFlightCount());
+    }
+
+    /**
+     * 合并键：方法名 + 参数 + 数据版本号（不按版本合并时为 0）
+     */
+    private record FlightKey(String method, Object arg1, Integer arg2, long version) {
+    }
+
+    /**
+     * 批量查询的用户ID按内容比较
+     */
+    private record Ids(int[] ids) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Ids other && Arrays.equals(ids, other.ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(ids);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.farm.service.impl;
+
+
+import com.farm.store.ColumnarUserStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * @ClassName ColumnarUserServiceImpl
+ * @Author phx
+ * @Date 2025/6/9 11:40
+ * @Description 基于列式用户仓库 {@link ColumnarUserStore} 的实现，farm.user.store.type=columnar 时替代 {@link UserServiceImpl}
+ * <p>
+ * 仓库中没有 User 对象，返回的 User 在查询时创建；列表类结果是按需创建元素的视图，序列化时逐个创建、逐个丢弃
+ */
+
+@Service("columnarUserServiceImpl")
+@ConditionalOnProperty(prefix = "farm.user.store", name = "type", havingValue = "columnar")
+public class ColumnarUserServiceImpl extends UserServiceImpl {
+
+    @Autowired
+    public ColumnarUserServiceImpl(ColumnarUserStore userStore) {
+        super(userStore);
+    }
+}
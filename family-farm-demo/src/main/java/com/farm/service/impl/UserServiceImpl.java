@@ -2,38 +2,152 @@ package com.farm.service.impl;
 
 
 import com.farm.entity.User;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserDelta;
+import com.farm.entity.UserPage;
+import com.farm.exception.UserAlreadyExistsException;
+import com.farm.exception.UserNotFoundException;
 import com.farm.service.UserService;
+import com.farm.store.AbstractUserStore;
+import com.farm.store.UserStore;
+import com.farm.store.UserStoreSnapshot;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * @ClassName UserServiceImpl
  * @Author phx
  * @Date 2025/4/24 19:21
- * @Description TODO
+ * @Description 基于内存用户仓库 {@link UserStore} 的实现，查询直接读取仓库快照，不再每次新建列表和用户对象
+ * <p>
+ * 只依赖 {@link AbstractUserStore} 与 {@link UserStoreSnapshot}，与存储布局无关，列式仓库由子类 {@link ColumnarUserServiceImpl} 接入
  */
 
-@Service
+@Service("userServiceImpl")
 public class UserServiceImpl implements UserService {
 
+    private static final User DEFAULT_USER = new User(1, "用户名");
+
+    private final AbstractUserStore<?> userStore;
+
+    @Autowired
+    public UserServiceImpl(UserStore userStore) {
+        this.userStore = userStore;
+    }
+
+    protected UserServiceImpl(AbstractUserStore<?> userStore) {
+        this.userStore = userStore;
+    }
+
+    @PostConstruct
+    public void init() {
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(2, "用户名2")));
+    }
+
     @Override
     public User getUser() {
-        return new User(1, "用户名");
+        return DEFAULT_USER;
     }
 
 
     @Override
     public User getUserByIndex(int index) {
-        return this.getUserList().get(index);
+        User user = userStore.snapshot().get(index);
+        if (user == null) {
+            throw UserNotFoundException.ofIndex(index);
+        }
+        return user;
     }
 
     @Override
     public List<User> getUserList() {
-        List<User> userList = new ArrayList<>();
-        userList.add(new User(1, "用户名1"));
-        userList.add(new User(2, "用户名2"));
-        return userList;
+        return userStore.snapshot().asList();
+    }
+
+    /**
+     * 返回的是快照列表的 subList 视图，不复制用户数据
+     */
+    @Override
+    public UserPage getUserPage(Integer after, int limit) {
+        UserStoreSnapshot<?> snapshot = userStore.snapshot();
+        int from = after == null ? 0 : snapshot.indexAfter(after);
+        int to = (int) Math.min((long) from + limit, snapshot.size());
+        List<User> users = snapshot.asList().subList(from, to);
+        Integer nextCursor = to < snapshot.size() && to > from ? snapshot.idAt(to - 1) : null;
+        return new UserPage(users, nextCursor);
+    }
+
+    /**
+     * 所有ID在同一个快照上查找，结果之间相互一致
+     */
+    @Override
+    public UserBatchResult getUsersByIds(int[] ids) {
+        UserStoreSnapshot<?> snapshot = userStore.snapshot();
+        List<User> users = new ArrayList<>(ids.length);
+        int[] missingIds = null;
+        int missing = 0;
+        for (int id : ids) {
+            User user = snapshot.getById(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                if (missingIds == null) {
+                    missingIds = new int[ids.length];
+                }
+                missingIds[missing++] = id;
+            }
+        }
+        return new UserBatchResult(users, missing == 0 ? new int[0] : Arrays.copyOf(missingIds, missing));
+    }
+
+    @Override
+    public long getVersion() {
+        return userStore.snapshot().version();
+    }
+
+    @Override
+    public UserDelta getUsersChangedSince(long since) {
+        UserStoreSnapshot<?> snapshot = userStore.snapshot();
+        if (since > snapshot.version() || snapshot.removedSince(since)) {
+            return new UserDelta(snapshot.version(), true, snapshot.asList());
+        }
+        return new UserDelta(snapshot.version(), false, snapshot.changedSince(since));
+    }
+
+    /**
+     * 名称索引给出候选用户，在同一个快照上核对名称；从快照文件恢复后索引构建完成前逐个扫描快照
+     */
+    @Override
+    public List<User> searchUsers(String query, int limit) {
+        UserStoreSnapshot<?> snapshot = userStore.snapshot();
+        return userStore.search(snapshot, query, limit);
+    }
+
+    @Override
+    public User createUser(User user) {
+        if (!userStore.create(user)) {
+            throw UserAlreadyExistsException.ofId(user.getId());
+        }
+        return user;
+    }
+
+    @Override
+    public User updateUser(User user) {
+        if (!userStore.update(user)) {
+            throw UserNotFoundException.ofId(user.getId());
+        }
+        return user;
+    }
+
+    @Override
+    public void deleteUser(int id) {
+        if (!userStore.delete(id)) {
+            throw UserNotFoundException.ofId(id);
+        }
     }
 }
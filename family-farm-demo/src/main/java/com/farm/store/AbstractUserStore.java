@@ -0,0 +1,227 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @ClassName AbstractUserStore
+ * @Author phx
+ * @Date 2025/6/24 11:10
+ * @Description 内存用户仓库，与存储布局无关的部分；布局由快照类型 S 决定，见 {@link UserStore}、{@link ColumnarUserStore}
+ * <p>
+ * 读：直接读取 volatile 的当前快照，无锁、无分配；
+ * 写：基于当前数据构建新的快照后整体替换（copy-on-write），写操作之间串行执行。
+ * 单个用户的新增、修改、删除经 {@link UserWriteCombiner} 合并，同时到达的写入只构建一个新快照。
+ * 可以用 {@link UserSnapshotFile} 写出的快照文件整体恢复（{@link #restore}），名称索引随后在后台构建。
+ * 读线程拿到的快照在使用期间不会被修改。
+ * 写入时按新旧快照的差异增量更新名称搜索索引 {@link NameSearchIndex}。
+ * 名称索引可以关闭（farm.user.search.enabled=false），此时不构建、不更新，名称搜索逐个扫描快照：
+ * 索引的倒排列表每个用户要占几十字节，比列式快照本身还大，用户很多、又不需要快速名称搜索时关闭。
+ * <p>
+ * 版本号以创建仓库时的毫秒时间戳为起点，每次写入加 1，重启后新的版本号大于重启前发出的版本号
+ * （只要平均每毫秒的写入不超过一次），客户端带着旧版本号来同步时不会误判为没有变化。
+ */
+
+@Slf4j
+public abstract class AbstractUserStore<S extends UserStoreSnapshot<S>> {
+
+    private volatile S snapshot;
+    private final boolean nameIndexEnabled;
+    /**
+     * 从快照文件恢复后、后台构建完成前为 null，未启用名称索引时始终为 null
+     */
+    private volatile NameSearchIndex nameIndex;
+    /**
+     * 后台正在为其构建名称索引的恢复快照，没有时为 null
+     */
+    private S indexBase;
+    private final UserWriteCombiner writes = new UserWriteCombiner();
+
+    /**
+     * @param empty            初始的空快照
+     * @param nameIndexEnabled 是否维护名称搜索索引
+     */
+    protected AbstractUserStore(S empty, boolean nameIndexEnabled) {
+        this.snapshot = empty;
+        this.nameIndexEnabled = nameIndexEnabled;
+        this.nameIndex = nameIndexEnabled ? new NameSearchIndex() : null;
+    }
+
+    /**
+     * 按快照文件构建本布局的快照，文件格式见 {@link UserSnapshotFile}
+     *
+     * @param minVersion 恢复后的版本号不小于该值
+     */
+    protected abstract S read(Path file, long minVersion) throws IOException;
+
+    /**
+     * 当前快照，同一次请求内应只读取一次，保证前后看到的数据一致
+     */
+    public S snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 用户名称搜索索引，查询时传入同一次请求读取的快照核对结果
+     *
+     * @return 未启用名称索引，或从快照文件恢复后、索引在后台构建完成前返回 null
+     */
+    public NameSearchIndex nameIndex() {
+        return nameIndex;
+    }
+
+    /**
+     * 按名称搜索 snapshot 中的用户，语义见 {@link NameSearchIndex#search}；
+     * 未启用名称索引或索引还在后台构建时逐个扫描快照，结果相同，只是更慢
+     */
+    public List<User> search(UserStoreSnapshot<?> snapshot, String query, int limit) {
+        NameSearchIndex index = nameIndex;
+        return index != null ? index.search(query, limit, snapshot::getById) : NameSearchIndex.scan(query, limit, snapshot.asList());
+    }
+
+    /**
+     * 用快照文件中的数据整体替换仓库，文件格式见 {@link UserSnapshotFile}
+     * <p>
+     * 版本号取文件中的版本号与 当前时间戳、当前版本号 + 1 中的较大者，仓库的版本号不会回退；
+     * 恢复前的版本都视为有用户被删除，增量同步的客户端会重新拉取全部用户。
+     * 名称索引在后台线程构建，期间的写入照常进行，构建完成后在写锁内补上这期间的变化
+     */
+    public synchronized void restore(Path file) throws IOException {
+        S restored = read(file, Math.max(System.currentTimeMillis(), snapshot.version() + 1));
+        this.snapshot = restored;
+        if (nameIndexEnabled) {
+            nameIndex = null;
+            indexBase = restored;
+            Thread.ofPlatform().name("user-name-index").daemon().start(() -> buildIndex(restored));
+        }
+    }
+
+    /**
+     * 名称索引是否可用，未启用名称索引时、从快照文件恢复后在后台构建完成前为 false
+     */
+    public boolean isNameIndexReady() {
+        return nameIndex != null;
+    }
+
+    /**
+     * 用给定的用户整体替换仓库中的数据
+     */
+    public synchronized void replaceAll(Collection<User> users) {
+        S previous = snapshot;
+        publish(previous, previous.next(users));
+    }
+
+    /**
+     * 新增或按 id 覆盖给定的用户，其余用户保持不变
+     * <p>
+     * 只对本次写入的用户排序后与当前快照归并，适合批量导入时分批调用
+     */
+    public synchronized void putAll(Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        S previous = snapshot;
+        publish(previous, previous.merge(users));
+    }
+
+    /**
+     * 新增用户
+     *
+     * @return 用户 id 已存在时返回 false，不做修改
+     */
+    public boolean create(User user) {
+        return writes.submit(this, UserMutation.create(user), this::write);
+    }
+
+    /**
+     * 按 id 修改用户
+     *
+     * @return 用户不存在时返回 false
+     */
+    public boolean update(User user) {
+        return writes.submit(this, UserMutation.update(user), this::write);
+    }
+
+    /**
+     * 按 id 删除用户
+     *
+     * @return 用户不存在时返回 false
+     */
+    public boolean delete(int id) {
+        return writes.submit(this, UserMutation.delete(id), this::write);
+    }
+
+    /**
+     * 在锁内应用一批单个用户的写入，整批只发布一个新快照
+     */
+    private void write(List<UserMutation> batch) {
+        S previous = snapshot;
+        UserMutation.Changes changes = UserMutation.resolve(batch, id -> previous.indexOf(id) >= 0);
+        if (!changes.isEmpty()) {
+            publish(previous, previous.merge(changes.upserts(), changes.deletes()));
+        }
+    }
+
+    /**
+     * 先按新旧快照的差异更新名称索引，再发布新快照；索引在后台构建时不更新，由构建完成时统一补上
+     */
+    private void publish(S previous, S next) {
+        NameSearchIndex index = nameIndex;
+        if (index != null) {
+            updateIndex(index, previous, next);
+        }
+        this.snapshot = next;
+    }
+
+    /**
+     * 在锁外为恢复的快照构建名称索引，再在锁内补上构建期间的写入并启用；期间又恢复了其它快照时丢弃结果
+     */
+    private void buildIndex(S base) {
+        long start = System.nanoTime();
+        NameSearchIndex index = new NameSearchIndex();
+        try {
+            index.update(List.of(), base.asList());
+        } catch (RuntimeException e) {
+            log.error("名称索引构建失败，名称搜索继续逐个扫描", e);
+            return;
+        }
+        synchronized (this) {
+            if (indexBase != base) {
+                return;
+            }
+            updateIndex(index, base, snapshot);
+            nameIndex = index;
+            indexBase = null;
+        }
+        log.info("名称索引构建完成: {} 个用户，耗时 {}ms", base.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 按 previous 到 next 的差异更新名称索引，两个快照之间可以相隔多个版本
+     */
+    private static void updateIndex(NameSearchIndex index, UserStoreSnapshot<?> previous, UserStoreSnapshot<?> next) {
+        List<User> added = next.changedSince(previous.version());
+        List<User> removed = new ArrayList<>();
+        for (User user : added) {
+            User old = previous.getById(user.getId());
+            if (old != null) {
+                removed.add(old);
+            }
+        }
+        if (next.removedSince(previous.version())) {
+            for (User user : previous.asList()) {
+                if (next.indexOf(user.getId()) < 0) {
+                    removed.add(user);
+                }
+            }
+        }
+        index.update(removed, added);
+    }
+}
@@ -0,0 +1,351 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * @ClassName ColumnarUserSnapshot
+ * @Author phx
+ * @Date 2025/6/9 10:30
+ * @Description 列式存储的用户快照，与 {@link UserSnapshot} 的查询语义一致
+ * <p>
+ * 不为每个用户保存 User 对象：用户 id 存放在按 id 升序的 int 数组中，下标即列表的 INDEX；
+ * 用户名称按 UTF-8 编码后存放在一块堆外内存（direct ByteBuffer，{@link NameArena}）中，第 i 个用户的名称从 nameStarts[i] 开始、长 nameLengths[i] 字节。
+ * 堆上每个用户只占几个基本类型数组元素，没有对象头和引用，几千万用户时 GC 需要扫描的对象只有几个大数组。
+ * 按 id 查询在有序的 id 数组上二分查找，不建哈希索引（哈希索引为保持低负载因子，每个用户要多占 16~32 字节）。
+ * <p>
+ * User 对象只在读取时按需创建（{@link #get(int)}、{@link #asList()} 的元素），序列化后即成为垃圾，在年轻代回收。
+ * 名称区使用 int 偏移量，单个快照的名称总长度不超过 2GB。
+ * <p>
+ * 写入不复制整个名称区：未变化的用户沿用原来的偏移量，新增或修改的名称追加到名称区末尾，与上一个快照共用同一块堆外内存，
+ * 每次写入的堆外开销只与写入的名称字节数有关。被覆盖、删除的名称留在名称区中成为废弃字节，
+ * 废弃字节超过有效字节或剩余容量不足时，把有效名称紧凑复制到新分配的名称区（容量为有效字节的 1.5 倍），
+ * 分配次数随名称区成倍增长而递减，旧名称区随引用它的快照一起被回收。
+ * 每个用户因此多占一个 int（名称长度），快照用到的名称区中废弃字节不超过有效字节。
+ */
+
+public final class ColumnarUserSnapshot implements UserStoreSnapshot<ColumnarUserSnapshot> {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * 紧凑复制时名称区至少留出的空余字节
+     */
+    private static final int MIN_HEADROOM = 64 * 1024;
+
+    private final int[] ids;
+    private final int[] nameStarts;
+    private final int[] nameLengths;
+    /**
+     * 名称为 null 的用户下标，没有时为 null
+     */
+    private final BitSet nullNames;
+    private final NameArena arena;
+    private final ByteBuffer names;
+    /**
+     * 本快照在名称区中用到的末尾，之后的字节属于更新的快照
+     */
+    private final int namesEnd;
+    private final List<User> view;
+    private final UserChangeLog changes;
+
+    private ColumnarUserSnapshot(int[] ids, int[] nameStarts, int[] nameLengths, BitSet nullNames,
+                                 NameArena arena, int namesEnd, UserChangeLog changes) {
+        this.ids = ids;
+        this.nameStarts = nameStarts;
+        this.nameLengths = nameLengths;
+        this.nullNames = nullNames;
+        this.arena = arena;
+        this.names = arena.buffer();
+        this.namesEnd = namesEnd;
+        this.view = new UserListView();
+        this.changes = changes;
+    }
+
+    /**
+     * 空快照
+     *
+     * @param version 初始版本号
+     */
+    static ColumnarUserSnapshot empty(long version) {
+        return new ColumnarUserSnapshot(new int[0], new int[0], new int[0], null,
+                NameArena.allocate(0, 0), 0, UserChangeLog.empty(version));
+    }
+
+    /**
+     * 从快照文件恢复的快照，语义同 {@link UserSnapshot#restored}
+     * <p>
+     * names 可以是文件的内存映射，名称按需从页缓存读取，不复制到堆外内存；映射是只读的，
+     * 之后第一次写入新增或修改名称时复制到新的堆外名称区，只有删除时继续使用映射
+     *
+     * @param ids         按升序、不重复
+     * @param nameOffsets 长度为 ids.length + 1
+     * @param nullNames   名称为 null 的用户下标，没有时为 null
+     */
+    static ColumnarUserSnapshot restored(int[] ids, int[] nameOffsets, BitSet nullNames, ByteBuffer names, long version) {
+        int[] nameLengths = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            nameLengths[i] = nameOffsets[i + 1] - nameOffsets[i];
+        }
+        int end = nameOffsets[ids.length];
+        return new ColumnarUserSnapshot(ids, Arrays.copyOf(nameOffsets, ids.length), nameLengths, nullNames,
+                new NameArena(names, end), end, UserChangeLog.restored(ids.length, version));
+    }
+
+    /**
+     * 与当前快照相比 id 和名称字节都相同的用户保留原来的修改版本，新增或修改的用户记为新版本
+     */
+    @Override
+    public ColumnarUserSnapshot next(Collection<User> source) {
+        return successor(UserMergePlan.replace(ids, source));
+    }
+
+    /**
+     * 未被覆盖的用户沿用名称区中原来的字节，不创建 User 对象，耗时与 用户总数 + upserts 数量 成线性
+     */
+    @Override
+    public ColumnarUserSnapshot merge(Collection<User> upserts, int[] deletes) {
+        return successor(UserMergePlan.merge(ids, upserts, deletes));
+    }
+
+    private ColumnarUserSnapshot successor(UserMergePlan plan) {
+        User[] rows = plan.rows;
+        int[] oldIndexes = plan.oldIndexes;
+        int size = rows.length;
+        int[] nextIds = new int[size];
+        int[] nextStarts = new int[size];
+        int[] nextLengths = new int[size];
+        BitSet nextNullNames = null;
+        byte[][] encoded = new byte[size][];
+        long live = 0;
+        long appended = 0;
+        for (int i = 0; i < size; i++) {
+            boolean isNull;
+            if (rows[i] == null) {
+                nextIds[i] = ids[oldIndexes[i]];
+                isNull = isNull(oldIndexes[i]);
+                nextStarts[i] = nameStarts[oldIndexes[i]];
+                nextLengths[i] = nameLengths[oldIndexes[i]];
+            } else {
+                nextIds[i] = rows[i].getId();
+                String name = rows[i].getName();
+                isNull = name == null;
+                encoded[i] = isNull ? EMPTY : name.getBytes(StandardCharsets.UTF_8);
+                nextLengths[i] = encoded[i].length;
+                appended += nextLengths[i];
+            }
+            if (isNull) {
+                if (nextNullNames == null) {
+                    nextNullNames = new BitSet(size);
+                }
+                nextNullNames.set(i);
+            }
+            live += nextLengths[i];
+            if (live > Integer.MAX_VALUE) {
+                throw new IllegalStateException("用户名称总长度超过2GB，无法放入单个名称区");
+            }
+        }
+        // 名称写入堆外后，编码用的临时字节数组随即成为垃圾
+        NameArena nextArena = arena;
+        int nextEnd;
+        if (namesEnd + appended - live <= live && arena.append(namesEnd, (int) appended)) {
+            // 追加到当前名称区末尾，未变化的名称不移动
+            nextEnd = namesEnd + (int) appended;
+            int position = namesEnd;
+            for (int i = 0; i < size; i++) {
+                if (rows[i] != null) {
+                    nextStarts[i] = position;
+                    names.put(position, encoded[i]);
+                    position += encoded[i].length;
+                }
+            }
+        } else {
+            // 废弃字节过多或容量不足：紧凑复制到新的名称区
+            nextEnd = (int) live;
+            nextArena = NameArena.allocate((int) Math.min(Integer.MAX_VALUE, live + Math.max(live / 2, MIN_HEADROOM)), nextEnd);
+            ByteBuffer nextNames = nextArena.buffer();
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == null) {
+                    nextNames.put(position, names, nextStarts[i], nextLengths[i]);
+                } else {
+                    nextNames.put(position, encoded[i]);
+                }
+                nextStarts[i] = position;
+                position += nextLengths[i];
+            }
+        }
+
+        BitSet nulls = nextNullNames;
+        UserChangeLog nextChanges = changes.next(oldIndexes, i -> rows[i] == null
+                || isNull(oldIndexes[i]) == (nulls != null && nulls.get(i))
+                && nameBytes(oldIndexes[i]).equals(ByteBuffer.wrap(encoded[i])));
+        return new ColumnarUserSnapshot(nextIds, nextStarts, nextLengths, nextNullNames, nextArena, nextEnd, nextChanges);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 每次调用创建新的 User
+     */
+    @Override
+    public User get(int index) {
+        return index >= 0 && index < ids.length ? materialize(index) : null;
+    }
+
+    /**
+     * 每次调用创建新的 User
+     */
+    @Override
+    public User getById(int id) {
+        int index = indexOf(id);
+        return index < 0 ? null : materialize(index);
+    }
+
+    @Override
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    @Override
+    public int indexOf(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index < 0 ? -1 : index;
+    }
+
+    @Override
+    public int indexAfter(int after) {
+        return UserSnapshot.indexAfter(ids, after);
+    }
+
+    /**
+     * 遍历时逐个创建 User，不会一次性创建全部用户
+     */
+    @Override
+    public List<User> asList() {
+        return view;
+    }
+
+    @Override
+    public long version() {
+        return changes.version();
+    }
+
+    @Override
+    public List<User> changedSince(long since) {
+        int[] indexes = changes.changedSince(since);
+        User[] changed = new User[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            changed[i] = materialize(indexes[i]);
+        }
+        return Collections.unmodifiableList(Arrays.asList(changed));
+    }
+
+    @Override
+    public boolean removedSince(long since) {
+        return changes.removedSince(since);
+    }
+
+    /**
+     * 堆上占用的字节数（估算，只计各数组的元素）
+     */
+    public long heapBytes() {
+        long bytes = (long) ids.length * Integer.BYTES
+                + (long) nameStarts.length * Integer.BYTES
+                + (long) nameLengths.length * Integer.BYTES
+                + changes.heapBytes();
+        return nullNames == null ? bytes : bytes + nullNames.size() / 8;
+    }
+
+    /**
+     * 堆外名称区的字节数（名称区的容量，与相邻版本的快照共用）
+     */
+    public long offHeapBytes() {
+        return arena.capacity();
+    }
+
+    /**
+     * 本快照的名称字节数，不含名称区中的废弃字节与空余容量
+     */
+    public long nameBytes() {
+        long bytes = 0;
+        for (int length : nameLengths) {
+            bytes += length;
+        }
+        return bytes;
+    }
+
+    /**
+     * 第 index 个用户的名称是否为 null
+     */
+    boolean isNull(int index) {
+        return nullNames != null && nullNames.get(index);
+    }
+
+    /**
+     * 第 index 个用户的名称在 {@link #nameArea()} 中的起始位置
+     */
+    int nameStart(int index) {
+        return nameStarts[index];
+    }
+
+    /**
+     * 第 index 个用户的名称字节数，名称为 null 时为 0
+     */
+    int nameLength(int index) {
+        return nameLengths[index];
+    }
+
+    /**
+     * 名称区的只读视图，名称不一定按用户顺序连续存放，按 {@link #nameStart}、{@link #nameLength} 读取
+     */
+    ByteBuffer nameArea() {
+        return names.asReadOnlyBuffer();
+    }
+
+    private ByteBuffer nameBytes(int index) {
+        return names.slice(nameStarts[index], nameLengths[index]);
+    }
+
+    private User materialize(int index) {
+        if (isNull(index)) {
+            return new User(ids[index], null);
+        }
+        byte[] bytes = new byte[nameLengths[index]];
+        // 绝对位置读取，不修改 ByteBuffer 的 position，多个读线程可以共享
+        names.get(nameStarts[index], bytes);
+        return new User(ids[index], new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 只读列表视图，元素在 get 时创建
+     */
+    private final class UserListView extends AbstractList<User> implements RandomAccess {
+
+        @Override
+        public User get(int index) {
+            if (index < 0 || index >= ids.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + ids.length);
+            }
+            return materialize(index);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+}
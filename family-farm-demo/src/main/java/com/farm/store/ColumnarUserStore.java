@@ -0,0 +1,44 @@
+package com.farm.store;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * @ClassName ColumnarUserStore
+ * @Author phx
+ * @Date 2025/6/9 11:20
+ * @Description 列式内存用户仓库，farm.user.store.type=columnar 时启用，读写、恢复、名称索引与 {@link UserStore} 相同（{@link AbstractUserStore}），只有存储布局不同
+ * <p>
+ * 名称搜索索引只保存用户 id，不保存名称。
+ * 从快照文件恢复时名称区直接使用文件的内存映射，不复制到堆外内存，直到下一次写入构建新快照。
+ * <p>
+ * 数据保存在 {@link ColumnarUserSnapshot} 中，适合几千万用户的场景：堆占用与 GC 扫描量远小于每个用户一个对象的布局
+ */
+
+@Component
+@ConditionalOnProperty(prefix = "farm.user.store", name = "type", havingValue = "columnar")
+public class ColumnarUserStore extends AbstractUserStore<ColumnarUserSnapshot> {
+
+    public ColumnarUserStore() {
+        this(true);
+    }
+
+    /**
+     * @param nameIndexEnabled 是否维护名称搜索索引，见 {@link AbstractUserStore}
+     */
+    @Autowired
+    public ColumnarUserStore(@Value("${farm.user.search.enabled:true}") boolean nameIndexEnabled) {
+        super(ColumnarUserSnapshot.empty(System.currentTimeMillis()), nameIndexEnabled);
+    }
+
+    @Override
+    protected ColumnarUserSnapshot read(Path file, long minVersion) throws IOException {
+        return UserSnapshotFile.readColumnar(file, minVersion);
+    }
+}
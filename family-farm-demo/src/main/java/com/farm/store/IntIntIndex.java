@@ -0,0 +1,74 @@
+package com.farm.store;
+
+
+/**
+ * @ClassName IntIntIndex
+ * @Author phx
+ * @Date 2025/5/6 10:12
+ * @Description int -> int 的开放寻址哈希索引（线性探测），键与值都是基本类型，查询时不装箱、不分配对象
+ * <p>
+ * 构建完成后不再修改，可以被任意多个读线程无锁共享
+ */
+
+final class IntIntIndex {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private final int[] keys;
+    /**
+     * 存放 value + 1，0 表示空槽位，这样 key 可以取任意 int 值
+     */
+    private final int[] slots;
+    private final int mask;
+
+    IntIntIndex(int[] keys) {
+        // 负载因子不超过 0.5，保证线性探测的平均探测次数很小
+        int capacity = MIN_CAPACITY;
+        while (capacity < keys.length * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new int[capacity];
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            put(keys[i], i);
+        }
+    }
+
+    private void put(int key, int value) {
+        int pos = mix(key) & mask;
+        while (slots[pos] != 0) {
+            if (keys[pos] == key) {
+                break;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        slots[pos] = value + 1;
+    }
+
+    /**
+     * 查询 key 对应的值
+     *
+     * @return 不存在时返回 -1
+     */
+    int get(int key) {
+        int pos = mix(key) & mask;
+        int slot;
+        while ((slot = slots[pos]) != 0) {
+            if (keys[pos] == key) {
+                return slot - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 打散连续的 id，避免线性探测时形成长簇
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
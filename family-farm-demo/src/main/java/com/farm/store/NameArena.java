@@ -0,0 +1,59 @@
+package com.farm.store;
+
+
+import java.nio.ByteBuffer;
+
+/**
+ * @ClassName NameArena
+ * @Author phx
+ * @Date 2025/6/24 15:30
+ * @Description 列式快照的堆外名称区，只追加：同一个名称区被先后多个快照共用
+ * <p>
+ * 每个快照只读取自己的名称所在的区间，这些区间都在它创建时名称区的末尾之前；
+ * 下一个快照把新增或修改的名称追加在末尾，不改动已有的字节，旧快照的读线程不受影响。
+ * 只有末尾等于名称区当前末尾的快照（即最近一次追加的快照）可以继续追加，
+ * 其它快照（如已被替换的快照、追加后未发布的快照的上一个版本）构建下一版时改为复制到新的名称区。
+ */
+
+final class NameArena {
+
+    private final ByteBuffer buffer;
+    private int end;
+
+    /**
+     * @param end 已使用的字节数，之后的部分可以追加
+     */
+    NameArena(ByteBuffer buffer, int end) {
+        this.buffer = buffer;
+        this.end = end;
+    }
+
+    /**
+     * 新的堆外名称区，前 used 个字节由调用方在发布快照前写入
+     */
+    static NameArena allocate(int capacity, int used) {
+        return new NameArena(ByteBuffer.allocateDirect(capacity), used);
+    }
+
+    /**
+     * 在 from 之后追加 length 个字节的空间，调用方随后用绝对位置写入
+     *
+     * @param from 调用方快照的末尾
+     * @return 是否成功；from 不是名称区当前的末尾或剩余容量不足时返回 false
+     */
+    synchronized boolean append(int from, int length) {
+        if (from != end || buffer.capacity() - from < length) {
+            return false;
+        }
+        end = from + length;
+        return true;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+}
@@ -0,0 +1,314 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * @ClassName NameSearchIndex
+ * @Author phx
+ * @Date 2025/6/11 11:00
+ * @Description 用户名称的 n-gram 倒排索引，支持精确、前缀、子串搜索
+ * <p>
+ * 名称先做 NFKC 规范化并转小写（全角字母数字与半角等价、英文不区分大小写），再按 Unicode 码点切分，
+ * 中文每个汉字就是一个码点，不依赖分词。每个名称索引：每个码点（单字）、相邻两个码点（双字）、首字、尾字。
+ * 查询一个字时查单字列表；两个字以上时对查询串的所有双字列表求交集，再到快照中取出用户核对名称，排除双字都在但不相邻的情况。
+ * <p>
+ * 结果按 精确匹配 -> 前缀匹配 -> 子串匹配 排序，同一类按用户 id 升序；三类依次查找，凑够 limit 个即停止，
+ * 常见的查询（如很多用户共有的前缀）只访问几十个候选，与用户总数无关。
+ * <p>
+ * 写入由仓库在写锁内调用 {@link #update}，只处理变化的用户；每个 n-gram 的列表是不可变的 {@link PostingList}，
+ * 查询无锁。查询结果总是按调用方传入的快照核对，不会返回名称不匹配的用户；写入进行中的查询可能漏掉正在变化的用户。
+ */
+
+public final class NameSearchIndex {
+
+    private static final long UNIGRAM = 0L;
+    private static final long BIGRAM = 1L << 60;
+    private static final long FIRST = 2L << 60;
+    private static final long LAST = 3L << 60;
+
+    private final Map<Long, PostingList> postings = new ConcurrentHashMap<>();
+
+    /**
+     * 名称规范化：NFKC + 小写
+     */
+    public static String normalize(String name) {
+        return Normalizer.normalize(name, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 应用一次写入的变化：被删除和被修改前的用户从索引中去掉，新增和修改后的用户加入索引
+     * <p>
+     * 只能由一个线程调用（仓库的写锁内）
+     *
+     * @param removed 被删除的用户，以及被修改的用户的旧值
+     * @param added   新增的用户，以及被修改的用户的新值
+     */
+    public void update(Collection<User> removed, Collection<User> added) {
+        Map<Long, IntList> removes = collect(removed);
+        Map<Long, IntList> adds = collect(added);
+        Set<Long> keys = new HashSet<>(removes.keySet());
+        keys.addAll(adds.keySet());
+        for (Long key : keys) {
+            int[] removedIds = ids(removes.get(key));
+            int[] addedIds = ids(adds.get(key));
+            // 改名前后都包含的 n-gram 保持不变
+            int[] removedOnly = subtract(removedIds, addedIds);
+            int[] addedOnly = subtract(addedIds, removedIds);
+            if (removedOnly.length == 0 && addedOnly.length == 0) {
+                continue;
+            }
+            PostingList current = postings.getOrDefault(key, PostingList.EMPTY);
+            PostingList next = current == PostingList.EMPTY && removedOnly.length == 0
+                    ? PostingList.of(addedOnly)
+                    : current.update(addedOnly, removedOnly);
+            if (next.size() == 0) {
+                postings.remove(key);
+            } else {
+                postings.put(key, next);
+            }
+        }
+    }
+
+    /**
+     * 搜索名称包含 query 的用户
+     *
+     * @param query  查询串，规范化后为空时返回空列表
+     * @param limit  最多返回的用户数
+     * @param lookup 按用户 id 到调用方持有的快照中取用户，不存在时返回 null
+     */
+    public List<User> search(String query, int limit, IntFunction<User> lookup) {
+        String normalized = normalize(query);
+        int[] codePoints = normalized.codePoints().toArray();
+        List<User> result = new ArrayList<>(Math.min(limit, 64));
+        if (codePoints.length == 0 || limit <= 0) {
+            return result;
+        }
+        long[] grams = queryGrams(codePoints);
+        long first = FIRST | codePoints[0];
+        long last = LAST | codePoints[codePoints.length - 1];
+        Set<Integer> found = new HashSet<>();
+        collect(append(grams, first, last), normalized::equals, limit, lookup, result, found);
+        collect(append(grams, first), name -> name.startsWith(normalized), limit, lookup, result, found);
+        collect(grams, name -> name.contains(normalized), limit, lookup, result, found);
+        return result;
+    }
+
+    /**
+     * 不用索引，逐个检查 users 的名称，结果与 {@link #search} 相同；索引尚未构建时使用，耗时与用户数成正比
+     *
+     * @param users 按用户 id 升序
+     */
+    public static List<User> scan(String query, int limit, List<User> users) {
+        String normalized = normalize(query);
+        List<User> result = new ArrayList<>(Math.min(limit, 64));
+        if (normalized.isEmpty() || limit <= 0) {
+            return result;
+        }
+        List<User> prefixes = new ArrayList<>();
+        List<User> substrings = new ArrayList<>();
+        for (User user : users) {
+            if (user.getName() == null) {
+                continue;
+            }
+            String name = normalize(user.getName());
+            if (name.equals(normalized)) {
+                result.add(user);
+                if (result.size() >= limit) {
+                    return result;
+                }
+            } else if (name.startsWith(normalized)) {
+                if (prefixes.size() < limit) {
+                    prefixes.add(user);
+                }
+            } else if (name.contains(normalized) && substrings.size() < limit) {
+                substrings.add(user);
+            }
+        }
+        result.addAll(prefixes.subList(0, Math.min(prefixes.size(), limit - result.size())));
+        result.addAll(substrings.subList(0, Math.min(substrings.size(), limit - result.size())));
+        return result;
+    }
+
+    /**
+     * 索引中 n-gram 的数量
+     */
+    public int gramCount() {
+        return postings.size();
+    }
+
+    /**
+     * 遍历 keys 对应列表的交集（从最短的列表开始），核对名称后加入结果，凑够 limit 个即停止
+     */
+    private void collect(long[] keys, Predicate<String> matches, int limit, IntFunction<User> lookup,
+                         List<User> result, Set<Integer> found) {
+        if (result.size() >= limit) {
+            return;
+        }
+        PostingList[] lists = new PostingList[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            lists[i] = postings.get(keys[i]);
+            if (lists[i] == null) {
+                return;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+        lists[0].forEach(id -> {
+            for (int i = 1; i < lists.length; i++) {
+                if (!lists[i].contains(id)) {
+                    return true;
+                }
+            }
+            if (found.contains(id)) {
+                return true;
+            }
+            User user = lookup.apply(id);
+            if (user != null && user.getName() != null && matches.test(normalize(user.getName()))) {
+                result.add(user);
+                found.add(id);
+            }
+            return result.size() < limit;
+        });
+    }
+
+    /**
+     * 查询串用到的 n-gram：一个字时为单字，否则为所有相邻双字
+     */
+    private static long[] queryGrams(int[] codePoints) {
+        if (codePoints.length == 1) {
+            return new long[]{UNIGRAM | codePoints[0]};
+        }
+        long[] grams = new long[codePoints.length - 1];
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            grams[i] = bigram(codePoints[i], codePoints[i + 1]);
+        }
+        return distinct(grams, grams.length);
+    }
+
+    /**
+     * 名称的全部 n-gram，已去重
+     */
+    private static long[] nameGrams(String name) {
+        int[] codePoints = normalize(name).codePoints().toArray();
+        if (codePoints.length == 0) {
+            return new long[0];
+        }
+        long[] grams = new long[codePoints.length * 2 + 1];
+        int size = 0;
+        grams[size++] = FIRST | codePoints[0];
+        grams[size++] = LAST | codePoints[codePoints.length - 1];
+        for (int i = 0; i < codePoints.length; i++) {
+            grams[size++] = UNIGRAM | codePoints[i];
+            if (i + 1 < codePoints.length) {
+                grams[size++] = bigram(codePoints[i], codePoints[i + 1]);
+            }
+        }
+        return distinct(grams, size);
+    }
+
+    /**
+     * 码点不超过 21 位，两个码点拼成一个 long
+     */
+    private static long bigram(int first, int second) {
+        return BIGRAM | ((long) first << 21) | second;
+    }
+
+    private static long[] append(long[] grams, long... extra) {
+        long[] result = Arrays.copyOf(grams, grams.length + extra.length);
+        System.arraycopy(extra, 0, result, grams.length, extra.length);
+        return result;
+    }
+
+    private static Map<Long, IntList> collect(Collection<User> users) {
+        Map<Long, IntList> result = new HashMap<>();
+        for (User user : users) {
+            if (user.getName() == null) {
+                continue;
+            }
+            for (long gram : nameGrams(user.getName())) {
+                result.computeIfAbsent(gram, key -> new IntList()).add(user.getId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 有序、去重后的 id
+     */
+    private static int[] ids(IntList list) {
+        if (list == null) {
+            return new int[0];
+        }
+        int[] ids = Arrays.copyOf(list.values, list.size);
+        Arrays.sort(ids);
+        int size = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (size == 0 || ids[size - 1] != ids[i]) {
+                ids[size++] = ids[i];
+            }
+        }
+        return size == ids.length ? ids : Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * 前 size 个元素排序、去重，名称很短，不必用哈希集合
+     */
+    private static long[] distinct(long[] grams, int size) {
+        Arrays.sort(grams, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == grams.length ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * 有序数组 left 中去掉 right 中的元素
+     */
+    private static int[] subtract(int[] left, int[] right) {
+        if (left.length == 0 || right.length == 0) {
+            return left;
+        }
+        int[] result = new int[left.length];
+        int size = 0;
+        for (int id : left) {
+            if (Arrays.binarySearch(right, id) < 0) {
+                result[size++] = id;
+            }
+        }
+        return size == left.length ? left : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 可增长的 int 数组，收集一次写入中每个 n-gram 涉及的用户 id
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.farm.store;
+
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * @ClassName PostingList
+ * @Author phx
+ * @Date 2025/6/11 10:20
+ * @Description 倒排索引中一个 n-gram 对应的用户 id 列表，不可变，按 id 升序遍历
+ * <p>
+ * 由一个大的有序基础数组和两个小的有序增量数组（新增、删除）组成：单个用户的修改只复制增量数组，
+ * 增量超过基础数组的 1/8 时才合并成新的基础数组，写入的均摊成本与列表长度无关。
+ * 读线程拿到的实例不会再被修改，可以无锁遍历。
+ */
+
+final class PostingList {
+
+    static final PostingList EMPTY = new PostingList(new int[0], new int[0], new int[0]);
+
+    /**
+     * 增量数组至少允许的长度，短列表不必频繁合并
+     */
+    private static final int MIN_DELTA = 64;
+
+    private final int[] base;
+    /**
+     * 不在 base 中的新增 id
+     */
+    private final int[] adds;
+    /**
+     * 已从 base 中删除的 id
+     */
+    private final int[] removes;
+
+    private PostingList(int[] base, int[] adds, int[] removes) {
+        this.base = base;
+        this.adds = adds;
+        this.removes = removes;
+    }
+
+    int size() {
+        return base.length + adds.length - removes.length;
+    }
+
+    boolean contains(int id) {
+        if (Arrays.binarySearch(adds, id) >= 0) {
+            return true;
+        }
+        return Arrays.binarySearch(base, id) >= 0 && Arrays.binarySearch(removes, id) < 0;
+    }
+
+    /**
+     * 按 id 升序遍历，consumer 返回 false 时提前结束
+     *
+     * @return 是否遍历完全部 id
+     */
+    boolean forEach(IntPredicate consumer) {
+        int b = 0;
+        int a = 0;
+        int r = 0;
+        while (b < base.length || a < adds.length) {
+            int id;
+            if (a == adds.length || (b < base.length && base[b] < adds[a])) {
+                id = base[b++];
+                while (r < removes.length && removes[r] < id) {
+                    r++;
+                }
+                if (r < removes.length && removes[r] == id) {
+                    continue;
+                }
+            } else {
+                id = adds[a++];
+            }
+            if (!consumer.test(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 返回应用修改后的新列表
+     *
+     * @param added   新增的 id，有序、不重复
+     * @param removed 删除的 id，有序、不重复，与 added 不相交
+     */
+    PostingList update(int[] added, int[] removed) {
+        int[] nextAdds = adds;
+        int[] nextRemoves = removes;
+        if (removed.length > 0) {
+            // 删除的 id 在 adds 中则直接去掉，在 base 中则记入 removes
+            nextAdds = difference(nextAdds, removed);
+            nextRemoves = union(nextRemoves, splitByBase(removed)[0]);
+        }
+        if (added.length > 0) {
+            // 新增的 id 之前被删除过则恢复，否则不在 base 中的记入 adds
+            int[][] parts = splitByBase(added);
+            nextRemoves = difference(nextRemoves, parts[0]);
+            nextAdds = union(nextAdds, parts[1]);
+        }
+        if (nextAdds.length + nextRemoves.length > Math.max(MIN_DELTA, base.length >>> 3)) {
+            return new PostingList(union(difference(base, nextRemoves), nextAdds), new int[0], new int[0]);
+        }
+        return new PostingList(base, nextAdds, nextRemoves);
+    }
+
+    /**
+     * 由有序、不重复的 id 直接构建
+     */
+    static PostingList of(int[] ids) {
+        return ids.length == 0 ? EMPTY : new PostingList(ids, new int[0], new int[0]);
+    }
+
+    /**
+     * 把有序的 ids 分为 在 base 中、不在 base 中 两部分
+     * <p>
+     * ids 较少时（单个用户改名）逐个二分查找；较多时（批量导入）与 base 归并遍历一遍，避免每个 id 一次随机访问的二分查找
+     */
+    private int[][] splitByBase(int[] ids) {
+        int[] in = new int[ids.length];
+        int[] out = new int[ids.length];
+        int inSize = 0;
+        int outSize = 0;
+        if (ids.length > base.length >>> 5) {
+            int b = 0;
+            for (int id : ids) {
+                while (b < base.length && base[b] < id) {
+                    b++;
+                }
+                if (b < base.length && base[b] == id) {
+                    in[inSize++] = id;
+                } else {
+                    out[outSize++] = id;
+                }
+            }
+        } else {
+            for (int id : ids) {
+                if (Arrays.binarySearch(base, id) >= 0) {
+                    in[inSize++] = id;
+                } else {
+                    out[outSize++] = id;
+                }
+            }
+        }
+        return new int[][]{Arrays.copyOf(in, inSize), outSize == ids.length ? ids : Arrays.copyOf(out, outSize)};
+    }
+
+    /**
+     * 两个有序数组的并集
+     */
+    private static int[] union(int[] left, int[] right) {
+        if (right.length == 0) {
+            return left;
+        }
+        if (left.length == 0) {
+            return right;
+        }
+        int[] result = new int[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                result[size++] = left[i++];
+            } else if (left[i] > right[j]) {
+                result[size++] = right[j++];
+            } else {
+                result[size++] = left[i++];
+                j++;
+            }
+        }
+        while (i < left.length) {
+            result[size++] = left[i++];
+        }
+        while (j < right.length) {
+            result[size++] = right[j++];
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 有序数组 left 中去掉 right 中的元素
+     */
+    private static int[] difference(int[] left, int[] right) {
+        if (left.length == 0 || right.length == 0) {
+            return left;
+        }
+        int[] result = new int[left.length];
+        int j = 0;
+        int size = 0;
+        for (int id : left) {
+            while (j < right.length && right[j] < id) {
+                j++;
+            }
+            if (j == right.length || right[j] != id) {
+                result[size++] = id;
+            }
+        }
+        return size == left.length ? left : Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,128 @@
+package com.farm.store;
+
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * @ClassName UserChangeLog
+ * @Author phx
+ * @Date 2025/6/24 10:40
+ * @Description 快照的版本信息，与存储布局无关，{@link UserSnapshot}、{@link ColumnarUserSnapshot} 共用
+ * <p>
+ * 按用户下标记录最后一次被修改时的版本号，另按修改版本排好序，{@link #changedSince(long)} 二分查找后只访问变化的用户。
+ * 删除没有逐个记录，只记录最近一次有用户被删除的版本。
+ */
+
+final class UserChangeLog {
+
+    private final long version;
+    /**
+     * 与快照中的用户一一对应，用户最后一次被修改时的版本号
+     */
+    private final long[] modified;
+    /**
+     * 用户下标，按修改版本升序
+     */
+    private final int[] changeOrder;
+    private final long removedAt;
+
+    private UserChangeLog(long[] modified, int[] changeOrder, long version, long removedAt) {
+        this.modified = modified;
+        this.changeOrder = changeOrder;
+        this.version = version;
+        this.removedAt = removedAt;
+    }
+
+    /**
+     * 空快照的版本信息
+     */
+    static UserChangeLog empty(long version) {
+        return new UserChangeLog(new long[0], new int[0], version, version);
+    }
+
+    /**
+     * 从快照文件恢复的 size 个用户：修改版本都记为 version，并视为 version 时有用户被删除，
+     * 带着更早版本号来增量同步的客户端会拿到全部用户
+     */
+    static UserChangeLog restored(int size, long version) {
+        long[] modified = new long[size];
+        Arrays.fill(modified, version);
+        int[] changeOrder = new int[size];
+        Arrays.setAll(changeOrder, i -> i);
+        return new UserChangeLog(modified, changeOrder, version, version);
+    }
+
+    /**
+     * 下一个版本的版本信息
+     *
+     * @param oldIndexes 下一版每个用户在当前快照中的下标，新用户为 -1
+     * @param unchanged  下一版第 i 个用户（oldIndexes[i] >= 0）与当前快照中的内容是否相同，相同的保留原来的修改版本
+     */
+    UserChangeLog next(int[] oldIndexes, IntPredicate unchanged) {
+        int size = oldIndexes.length;
+        long nextVersion = version + 1;
+        long[] nextModified = new long[size];
+        int[] oldToNext = new int[modified.length];
+        Arrays.fill(oldToNext, -1);
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int index = oldIndexes[i];
+            if (index >= 0) {
+                kept++;
+                oldToNext[index] = i;
+            }
+            nextModified[i] = index >= 0 && unchanged.test(i) ? modified[index] : nextVersion;
+        }
+        // 修改版本的顺序不用重新排序：未变化的用户沿用当前快照中的先后顺序，新增或修改的用户版本最大，排在最后
+        int[] nextChangeOrder = new int[size];
+        int count = 0;
+        for (int index : changeOrder) {
+            int nextIndex = oldToNext[index];
+            if (nextIndex >= 0 && nextModified[nextIndex] != nextVersion) {
+                nextChangeOrder[count++] = nextIndex;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (nextModified[i] == nextVersion) {
+                nextChangeOrder[count++] = i;
+            }
+        }
+        return new UserChangeLog(nextModified, nextChangeOrder, nextVersion,
+                kept < modified.length ? nextVersion : removedAt);
+    }
+
+    long version() {
+        return version;
+    }
+
+    /**
+     * 修改版本大于 since 的用户下标，升序（即 id 顺序）
+     */
+    int[] changedSince(long since) {
+        int low = 0;
+        int high = changeOrder.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (modified[changeOrder[mid]] <= since) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int[] indexes = Arrays.copyOfRange(changeOrder, low, changeOrder.length);
+        Arrays.sort(indexes);
+        return indexes;
+    }
+
+    boolean removedSince(long since) {
+        return removedAt > since;
+    }
+
+    /**
+     * 堆上占用的字节数（估算，只计数组元素）
+     */
+    long heapBytes() {
+        return (long) modified.length * Long.BYTES + (long) changeOrder.length * Integer.BYTES;
+    }
+}
@@ -0,0 +1,107 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * @ClassName UserMergePlan
+ * @Author phx
+ * @Date 2025/6/24 10:50
+ * @Description 下一个快照的行：按 id 升序，每一行对应当前快照中的哪个下标，与存储布局无关
+ * <p>
+ * 当前快照只需提供按 id 升序的 id 数组，新旧两边都有序，归并一遍即可，耗时与 用户总数 + 写入数量 成线性
+ */
+
+final class UserMergePlan {
+
+    /**
+     * 下一版的用户，null 表示沿用当前快照 oldIndexes[i] 的那一行
+     */
+    final User[] rows;
+    /**
+     * 每一行在当前快照中的下标，新用户为 -1
+     */
+    final int[] oldIndexes;
+
+    private UserMergePlan(User[] rows, int[] oldIndexes) {
+        this.rows = rows;
+        this.oldIndexes = oldIndexes;
+    }
+
+    /**
+     * 用 source 整体替换当前快照，id 重复时保留集合中靠后的一个；rows 中没有 null
+     *
+     * @param ids 当前快照的 id，升序
+     */
+    static UserMergePlan replace(int[] ids, Collection<User> source) {
+        User[] rows = sortById(source);
+        int[] oldIndexes = new int[rows.length];
+        for (int i = 0, index = 0; i < rows.length; i++) {
+            while (index < ids.length && ids[index] < rows[i].getId()) {
+                index++;
+            }
+            oldIndexes[i] = index < ids.length && ids[index] == rows[i].getId() ? index : -1;
+        }
+        return new UserMergePlan(rows, oldIndexes);
+    }
+
+    /**
+     * 合并新增或修改的用户（按 id 覆盖），同时删除 deletes 中的用户，其余行沿用当前快照
+     *
+     * @param ids     当前快照的 id，升序
+     * @param deletes 要删除的用户 id，升序，不与 upserts 重叠
+     */
+    static UserMergePlan merge(int[] ids, Collection<User> upserts, int[] deletes) {
+        User[] sorted = sortById(upserts);
+        User[] rows = new User[ids.length + sorted.length];
+        int[] oldIndexes = new int[rows.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        int d = 0;
+        while (i < ids.length || j < sorted.length) {
+            if (j == sorted.length || (i < ids.length && ids[i] < sorted[j].getId())) {
+                while (d < deletes.length && deletes[d] < ids[i]) {
+                    d++;
+                }
+                if (d < deletes.length && deletes[d] == ids[i]) {
+                    i++;
+                    continue;
+                }
+                oldIndexes[size++] = i++;
+            } else if (i == ids.length || ids[i] > sorted[j].getId()) {
+                oldIndexes[size] = -1;
+                rows[size++] = sorted[j++];
+            } else {
+                oldIndexes[size] = i++;
+                rows[size++] = sorted[j++];
+            }
+        }
+        return new UserMergePlan(Arrays.copyOf(rows, size), Arrays.copyOf(oldIndexes, size));
+    }
+
+    int size() {
+        return rows.length;
+    }
+
+    /**
+     * 按 id 稳定排序，id 重复时保留靠后的一个
+     */
+    private static User[] sortById(Collection<User> source) {
+        User[] sorted = source.toArray(new User[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(User::getId));
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size > 0 && sorted[size - 1].getId() == sorted[i].getId()) {
+                sorted[size - 1] = sorted[i];
+            } else {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+}
@@ -0,0 +1,99 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * @ClassName UserMutation
+ * @Author phx
+ * @Date 2025/6/19 9:30
+ * @Description 单个用户的一次写入（新增、修改、删除），由 {@link UserWriteCombiner} 与同时提交的写入合并成一个新快照
+ * <p>
+ * 结果字段只在仓库的锁内读写
+ */
+
+final class UserMutation {
+
+    enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private final Type type;
+    private final int id;
+    private final User user;
+
+    boolean done;
+    boolean succeeded;
+    RuntimeException failure;
+
+    private UserMutation(Type type, int id, User user) {
+        this.type = type;
+        this.id = id;
+        this.user = user;
+    }
+
+    static UserMutation create(User user) {
+        return new UserMutation(Type.CREATE, user.getId(), user);
+    }
+
+    static UserMutation update(User user) {
+        return new UserMutation(Type.UPDATE, user.getId(), user);
+    }
+
+    static UserMutation delete(int id) {
+        return new UserMutation(Type.DELETE, id, null);
+    }
+
+    /**
+     * 按提交顺序解析一批写入，后面的写入看到前面写入的结果：新增要求用户不存在，修改、删除要求用户存在，
+     * 不满足的写入记为失败，不产生变化
+     *
+     * @param exists 当前快照中是否存在该用户 id
+     * @return 本批次的变化
+     */
+    static Changes resolve(List<UserMutation> batch, IntPredicate exists) {
+        // id -> 最终状态，null 表示删除
+        Map<Integer, User> changes = new HashMap<>();
+        for (UserMutation mutation : batch) {
+            boolean present = changes.containsKey(mutation.id) ? changes.get(mutation.id) != null : exists.test(mutation.id);
+            mutation.succeeded = mutation.type == Type.CREATE ? !present : present;
+            if (mutation.succeeded) {
+                changes.put(mutation.id, mutation.type == Type.DELETE ? null : mutation.user);
+            }
+        }
+        List<User> upserts = new ArrayList<>(changes.size());
+        int[] deletes = new int[changes.size()];
+        int deleted = 0;
+        for (Map.Entry<Integer, User> entry : changes.entrySet()) {
+            if (entry.getValue() != null) {
+                upserts.add(entry.getValue());
+            } else if (exists.test(entry.getKey())) {
+                // 同一批次内新增后又删除的用户不在当前快照中，无需删除
+                deletes[deleted++] = entry.getKey();
+            }
+        }
+        deletes = Arrays.copyOf(deletes, deleted);
+        Arrays.sort(deletes);
+        return new Changes(upserts, deletes);
+    }
+
+    /**
+     * 一批写入的净变化
+     *
+     * @param upserts 新增或修改的用户
+     * @param deletes 要删除的用户 id，升序，不与 upserts 重叠
+     */
+    record Changes(List<User> upserts, int[] deletes) {
+
+        boolean isEmpty() {
+            return upserts.isEmpty() && deletes.length == 0;
+        }
+    }
+}
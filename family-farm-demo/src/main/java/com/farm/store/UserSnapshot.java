@@ -0,0 +1,163 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @ClassName UserSnapshot
+ * @Author phx
+ * @Date 2025/5/6 10:30
+ * @Description 用户仓库在某一时刻的不可变快照
+ * <p>
+ * 用户按 id 升序存放在数组中，下标即列表的 INDEX；id -> 下标 通过 {@link IntIntIndex} 索引，
+ * 按 id、按下标查询都是 O(1)，不产生任何临时对象。
+ * {@link #asList()} 返回的是构建快照时创建好的只读视图，所有读请求共享同一个实例。
+ * <p>
+ * 查询语义见 {@link UserStoreSnapshot}，版本信息由 {@link UserChangeLog} 记录。
+ */
+
+public final class UserSnapshot implements UserStoreSnapshot<UserSnapshot> {
+
+    private final User[] users;
+    private final int[] ids;
+    private final IntIntIndex idIndex;
+    private final List<User> view;
+    private final UserChangeLog changes;
+
+    private UserSnapshot(User[] users, UserChangeLog changes) {
+        this.users = users;
+        this.ids = new int[users.length];
+        for (int i = 0; i < users.length; i++) {
+            ids[i] = users[i].getId();
+        }
+        this.idIndex = new IntIntIndex(ids);
+        this.view = Collections.unmodifiableList(Arrays.asList(users));
+        this.changes = changes;
+    }
+
+    /**
+     * 空快照
+     *
+     * @param version 初始版本号
+     */
+    static UserSnapshot empty(long version) {
+        return new UserSnapshot(new User[0], UserChangeLog.empty(version));
+    }
+
+    /**
+     * 从快照文件恢复的快照，版本信息见 {@link UserChangeLog#restored}
+     *
+     * @param users 按 id 升序、id 不重复
+     */
+    static UserSnapshot restored(User[] users, long version) {
+        return new UserSnapshot(users, UserChangeLog.restored(users.length, version));
+    }
+
+    /**
+     * 与当前快照相比内容未变的用户保留原来的修改版本，新增或修改的用户记为新版本
+     */
+    @Override
+    public UserSnapshot next(Collection<User> source) {
+        return successor(UserMergePlan.replace(ids, source));
+    }
+
+    /**
+     * 只对 upserts 排序，再与当前的有序数组归并，耗时与 用户总数 + upserts 数量 成线性，适合分批写入
+     */
+    @Override
+    public UserSnapshot merge(Collection<User> upserts, int[] deletes) {
+        return successor(UserMergePlan.merge(ids, upserts, deletes));
+    }
+
+    private UserSnapshot successor(UserMergePlan plan) {
+        User[] next = plan.rows;
+        int[] oldIndexes = plan.oldIndexes;
+        for (int i = 0; i < next.length; i++) {
+            if (next[i] == null) {
+                next[i] = users[oldIndexes[i]];
+            }
+        }
+        return new UserSnapshot(next, changes.next(oldIndexes, i -> users[oldIndexes[i]].equals(next[i])));
+    }
+
+    @Override
+    public int size() {
+        return users.length;
+    }
+
+    @Override
+    public User get(int index) {
+        return index >= 0 && index < users.length ? users[index] : null;
+    }
+
+    @Override
+    public User getById(int id) {
+        int index = idIndex.get(id);
+        return index < 0 ? null : users[index];
+    }
+
+    @Override
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    @Override
+    public int indexOf(int id) {
+        return idIndex.get(id);
+    }
+
+    @Override
+    public int indexAfter(int after) {
+        return indexAfter(ids, after);
+    }
+
+    /**
+     * 构建快照时创建好的只读视图，所有读请求共享同一个实例
+     */
+    @Override
+    public List<User> asList() {
+        return view;
+    }
+
+    @Override
+    public long version() {
+        return changes.version();
+    }
+
+    @Override
+    public List<User> changedSince(long since) {
+        int[] indexes = changes.changedSince(since);
+        User[] changed = new User[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            changed[i] = users[indexes[i]];
+        }
+        return Collections.unmodifiableList(Arrays.asList(changed));
+    }
+
+    @Override
+    public boolean removedSince(long since) {
+        return changes.removedSince(since);
+    }
+
+    /**
+     * 有序 id 数组上的游标定位：第一个大于 after 的下标（二分查找），没有时返回数组长度
+     */
+    static int indexAfter(int[] ids, int after) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] <= after) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
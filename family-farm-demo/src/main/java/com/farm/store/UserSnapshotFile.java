@@ -0,0 +1,382 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.CRC32C;
+
+/**
+ * @ClassName UserSnapshotFile
+ * @Author phx
+ * @Date 2025/6/20 10:00
+ * @Description 用户快照文件的写入与读取，重启时从文件恢复仓库，不必重新导入
+ * <p>
+ * 格式与 {@link ColumnarUserSnapshot} 的内存布局一致（小端）：
+ * <pre>
+ * 头部 64 字节：magic "FFUS"、格式版本、数据版本号、用户数、名称为 null 的用户数、名称区字节数、正文的 CRC32C，其余为 0
+ * 正文：用户 id int[用户数]（升序）| 名称区（UTF-8，补齐到 4 字节）| 名称偏移量 int[用户数 + 1] | 名称为 null 的用户下标 int[]
+ * </pre>
+ * 写入先写到同目录的临时文件，刷盘后原子替换正式文件，写入中途失败或进程退出不会留下不完整的快照。
+ * 快照是不可变的，写入期间读写仓库都不受影响。
+ * <p>
+ * 读取时按段做内存映射：id 与偏移量复制到堆上的数组（二分查找需要），名称区直接使用映射，
+ * 列式仓库恢复后从页缓存读取名称，加载耗时只与 id 数组大小有关。
+ * 替换正式文件不影响已映射的旧文件（Linux 上旧文件在解除映射后才释放）。
+ */
+
+public final class UserSnapshotFile {
+
+    /**
+     * "FFUS"
+     */
+    private static final int MAGIC = 0x46465553;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    /**
+     * 计算校验和时每次映射的最大字节数
+     */
+    private static final long CHECKSUM_CHUNK = 1L << 30;
+
+    private UserSnapshotFile() {
+    }
+
+    /**
+     * 把对象仓库的快照写入 file
+     *
+     * @return 文件字节数
+     */
+    public static long write(UserSnapshot snapshot, Path file) throws IOException {
+        return write(file, out -> {
+            int size = snapshot.size();
+            for (int i = 0; i < size; i++) {
+                out.putInt(snapshot.get(i).getId());
+            }
+            int[] offsets = new int[size + 1];
+            BitSet nullNames = new BitSet();
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                String name = snapshot.get(i).getName();
+                if (name == null) {
+                    nullNames.set(i);
+                } else {
+                    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                    total += bytes.length;
+                    if (total > Integer.MAX_VALUE) {
+                        throw new IllegalStateException("用户名称总长度超过2GB，无法写入快照文件");
+                    }
+                    out.put(bytes);
+                }
+                offsets[i + 1] = (int) total;
+            }
+            out.align();
+            for (int offset : offsets) {
+                out.putInt(offset);
+            }
+            for (int i = nullNames.nextSetBit(0); i >= 0; i = nullNames.nextSetBit(i + 1)) {
+                out.putInt(i);
+            }
+            return new Header(snapshot.version(), size, nullNames.cardinality(), total);
+        });
+    }
+
+    /**
+     * 把列式仓库的快照写入 file，文件中的名称区按用户顺序紧凑存放
+     *
+     * @return 文件字节数
+     */
+    public static long write(ColumnarUserSnapshot snapshot, Path file) throws IOException {
+        return write(file, out -> {
+            int size = snapshot.size();
+            for (int i = 0; i < size; i++) {
+                out.putInt(snapshot.idAt(i));
+            }
+            ByteBuffer names = snapshot.nameArea();
+            long total = 0;
+            boolean contiguous = true;
+            for (int i = 0; i < size; i++) {
+                contiguous &= snapshot.nameStart(i) == total;
+                total += snapshot.nameLength(i);
+            }
+            if (contiguous) {
+                // 紧凑复制后、从文件恢复后名称按用户顺序连续存放，整块写出
+                out.put(names, 0, (int) total);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    out.put(names, snapshot.nameStart(i), snapshot.nameLength(i));
+                }
+            }
+            out.align();
+            int nullCount = 0;
+            long offset = 0;
+            out.putInt(0);
+            for (int i = 0; i < size; i++) {
+                offset += snapshot.nameLength(i);
+                out.putInt((int) offset);
+            }
+            for (int i = 0; i < size; i++) {
+                if (snapshot.isNull(i)) {
+                    out.putInt(i);
+                    nullCount++;
+                }
+            }
+            return new Header(snapshot.version(), size, nullCount, total);
+        });
+    }
+
+    /**
+     * 读取快照文件，构建对象仓库的快照（为每个用户创建 User）
+     *
+     * @param minVersion 恢复后的版本号不小于该值
+     */
+    static UserSnapshot readObjects(Path file, long minVersion) throws IOException {
+        Contents contents = read(file);
+        int[] ids = contents.ids;
+        User[] users = new User[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            String name = null;
+            if (contents.nullNames == null || !contents.nullNames.get(i)) {
+                byte[] bytes = new byte[contents.nameOffsets[i + 1] - contents.nameOffsets[i]];
+                contents.names.get(contents.nameOffsets[i], bytes);
+                name = new String(bytes, StandardCharsets.UTF_8);
+            }
+            users[i] = new User(ids[i], name);
+        }
+        return UserSnapshot.restored(users, Math.max(contents.version, minVersion));
+    }
+
+    /**
+     * 读取快照文件，构建列式仓库的快照，名称区为文件的内存映射
+     *
+     * @param minVersion 恢复后的版本号不小于该值
+     */
+    static ColumnarUserSnapshot readColumnar(Path file, long minVersion) throws IOException {
+        Contents contents = read(file);
+        return ColumnarUserSnapshot.restored(contents.ids, contents.nameOffsets, contents.nullNames,
+                contents.names, Math.max(contents.version, minVersion));
+    }
+
+    private static long write(Path file, Body body) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            long bytes;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Output out = new Output(channel);
+                Header header = body.write(out);
+                bytes = out.finish(header);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return bytes;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static Contents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw corrupted(file, "文件长度不足");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw corrupted(file, "不是用户快照文件");
+            }
+            if (header.getInt(4) != FORMAT_VERSION) {
+                throw corrupted(file, "不支持的格式版本 " + header.getInt(4));
+            }
+            long version = header.getLong(8);
+            int size = header.getInt(16);
+            int nullCount = header.getInt(20);
+            long namesLength = header.getLong(24);
+            long checksum = header.getLong(32);
+            if (size < 0 || nullCount < 0 || nullCount > size || namesLength < 0 || namesLength > Integer.MAX_VALUE) {
+                throw corrupted(file, "头部字段不合法");
+            }
+            long idsAt = HEADER_BYTES;
+            long namesAt = idsAt + (long) size * Integer.BYTES;
+            long offsetsAt = namesAt + align(namesLength);
+            long nullsAt = offsetsAt + ((long) size + 1) * Integer.BYTES;
+            if (nullsAt + (long) nullCount * Integer.BYTES != fileSize) {
+                throw corrupted(file, "文件长度与头部不一致");
+            }
+            if (checksum(channel, HEADER_BYTES, fileSize) != checksum) {
+                throw corrupted(file, "校验和不一致");
+            }
+
+            int[] ids = new int[size];
+            map(channel, idsAt, (long) size * Integer.BYTES).asIntBuffer().get(ids);
+            for (int i = 1; i < size; i++) {
+                if (ids[i - 1] >= ids[i]) {
+                    throw corrupted(file, "用户 id 未按升序排列");
+                }
+            }
+            int[] nameOffsets = new int[size + 1];
+            map(channel, offsetsAt, ((long) size + 1) * Integer.BYTES).asIntBuffer().get(nameOffsets);
+            if (nameOffsets[0] != 0 || nameOffsets[size] != namesLength) {
+                throw corrupted(file, "名称偏移量不合法");
+            }
+            for (int i = 0; i < size; i++) {
+                if (nameOffsets[i] > nameOffsets[i + 1]) {
+                    throw corrupted(file, "名称偏移量不合法");
+                }
+            }
+            BitSet nullNames = null;
+            if (nullCount > 0) {
+                int[] indexes = new int[nullCount];
+                map(channel, nullsAt, (long) nullCount * Integer.BYTES).asIntBuffer().get(indexes);
+                nullNames = new BitSet(size);
+                for (int index : indexes) {
+                    if (index < 0 || index >= size) {
+                        throw corrupted(file, "名称为 null 的用户下标越界");
+                    }
+                    nullNames.set(index);
+                }
+            }
+            // 映射在通道关闭后仍然有效，直到映射的缓冲区被回收
+            ByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY, namesAt, namesLength);
+            return new Contents(version, ids, nameOffsets, nullNames, names);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 按块映射计算 [from, to) 的 CRC32C，单次映射不能超过 2GB
+     */
+    private static long checksum(FileChannel channel, long from, long to) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long position = from; position < to; position += CHECKSUM_CHUNK) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHECKSUM_CHUNK, to - position)));
+        }
+        return crc.getValue();
+    }
+
+    private static long align(long length) {
+        return (length + Integer.BYTES - 1) & -Integer.BYTES;
+    }
+
+    private static IOException corrupted(Path file, String reason) {
+        return new IOException("用户快照文件无效: " + file + "，" + reason);
+    }
+
+    /**
+     * 写出正文，返回头部字段
+     */
+    @FunctionalInterface
+    private interface Body {
+        Header write(Output out) throws IOException;
+    }
+
+    private record Header(long version, int size, int nullCount, long namesLength) {
+    }
+
+    private record Contents(long version, int[] ids, int[] nameOffsets, BitSet nullNames, ByteBuffer names) {
+    }
+
+    /**
+     * 带缓冲的顺序写出，同时计算正文的 CRC32C；正文从头部之后开始，结束时回到文件开头写入头部
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+        private long position = HEADER_BYTES;
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            if (buffer.remaining() < bytes.length) {
+                flush();
+            }
+            if (bytes.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.put(bytes);
+            }
+        }
+
+        /**
+         * 写出 source 中从 offset 开始的 length 个字节，不修改 source 的 position；超过缓冲区大小时不经过缓冲区，直接写出
+         */
+        void put(ByteBuffer source, int offset, int length) throws IOException {
+            if (buffer.remaining() < length) {
+                flush();
+            }
+            if (length > buffer.capacity()) {
+                writeFully(source.slice(offset, length));
+            } else {
+                buffer.put(buffer.position(), source, offset, length);
+                buffer.position(buffer.position() + length);
+            }
+        }
+
+        /**
+         * 补 0 到 4 字节对齐
+         */
+        void align() throws IOException {
+            long padding = UserSnapshotFile.align(position + buffer.position()) - (position + buffer.position());
+            for (int i = 0; i < padding; i++) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.put((byte) 0);
+            }
+        }
+
+        long finish(Header header) throws IOException {
+            flush();
+            ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            head.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(header.version()).putInt(header.size())
+                    .putInt(header.nullCount()).putLong(header.namesLength()).putLong(crc.getValue());
+            head.clear();
+            while (head.hasRemaining()) {
+                channel.write(head, head.position());
+            }
+            return position;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer bytes) throws IOException {
+            crc.update(bytes.duplicate());
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+        }
+    }
+}
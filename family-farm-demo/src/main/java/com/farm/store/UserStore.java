@@ -0,0 +1,39 @@
+package com.farm.store;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * @ClassName UserStore
+ * @Author phx
+ * @Date 2025/5/6 10:48
+ * @Description 内存用户仓库，每个用户保存一个 User 对象（{@link UserSnapshot}）
+ * <p>
+ * 读写、恢复与名称索引见 {@link AbstractUserStore}，与列式仓库 {@link ColumnarUserStore} 共用
+ */
+
+@Component
+public class UserStore extends AbstractUserStore<UserSnapshot> {
+
+    public UserStore() {
+        this(true);
+    }
+
+    /**
+     * @param nameIndexEnabled 是否维护名称搜索索引，见 {@link AbstractUserStore}
+     */
+    @Autowired
+    public UserStore(@Value("${farm.user.search.enabled:true}") boolean nameIndexEnabled) {
+        super(UserSnapshot.empty(System.currentTimeMillis()), nameIndexEnabled);
+    }
+
+    @Override
+    protected UserSnapshot read(Path file, long minVersion) throws IOException {
+        return UserSnapshotFile.readObjects(file, minVersion);
+    }
+}
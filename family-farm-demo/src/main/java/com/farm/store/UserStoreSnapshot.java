@@ -0,0 +1,101 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @ClassName UserStoreSnapshot
+ * @Author phx
+ * @Date 2025/6/24 10:20
+ * @Description 用户仓库在某一时刻的不可变快照，{@link UserSnapshot}（每个用户一个对象）与 {@link ColumnarUserSnapshot}（列式）
+ * 是它的两种存储布局，查询语义相同
+ * <p>
+ * 用户按 id 升序排列，下标即列表的 INDEX。每个快照有一个版本号，每次写入加 1；
+ * 新增或修改的用户可按版本增量读取（{@link #changedSince(long)}），删除只记录最近一次发生的版本（{@link #removedSince(long)}）。
+ * {@link #next}、{@link #merge} 构建以当前快照为上一个版本的新快照，当前快照不变。
+ *
+ * @param <S> 具体的快照类型，写入后得到的新快照与当前快照布局相同
+ */
+
+public interface UserStoreSnapshot<S extends UserStoreSnapshot<S>> {
+
+    int size();
+
+    /**
+     * 按列表下标查询
+     *
+     * @return 下标越界时返回 null
+     */
+    User get(int index);
+
+    /**
+     * 按用户 id 查询
+     *
+     * @return 用户不存在时返回 null
+     */
+    User getById(int id);
+
+    /**
+     * 列表下标对应的用户 id，不创建 User
+     */
+    int idAt(int index);
+
+    /**
+     * 用户 id 对应的列表下标
+     *
+     * @return 用户不存在时返回 -1
+     */
+    int indexOf(int id);
+
+    /**
+     * 游标定位：第一个 id 大于 after 的用户下标
+     * <p>
+     * 游标是 id 而不是下标，游标对应的用户被删除后依然可以继续往后翻页
+     *
+     * @return 没有更大的 id 时返回 {@link #size()}
+     */
+    int indexAfter(int after);
+
+    /**
+     * 所有用户的只读视图（按 id 升序），不复制数据
+     */
+    List<User> asList();
+
+    /**
+     * 快照的版本号，每次写入加 1
+     */
+    long version();
+
+    /**
+     * 修改版本大于 since 的用户（新增或内容变化），按 id 升序
+     */
+    List<User> changedSince(long since);
+
+    /**
+     * 版本 since 之后是否有用户被删除
+     */
+    boolean removedSince(long since);
+
+    /**
+     * 以当前快照为上一个版本，由用户集合构建下一个快照，id 重复时保留集合中靠后的一个；
+     * 与当前快照相比内容未变的用户保留原来的修改版本
+     */
+    S next(Collection<User> source);
+
+    /**
+     * 以当前快照为上一个版本，合并新增或修改的用户（按 id 覆盖），其余用户保持不变
+     */
+    default S merge(Collection<User> upserts) {
+        return merge(upserts, new int[0]);
+    }
+
+    /**
+     * 合并新增或修改的用户，同时删除 deletes 中的用户
+     *
+     * @param deletes 要删除的用户 id，升序，不与 upserts 重叠
+     */
+    S merge(Collection<User> upserts, int[] deletes);
+}
@@ -0,0 +1,57 @@
+package com.farm.store;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName UserWriteCombiner
+ * @Author phx
+ * @Date 2025/6/19 9:50
+ * @Description 合并并发的单个用户写入（flat combining）：copy-on-write 每发布一个快照都要复制全部用户，
+ * 多个写线程同时提交时，由拿到仓库锁的线程把排队中的写入一次性应用，只构建一个新快照
+ * <p>
+ * 写线程先把写入放进无锁队列再竞争仓库锁；拿到锁时如果自己的写入已被其它线程应用，直接返回结果。
+ * 每个写入在加入队列之后才会去拿锁，不会有写入滞留在队列中。
+ * writer 抛出运行时异常（如存储实现无法容纳新快照）时，新快照不发布，同一批次的写入都抛出同一个异常
+ */
+
+final class UserWriteCombiner {
+
+    private final Queue<UserMutation> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param lock   仓库锁，与 replaceAll、putAll 使用同一个
+     * @param writer 在锁内应用一批写入并发布新快照
+     * @return 写入是否成功（新增时用户已存在、修改或删除时用户不存在返回 false）
+     */
+    boolean submit(Object lock, UserMutation mutation, Consumer<List<UserMutation>> writer) {
+        pending.add(mutation);
+        synchronized (lock) {
+            if (!mutation.done) {
+                List<UserMutation> batch = new ArrayList<>();
+                for (UserMutation next; (next = pending.poll()) != null; ) {
+                    batch.add(next);
+                }
+                try {
+                    writer.accept(batch);
+                } catch (RuntimeException e) {
+                    for (UserMutation failed : batch) {
+                        failed.failure = e;
+                    }
+                } finally {
+                    for (UserMutation applied : batch) {
+                        applied.done = true;
+                    }
+                }
+            }
+            if (mutation.failure != null) {
+                throw mutation.failure;
+            }
+            return mutation.succeeded;
+        }
+    }
+}
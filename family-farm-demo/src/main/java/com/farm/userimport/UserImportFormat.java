@@ -0,0 +1,59 @@
+package com.farm.userimport;
+
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * @ClassName UserImportFormat
+ * @Author phx
+ * @Date 2025/6/12 9:35
+ * @Description 批量导入的文件格式，都是一行一个用户
+ */
+
+public enum UserImportFormat {
+
+    /**
+     * 两列 id,name，第一行为 id,name 时作为表头跳过；字段中有逗号或引号时用双引号包围，引号写两次
+     */
+    CSV,
+
+    /**
+     * 每行一个 JSON 对象 {"id":1,"name":"用户名1"}，其它字段忽略
+     */
+    NDJSON;
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    /**
+     * 按请求的 Content-Type 识别格式
+     *
+     * @throws IllegalArgumentException 不支持的类型
+     */
+    public static UserImportFormat of(MediaType contentType) {
+        if (contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return NDJSON;
+        }
+        if (contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))) {
+            return CSV;
+        }
+        throw new IllegalArgumentException("不支持的导入格式: " + contentType);
+    }
+
+    /**
+     * 按文件扩展名识别格式
+     *
+     * @throws IllegalArgumentException 不支持的扩展名
+     */
+    public static UserImportFormat ofFileName(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".csv")) {
+            return CSV;
+        }
+        if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("无法按扩展名识别导入格式: " + fileName);
+    }
+}
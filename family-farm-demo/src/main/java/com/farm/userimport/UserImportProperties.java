@@ -0,0 +1,47 @@
+package com.farm.userimport;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @ClassName UserImportProperties
+ * @Author phx
+ * @Date 2025/6/12 9:30
+ * @Description 用户批量导入配置，前缀 farm.user.import
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.user.import")
+public class UserImportProperties {
+
+    /**
+     * 启动时导入的文件，按扩展名识别格式（.csv / .ndjson / .jsonl），为空时不导入
+     */
+    private String startupFile;
+
+    /**
+     * 每累积多少个校验通过的用户写入仓库一次，每次写入生成一个新快照
+     */
+    private int batchSize = 200_000;
+
+    /**
+     * 读取线程每多少行打包交给解析线程
+     */
+    private int chunkSize = 4096;
+
+    /**
+     * 解析、校验的线程数，0 表示使用 CPU 核数
+     */
+    private int parallelism = 0;
+
+    /**
+     * 用户名称的最大长度（字符数）
+     */
+    private int maxNameLength = 64;
+
+    /**
+     * 导入结果中最多返回的错误行明细数
+     */
+    private int maxErrorSamples = 20;
+}
@@ -0,0 +1,68 @@
+package com.farm.userimport;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserImportResult;
+import com.farm.store.ColumnarUserStore;
+import com.farm.store.UserStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName UserImportService
+ * @Author phx
+ * @Date 2025/6/12 10:30
+ * @Description 批量导入用户：新增或按 id 覆盖，文件中没有的用户保持不变
+ * <p>
+ * 写入当前启用的用户仓库（farm.user.store.type=columnar 时为 {@link ColumnarUserStore}），
+ * 每批写入都会生成新的快照版本，查询缓存以版本号为键，不需要额外清理；名称搜索索引由仓库增量更新
+ */
+
+@Slf4j
+@Service
+public class UserImportService {
+
+    @Autowired
+    private UserStore userStore;
+
+    @Autowired
+    private ObjectProvider<ColumnarUserStore> columnarUserStore;
+
+    @Autowired
+    private UserImportProperties properties;
+
+    /**
+     * 从输入流导入，不关闭输入流
+     */
+    public UserImportResult importUsers(InputStream in, UserImportFormat format) throws IOException {
+        UserImportResult result = new UserImporter(sink(), properties).importFrom(in, format);
+        log.info("用户导入完成: {} 行，导入 {}，跳过 {}，{} 批，耗时 {}ms，{} 行/秒",
+                result.getRows(), result.getImported(), result.getRejected(), result.getBatches(),
+                result.getMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    /**
+     * 从文件导入，按扩展名识别格式
+     */
+    public UserImportResult importFile(Path file) throws IOException {
+        UserImportFormat format = UserImportFormat.ofFileName(file.getFileName().toString());
+        try (InputStream in = Files.newInputStream(file)) {
+            return importUsers(in, format);
+        }
+    }
+
+    private Consumer<List<User>> sink() {
+        ColumnarUserStore columnar = columnarUserStore.getIfAvailable();
+        return columnar != null ? columnar::putAll : userStore::putAll;
+    }
+}
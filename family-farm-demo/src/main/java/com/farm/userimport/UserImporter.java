@@ -0,0 +1,203 @@
+package com.farm.userimport;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserImportResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName UserImporter
+ * @Author phx
+ * @Date 2025/6/12 10:00
+ * @Description 流式批量导入：边读边解析，不把整个文件读入内存
+ * <p>
+ * 当前线程按行读取，每 chunkSize 行打包交给解析线程池解析、校验；
+ * 解析结果按提交顺序取回（文件中靠后的同 id 用户覆盖靠前的），累积到 batchSize 个后写入仓库。
+ * 同时在途的块数有上限，读取快于解析时读取线程等待，内存占用只与 chunkSize、batchSize 有关，与文件大小无关。
+ * <p>
+ * 每次导入新建解析线程池，导入结束后关闭；导入是低频的大操作，线程创建的开销可以忽略。
+ */
+
+final class UserImporter {
+
+    private final Consumer<List<User>> sink;
+    private final UserImportProperties properties;
+
+    /**
+     * @param sink 一批校验通过的用户的写入方式，如 {@link com.farm.store.UserStore#putAll}
+     */
+    UserImporter(Consumer<List<User>> sink, UserImportProperties properties) {
+        this.sink = sink;
+        this.properties = properties;
+    }
+
+    /**
+     * 导入输入流中的全部用户，不关闭输入流
+     *
+     * @throws IOException 读取失败，已写入仓库的批次保留
+     */
+    UserImportResult importFrom(InputStream in, UserImportFormat format) throws IOException {
+        long start = System.nanoTime();
+        UserLineParser parser = new UserLineParser(format, properties.getMaxNameLength());
+        int parallelism = properties.getParallelism() > 0
+                ? properties.getParallelism() : Runtime.getRuntime().availableProcessors();
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        Progress progress = new Progress(Math.max(1, properties.getBatchSize()), properties.getMaxErrorSamples());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            String[] lines = new String[chunkSize];
+            int count = 0;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1) {
+                    // 去掉 UTF-8 BOM，Excel 导出的 CSV 常带 BOM
+                    if (line.startsWith("\uFEFF")) {
+                        line = line.substring(1);
+                    }
+                    if (parser.isHeader(line)) {
+                        continue;
+                    }
+                }
+                lines[count++] = line;
+                if (count == chunkSize) {
+                    inFlight.add(submit(executor, parser, lines, count, lineNumber - count + 1));
+                    lines = new String[chunkSize];
+                    count = 0;
+                    // 在途块数超过线程数的两倍时先取回最早的一块，限制内存占用
+                    while (inFlight.size() > parallelism * 2) {
+                        progress.accept(await(inFlight.poll()));
+                    }
+                }
+            }
+            if (count > 0) {
+                inFlight.add(submit(executor, parser, lines, count, lineNumber - count + 1));
+            }
+            while (!inFlight.isEmpty()) {
+                progress.accept(await(inFlight.poll()));
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+        progress.flush();
+        long nanos = Math.max(1, System.nanoTime() - start);
+        return new UserImportResult(progress.rows, progress.imported, progress.rejected, progress.batches,
+                nanos / 1_000_000, progress.rows * 1_000_000_000L / nanos, progress.errors);
+    }
+
+    private Future<ParsedChunk> submit(ExecutorService executor, UserLineParser parser,
+                                       String[] lines, int count, long firstLine) {
+        return executor.submit(() -> parse(parser, lines, count, firstLine));
+    }
+
+    private ParsedChunk parse(UserLineParser parser, String[] lines, int count, long firstLine) {
+        ParsedChunk chunk = new ParsedChunk(count);
+        for (int i = 0; i < count; i++) {
+            String line = lines[i];
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.rows++;
+            try {
+                User user = parser.parse(line);
+                chunk.users[chunk.size++] = user;
+            } catch (UserLineParser.InvalidRowException e) {
+                chunk.rejected++;
+                if (chunk.errors.size() < properties.getMaxErrorSamples()) {
+                    chunk.errors.add("第" + (firstLine + i) + "行: " + e.getMessage());
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private static ParsedChunk await(Future<ParsedChunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("用户导入被中断");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("解析导入数据失败", e.getCause());
+        }
+    }
+
+    /**
+     * 一块行数据的解析结果
+     */
+    private static final class ParsedChunk {
+
+        private final User[] users;
+        private int size;
+        private long rows;
+        private long rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        private ParsedChunk(int capacity) {
+            this.users = new User[capacity];
+        }
+    }
+
+    /**
+     * 按文件顺序汇总解析结果，累积满一批后写入仓库，只在读取线程上使用
+     */
+    private final class Progress {
+
+        private final int batchSize;
+        private final int maxErrorSamples;
+        private List<User> batch;
+        private long rows;
+        private long imported;
+        private long rejected;
+        private int batches;
+        private final List<String> errors = new ArrayList<>();
+
+        private Progress(int batchSize, int maxErrorSamples) {
+            this.batchSize = batchSize;
+            this.maxErrorSamples = maxErrorSamples;
+            this.batch = new ArrayList<>(Math.min(batchSize, 1 << 16));
+        }
+
+        private void accept(ParsedChunk chunk) {
+            rows += chunk.rows;
+            rejected += chunk.rejected;
+            for (String error : chunk.errors) {
+                if (errors.size() < maxErrorSamples) {
+                    errors.add(error);
+                }
+            }
+            batch.addAll(Arrays.asList(chunk.users).subList(0, chunk.size));
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            sink.accept(batch);
+            imported += batch.size();
+            batches++;
+            batch = new ArrayList<>(Math.min(batchSize, 1 << 16));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.farm.userimport;
+
+
+import com.farm.entity.User;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * @ClassName UserLineParser
+ * @Author phx
+ * @Date 2025/6/12 9:50
+ * @Description 把导入文件的一行解析、校验为 User，无状态，多个解析线程共享
+ * <p>
+ * 校验失败时抛出 {@link InvalidRowException}，消息为失败原因；错误行可能很多，异常不填充栈
+ */
+
+final class UserLineParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final UserImportFormat format;
+    private final int maxNameLength;
+
+    UserLineParser(UserImportFormat format, int maxNameLength) {
+        this.format = format;
+        this.maxNameLength = maxNameLength;
+    }
+
+    /**
+     * CSV 的表头行：第一列为 id
+     */
+    boolean isHeader(String line) {
+        if (format != UserImportFormat.CSV) {
+            return false;
+        }
+        int comma = line.indexOf(',');
+        return (comma < 0 ? line : line.substring(0, comma)).trim().equalsIgnoreCase("id");
+    }
+
+    User parse(String line) {
+        User user = format == UserImportFormat.CSV ? parseCsv(line) : parseJson(line);
+        if (user.getId() <= 0) {
+            throw new InvalidRowException("id必须为正整数");
+        }
+        String name = user.getName();
+        if (name == null || name.isBlank()) {
+            throw new InvalidRowException("name不能为空");
+        }
+        if (name.codePointCount(0, name.length()) > maxNameLength) {
+            throw new InvalidRowException("name最多" + maxNameLength + "个字符");
+        }
+        return user;
+    }
+
+    private static User parseCsv(String line) {
+        String[] fields = new String[2];
+        int count = 0;
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            if (count == fields.length) {
+                throw new InvalidRowException("应为两列 id,name");
+            }
+            if (i < length && line.charAt(i) == '"') {
+                // 引号包围的字段，两个连续的引号表示一个引号
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new InvalidRowException("引号未闭合");
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    throw new InvalidRowException("引号后应为逗号");
+                }
+                fields[count++] = field.toString();
+            } else {
+                int comma = line.indexOf(',', i);
+                int end = comma < 0 ? length : comma;
+                fields[count++] = line.substring(i, end);
+                i = end;
+            }
+            if (i >= length) {
+                break;
+            }
+            // 跳过逗号
+            i++;
+        }
+        if (count != fields.length) {
+            throw new InvalidRowException("应为两列 id,name");
+        }
+        return new User(parseId(fields[0].trim()), fields[1]);
+    }
+
+    private static User parseJson(String line) {
+        Integer id = null;
+        String name = null;
+        try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidRowException("应为JSON对象");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("id".equals(field)) {
+                    if (value != JsonToken.VALUE_NUMBER_INT || parser.getNumberType() != JsonParser.NumberType.INT) {
+                        throw new InvalidRowException("id不是整数");
+                    }
+                    id = parser.getIntValue();
+                } else if ("name".equals(field)) {
+                    if (value != JsonToken.VALUE_STRING && value != JsonToken.VALUE_NULL) {
+                        throw new InvalidRowException("name不是字符串");
+                    }
+                    name = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new InvalidRowException("一行只能有一个JSON对象");
+            }
+        } catch (IOException e) {
+            throw new InvalidRowException("JSON格式错误");
+        }
+        if (id == null) {
+            throw new InvalidRowException("缺少id");
+        }
+        return new User(id, name);
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRowException("id不是整数");
+        }
+    }
+
+    /**
+     * 一行数据校验失败
+     */
+    static final class InvalidRowException extends RuntimeException {
+
+        InvalidRowException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
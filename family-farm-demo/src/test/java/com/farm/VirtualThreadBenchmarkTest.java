@@ -0,0 +1,150 @@
+package com.farm;
+
+
+import com.farm.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @ClassName VirtualThreadBenchmarkTest
+ * @Author phx
+ * @Date 2025/5/14 17:05
+ * @Description 平台线程池与虚拟线程执行模式的吞吐量、p99对比
+ * <p>
+ * 分别以 farm.threads.virtual.enabled=false/true 启动应用，UserService 的每次调用模拟阻塞 I/O（sleep），
+ * 用大量并发客户端压测 /family/farm/demo/user/{index}，打印吞吐量与 p50/p99。
+ * 平台线程模式下并发受 Tomcat 线程池（默认200）限制，虚拟线程模式下阻塞不占用平台线程。
+ * <p>
+ * 耗时较长，默认不执行，运行方式：
+ * mvn test -pl family-farm-demo -Dtest=VirtualThreadBenchmarkTest -Dbenchmark=true
+ * 可选参数：-Dbenchmark.concurrency=1000 -Dbenchmark.seconds=10 -Dbenchmark.latencyMs=20
+ */
+
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class VirtualThreadBenchmarkTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 10);
+    private static final int LATENCY_MS = Integer.getInteger("benchmark.latencyMs", 20);
+
+    @Test
+    public void compareTest() throws Exception {
+        String platform = run(false);
+        String virtual = run(true);
+        log.info("========平台线程：{}========", platform);
+        log.info("========虚拟线程：{}========", virtual);
+    }
+
+    private String run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FamilyFarmDemoApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BlockingUserServicePostProcessor()))
+                // 以命令行参数传入，优先级高于 application.yml
+                .run("--server.port=0",
+                        "--logging.level.org.springframework=info",
+                        // 关闭缓存，让每个请求都走到模拟阻塞的 UserService
+                        "--farm.user.cache.enabled=false",
+                        "--farm.threads.virtual.enabled=" + virtualThreads)) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/family/farm/demo/user/0");
+            // 预热
+            load(uri, Duration.ofSeconds(2));
+            return load(uri, Duration.ofSeconds(SECONDS));
+        }
+    }
+
+    /**
+     * 每个客户端一个虚拟线程，收到响应后立即发下一个请求
+     */
+    private String load(URI uri, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        List<Future<long[]>> futures = new ArrayList<>(CONCURRENCY);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        double throughput = all.length / (double) duration.toSeconds();
+        return String.format("并发=%d 请求数=%d 吞吐量=%.0f req/s p50=%.1fms p99=%.1fms",
+                CONCURRENCY, all.length, throughput, percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1_000_000.0;
+    }
+
+    /**
+     * 给最内层 UserService 实现的每次调用加上固定的阻塞耗时，模拟慢速的后端存储。
+     * 只包装存储实现，外层装饰器不重复计入阻塞耗时
+     */
+    private static class BlockingUserServicePostProcessor implements BeanPostProcessor {
+
+        private static final Set<String> STORE_BEANS = Set.of("userServiceImpl", "columnarUserServiceImpl");
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof UserService) || !STORE_BEANS.contains(beanName)) {
+                return bean;
+            }
+            return Proxy.newProxyInstance(UserService.class.getClassLoader(), new Class<?>[]{UserService.class},
+                    (proxy, method, args) -> {
+                        Thread.sleep(LATENCY_MS);
+                        try {
+                            return method.invoke(bean, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
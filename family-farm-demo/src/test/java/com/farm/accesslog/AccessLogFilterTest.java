@@ -0,0 +1,49 @@
+package com.farm.accesslog;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @ClassName AccessLogFilterTest
+ * @Author phx
+ * @Date 2025/5/21 16:40
+ * @Description 测试访问日志过滤器记录的状态码，未处理异常按 500 记录
+ */
+
+public class AccessLogFilterTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void statusTest() throws Exception {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setFile(dir.resolve("access.log").toString());
+        AsyncAccessLogWriter writer = new AsyncAccessLogWriter(properties);
+        writer.start();
+        AccessLogFilter filter = new AccessLogFilter(writer);
+
+        MockHttpServletResponse notFound = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/family/farm/demo/user/9"), notFound,
+                (req, res) -> notFound.setStatus(404));
+        Assertions.assertThrows(IllegalStateException.class, () -> filter.doFilter(
+                new MockHttpServletRequest("POST", "/family/farm/demo/users:import"), new MockHttpServletResponse(),
+                (req, res) -> {
+                    throw new IllegalStateException("导入未完成");
+                }));
+        writer.close();
+
+        List<String> lines = Files.readAllLines(dir.resolve("access.log"));
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertTrue(lines.get(0).contains(" GET /family/farm/demo/user/9 404 "), lines.get(0));
+        Assertions.assertTrue(lines.get(1).contains(" POST /family/farm/demo/users:import 500 "), lines.get(1));
+    }
+}
@@ -0,0 +1,117 @@
+package com.farm.accesslog;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @ClassName AsyncAccessLogWriterTest
+ * @Author phx
+ * @Date 2025/5/21 16:20
+ * @Description 测试异步访问日志的写出、滚动与丢弃
+ */
+
+public class AsyncAccessLogWriterTest {
+
+    @TempDir
+    private Path dir;
+
+    private AccessLogProperties properties(int bufferSize, long maxFileSize) {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setFile(dir.resolve("access.log").toString());
+        properties.setBufferSize(bufferSize);
+        properties.setMaxFileSize(DataSize.ofBytes(maxFileSize));
+        properties.setMaxHistory(2);
+        return properties;
+    }
+
+    private static AccessLogRecord record(int i) {
+        return new AccessLogRecord(0, "127.0.0.1", "GET", "/family/farm/demo/user/" + i, null, 200, 12_000);
+    }
+
+    /**
+     * 关闭时写完缓冲区中的所有记录
+     */
+    @Test
+    public void writeTest() throws Exception {
+        AsyncAccessLogWriter writer = new AsyncAccessLogWriter(properties(1024, 1 << 20));
+        writer.start();
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(writer.append(record(i)));
+        }
+        writer.close();
+
+        List<String> lines = Files.readAllLines(dir.resolve("access.log"));
+        Assertions.assertEquals(100, lines.size());
+        Assertions.assertEquals("1970-01-01T00:00:00Z 127.0.0.1 GET /family/farm/demo/user/0 200 12us", lines.get(0));
+        Assertions.assertEquals(100, writer.stats().getWritten());
+    }
+
+    /**
+     * 缓冲区满时丢弃新记录并计数
+     */
+    @Test
+    public void dropTest() {
+        AsyncAccessLogWriter writer = new AsyncAccessLogWriter(properties(4, 1 << 20));
+        // 不启动后台线程，缓冲区不会被取走
+        for (int i = 0; i < 10; i++) {
+            writer.append(record(i));
+        }
+        AccessLogStats stats = writer.stats();
+        Assertions.assertEquals(4, stats.getAccepted());
+        Assertions.assertEquals(6, stats.getDropped());
+        Assertions.assertEquals(4, stats.getPending());
+    }
+
+    /**
+     * 超过文件大小上限时滚动，只保留 maxHistory 个历史文件
+     */
+    @Test
+    public void rollTest() throws Exception {
+        AccessLogProperties properties = properties(1024, 200);
+        properties.setBatchSize(1);
+        AsyncAccessLogWriter writer = new AsyncAccessLogWriter(properties);
+        for (int i = 0; i < 20; i++) {
+            writer.append(record(i));
+        }
+        writer.start();
+        writer.close();
+
+        Assertions.assertTrue(Files.exists(dir.resolve("access.log")));
+        Assertions.assertTrue(Files.exists(dir.resolve("access.log.1")));
+        Assertions.assertTrue(Files.exists(dir.resolve("access.log.2")));
+        Assertions.assertFalse(Files.exists(dir.resolve("access.log.3")));
+        Assertions.assertTrue(writer.stats().getRolls() > 2);
+        Assertions.assertTrue(Files.size(dir.resolve("access.log")) <= 200);
+    }
+
+    /**
+     * 滚动失败（目标位置是非空目录，无法重命名）时继续写入当前文件，不丢记录
+     */
+    @Test
+    public void rollFailureTest() throws Exception {
+        Files.createDirectories(dir.resolve("access.log.1"));
+        Files.writeString(dir.resolve("access.log.1").resolve("keep"), "x");
+        AccessLogProperties properties = properties(1024, 200);
+        properties.setBatchSize(1);
+        properties.setMaxHistory(1);
+        AsyncAccessLogWriter writer = new AsyncAccessLogWriter(properties);
+        for (int i = 0; i < 20; i++) {
+            writer.append(record(i));
+        }
+        writer.start();
+        writer.close();
+
+        AccessLogStats stats = writer.stats();
+        Assertions.assertEquals(0, stats.getRolls());
+        Assertions.assertEquals(0, stats.getWriteErrors());
+        Assertions.assertEquals(20, stats.getWritten());
+        Assertions.assertEquals(20, Files.readAllLines(dir.resolve("access.log")).size());
+    }
+}
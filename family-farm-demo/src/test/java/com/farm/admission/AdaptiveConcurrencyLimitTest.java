@@ -0,0 +1,101 @@
+package com.farm.admission;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName AdaptiveConcurrencyLimitTest
+ * @Author phx
+ * @Date 2025/6/17 14:30
+ * @Description 测试自适应并发上限：达到上限时拒绝、延迟升高时收缩、延迟正常且并发用满时增长、并发没用满时不增长
+ */
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static AdaptiveConcurrencyLimit limit(int initialLimit) {
+        return new AdaptiveConcurrencyLimit(initialLimit, 4, 1000, 1.5, WINDOW, 1);
+    }
+
+    /**
+     * 一个窗口：占用 concurrency 个名额（不超过上限），再以相同的延迟全部归还
+     */
+    private static long window(AdaptiveConcurrencyLimit limit, long now, int concurrency, long rttNanos) {
+        int acquired = 0;
+        while (acquired < concurrency && limit.tryAcquire()) {
+            acquired++;
+        }
+        long next = now + WINDOW;
+        for (int i = 0; i < acquired; i++) {
+            limit.release(rttNanos, next);
+        }
+        return next;
+    }
+
+    @Test
+    public void acquireTest() {
+        AdaptiveConcurrencyLimit limit = limit(4);
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(limit.tryAcquire());
+        }
+        Assertions.assertFalse(limit.tryAcquire());
+        Assertions.assertEquals(4, limit.getInFlight());
+        limit.release(-1);
+        Assertions.assertTrue(limit.tryAcquire());
+    }
+
+    /**
+     * 延迟升到基线的 5 倍后上限收缩，但不低于下限；延迟恢复且并发用满后上限重新增长
+     */
+    @Test
+    public void shrinkTest() {
+        AdaptiveConcurrencyLimit limit = limit(100);
+        long now = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            now = window(limit, now, 10, MILLIS);
+        }
+        Assertions.assertEquals(100, limit.getLimit());
+        Assertions.assertEquals(1.0, limit.getBaselineRttMillis(), 0.01);
+
+        for (int i = 0; i < 10; i++) {
+            now = window(limit, now, 10, 5 * MILLIS);
+        }
+        int shrunk = limit.getLimit();
+        Assertions.assertTrue(shrunk < 70, "上限应收缩: " + shrunk);
+        for (int i = 0; i < 100; i++) {
+            now = window(limit, now, 10, 50 * MILLIS);
+        }
+        Assertions.assertTrue(limit.getLimit() >= 4);
+
+        for (int i = 0; i < 100; i++) {
+            now = window(limit, now, Integer.MAX_VALUE, MILLIS);
+        }
+        Assertions.assertTrue(limit.getLimit() > shrunk, "上限应恢复: " + limit.getLimit());
+    }
+
+    /**
+     * 延迟不变：并发用满时上限增长，不超过上限值；并发没用满时不增长
+     */
+    @Test
+    public void growTest() {
+        AdaptiveConcurrencyLimit idle = limit(20);
+        AdaptiveConcurrencyLimit busy = limit(20);
+        long now = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            window(idle, now, 5, MILLIS);
+            now = window(busy, now, Integer.MAX_VALUE, MILLIS);
+        }
+        Assertions.assertEquals(20, idle.getLimit());
+        Assertions.assertTrue(busy.getLimit() > 40, "上限应增长: " + busy.getLimit());
+
+        for (int i = 0; i < 1000; i++) {
+            now = window(busy, now, Integer.MAX_VALUE, MILLIS);
+        }
+        Assertions.assertEquals(1000, busy.getLimit());
+    }
+}
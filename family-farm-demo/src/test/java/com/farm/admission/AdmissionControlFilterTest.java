@@ -0,0 +1,69 @@
+package com.farm.admission;
+
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+/**
+ * @ClassName AdmissionControlFilterTest
+ * @Author phx
+ * @Date 2025/6/17 15:00
+ * @Description 测试准入控制过滤器：客户端超过速率时返回 429 与 Retry-After，其它客户端与排除的路径不受影响，拒绝计入指标
+ * <p>
+ * 每个客户端的桶容量为 2，恢复一个令牌要 100 秒，测试期间不会恢复
+ */
+
+@SpringBootTest(properties = {
+        "farm.admission.enabled=true",
+        "farm.admission.rate.permits-per-second=0.01",
+        "farm.admission.rate.burst=2",
+        "farm.admission.client-id-header=X-Client-Id"})
+@AutoConfigureMockMvc
+public class AdmissionControlFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static MockHttpServletRequestBuilder getOne(String remoteAddr) {
+        return MockMvcRequestBuilders.get("/family/farm/demo/one").with(request -> {
+            request.setRemoteAddr(remoteAddr);
+            return request;
+        });
+    }
+
+    @Test
+    public void rateLimitTest() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(getOne("10.0.0.1")).andExpect(MockMvcResultMatchers.status().isOk());
+        }
+        mockMvc.perform(getOne("10.0.0.1"))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "100"));
+
+        // 其它来源地址、带客户端标识的请求各有自己的令牌桶
+        mockMvc.perform(getOne("10.0.0.2")).andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(getOne("10.0.0.1").header("X-Client-Id", "batch-job"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        // 指标接口不做准入控制
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/metrics/admission").with(request -> {
+                        request.setRemoteAddr("10.0.0.1");
+                        return request;
+                    }))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.rateLimited").value(1))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.concurrencyLimited").value(0))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.admitted").value(4))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.inFlight").value(0))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.topRateLimitedClients['10.0.0.1']").value(1));
+        }
+    }
+}
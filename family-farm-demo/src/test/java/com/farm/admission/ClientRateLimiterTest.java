@@ -0,0 +1,114 @@
+package com.farm.admission;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName ClientRateLimiterTest
+ * @Author phx
+ * @Date 2025/6/17 14:00
+ * @Description 测试按客户端限流：突发容量、按速率恢复、客户端之间互不影响、客户端过多时共用溢出桶、并发下不超发
+ */
+
+public class ClientRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 先放行 burst 个请求，之后按速率恢复，等待时间为下一个令牌到达的时间；其它客户端不受影响
+     */
+    @Test
+    public void burstAndRefillTest() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 3, 100);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, limiter.tryAcquire("a", now));
+        }
+        Assertions.assertEquals(SECOND / 10, limiter.tryAcquire("a", now));
+        Assertions.assertEquals(0, limiter.tryAcquire("b", now));
+
+        // 0.1 秒恢复一个令牌
+        Assertions.assertEquals(0, limiter.tryAcquire("a", now + SECOND / 10));
+        Assertions.assertTrue(limiter.tryAcquire("a", now + SECOND / 10) > 0);
+        // 空闲足够久后桶是满的，但不会超过容量
+        long later = now + 10 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, limiter.tryAcquire("a", later));
+        }
+        Assertions.assertTrue(limiter.tryAcquire("a", later) > 0);
+
+        Assertions.assertEquals(2, limiter.clients());
+        Assertions.assertEquals(3L, limiter.topRejected(10).get("a"));
+        Assertions.assertNull(limiter.topRejected(10).get("b"));
+    }
+
+    /**
+     * 客户端数达到上限时先清掉已装满的桶，仍然满时新客户端共用溢出桶
+     */
+    @Test
+    public void maxClientsTest() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 2);
+        long now = System.nanoTime();
+        Assertions.assertEquals(0, limiter.tryAcquire("a", now));
+        Assertions.assertEquals(0, limiter.tryAcquire("b", now));
+
+        // a、b 的桶都是空的，清不掉，c、d 共用溢出桶
+        Assertions.assertEquals(0, limiter.tryAcquire("c", now));
+        Assertions.assertTrue(limiter.tryAcquire("d", now) > 0);
+        Assertions.assertEquals(2, limiter.clients());
+        Assertions.assertEquals(1L, limiter.topRejected(10).get("*"));
+
+        // a、b 的桶已装满，被清掉后 e 有自己的桶
+        long later = now + 2 * SECOND;
+        Assertions.assertEquals(0, limiter.tryAcquire("e", later));
+        Assertions.assertEquals(1, limiter.clients());
+        Assertions.assertEquals(0, limiter.tryAcquire("a", later));
+        Assertions.assertEquals(2, limiter.clients());
+    }
+
+    /**
+     * 多个线程同时取同一个客户端的令牌，放行的总数恰好为桶的容量
+     */
+    @Test
+    public void concurrentTest() throws Exception {
+        int burst = 500;
+        ClientRateLimiter limiter = new ClientRateLimiter(0.001, burst, 100);
+        long now = System.nanoTime();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            int[] admitted = new int[threads];
+            for (int i = 0; i < threads; i++) {
+                int index = i;
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < burst; j++) {
+                        if (limiter.tryAcquire("a", now) == 0) {
+                            admitted[index]++;
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            int total = 0;
+            for (int i = 0; i < threads; i++) {
+                futures[i].get();
+                total += admitted[i];
+            }
+            Assertions.assertEquals(burst, total);
+            Assertions.assertEquals((long) burst * (threads - 1), limiter.topRejected(1).get("a"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
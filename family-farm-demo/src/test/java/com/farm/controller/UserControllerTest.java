@@ -1,8 +1,12 @@
 package com.farm.controller;
 
 
+import com.farm.common.json.PreEncodedJsonHttpMessageConverter;
 import com.farm.entity.User;
 import com.farm.service.UserService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,11 +14,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -61,6 +68,12 @@ public class UserControllerTest {
     @SpyBean
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PreEncodedJsonHttpMessageConverter<User> userJsonConverter;
+
     /**
      * 测试controller中getUser方法
      * 模拟userService.getUser方法的返回值，
@@ -150,6 +163,28 @@ public class UserControllerTest {
     }
 
 
+    /**
+     * 测试controller中getUserByIndex方法
+     * 下标越界时返回404，而不是IndexOutOfBoundsException导致的500
+     *
+     * @throws Exception
+     */
+    @Test
+    public void getUserByIndexNotFoundTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        //构造请求
+                        .get("/family/farm/demo/user/100")
+                        //设置返回值类型
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                //添加执行完成后的断言
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+                //添加一个结果处理器，此处打印整个响应结果信息
+                .andDo(MockMvcResultHandlers.print());
+
+    }
+
+
     /**
      * 测试controller中getUserInfo方法
      * 模拟userService中getUserByIndex方法
@@ -215,4 +250,263 @@ public class UserControllerTest {
                 .andDo(MockMvcResultHandlers.print());
 
     }
+
+    /**
+     * 测试controller中getUserPage方法
+     * 游标分页：limit=1时第一页返回第一个用户，nextCursor为该用户ID；用nextCursor翻到最后一页时nextCursor为空
+     *
+     * @throws Exception
+     */
+    @Test
+    public void getUserPageTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/family/farm/demo/list")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("limit", "1")
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[0].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value(1))
+                .andDo(MockMvcResultHandlers.print());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/family/farm/demo/list")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("after", "1")
+                        .param("limit", "1")
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[0].id").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").doesNotExist())
+                .andDo(MockMvcResultHandlers.print());
+
+        // limit超出范围
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/family/farm/demo/list")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("limit", "0")
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    /**
+     * 测试controller中streamUserList方法
+     * StreamingResponseBody是异步写出的，需要先确认异步已开始，再通过asyncDispatch取得完整响应
+     *
+     * @throws Exception
+     */
+    @Test
+    public void streamUserListTest() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/family/farm/demo/list")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                // NDJSON固定为UTF-8编码，按字节比较
+                .andExpect(MockMvcResultMatchers.content().bytes(
+                        "{\"id\":1,\"name\":\"用户名1\"}\n{\"id\":2,\"name\":\"用户名2\"}\n".getBytes(StandardCharsets.UTF_8)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    /**
+     * 测试预编码JSON输出
+     * User与List&lt;User&gt;由预编码转换器输出，与Jackson序列化的结果逐字节一致，同一用户只编码一次
+     *
+     * @throws Exception
+     */
+    @Test
+    public void preEncodedJsonTest() throws Exception {
+        List<User> users = List.of(new User(1, "用户名1"), new User(2, "用户名2"));
+        long missesBefore = userJsonConverter.getCache().missCount();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders
+                            .get("/family/farm/demo/list")
+                            .accept(MediaType.APPLICATION_JSON)
+                    )
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(MockMvcResultMatchers.content().bytes(objectMapper.writeValueAsBytes(users)));
+        }
+        Assertions.assertTrue(userJsonConverter.getCache().missCount() - missesBefore <= users.size());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/user/0"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().longValue("Content-Length",
+                        objectMapper.writeValueAsBytes(users.get(0)).length))
+                .andExpect(MockMvcResultMatchers.content().bytes(objectMapper.writeValueAsBytes(users.get(0))));
+    }
+
+    /**
+     * 测试ETag
+     * 响应带强ETag，带上If-None-Match再次请求时数据未变化返回304且没有响应体；JSON与NDJSON的ETag不同
+     *
+     * @throws Exception
+     */
+    @Test
+    public void etagTest() throws Exception {
+        String etag = "\"" + userService.getVersion() + "\"";
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", etag));
+
+        Mockito.clearInvocations(userService);
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list").header("If-None-Match", etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""))
+                .andDo(MockMvcResultHandlers.print());
+        // 304在查询之前返回
+        Mockito.verify(userService, Mockito.never()).getUserList();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/user/0").header("If-None-Match", etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list").header("If-None-Match", "\"0\""))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/family/farm/demo/list")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header("If-None-Match", etag))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted());
+    }
+
+    /**
+     * 测试controller中getUsersChangedSince方法
+     * since为当前版本时没有变化；since更早时返回之后修改的用户；since比当前版本还新时返回全部用户
+     *
+     * @throws Exception
+     */
+    @Test
+    public void changedSinceTest() throws Exception {
+        long version = userService.getVersion();
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list").param("since", String.valueOf(version)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").value(version))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.full").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users.length()").value(0))
+                .andDo(MockMvcResultHandlers.print());
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list").param("since", String.valueOf(version - 1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[0].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[1].id").value(2));
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list").param("since", String.valueOf(version + 1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.full").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users.length()").value(2));
+    }
+
+    /**
+     * 测试controller中batchGetUsers方法
+     * 一次请求查询多个用户，不存在的用户ID在missingIds中返回
+     *
+     * @throws Exception
+     */
+    @Test
+    public void batchGetUsersTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/family/farm/demo/users:batchGet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[2,3,1]}")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[0].id").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[1].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missingIds[0]").value(3))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    /**
+     * 测试请求指标
+     * 请求过的接口按路径模板出现在指标中
+     *
+     * @throws Exception
+     */
+    @Test
+    public void metricsTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/user/0"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/family/farm/demo/metrics/endpoints")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.['GET /family/farm/demo/user/{index}'].count").isNumber())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    /**
+     * 测试controller中searchUsers方法
+     * 按名称搜索，前缀匹配在子串匹配之前；参数不合法时返回400
+     *
+     * @throws Exception
+     */
+    @Test
+    public void searchUsersTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/family/farm/demo/user/search")
+                        .param("q", "用户名")
+                        .param("limit", "1")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists("ETag"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(1))
+                .andDo(MockMvcResultHandlers.print());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/user/search").param("q", "名2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value("用户名2"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/user/search").param("q", " "))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/user/search").param("q", "用户").param("limit", "101"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    /**
+     * 测试二进制格式的内容协商
+     * Accept为CBOR、Smile时返回对应格式，解码后与JSON内容一致；ETag按表示区分并带Vary: Accept；不带Accept时仍返回JSON
+     *
+     * @throws Exception
+     */
+    @Test
+    public void binaryFormatTest() throws Exception {
+        long version = userService.getVersion();
+        List<User> users = userService.getUserList();
+        MvcResult cbor = mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"" + version + "-cbor\""))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"))
+                .andReturn();
+        Assertions.assertEquals(users, Jackson2ObjectMapperBuilder.cbor().build().readValue(cbor.getResponse().getContentAsByteArray(),
+                new TypeReference<List<User>>() {
+                }));
+
+        MvcResult smile = mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/user/1").accept("application/x-jackson-smile"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"" + version + "-smile\""))
+                .andReturn();
+        Assertions.assertEquals(userService.getUserByIndex(1),
+                Jackson2ObjectMapperBuilder.smile().build().readValue(smile.getResponse().getContentAsByteArray(), User.class));
+
+        // JSON 优先级更高时返回 JSON；JSON 的 ETag 不匹配 CBOR 的表示
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list").header("Accept", "application/cbor;q=0.5, application/json"))
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"" + version + "\""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list"))
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header("If-None-Match", "\"" + version + "\""))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header("If-None-Match", "\"" + version + "-cbor\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+    }
 }
@@ -0,0 +1,68 @@
+package com.farm.controller;
+
+
+import com.farm.entity.User;
+import com.farm.service.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @ClassName UserImportControllerTest
+ * @Author phx
+ * @Date 2025/6/12 11:40
+ * @Description 测试批量导入接口，导入会修改用户数据，测试结束后丢弃 Spring 上下文，不影响其它测试
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+public class UserImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * CSV 与 NDJSON 导入后立即可查，版本号变化，搜索能找到新用户；不支持的类型返回 415
+     */
+    @Test
+    public void importUsersTest() throws Exception {
+        long version = userService.getVersion();
+        mockMvc.perform(MockMvcRequestBuilders.post("/family/farm/demo/users:import")
+                        .contentType("text/csv")
+                        .content("id,name\n10,导入用户10\n11,导入用户11\nx,错误\n".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rows").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.imported").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]").value("第4行: id不是整数"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/family/farm/demo/users:import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"id\":11,\"name\":\"改名11\"}\n".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.imported").value(1));
+
+        Assertions.assertTrue(userService.getVersion() > version);
+        Assertions.assertEquals(new User(10, "导入用户10"), userService.getUsersByIds(new int[]{10}).getUsers().get(0));
+        Assertions.assertEquals(List.of(new User(11, "改名11")), userService.searchUsers("改名", 10));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/family/farm/demo/users:import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(MockMvcResultMatchers.status().isUnsupportedMediaType());
+    }
+}
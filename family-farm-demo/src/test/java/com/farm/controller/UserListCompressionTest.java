@@ -0,0 +1,129 @@
+package com.farm.controller;
+
+
+import com.farm.common.compression.PrecompressedBodyCache;
+import com.farm.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * @ClassName UserListCompressionTest
+ * @Author phx
+ * @Date 2025/6/16 15:00
+ * @Description 测试用户列表的预压缩：按 Accept-Encoding 返回 gzip、deflate，解压后与不压缩的 JSON 一致，重复请求命中缓存
+ * <p>
+ * 默认数据只有几个用户，min-size 设为 0 使其也被压缩
+ */
+
+@SpringBootTest(properties = "farm.json.precompressed.min-size=0")
+@AutoConfigureMockMvc
+public class UserListCompressionTest {
+
+    private static final String URL = "/family/farm/demo/list";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PrecompressedBodyCache userListBodyCache;
+
+    private static byte[] decode(String coding, byte[] body) throws IOException {
+        try (InputStream in = "gzip".equals(coding)
+                ? new GZIPInputStream(new ByteArrayInputStream(body))
+                : new InflaterInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * gzip、deflate 解压后与 Jackson 序列化的用户列表一致；ETag 按编码区分，并带上 Vary: Accept-Encoding
+     */
+    @Test
+    public void compressedTest() throws Exception {
+        byte[] expected = objectMapper.writeValueAsBytes(userService.getUserList());
+        long version = userService.getVersion();
+        for (String coding : new String[]{"gzip", "deflate"}) {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(URL)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.ACCEPT_ENCODING, coding))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, coding))
+                    .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"" + version + "-" + coding + "\""))
+                    .andReturn();
+            Assertions.assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+            Assertions.assertTrue(result.getResponse().getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+            byte[] body = result.getResponse().getContentAsByteArray();
+            Assertions.assertEquals(body.length, result.getResponse().getContentLength());
+            Assertions.assertArrayEquals(expected, decode(coding, body));
+        }
+    }
+
+    /**
+     * 同一版本的重复请求命中缓存，返回的字节相同；带回压缩表示的 ETag 时返回 304
+     */
+    @Test
+    public void cacheHitTest() throws Exception {
+        byte[] first = mockMvc.perform(MockMvcRequestBuilders.get(URL).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        long hits = userListBodyCache.hitCount();
+        long misses = userListBodyCache.missCount();
+        MvcResult second = mockMvc.perform(MockMvcRequestBuilders.get(URL).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andReturn();
+        Assertions.assertArrayEquals(first, second.getResponse().getContentAsByteArray());
+        Assertions.assertEquals(hits + 1, userListBodyCache.hitCount());
+        Assertions.assertEquals(misses, userListBodyCache.missCount());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, second.getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+    }
+
+    /**
+     * 不带 Accept-Encoding、只接受 identity、或请求二进制格式时不压缩，仍由消息转换器输出
+     */
+    @Test
+    public void uncompressedTest() throws Exception {
+        long version = userService.getVersion();
+        mockMvc.perform(MockMvcRequestBuilders.get(URL))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"" + version + "\""));
+        mockMvc.perform(MockMvcRequestBuilders.get(URL).header(HttpHeaders.ACCEPT_ENCODING, "identity, gzip;q=0"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        mockMvc.perform(MockMvcRequestBuilders.get(URL)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        mockMvc.perform(MockMvcRequestBuilders.get(URL)
+                        .accept(MediaType.TEXT_HTML)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(MockMvcResultMatchers.status().isNotAcceptable());
+    }
+}
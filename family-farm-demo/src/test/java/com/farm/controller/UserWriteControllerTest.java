@@ -0,0 +1,102 @@
+package com.farm.controller;
+
+
+import com.farm.entity.User;
+import com.farm.service.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+
+/**
+ * @ClassName UserWriteControllerTest
+ * @Author phx
+ * @Date 2025/6/19 14:00
+ * @Description 测试用户的新增、修改、删除接口，会修改用户数据，测试结束后丢弃 Spring 上下文，不影响其它测试
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+public class UserWriteControllerTest {
+
+    private static final String URL = "/family/farm/demo/users";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 新增返回 201，重复新增返回 409；修改返回修改后的用户；删除返回 204，再次删除返回 404。
+     * 每次写入后版本号变大，列表、按 id 查询与搜索立即看到新数据
+     */
+    @Test
+    public void writeUsersTest() throws Exception {
+        long version = userService.getVersion();
+        mockMvc.perform(MockMvcRequestBuilders.post(URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":100,\"name\":\"新用户100\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(100))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("新用户100"));
+        mockMvc.perform(MockMvcRequestBuilders.post(URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":100,\"name\":\"重复\"}"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+        long created = userService.getVersion();
+        Assertions.assertTrue(created > version);
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/list"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"" + created + "\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.id == 100)].name").value("新用户100"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put(URL + "/100")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"改名100\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("改名100"));
+        mockMvc.perform(MockMvcRequestBuilders.put(URL + "/101")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"改名101\"}"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+        Assertions.assertEquals(List.of(new User(100, "改名100")), userService.searchUsers("改名", 10));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete(URL + "/100"))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+        mockMvc.perform(MockMvcRequestBuilders.delete(URL + "/100"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+        Assertions.assertArrayEquals(new int[]{100}, userService.getUsersByIds(new int[]{100}).getMissingIds());
+        Assertions.assertTrue(userService.searchUsers("改名", 10).isEmpty());
+        Assertions.assertTrue(userService.getUsersChangedSince(created).isFull());
+    }
+
+    /**
+     * id 不是正整数、名称为空或过长时返回 400，不修改数据
+     */
+    @Test
+    public void invalidRequestTest() throws Exception {
+        long version = userService.getVersion();
+        for (String body : new String[]{"{\"id\":0,\"name\":\"用户\"}", "{\"id\":200,\"name\":\" \"}",
+                "{\"id\":200}", "{\"id\":200,\"name\":\"" + "长".repeat(65) + "\"}"}) {
+            mockMvc.perform(MockMvcRequestBuilders.post(URL)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        }
+        mockMvc.perform(MockMvcRequestBuilders.put(URL + "/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        Assertions.assertEquals(version, userService.getVersion());
+    }
+}
@@ -0,0 +1,185 @@
+package com.farm.load;
+
+
+import com.farm.metrics.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * @ClassName OpenLoopLoadGenerator
+ * @Author phx
+ * @Date 2025/6/6 10:20
+ * @Description 开环压测：按固定到达率发请求，不等上一个响应
+ * <p>
+ * 第 i 个请求的计划发出时间是 start + i * interval，延迟从计划时间算到收到响应。
+ * 闭环压测（收到响应再发下一个）在服务端卡顿时会少发请求，卡顿期间本该发生的排队等待不会被记录（coordinated omission），
+ * 这里即使发送线程本身被卡住，后面补发的请求也从各自的计划时间起算，卡顿完整地体现在百分位上。
+ */
+
+public class OpenLoopLoadGenerator {
+
+    /**
+     * 请求超时，超时按错误计
+     */
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * 发送一个请求，返回响应状态码
+     */
+    interface Sender {
+        CompletableFuture<Integer> send(HttpRequest request);
+    }
+
+    private final Sender sender;
+    private final double ratePerSecond;
+
+    public OpenLoopLoadGenerator(HttpClient client, double ratePerSecond) {
+        this(request -> client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(HttpResponse::statusCode), ratePerSecond);
+    }
+
+    OpenLoopLoadGenerator(Sender sender, double ratePerSecond) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("到达率必须大于0");
+        }
+        this.sender = sender;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * 按权重随机选择场景，持续 duration 后等待所有请求完成
+     */
+    public Result run(List<Scenario> scenarios, Duration duration) throws Exception {
+        int totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+        Result result = new Result(scenarios, duration);
+        SplittableRandom random = new SplittableRandom(42);
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        double interval = 1_000_000_000.0 / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * interval);
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = pick(scenarios, random.nextInt(totalWeight));
+            HttpRequest request = scenario.request().apply(random);
+            futures.add(sender.send(request).whenComplete((status, error) ->
+                    result.record(scenario, System.nanoTime() - intended,
+                            error == null && status >= 200 && status < 400)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .exceptionally(e -> null)
+                .get(REQUEST_TIMEOUT.toSeconds() * 2, TimeUnit.SECONDS);
+        return result;
+    }
+
+    private static Scenario pick(List<Scenario> scenarios, int point) {
+        for (Scenario scenario : scenarios) {
+            point -= scenario.weight();
+            if (point < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    /**
+     * 新建请求，统一设置超时
+     */
+    public static HttpRequest.Builder request(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(REQUEST_TIMEOUT);
+    }
+
+    /**
+     * 压测场景：名称、权重与请求生成方式（用同一个随机数生成器，结果可复现）
+     */
+    public record Scenario(String name, int weight, Function<SplittableRandom, HttpRequest> request) {
+    }
+
+    /**
+     * 压测结果：整体与每个场景的延迟直方图、错误数
+     */
+    public static class Result {
+
+        private final Duration duration;
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final Map<String, LatencyHistogram> byScenario = new LinkedHashMap<>();
+        private final Map<String, LongAdder> errorsByScenario = new LinkedHashMap<>();
+
+        private Result(List<Scenario> scenarios, Duration duration) {
+            this.duration = duration;
+            for (Scenario scenario : scenarios) {
+                byScenario.put(scenario.name(), new LatencyHistogram());
+                errorsByScenario.put(scenario.name(), new LongAdder());
+            }
+        }
+
+        private void record(Scenario scenario, long nanos, boolean success) {
+            total.record(nanos);
+            byScenario.get(scenario.name()).record(nanos);
+            if (!success) {
+                errors.increment();
+                errorsByScenario.get(scenario.name()).increment();
+            }
+        }
+
+        public LatencyHistogram.Snapshot snapshot() {
+            return total.snapshot();
+        }
+
+        public long count() {
+            return total.count();
+        }
+
+        public double errorRate() {
+            long count = count();
+            return count == 0 ? 0 : (double) errors.sum() / count;
+        }
+
+        /**
+         * 完成的请求数 / 计划时长
+         */
+        public double throughput() {
+            return count() / (duration.toNanos() / 1_000_000_000.0);
+        }
+
+        public String report() {
+            StringBuilder report = new StringBuilder(format("全部", total.snapshot(), errors.sum()));
+            byScenario.forEach((name, histogram) -> report.append('\n')
+                    .append(format(name, histogram.snapshot(), errorsByScenario.get(name).sum())));
+            return report.toString();
+        }
+
+        private String format(String name, LatencyHistogram.Snapshot snapshot, long errors) {
+            return String.format("%-24s 请求数=%d 吞吐量=%.0f req/s 错误=%d p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms",
+                    name, snapshot.count(), snapshot.count() / (duration.toNanos() / 1_000_000_000.0), errors,
+                    millis(snapshot.percentile(50)), millis(snapshot.percentile(99)),
+                    millis(snapshot.percentile(99.9)), millis(snapshot.max()));
+        }
+    }
+
+    public static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.farm.load;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName OpenLoopLoadGeneratorTest
+ * @Author phx
+ * @Date 2025/6/6 11:00
+ * @Description 测试开环压测的到达率与 coordinated omission 修正
+ */
+
+public class OpenLoopLoadGeneratorTest {
+
+    private static final List<OpenLoopLoadGenerator.Scenario> SCENARIOS = List.of(
+            new OpenLoopLoadGenerator.Scenario("a", 3, random -> OpenLoopLoadGenerator.request("http://localhost/a").build()),
+            new OpenLoopLoadGenerator.Scenario("b", 1, random -> OpenLoopLoadGenerator.request("http://localhost/b").build()));
+
+    /**
+     * 按固定到达率发请求，按权重分配场景
+     */
+    @Test
+    public void fixedRateTest() throws Exception {
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(
+                request -> CompletableFuture.completedFuture(request.uri().getPath().equals("/b") ? 500 : 200), 2000);
+        OpenLoopLoadGenerator.Result result = generator.run(SCENARIOS, Duration.ofMillis(500));
+
+        Assertions.assertEquals(1000, result.count());
+        Assertions.assertEquals(0.25, result.errorRate(), 0.05);
+        Assertions.assertEquals(2000, result.throughput(), 1);
+    }
+
+    /**
+     * 一次 200ms 的卡顿：卡顿期间计划发出的请求都从计划时间起算，p99 体现出卡顿
+     */
+    @Test
+    public void coordinatedOmissionTest() throws Exception {
+        AtomicInteger sent = new AtomicInteger();
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(request -> {
+            if (sent.incrementAndGet() == 100) {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return CompletableFuture.completedFuture(200);
+        }, 1000);
+        OpenLoopLoadGenerator.Result result = generator.run(SCENARIOS, Duration.ofSeconds(1));
+
+        Assertions.assertEquals(1000, result.count());
+        // 约200个请求受卡顿影响，延迟从0到200ms均匀分布，闭环统计只会记录到一个慢请求
+        Assertions.assertTrue(OpenLoopLoadGenerator.millis(result.snapshot().percentile(99)) > 150);
+        Assertions.assertTrue(OpenLoopLoadGenerator.millis(result.snapshot().percentile(90)) > 50);
+        Assertions.assertTrue(OpenLoopLoadGenerator.millis(result.snapshot().percentile(50)) < 50);
+    }
+}
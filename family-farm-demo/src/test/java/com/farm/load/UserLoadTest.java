@@ -0,0 +1,171 @@
+package com.farm.load;
+
+
+import com.farm.entity.User;
+import com.farm.service.UserService;
+import com.farm.store.UserStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @ClassName UserLoadTest
+ * @Author phx
+ * @Date 2025/6/6 14:30
+ * @Description 用户接口的开环压测与延迟门限
+ * <p>
+ * 在随机端口启动完整应用，以固定到达率按权重混合请求各用户接口（见 {@link OpenLoopLoadGenerator}），
+ * 打印整体与每个接口的吞吐量、p50/p99/p999，超过门限时测试失败，构建随之失败。
+ * 所有请求来自同一个客户端，关闭准入控制，测量的是接口本身的容量。
+ * <p>
+ * 延迟门限相对于基线：p99/p999 不能超过基线值的 (1 + tolerance) 倍，且至少留 slackMs 的余量，避免基线很小时被噪声误判。
+ * 基线默认取 src/test/resources/load/user-load-baseline.json，-Dload.baseline=文件路径 可改用上一次运行的结果；
+ * 到达率与基线不同时延迟不可比，只检查错误率和吞吐量。每次运行的结果写入 target/load-test/user-load-result.json，
+ * 可作为下一次运行的基线（CI 保存为构建产物），在新机器上运行时用它替换仓库里的基线。
+ * 错误率和吞吐量是绝对门限，与基线无关。
+ * <p>
+ * 耗时较长，默认不执行，运行方式：
+ * mvn test -pl family-farm-demo -am -Dtest=UserLoadTest -Dload=true -Dsurefire.failIfNoSpecifiedTests=false
+ * 可选参数：
+ * -Dload.rate=200 -Dload.seconds=10 -Dload.warmupSeconds=3 -Dload.users=10000
+ * 门限：-Dload.tolerance=0.5 -Dload.slackMs=5 -Dload.maxErrorRate=0.001 -Dload.minThroughputRatio=0.95
+ */
+
+@Slf4j
+@EnabledIfSystemProperty(named = "load", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"farm.access-log.file=target/load-test/access.log", "farm.admission.enabled=false"})
+public class UserLoadTest {
+
+    private static final int RATE = Integer.getInteger("load.rate", 200);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 10);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmupSeconds", 3);
+    private static final int USERS = Integer.getInteger("load.users", 10000);
+
+    private static final String BASELINE = System.getProperty("load.baseline");
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("load.tolerance", "0.5"));
+    private static final double SLACK_MS = Double.parseDouble(System.getProperty("load.slackMs", "5"));
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.maxErrorRate", "0.001"));
+    private static final double MIN_THROUGHPUT_RATIO = Double.parseDouble(System.getProperty("load.minThroughputRatio", "0.95"));
+
+    private static final String BASELINE_RESOURCE = "/load/user-load-baseline.json";
+    private static final Path RESULT_FILE = Path.of("target/load-test/user-load-result.json");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserStore userStore;
+
+    @Autowired
+    private UserService userService;
+
+    @BeforeEach
+    public void setUp() {
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new User(i, "用户名" + i));
+        }
+        userStore.replaceAll(users);
+    }
+
+    @Test
+    public void userEndpointsLoadTest() throws Exception {
+        String base = "http://localhost:" + port + "/family/farm/demo";
+        String etag = "\"" + userService.getVersion() + "\"";
+        List<OpenLoopLoadGenerator.Scenario> scenarios = List.of(
+                new OpenLoopLoadGenerator.Scenario("GET /user/{index}", 60, random ->
+                        OpenLoopLoadGenerator.request(base + "/user/" + random.nextInt(USERS)).build()),
+                new OpenLoopLoadGenerator.Scenario("GET /list?limit=100", 20, random ->
+                        OpenLoopLoadGenerator.request(base + "/list?limit=100&after=" + random.nextInt(USERS)).build()),
+                new OpenLoopLoadGenerator.Scenario("POST /users:batchGet", 10, random ->
+                        OpenLoopLoadGenerator.request(base + "/users:batchGet")
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString("{\"ids\":[" + IntStream.range(0, 20)
+                                        .mapToObj(i -> String.valueOf(random.nextInt(USERS) + 1))
+                                        .collect(Collectors.joining(",")) + "]}"))
+                                .build()),
+                new OpenLoopLoadGenerator.Scenario("GET /list (304)", 10, random ->
+                        OpenLoopLoadGenerator.request(base + "/list").header("If-None-Match", etag).build()));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(client, RATE);
+        // 预热：JIT编译、连接池建立，结果丢弃
+        generator.run(scenarios, Duration.ofSeconds(WARMUP_SECONDS));
+        OpenLoopLoadGenerator.Result result = generator.run(scenarios, Duration.ofSeconds(SECONDS));
+        log.info("========开环压测 到达率={} req/s 时长={}s========\n{}", RATE, SECONDS, result.report());
+
+        Baseline current = new Baseline(RATE, SECONDS, USERS, result.throughput(),
+                OpenLoopLoadGenerator.millis(result.snapshot().percentile(99)),
+                OpenLoopLoadGenerator.millis(result.snapshot().percentile(99.9)));
+        Files.createDirectories(RESULT_FILE.getParent());
+        objectMapper.writeValue(RESULT_FILE.toFile(), current);
+
+        Assertions.assertTrue(result.errorRate() <= MAX_ERROR_RATE,
+                String.format("错误率%.4f超过门限%.4f", result.errorRate(), MAX_ERROR_RATE));
+        Assertions.assertTrue(result.throughput() >= RATE * MIN_THROUGHPUT_RATIO,
+                String.format("吞吐量%.0f req/s低于到达率%d的%.0f%%", result.throughput(), RATE, MIN_THROUGHPUT_RATIO * 100));
+
+        Baseline baseline = loadBaseline();
+        if (baseline.rate() != RATE) {
+            log.warn("========基线到达率{}与本次{}不同，跳过延迟门限========", baseline.rate(), RATE);
+            return;
+        }
+        double maxP99 = limit(baseline.p99Ms());
+        double maxP999 = limit(baseline.p999Ms());
+        log.info("========基线 p99={}ms p999={}ms，门限 p99={}ms p999={}ms========",
+                baseline.p99Ms(), baseline.p999Ms(), maxP99, maxP999);
+        Assertions.assertTrue(current.p99Ms() <= maxP99,
+                String.format("p99=%.2fms超过门限%.2fms（基线%.2fms）", current.p99Ms(), maxP99, baseline.p99Ms()));
+        Assertions.assertTrue(current.p999Ms() <= maxP999,
+                String.format("p999=%.2fms超过门限%.2fms（基线%.2fms）", current.p999Ms(), maxP999, baseline.p999Ms()));
+    }
+
+    /**
+     * 基线值放大 (1 + tolerance) 倍，且至少比基线多 slackMs
+     */
+    private static double limit(double baselineMs) {
+        return Math.max(baselineMs * (1 + TOLERANCE), baselineMs + SLACK_MS);
+    }
+
+    private Baseline loadBaseline() throws IOException {
+        if (BASELINE != null) {
+            return objectMapper.readValue(Path.of(BASELINE).toFile(), Baseline.class);
+        }
+        try (InputStream in = UserLoadTest.class.getResourceAsStream(BASELINE_RESOURCE)) {
+            Assertions.assertNotNull(in, "缺少基线文件 " + BASELINE_RESOURCE);
+            return objectMapper.readValue(in, Baseline.class);
+        }
+    }
+
+    /**
+     * 一次压测的结果，同时也是基线文件的格式
+     */
+    public record Baseline(int rate, int seconds, int users, double throughput, double p99Ms, double p999Ms) {
+    }
+}
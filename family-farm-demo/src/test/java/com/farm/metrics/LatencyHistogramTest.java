@@ -0,0 +1,48 @@
+package com.farm.metrics;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @ClassName LatencyHistogramTest
+ * @Author phx
+ * @Date 2025/5/19 16:30
+ * @Description 测试延迟直方图的分桶与百分位
+ */
+
+public class LatencyHistogramTest {
+
+    /**
+     * 分桶连续且单调：每个值都落在上界不小于它的桶里，相对误差不超过 1/32
+     */
+    @Test
+    public void bucketTest() {
+        int previous = -1;
+        for (long value = 0; value < 1_000_000; value += value < 1000 ? 1 : 97) {
+            int index = LatencyHistogram.indexOf(value);
+            Assertions.assertTrue(index >= previous);
+            long highest = LatencyHistogram.highestValueOf(index);
+            Assertions.assertTrue(highest >= value);
+            Assertions.assertTrue(highest - value <= Math.max(1, value / 32));
+            previous = index;
+        }
+    }
+
+    /**
+     * 1~10000 微秒均匀分布时，p50、p99 接近真实值
+     */
+    @Test
+    public void percentileTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(10_000, snapshot.count());
+        Assertions.assertEquals(5_000_000, snapshot.percentile(50), 5_000_000 / 32.0);
+        Assertions.assertEquals(9_900_000, snapshot.percentile(99), 9_900_000 / 32.0);
+        Assertions.assertEquals(10_000_000, snapshot.max());
+        Assertions.assertEquals(10_000_000, snapshot.percentile(100));
+    }
+}
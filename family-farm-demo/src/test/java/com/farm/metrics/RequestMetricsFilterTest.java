@@ -0,0 +1,67 @@
+package com.farm.metrics;
+
+
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * @ClassName RequestMetricsFilterTest
+ * @Author phx
+ * @Date 2025/5/19 16:20
+ * @Description 测试请求指标过滤器按接口记录状态码，未处理异常按 500 记录
+ */
+
+public class RequestMetricsFilterTest {
+
+    private static final String KEY = "GET /family/farm/demo/user/{index}";
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/family/farm/demo/user/0");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/family/farm/demo/user/{index}");
+        return request;
+    }
+
+    /**
+     * 正常返回时记录响应的状态码
+     */
+    @Test
+    public void statusTest() throws Exception {
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        RequestMetricsFilter filter = new RequestMetricsFilter(metricsRegistry);
+
+        filter.doFilter(request(), new MockHttpServletResponse(), (req, res) -> res.getWriter().write("{}"));
+        MockHttpServletResponse notFound = new MockHttpServletResponse();
+        filter.doFilter(request(), notFound, (req, res) -> notFound.setStatus(404));
+
+        MetricsStats stats = metricsRegistry.endpointStats().get(KEY);
+        Assertions.assertEquals(2, stats.getCount());
+        Assertions.assertEquals(1, stats.getClientErrors());
+        Assertions.assertEquals(0, stats.getServerErrors());
+    }
+
+    /**
+     * 异常向上抛出时响应状态还是 200，仍按 500 记录，异常原样抛出
+     */
+    @Test
+    public void exceptionTest() {
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        RequestMetricsFilter filter = new RequestMetricsFilter(metricsRegistry);
+
+        Assertions.assertThrows(ServletException.class, () -> filter.doFilter(request(), new MockHttpServletResponse(),
+                (req, res) -> {
+                    throw new ServletException(new IllegalStateException("导入未完成"));
+                }));
+        Assertions.assertThrows(IllegalStateException.class, () -> filter.doFilter(request(), new MockHttpServletResponse(),
+                (req, res) -> {
+                    throw new IllegalStateException("导入未完成");
+                }));
+
+        MetricsStats stats = metricsRegistry.endpointStats().get(KEY);
+        Assertions.assertEquals(2, stats.getCount());
+        Assertions.assertEquals(2, stats.getServerErrors());
+    }
+}
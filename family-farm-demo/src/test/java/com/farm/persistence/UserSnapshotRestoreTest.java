@@ -0,0 +1,69 @@
+package com.farm.persistence;
+
+
+import com.farm.entity.User;
+import com.farm.service.UserService;
+import com.farm.store.UserSnapshotFile;
+import com.farm.store.UserStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @ClassName UserSnapshotRestoreTest
+ * @Author phx
+ * @Date 2025/6/20 15:30
+ * @Description 测试启动时从快照文件恢复：恢复的数据替换默认用户，第一个请求就能读到；恢复的数据与默认数据不同，测试结束后丢弃 Spring 上下文
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+public class UserSnapshotRestoreTest {
+
+    private static final List<User> USERS = List.of(new User(7, "快照用户7"), new User(8, "快照用户8"), new User(9, "快照用户9"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @DynamicPropertySource
+    static void snapshotFile(DynamicPropertyRegistry registry) throws IOException {
+        Path file = Files.createTempDirectory("user-snapshot").resolve("users.snapshot");
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(USERS);
+        UserSnapshotFile.write(userStore.snapshot(), file);
+        registry.add("farm.user.snapshot.enabled", () -> "true");
+        registry.add("farm.user.snapshot.file", file::toString);
+    }
+
+    /**
+     * 列表、按 id 查询与名称搜索读到的都是快照文件中的用户，指标接口返回恢复的用户数
+     */
+    @Test
+    public void restoreOnStartupTest() throws Exception {
+        Assertions.assertEquals(USERS, userService.getUserList());
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/user/0"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("快照用户7"));
+        Assertions.assertEquals(List.of(new User(8, "快照用户8")), userService.searchUsers("快照用户8", 10));
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/demo/metrics/snapshot"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.restoredUsers").value(3));
+    }
+}
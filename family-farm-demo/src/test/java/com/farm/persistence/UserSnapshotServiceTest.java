@@ -0,0 +1,90 @@
+package com.farm.persistence;
+
+
+import com.farm.entity.User;
+import com.farm.store.ColumnarUserStore;
+import com.farm.store.UserStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @ClassName UserSnapshotServiceTest
+ * @Author phx
+ * @Date 2025/6/20 15:00
+ * @Description 测试快照文件的写入与恢复：数据未变化时不写，写入后可恢复到新仓库，定期写入与关闭时写入
+ */
+
+public class UserSnapshotServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private UserSnapshotProperties properties(String file) {
+        UserSnapshotProperties properties = new UserSnapshotProperties();
+        properties.setFile(dir.resolve(file).toString());
+        properties.setInterval(Duration.ofMillis(20));
+        return properties;
+    }
+
+    /**
+     * 版本没有变化时不重复写入；文件不存在时不恢复；写出的文件恢复到新仓库后内容一致，且恢复的版本不再写入
+     */
+    @Test
+    public void writeAndRestoreTest() throws IOException {
+        UserSnapshotProperties properties = properties("users.snapshot");
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "张三"), new User(2, "李四")));
+        UserSnapshotService service = new UserSnapshotService(properties, userStore, null);
+        Assertions.assertFalse(service.restore());
+        Assertions.assertTrue(service.writeIfChanged());
+        Assertions.assertFalse(service.writeIfChanged());
+        userStore.create(new User(3, "王五"));
+        Assertions.assertTrue(service.writeIfChanged());
+        UserSnapshotStats stats = service.stats();
+        Assertions.assertEquals(2, stats.getWrites());
+        Assertions.assertEquals(userStore.snapshot().version(), stats.getWrittenVersion());
+        Assertions.assertEquals(Files.size(Path.of(properties.getFile())), stats.getLastWriteBytes());
+
+        ColumnarUserStore columnarStore = new ColumnarUserStore();
+        UserSnapshotService restorer = new UserSnapshotService(properties, new UserStore(), columnarStore);
+        Assertions.assertTrue(restorer.restore());
+        Assertions.assertEquals(userStore.snapshot().asList(), columnarStore.snapshot().asList());
+        Assertions.assertEquals(3, restorer.stats().getRestoredUsers());
+        Assertions.assertFalse(restorer.writeIfChanged());
+    }
+
+    /**
+     * 启动后定期写入变化，关闭时写入最后的变化
+     */
+    @Test
+    public void scheduleTest() throws Exception {
+        UserSnapshotProperties properties = properties("scheduled/users.snapshot");
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "张三")));
+        UserSnapshotService service = new UserSnapshotService(properties, userStore, null);
+        service.start();
+        try {
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (service.stats().getWrittenVersion() != userStore.snapshot().version()) {
+                Assertions.assertTrue(System.nanoTime() < deadline, "未在 10 秒内定期写入");
+                Thread.sleep(10);
+            }
+        } finally {
+            userStore.create(new User(2, "李四"));
+            service.close();
+        }
+        Assertions.assertEquals(userStore.snapshot().version(), service.stats().getWrittenVersion());
+        Assertions.assertEquals(0, service.stats().getFailures());
+
+        UserStore restored = new UserStore();
+        restored.restore(Path.of(properties.getFile()));
+        Assertions.assertEquals(List.of(new User(1, "张三"), new User(2, "李四")), restored.snapshot().asList());
+    }
+}
@@ -0,0 +1,53 @@
+package com.farm.service;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserPage;
+import com.farm.service.impl.ColumnarUserServiceImpl;
+import com.farm.service.impl.UserServiceImpl;
+import com.farm.store.ColumnarUserStore;
+import com.farm.store.UserStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.util.List;
+
+/**
+ * @ClassName ColumnarUserServiceTest
+ * @Author phx
+ * @Date 2025/6/9 16:10
+ * @Description 测试 farm.user.store.type=columnar 时 UserService 装饰链的最内层改为列式存储
+ */
+
+@SpringBootTest(properties = "farm.user.store.type=columnar")
+public class ColumnarUserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ColumnarUserStore columnarUserStore;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    public void columnarStoreTest() {
+        Assertions.assertNotNull(applicationContext.getBean(ColumnarUserServiceImpl.class));
+        Assertions.assertEquals(List.of(new User(1, "用户名1"), new User(2, "用户名2")), userService.getUserList());
+
+        columnarUserStore.replaceAll(List.of(new User(5, "用户名5"), new User(6, "用户名6"), new User(7, "用户名7")));
+        Assertions.assertEquals(columnarUserStore.snapshot().version(), userService.getVersion());
+        UserPage page = userService.getUserPage(5, 1);
+        Assertions.assertEquals(List.of(new User(6, "用户名6")), page.getUsers());
+        Assertions.assertEquals(6, page.getNextCursor());
+        Assertions.assertEquals(new User(7, "用户名7"), userService.getUserByIndex(2));
+        Assertions.assertArrayEquals(new int[]{8}, userService.getUsersByIds(new int[]{7, 8}).getMissingIds());
+        // 对象仓库不受影响
+        Assertions.assertEquals(2, applicationContext.getBean(UserStore.class).snapshot().size());
+        Assertions.assertEquals(UserServiceImpl.class, applicationContext.getBean("userServiceImpl").getClass());
+    }
+}
@@ -0,0 +1,127 @@
+package com.farm.service.cache;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserCacheStats;
+import com.farm.exception.UserNotFoundException;
+import com.farm.service.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @ClassName CachingUserServiceTest
+ * @Author phx
+ * @Date 2025/5/12 14:10
+ * @Description 测试UserService缓存装饰器
+ * <p>
+ * 被装饰的UserService使用Mock对象，通过Mockito.verify验证真实实现被调用的次数
+ */
+
+public class CachingUserServiceTest {
+
+    /**
+     * 同一个下标连续查询两次，只调用一次被装饰的实现，第二次命中缓存
+     */
+    @Test
+    public void hitTest() {
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getUserByIndex(0)).thenReturn(new User(1, "用户名1"));
+        CachingUserService cachingUserService = new CachingUserService(delegate, 100, Duration.ofMinutes(1));
+
+        Assertions.assertEquals("用户名1", cachingUserService.getUserByIndex(0).getName());
+        Assertions.assertEquals("用户名1", cachingUserService.getUserByIndex(0).getName());
+        Mockito.verify(delegate, Mockito.times(1)).getUserByIndex(0);
+
+        UserCacheStats stats = cachingUserService.stats();
+        Assertions.assertEquals(1, stats.getHitCount());
+        Assertions.assertEquals(1, stats.getMissCount());
+    }
+
+    /**
+     * 不同方法、不同参数使用不同的缓存键
+     */
+    @Test
+    public void keyTest() {
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getUser()).thenReturn(new User(1, "用户名"));
+        Mockito.when(delegate.getUserByIndex(0)).thenReturn(new User(1, "用户名1"));
+        Mockito.when(delegate.getUserByIndex(1)).thenReturn(new User(2, "用户名2"));
+        CachingUserService cachingUserService = new CachingUserService(delegate, 100, Duration.ofMinutes(1));
+
+        Assertions.assertEquals("用户名", cachingUserService.getUser().getName());
+        Assertions.assertEquals("用户名1", cachingUserService.getUserByIndex(0).getName());
+        Assertions.assertEquals("用户名2", cachingUserService.getUserByIndex(1).getName());
+        Assertions.assertEquals(3, cachingUserService.stats().getMissCount());
+    }
+
+    /**
+     * 清空缓存后重新调用被装饰的实现
+     */
+    @Test
+    public void invalidateTest() {
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getUser()).thenReturn(new User(1, "用户名"));
+        CachingUserService cachingUserService = new CachingUserService(delegate, 100, Duration.ofMinutes(1));
+
+        cachingUserService.getUser();
+        cachingUserService.invalidateAll();
+        cachingUserService.getUser();
+        Mockito.verify(delegate, Mockito.times(2)).getUser();
+    }
+
+    /**
+     * 数据版本变化后不再命中旧条目，重新调用被装饰的实现
+     */
+    @Test
+    public void versionTest() {
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getVersion()).thenReturn(1L);
+        Mockito.when(delegate.getUserByIndex(0)).thenReturn(new User(1, "用户名1"));
+        CachingUserService cachingUserService = new CachingUserService(delegate, 100, Duration.ofMinutes(1));
+
+        cachingUserService.getUserByIndex(0);
+        cachingUserService.getUserByIndex(0);
+        Mockito.when(delegate.getVersion()).thenReturn(2L);
+        Mockito.when(delegate.getUserByIndex(0)).thenReturn(new User(1, "新名称"));
+        Assertions.assertEquals("新名称", cachingUserService.getUserByIndex(0).getName());
+        Mockito.verify(delegate, Mockito.times(2)).getUserByIndex(0);
+    }
+
+    /**
+     * 指定版本号来源时，命中和未命中都不调用被装饰实现的 getVersion
+     */
+    @Test
+    public void versionSupplierTest() {
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getUserByIndex(0)).thenReturn(new User(1, "用户名1"));
+        AtomicLong version = new AtomicLong(1);
+        CachingUserService cachingUserService = new CachingUserService(delegate, version::get, 100, Duration.ofMinutes(1));
+
+        cachingUserService.getUserByIndex(0);
+        cachingUserService.getUserByIndex(0);
+        version.set(2);
+        cachingUserService.getUserByIndex(0);
+        Assertions.assertEquals(2, cachingUserService.getVersion());
+        Mockito.verify(delegate, Mockito.times(2)).getUserByIndex(0);
+        Mockito.verify(delegate, Mockito.never()).getVersion();
+    }
+
+    /**
+     * 用户不存在的异常不缓存，每次都调用被装饰的实现
+     */
+    @Test
+    public void exceptionNotCachedTest() {
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getUserByIndex(9)).thenThrow(UserNotFoundException.ofIndex(9));
+        CachingUserService cachingUserService = new CachingUserService(delegate, 100, Duration.ofMinutes(1));
+
+        Assertions.assertThrows(UserNotFoundException.class, () -> cachingUserService.getUserByIndex(9));
+        Assertions.assertThrows(UserNotFoundException.class, () -> cachingUserService.getUserByIndex(9));
+        Mockito.verify(delegate, Mockito.times(2)).getUserByIndex(9);
+        Assertions.assertEquals(0, cachingUserService.stats().getSize());
+    }
+}
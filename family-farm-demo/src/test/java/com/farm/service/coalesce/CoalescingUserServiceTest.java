@@ -0,0 +1,186 @@
+package com.farm.service.coalesce;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserCoalescingStats;
+import com.farm.exception.UserNotFoundException;
+import com.farm.service.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @ClassName CoalescingUserServiceTest
+ * @Author phx
+ * @Date 2025/6/18 14:00
+ * @Description 测试UserService请求合并装饰器
+ * <p>
+ * 被装饰的UserService使用Mock对象，查询阻塞在CountDownLatch上模拟较慢的存储，
+ * 所有调用都到达后再放行，通过Mockito.verify验证真实实现被调用的次数
+ */
+
+public class CoalescingUserServiceTest {
+
+    private static final int THREADS = 8;
+
+    private static final Set<String> ALL_METHODS = Set.of("getUser", "getUserByIndex", "getUserList",
+            "getUserPage", "getUsersByIds", "getUsersChangedSince", "searchUsers");
+
+    /**
+     * 并发查询同一个下标只调用一次被装饰的实现，所有调用拿到同一个用户
+     */
+    @Test
+    public void coalesceTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        User user = new User(1, "用户名1");
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getUserByIndex(0)).thenAnswer(invocation -> {
+            release.await();
+            return user;
+        });
+        CoalescingUserService service = new CoalescingUserService(delegate, ALL_METHODS, true);
+
+        List<Object> results = concurrently(service, release, () -> service.getUserByIndex(0));
+        for (Object result : results) {
+            Assertions.assertSame(user, result);
+        }
+        Mockito.verify(delegate, Mockito.times(1)).getUserByIndex(0);
+
+        UserCoalescingStats stats = service.stats();
+        Assertions.assertEquals(THREADS, stats.getCalls());
+        Assertions.assertEquals(1, stats.getExecutions());
+        Assertions.assertEquals(THREADS - 1, stats.getCoalesced());
+        Assertions.assertEquals(0, stats.getInFlight());
+    }
+
+    /**
+     * 用户不存在的异常抛给所有合并的调用，且不保留，之后的查询重新调用
+     */
+    @Test
+    public void exceptionTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getUserByIndex(100)).thenAnswer(invocation -> {
+            release.await();
+            throw new UserNotFoundException("用户不存在");
+        });
+        CoalescingUserService service = new CoalescingUserService(delegate, ALL_METHODS, true);
+
+        List<Object> results = concurrently(service, release, () -> {
+            try {
+                return service.getUserByIndex(100);
+            } catch (UserNotFoundException e) {
+                return e;
+            }
+        });
+        for (Object result : results) {
+            Assertions.assertInstanceOf(UserNotFoundException.class, result);
+        }
+        Mockito.verify(delegate, Mockito.times(1)).getUserByIndex(100);
+
+        Assertions.assertThrows(UserNotFoundException.class, () -> service.getUserByIndex(100));
+        Mockito.verify(delegate, Mockito.times(2)).getUserByIndex(100);
+    }
+
+    /**
+     * 批量查询按用户ID的内容合并；不在 methods 中的方法不合并
+     */
+    @Test
+    public void keyTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        UserBatchResult result = new UserBatchResult(List.of(new User(1, "用户名1")), new int[0]);
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getUsersByIds(Mockito.any())).thenAnswer(invocation -> {
+            release.await();
+            return result;
+        });
+        CoalescingUserService service = new CoalescingUserService(delegate, ALL_METHODS, true);
+        concurrently(service, release, () -> service.getUsersByIds(new int[]{1, 2}));
+        Mockito.verify(delegate, Mockito.times(1)).getUsersByIds(Mockito.any());
+
+        UserService uncoalesced = Mockito.mock(UserService.class);
+        Mockito.when(uncoalesced.getUser()).thenReturn(new User(1, "用户名"));
+        CoalescingUserService partial = new CoalescingUserService(uncoalesced, Set.of("getUserByIndex"), true);
+        partial.getUser();
+        partial.getUser();
+        Mockito.verify(uncoalesced, Mockito.times(2)).getUser();
+        Assertions.assertEquals(0, partial.stats().getCalls());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new CoalescingUserService(delegate, Set.of("getVersion"), true));
+    }
+
+    /**
+     * 按版本合并时，数据变化后到达的调用不共享变化前开始的查询
+     */
+    @Test
+    public void versionTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        UserService delegate = Mockito.mock(UserService.class);
+        Mockito.when(delegate.getVersion()).thenReturn(1L);
+        Mockito.when(delegate.getUser()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new User(1, "用户名");
+        }).thenReturn(new User(1, "新用户名"));
+        CoalescingUserService service = new CoalescingUserService(delegate, ALL_METHODS, true);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<User> before = executor.submit(service::getUser);
+            started.await(5, TimeUnit.SECONDS);
+            Mockito.when(delegate.getVersion()).thenReturn(2L);
+            Assertions.assertEquals("新用户名", service.getUser().getName());
+            release.countDown();
+            Assertions.assertEquals("用户名", before.get(5, TimeUnit.SECONDS).getName());
+            Mockito.verify(delegate, Mockito.times(2)).getUser();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * THREADS 个线程同时调用 call，等到除第一个之外的调用都在等待合并结果后放行 release
+     */
+    private static List<Object> concurrently(CoalescingUserService service, CountDownLatch release,
+                                             Callable<Object> call) throws Exception {
+        long coalescedBefore = service.stats().getCoalesced();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(call));
+            }
+            waitUntil(() -> service.stats().getCoalesced() - coalescedBefore == THREADS - 1);
+            release.countDown();
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(1);
+        }
+    }
+}
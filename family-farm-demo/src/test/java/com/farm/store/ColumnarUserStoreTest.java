@@ -0,0 +1,280 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @ClassName ColumnarUserStoreTest
+ * @Author phx
+ * @Date 2025/6/9 14:10
+ * @Description 测试列式用户仓库，查询结果与 {@link UserStore} 一致
+ */
+
+public class ColumnarUserStoreTest {
+
+    /**
+     * 按 id 升序存放，按下标、按 id 查询，越界和不存在的 id 返回 null；多字节字符、空名称、null 名称原样返回
+     */
+    @Test
+    public void snapshotLookupTest() {
+        ColumnarUserStore userStore = new ColumnarUserStore();
+        userStore.replaceAll(List.of(new User(30, "张三"), new User(10, ""), new User(20, null), new User(40, "Zoë 🌾")));
+
+        ColumnarUserSnapshot snapshot = userStore.snapshot();
+        Assertions.assertEquals(4, snapshot.size());
+        Assertions.assertEquals(new User(10, ""), snapshot.get(0));
+        Assertions.assertEquals(new User(20, null), snapshot.getById(20));
+        Assertions.assertEquals("张三", snapshot.getById(30).getName());
+        Assertions.assertEquals("Zoë 🌾", snapshot.get(3).getName());
+        Assertions.assertEquals(2, snapshot.indexOf(30));
+        Assertions.assertEquals(3, snapshot.indexAfter(30));
+        Assertions.assertEquals(40, snapshot.idAt(3));
+        Assertions.assertNull(snapshot.get(4));
+        Assertions.assertNull(snapshot.get(-1));
+        Assertions.assertNull(snapshot.getById(50));
+        Assertions.assertEquals(-1, snapshot.indexOf(50));
+        Assertions.assertEquals("张三".getBytes(StandardCharsets.UTF_8).length + "Zoë 🌾".getBytes(StandardCharsets.UTF_8).length,
+                snapshot.nameBytes());
+        Assertions.assertTrue(snapshot.offHeapBytes() >= snapshot.nameBytes());
+    }
+
+    /**
+     * id 重复时保留后出现的用户；列表视图只读，元素与逐个查询的结果相同
+     */
+    @Test
+    public void listViewTest() {
+        ColumnarUserStore userStore = new ColumnarUserStore();
+        userStore.replaceAll(List.of(new User(1, "旧名称"), new User(2, "用户名2"), new User(1, "新名称")));
+
+        List<User> view = userStore.snapshot().asList();
+        Assertions.assertEquals(List.of(new User(1, "新名称"), new User(2, "用户名2")), view);
+        Assertions.assertEquals(List.of(new User(2, "用户名2")), view.subList(1, 2));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> view.add(new User(3, "用户名3")));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> view.get(2));
+    }
+
+    /**
+     * 大量、不连续的 id 与对象仓库的查询结果一致
+     */
+    @Test
+    public void sameAsObjectStoreTest() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            users.add(new User(i * 7 - 5000, "用户" + i));
+        }
+        ColumnarUserStore columnarStore = new ColumnarUserStore();
+        columnarStore.replaceAll(users);
+        UserStore objectStore = new UserStore();
+        objectStore.replaceAll(users);
+
+        Assertions.assertEquals(objectStore.snapshot().asList(), columnarStore.snapshot().asList());
+        for (User user : users) {
+            Assertions.assertEquals(user, columnarStore.snapshot().getById(user.getId()));
+        }
+        Assertions.assertNull(columnarStore.snapshot().getById(1));
+    }
+
+    /**
+     * 增量同步：只包含新增和内容变化的用户，多次写入后未变化的用户保留原来的修改版本
+     */
+    @Test
+    public void changedSinceTest() {
+        ColumnarUserStore userStore = new ColumnarUserStore();
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(2, "用户名2"), new User(3, "用户名3")));
+        long v1 = userStore.snapshot().version();
+
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(2, "新名称"), new User(3, "用户名3"), new User(4, "用户名4")));
+        ColumnarUserSnapshot v2 = userStore.snapshot();
+        Assertions.assertEquals(v1 + 1, v2.version());
+        Assertions.assertEquals(List.of(new User(2, "新名称"), new User(4, "用户名4")), v2.changedSince(v1));
+        Assertions.assertTrue(v2.changedSince(v2.version()).isEmpty());
+        Assertions.assertEquals(4, v2.changedSince(v1 - 1).size());
+        Assertions.assertFalse(v2.removedSince(v1));
+
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(3, null), new User(4, "用户名4")));
+        ColumnarUserSnapshot v3 = userStore.snapshot();
+        Assertions.assertEquals(List.of(new User(3, null)), v3.changedSince(v2.version()));
+        Assertions.assertEquals(List.of(new User(3, null), new User(4, "用户名4")), v3.changedSince(v1));
+        Assertions.assertTrue(v3.removedSince(v2.version()));
+        Assertions.assertFalse(v3.removedSince(v3.version()));
+    }
+
+    /**
+     * 合并写入：按 id 新增或覆盖，其余用户不变；只有内容变化的用户计入增量，名称索引同步更新
+     */
+    @Test
+    public void putAllTest() {
+        ColumnarUserStore userStore = new ColumnarUserStore();
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(3, "用户名3"), new User(5, "用户名5")));
+        long v1 = userStore.snapshot().version();
+
+        userStore.putAll(List.of(new User(4, "张三"), new User(3, "用户名3"), new User(1, "李四"), new User(4, "王五")));
+        ColumnarUserSnapshot v2 = userStore.snapshot();
+        Assertions.assertEquals(v1 + 1, v2.version());
+        Assertions.assertEquals(List.of(new User(1, "李四"), new User(3, "用户名3"), new User(4, "王五"), new User(5, "用户名5")),
+                v2.asList());
+        Assertions.assertEquals(List.of(new User(1, "李四"), new User(4, "王五")), v2.changedSince(v1));
+        Assertions.assertFalse(v2.removedSince(v1));
+        Assertions.assertEquals(List.of(new User(1, "李四")), userStore.nameIndex().search("李", 10, v2::getById));
+        Assertions.assertTrue(userStore.nameIndex().search("张三", 10, v2::getById).isEmpty());
+        Assertions.assertTrue(userStore.nameIndex().search("用户名1", 10, v2::getById).isEmpty());
+
+        userStore.putAll(List.of());
+        Assertions.assertSame(v2, userStore.snapshot());
+        userStore.putAll(List.of(new User(6, "用户名6")));
+        Assertions.assertEquals(List.of(new User(6, "用户名6")), userStore.snapshot().changedSince(v2.version()));
+        Assertions.assertEquals(List.of(new User(1, "李四"), new User(4, "王五"), new User(6, "用户名6")),
+                userStore.snapshot().changedSince(v1));
+    }
+
+    /**
+     * 单个用户的新增、修改、删除：新增已存在、修改或删除不存在的用户返回 false 且不产生新版本；
+     * 删除计入 removedSince，名称索引同步更新
+     */
+    @Test
+    public void writeTest() {
+        ColumnarUserStore userStore = new ColumnarUserStore();
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(3, "用户名3")));
+        ColumnarUserSnapshot v1 = userStore.snapshot();
+
+        Assertions.assertTrue(userStore.create(new User(2, "张三")));
+        Assertions.assertFalse(userStore.create(new User(2, "李四")));
+        Assertions.assertFalse(userStore.update(new User(4, "王五")));
+        Assertions.assertFalse(userStore.delete(4));
+        ColumnarUserSnapshot v2 = userStore.snapshot();
+        Assertions.assertEquals(v1.version() + 1, v2.version());
+        Assertions.assertEquals(List.of(new User(1, "用户名1"), new User(2, "张三"), new User(3, "用户名3")), v2.asList());
+        Assertions.assertEquals(List.of(new User(2, "张三")), v2.changedSince(v1.version()));
+        Assertions.assertFalse(v2.removedSince(v1.version()));
+
+        Assertions.assertTrue(userStore.update(new User(2, "李四")));
+        Assertions.assertTrue(userStore.delete(1));
+        ColumnarUserSnapshot v4 = userStore.snapshot();
+        Assertions.assertEquals(v2.version() + 2, v4.version());
+        Assertions.assertEquals(List.of(new User(2, "李四"), new User(3, "用户名3")), v4.asList());
+        Assertions.assertTrue(v4.removedSince(v2.version()));
+        Assertions.assertEquals(List.of(new User(2, "李四")), userStore.nameIndex().search("李", 10, v4::getById));
+        Assertions.assertTrue(userStore.nameIndex().search("张三", 10, v4::getById).isEmpty());
+        Assertions.assertTrue(userStore.nameIndex().search("用户名1", 10, v4::getById).isEmpty());
+
+        // 旧快照不受后续写入影响
+        Assertions.assertEquals(List.of(new User(1, "用户名1"), new User(3, "用户名3")), v1.asList());
+        Assertions.assertTrue(userStore.create(new User(1, "用户名1")));
+        Assertions.assertEquals(new User(1, "用户名1"), userStore.snapshot().getById(1));
+    }
+
+    /**
+     * 多个线程并发新增、修改、删除各自的用户，读线程同时检查每个快照按 id 升序且前后一致；
+     * 所有写入完成后的数据与逐个执行的结果相同，合并提交使版本数不超过写入数
+     */
+    @Test
+    public void concurrentWriteTest() throws Exception {
+        ColumnarUserStore userStore = new ColumnarUserStore();
+        int writers = 4;
+        int perWriter = 500;
+        long v0 = userStore.snapshot().version();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        try {
+            Future<Integer> reader = executor.submit(() -> {
+                int reads = 0;
+                while (running.get()) {
+                    ColumnarUserSnapshot snapshot = userStore.snapshot();
+                    List<User> users = snapshot.asList();
+                    for (int i = 1; i < users.size(); i++) {
+                        Assertions.assertTrue(users.get(i - 1).getId() < users.get(i).getId());
+                    }
+                    for (User user : users) {
+                        Assertions.assertEquals(user, snapshot.getById(user.getId()));
+                    }
+                    reads++;
+                }
+                return reads;
+            });
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int base = w * perWriter;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= perWriter; i++) {
+                        Assertions.assertTrue(userStore.create(new User(base + i, "用户名" + (base + i))));
+                    }
+                    for (int i = 1; i <= perWriter; i += 2) {
+                        Assertions.assertTrue(userStore.update(new User(base + i, "修改" + (base + i))));
+                    }
+                    for (int i = 2; i <= perWriter; i += 2) {
+                        Assertions.assertTrue(userStore.delete(base + i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            running.set(false);
+            Assertions.assertTrue(reader.get() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ColumnarUserSnapshot snapshot = userStore.snapshot();
+        Assertions.assertEquals(writers * perWriter / 2, snapshot.size());
+        for (int id = 1; id <= writers * perWriter; id++) {
+            Assertions.assertEquals(id % 2 == 1 ? new User(id, "修改" + id) : null, snapshot.getById(id));
+        }
+        Assertions.assertTrue(snapshot.version() - v0 <= 2L * writers * perWriter);
+        Assertions.assertEquals(List.of(new User(1, "修改1")), userStore.nameIndex().search("修改1", 1, snapshot::getById));
+        Assertions.assertTrue(userStore.nameIndex().search("用户名", 10, snapshot::getById).isEmpty());
+    }
+
+    /**
+     * 写入只把新名称追加到共用的名称区，不复制整个名称区；旧快照、从旧快照构建的分支读到的名称都不受影响；
+     * 反复改名产生的废弃字节超过有效字节后紧凑复制，名称区不会无限增长
+     */
+    @Test
+    public void nameArenaTest() {
+        ColumnarUserStore userStore = new ColumnarUserStore(false);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            users.add(new User(i, "用户名" + i));
+        }
+        userStore.replaceAll(users);
+        ColumnarUserSnapshot v1 = userStore.snapshot();
+
+        Assertions.assertTrue(userStore.update(new User(500, "改名500")));
+        ColumnarUserSnapshot v2 = userStore.snapshot();
+        Assertions.assertEquals(v1.offHeapBytes(), v2.offHeapBytes());
+        Assertions.assertEquals("用户名500", v1.getById(500).getName());
+        Assertions.assertEquals("改名500", v2.getById(500).getName());
+
+        // 从已被替换的快照构建下一版时不能在共用名称区中追加，否则会覆盖 v2 的名称
+        ColumnarUserSnapshot branch = v1.merge(List.of(new User(500, "分支500"), new User(1000, "分支1000")));
+        Assertions.assertEquals("分支500", branch.getById(500).getName());
+        Assertions.assertEquals("分支1000", branch.getById(1000).getName());
+        Assertions.assertEquals("改名500", v2.getById(500).getName());
+        Assertions.assertEquals(users, v1.asList());
+
+        String suffix = "很长的名称".repeat(20);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 1000; i += 10) {
+                Assertions.assertTrue(userStore.update(new User(i, round + suffix + i)));
+            }
+        }
+        ColumnarUserSnapshot last = userStore.snapshot();
+        for (int i = 0; i < 1000; i++) {
+            String expected = i % 10 == 0 ? 19 + suffix + i : "用户名" + i;
+            Assertions.assertEquals(expected, last.getById(i).getName());
+        }
+        Assertions.assertTrue(last.offHeapBytes() <= 2 * last.nameBytes() + 64 * 1024,
+                last.offHeapBytes() + " / " + last.nameBytes());
+    }
+}
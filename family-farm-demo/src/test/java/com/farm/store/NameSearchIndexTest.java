@@ -0,0 +1,146 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * @ClassName NameSearchIndexTest
+ * @Author phx
+ * @Date 2025/6/11 14:20
+ * @Description 测试用户名称搜索索引：中文与大小写、全角处理，结果排序，随仓库写入增量更新
+ */
+
+public class NameSearchIndexTest {
+
+    /**
+     * 精确匹配在前，其次前缀匹配，最后子串匹配，同一类按 id 升序；双字都在但不相邻的不算匹配
+     */
+    @Test
+    public void rankingTest() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "张三丰"), new User(2, "李张三"), new User(3, "张三"),
+                new User(4, "三张"), new User(5, "张小三"), new User(6, "张三")));
+
+        Assertions.assertEquals(List.of(3, 6, 1, 2), ids(search(userStore, "张三", 10)));
+        Assertions.assertEquals(List.of(3, 6), ids(search(userStore, "张三", 2)));
+        // 单字查询：无精确匹配，前缀匹配 1、3、5、6，再是子串匹配 2、4
+        Assertions.assertEquals(List.of(1, 3, 5, 6, 2, 4), ids(search(userStore, "张", 10)));
+        Assertions.assertEquals(List.of(2), ids(search(userStore, "李张三", 10)));
+        Assertions.assertTrue(search(userStore, "三丰张", 10).isEmpty());
+        Assertions.assertTrue(search(userStore, "王", 10).isEmpty());
+    }
+
+    /**
+     * 不区分大小写，全角字母数字与半角等价，补充平面字符（emoji）按一个字处理
+     */
+    @Test
+    public void normalizeTest() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "Ｔｏｍ１２"), new User(2, "tommy"), new User(3, "农场🌾主"), new User(4, null)));
+
+        Assertions.assertEquals(List.of(1, 2), ids(search(userStore, "TOM", 10)));
+        Assertions.assertEquals(List.of(1), ids(search(userStore, "m12", 10)));
+        Assertions.assertEquals(List.of(1), ids(search(userStore, "ｍ１", 10)));
+        Assertions.assertEquals(List.of(3), ids(search(userStore, "🌾主", 10)));
+        Assertions.assertEquals(List.of(3), ids(search(userStore, "🌾", 10)));
+    }
+
+    /**
+     * 改名、删除、新增后索引随之更新，旧名称不再命中
+     */
+    @Test
+    public void incrementalUpdateTest() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "张三"), new User(2, "李四"), new User(3, "王五")));
+        int grams = userStore.nameIndex().gramCount();
+
+        userStore.replaceAll(List.of(new User(1, "张三"), new User(2, "李四四"), new User(4, "赵六")));
+        Assertions.assertEquals(List.of(2), ids(search(userStore, "四四", 10)));
+        Assertions.assertEquals(List.of(2), ids(search(userStore, "李四", 10)));
+        Assertions.assertTrue(search(userStore, "王五", 10).isEmpty());
+        Assertions.assertEquals(List.of(4), ids(search(userStore, "赵六", 10)));
+
+        userStore.replaceAll(List.of(new User(1, "张三"), new User(2, "李四"), new User(3, "王五")));
+        Assertions.assertEquals(grams, userStore.nameIndex().gramCount());
+        Assertions.assertTrue(search(userStore, "四四", 10).isEmpty());
+        Assertions.assertTrue(search(userStore, "赵", 10).isEmpty());
+    }
+
+    /**
+     * 随机的多次写入后，搜索结果与逐个比较名称的结果一致（覆盖倒排列表增量数组的合并）
+     */
+    @Test
+    public void randomUpdatesTest() {
+        String chars = "张王李赵刘陈三四五六";
+        SplittableRandom random = new SplittableRandom(7);
+        UserStore userStore = new UserStore();
+        ColumnarUserStore columnarStore = new ColumnarUserStore();
+        List<User> users = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            users.clear();
+            for (int id = 0; id < 500; id++) {
+                if (random.nextInt(10) == 0) {
+                    continue;
+                }
+                StringBuilder name = new StringBuilder();
+                for (int i = 1 + random.nextInt(3); i > 0; i--) {
+                    name.append(chars.charAt(random.nextInt(chars.length())));
+                }
+                users.add(new User(id, name.toString()));
+            }
+            userStore.replaceAll(users);
+            columnarStore.replaceAll(users);
+        }
+        for (String query : List.of("张", "三四", "王李赵", "六六")) {
+            TreeSet<Integer> expected = users.stream()
+                    .filter(user -> user.getName().contains(query))
+                    .map(User::getId)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            Assertions.assertEquals(expected, new TreeSet<>(ids(search(userStore, query, 1000))), query);
+            ColumnarUserSnapshot snapshot = columnarStore.snapshot();
+            Assertions.assertEquals(expected, new TreeSet<>(ids(columnarStore.nameIndex().search(query, 1000, snapshot::getById))), query);
+        }
+    }
+
+    /**
+     * 不用索引逐个扫描的结果与索引搜索完全相同，包括排序与 limit 截断
+     */
+    @Test
+    public void scanTest() {
+        String chars = "张王李赵三四Ａa";
+        SplittableRandom random = new SplittableRandom(11);
+        List<User> users = new ArrayList<>();
+        for (int id = 0; id < 2000; id++) {
+            StringBuilder name = new StringBuilder();
+            for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                name.append(chars.charAt(random.nextInt(chars.length())));
+            }
+            users.add(new User(id, random.nextInt(50) == 0 ? null : name.toString()));
+        }
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(users);
+        List<User> sorted = userStore.snapshot().asList();
+        for (String query : List.of("张", "张三", "a", "ＡＡ", "王李赵", "四四四四", "", "无")) {
+            for (int limit : new int[]{0, 1, 5, 50, 5000}) {
+                Assertions.assertEquals(search(userStore, query, limit), NameSearchIndex.scan(query, limit, sorted), query + " " + limit);
+            }
+        }
+    }
+
+    private static List<User> search(UserStore userStore, String query, int limit) {
+        UserSnapshot snapshot = userStore.snapshot();
+        return userStore.nameIndex().search(query, limit, snapshot::getById);
+    }
+
+    private static List<Integer> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,204 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @ClassName UserSnapshotFileTest
+ * @Author phx
+ * @Date 2025/6/20 14:00
+ * @Description 测试用户快照文件：两种仓库互相写入、恢复结果一致，版本号不回退，损坏的文件被拒绝，恢复后名称索引在后台构建
+ */
+
+public class UserSnapshotFileTest {
+
+    private static final List<User> USERS = List.of(new User(3, "张三"), new User(1, "李四"), new User(7, ""),
+            new User(5, null), new User(9, "𠀀Ａa😀"), new User(100, "王五".repeat(32)));
+
+    @TempDir
+    Path dir;
+
+    /**
+     * 对象仓库与列式仓库写出的文件相同，任一种文件都能恢复到任一种仓库，内容与原仓库一致
+     */
+    @Test
+    public void roundTripTest() throws IOException {
+        UserStore objectStore = new UserStore();
+        objectStore.replaceAll(USERS);
+        ColumnarUserStore columnarStore = new ColumnarUserStore();
+        columnarStore.replaceAll(USERS);
+        Path objectFile = dir.resolve("object.snapshot");
+        Path columnarFile = dir.resolve("columnar.snapshot");
+        long bytes = UserSnapshotFile.write(objectStore.snapshot(), objectFile);
+        Assertions.assertEquals(Files.size(objectFile), bytes);
+        UserSnapshotFile.write(columnarStore.snapshot(), columnarFile);
+        // 两个仓库的版本号（头部第 8~15 字节）可能不同，其余字节相同
+        byte[] objectBytes = Files.readAllBytes(objectFile);
+        byte[] columnarBytes = Files.readAllBytes(columnarFile);
+        Assertions.assertArrayEquals(Arrays.copyOfRange(objectBytes, 16, objectBytes.length),
+                Arrays.copyOfRange(columnarBytes, 16, columnarBytes.length));
+
+        List<User> expected = objectStore.snapshot().asList();
+        for (Path file : new Path[]{objectFile, columnarFile}) {
+            UserStore restoredObjects = new UserStore();
+            restoredObjects.restore(file);
+            Assertions.assertEquals(expected, restoredObjects.snapshot().asList());
+            Assertions.assertEquals(new User(5, null), restoredObjects.snapshot().getById(5));
+
+            ColumnarUserStore restoredColumns = new ColumnarUserStore();
+            restoredColumns.restore(file);
+            Assertions.assertEquals(expected, restoredColumns.snapshot().asList());
+            Assertions.assertEquals(2, restoredColumns.snapshot().indexOf(5));
+        }
+        Assertions.assertFalse(Files.exists(dir.resolve("object.snapshot.tmp")));
+    }
+
+    /**
+     * 列式仓库写入后名称不再按用户顺序连续存放（追加在名称区末尾），写出的文件与对象仓库相同；
+     * 恢复后名称区是只读的文件映射，之后的写入复制到新的名称区
+     */
+    @Test
+    public void appendedNamesTest() throws IOException {
+        UserStore objectStore = new UserStore();
+        objectStore.replaceAll(USERS);
+        ColumnarUserStore columnarStore = new ColumnarUserStore();
+        columnarStore.replaceAll(USERS);
+        for (AbstractUserStore<?> store : List.<AbstractUserStore<?>>of(objectStore, columnarStore)) {
+            Assertions.assertTrue(store.update(new User(1, "改名")));
+            Assertions.assertTrue(store.create(new User(0, "新增")));
+        }
+        Path objectFile = dir.resolve("object.snapshot");
+        Path columnarFile = dir.resolve("columnar.snapshot");
+        UserSnapshotFile.write(objectStore.snapshot(), objectFile);
+        UserSnapshotFile.write(columnarStore.snapshot(), columnarFile);
+        byte[] objectBytes = Files.readAllBytes(objectFile);
+        byte[] columnarBytes = Files.readAllBytes(columnarFile);
+        Assertions.assertArrayEquals(Arrays.copyOfRange(objectBytes, 16, objectBytes.length),
+                Arrays.copyOfRange(columnarBytes, 16, columnarBytes.length));
+
+        ColumnarUserStore restored = new ColumnarUserStore();
+        restored.restore(columnarFile);
+        Assertions.assertEquals(objectStore.snapshot().asList(), restored.snapshot().asList());
+        Assertions.assertTrue(restored.delete(0));
+        Assertions.assertTrue(restored.update(new User(1, "再改名")));
+        Assertions.assertEquals(new User(1, "再改名"), restored.snapshot().getById(1));
+        Assertions.assertEquals(objectStore.snapshot().asList().subList(2, USERS.size() + 1),
+                restored.snapshot().asList().subList(1, USERS.size()));
+    }
+
+    /**
+     * 空仓库也能写出和恢复
+     */
+    @Test
+    public void emptyTest() throws IOException {
+        Path file = dir.resolve("empty.snapshot");
+        UserSnapshotFile.write(new ColumnarUserStore().snapshot(), file);
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(USERS);
+        userStore.restore(file);
+        Assertions.assertEquals(0, userStore.snapshot().size());
+    }
+
+    /**
+     * 恢复后的版本号不小于文件中的版本号和恢复前的版本号；恢复前的版本都视为有用户被删除，恢复之后的写入正常计入增量
+     */
+    @Test
+    public void versionTest() throws IOException {
+        UserStore source = new UserStore();
+        source.replaceAll(USERS);
+        Path file = dir.resolve("users.snapshot");
+        UserSnapshotFile.write(source.snapshot(), file);
+
+        UserStore userStore = new UserStore();
+        long before = userStore.snapshot().version();
+        userStore.restore(file);
+        UserSnapshot restored = userStore.snapshot();
+        Assertions.assertTrue(restored.version() > before);
+        Assertions.assertTrue(restored.version() >= source.snapshot().version());
+        Assertions.assertTrue(restored.removedSince(restored.version() - 1));
+        Assertions.assertFalse(restored.removedSince(restored.version()));
+        Assertions.assertTrue(restored.changedSince(restored.version()).isEmpty());
+
+        Assertions.assertTrue(userStore.update(new User(1, "赵六")));
+        Assertions.assertEquals(List.of(new User(1, "赵六")), userStore.snapshot().changedSince(restored.version()));
+        Assertions.assertEquals(restored.version() + 1, userStore.snapshot().version());
+    }
+
+    /**
+     * 文件被截断、正文被修改、不是快照文件时抛出 IOException，仓库保持原样
+     */
+    @Test
+    public void corruptedTest() throws IOException {
+        UserStore source = new UserStore();
+        source.replaceAll(USERS);
+        Path file = dir.resolve("users.snapshot");
+        UserSnapshotFile.write(source.snapshot(), file);
+        byte[] original = Files.readAllBytes(file);
+
+        Path truncated = dir.resolve("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(original, original.length - 4));
+        Path flipped = dir.resolve("flipped.snapshot");
+        Files.write(flipped, original);
+        try (FileChannel channel = FileChannel.open(flipped, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) (original[original.length - 10] ^ 1)}), original.length - 10);
+        }
+        Path other = dir.resolve("other.snapshot");
+        Files.writeString(other, "id,name\n1,张三\n".repeat(10));
+
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "用户名1")));
+        UserSnapshot before = userStore.snapshot();
+        for (Path bad : new Path[]{truncated, flipped, other}) {
+            Assertions.assertThrows(IOException.class, () -> userStore.restore(bad), bad.toString());
+            Assertions.assertThrows(IOException.class, () -> new ColumnarUserStore().restore(bad), bad.toString());
+            Assertions.assertSame(before, userStore.snapshot());
+        }
+    }
+
+    /**
+     * 恢复后名称搜索立即可用（索引构建完成前逐个扫描）；构建期间的写入在索引启用时补上
+     */
+    @Test
+    public void nameIndexTest() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 20_000; i++) {
+            users.add(new User(i, "用户" + i));
+        }
+        UserStore source = new UserStore();
+        source.replaceAll(users);
+        Path file = dir.resolve("users.snapshot");
+        UserSnapshotFile.write(source.snapshot(), file);
+
+        ColumnarUserStore userStore = new ColumnarUserStore();
+        userStore.restore(file);
+        Assertions.assertEquals(List.of(new User(12345, "用户12345")), userStore.search(userStore.snapshot(), "用户12345", 1));
+        Assertions.assertTrue(userStore.update(new User(1, "改名1")));
+        Assertions.assertTrue(userStore.delete(2));
+        Assertions.assertTrue(userStore.create(new User(20_001, "新用户")));
+
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!userStore.isNameIndexReady()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "名称索引未在 30 秒内构建完成");
+            Thread.sleep(10);
+        }
+        ColumnarUserSnapshot snapshot = userStore.snapshot();
+        NameSearchIndex index = userStore.nameIndex();
+        Assertions.assertEquals(List.of(new User(1, "改名1")), index.search("改名", 10, snapshot::getById));
+        Assertions.assertEquals(List.of(new User(20_001, "新用户")), index.search("新用户", 10, snapshot::getById));
+        Assertions.assertTrue(index.search("用户2", 100, snapshot::getById).stream().noneMatch(user -> user.getId() == 2));
+        Assertions.assertTrue(index.search("用户1", 100, snapshot::getById).stream().noneMatch(user -> user.getId() == 1));
+    }
+}
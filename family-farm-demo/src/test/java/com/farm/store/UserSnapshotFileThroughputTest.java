@@ -0,0 +1,87 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @ClassName UserSnapshotFileThroughputTest
+ * @Author phx
+ * @Date 2025/6/20 16:00
+ * @Description 快照文件的写入耗时，以及从文件恢复到对象仓库、列式仓库的耗时（即重启后可以提供查询的时间）
+ * <p>
+ * 恢复耗时包括校验和、复制 id 与偏移量数组；列式仓库的名称区直接使用内存映射，对象仓库要为每个用户创建 User。
+ * 同时记录恢复后名称索引在后台构建完成的耗时，期间名称搜索逐个扫描。
+ * <p>
+ * 默认不执行，运行方式：
+ * mvn test -pl family-farm-demo -am -Dtest=UserSnapshotFileThroughputTest -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ * 可选参数：-Dbenchmark.users=5000000（用户数较多时需调大 surefire 的 -Xmx，如 -DargLine=-Xmx4g）
+ */
+
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class UserSnapshotFileThroughputTest {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 5_000_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void throughputTest() throws Exception {
+        Path file = dir.resolve("users.snapshot");
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(i, "用户" + Integer.toString(i, 36) + "号"));
+        }
+        ColumnarUserStore source = new ColumnarUserStore();
+        source.putAll(users);
+        users = null;
+        long start = System.nanoTime();
+        long bytes = UserSnapshotFile.write(source.snapshot(), file);
+        log.info("========写入 用户数={} 文件={}MB 耗时={}ms========", USERS, bytes >> 20, millis(start));
+        source = null;
+
+        for (int round = 0; round < 2; round++) {
+            // 第一轮包含类加载与 JIT 预热
+            ColumnarUserStore columnarStore = new ColumnarUserStore();
+            start = System.nanoTime();
+            columnarStore.restore(file);
+            long restore = millis(start);
+            Assertions.assertEquals(USERS, columnarStore.snapshot().size());
+            Assertions.assertEquals(new User(USERS - 1, "用户" + Integer.toString(USERS - 1, 36) + "号"),
+                    columnarStore.snapshot().get(USERS - 1));
+            awaitIndex(columnarStore::isNameIndexReady);
+            log.info("========第{}轮 列式仓库 恢复={}ms 名称索引就绪={}ms========", round + 1, restore, millis(start));
+            columnarStore = null;
+
+            UserStore objectStore = new UserStore();
+            start = System.nanoTime();
+            objectStore.restore(file);
+            restore = millis(start);
+            Assertions.assertEquals(USERS, objectStore.snapshot().size());
+            awaitIndex(objectStore::isNameIndexReady);
+            log.info("========第{}轮 对象仓库 恢复={}ms 名称索引就绪={}ms========", round + 1, restore, millis(start));
+        }
+    }
+
+    private static void awaitIndex(BooleanSupplier ready) throws InterruptedException {
+        while (!ready.getAsBoolean()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static long millis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,104 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ClassName UserStoreFootprintTest
+ * @Author phx
+ * @Date 2025/6/9 15:30
+ * @Description 对象仓库 {@link UserStore} 与列式仓库 {@link ColumnarUserStore} 的内存占用对比，各自分别测量启用与关闭名称索引时的占用
+ * <p>
+ * 分别装入同样的用户，只保留仓库的引用，Full GC 后读取堆占用与 direct 内存占用（含名称索引），并记录这次 Full GC 的耗时
+ * （存活对象越多，标记越慢）。
+ * <p>
+ * 默认不执行，运行方式：
+ * mvn test -pl family-farm-demo -am -Dtest=UserStoreFootprintTest -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ * 可选参数：-Dbenchmark.users=5000000（用户数较多时需调大 surefire 的 -Xmx，如 -DargLine=-Xmx4g）
+ */
+
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class UserStoreFootprintTest {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 5_000_000);
+
+    @Test
+    public void footprintTest() {
+        measure("对象仓库（含名称索引）", new UserStore(true));
+        measure("对象仓库（无名称索引）", new UserStore(false));
+        measure("列式仓库（含名称索引）", new ColumnarUserStore(true));
+        measure("列式仓库（无名称索引）", new ColumnarUserStore(false));
+    }
+
+    /**
+     * 装入用户后只保留 store 的引用，方法返回后 store 即可回收，不影响下一次测量
+     */
+    private static void measure(String name, AbstractUserStore<?> store) {
+        long baseline = usedHeap();
+        long directBaseline = usedDirect();
+        store.replaceAll(users());
+        long gcStart = System.nanoTime();
+        long heap = usedHeap() - baseline;
+        long gcMillis = (System.nanoTime() - gcStart) / 1_000_000;
+        long direct = usedDirect() - directBaseline;
+        String estimate = store.snapshot() instanceof ColumnarUserSnapshot snapshot
+                ? "（快照估算" + (snapshot.heapBytes() >> 20) + "MB）" : "";
+        log.info("========{} 用户数={} 堆={}MB{} 堆外={}MB 每用户堆={}B 堆外={}B Full GC={}ms========",
+                name, store.snapshot().size(), heap >> 20, estimate, direct >> 20,
+                heap / USERS, direct / USERS, gcMillis);
+    }
+
+    private static List<User> users() {
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(i, "用户名" + i));
+        }
+        return users;
+    }
+
+    /**
+     * 多次 Full GC 后的堆占用
+     */
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * direct 内存占用：回收的 direct buffer 由 Cleaner 线程异步释放，Full GC 后等到读数不再变化
+     */
+    private static long usedDirect() {
+        long previous = -1;
+        long used = directPoolUsed();
+        while (used != previous) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            previous = used;
+            used = directPoolUsed();
+        }
+        return used;
+    }
+
+    private static long directPoolUsed() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
@@ -0,0 +1,189 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * @ClassName UserStoreStressTest
+ * @Author phx
+ * @Date 2025/6/19 15:00
+ * @Description 写入期间的读吞吐：对象仓库 {@link UserStore} 与列式仓库 {@link ColumnarUserStore} 分别在没有写入、
+ * 有多个写线程持续新增、修改、删除单个用户时，统计读线程每秒完成的查询数
+ * <p>
+ * 读线程每次查询都取当前快照，按随机下标查询后再按 id 查回同一个用户，检查快照前后一致；
+ * 写线程随机选取 id，按 2:1:1 的比例修改、新增、删除。同时记录写入吞吐与发布的版本数，
+ * 版本数小于成功写入数说明并发写入被合并发布。
+ * <p>
+ * 默认不执行，运行方式：
+ * mvn test -pl family-farm-demo -am -Dtest=UserStoreStressTest -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ * 可选参数：-Dbenchmark.users=100000 -Dbenchmark.readers=4 -Dbenchmark.writers=2 -Dbenchmark.seconds=3
+ * <p>
+ * {@link #columnarArenaTest} 在接近实际规模的名称区上（默认 500 万用户、约 75MB，-Dbenchmark.arena.users 调整）做同样的写入，
+ * 检查每次写入只追加名称、不复制整个名称区：记录名称区容量、有效名称字节与 direct 内存占用。
+ * 加 -DargLine="-Xmx4g -XX:+DisableExplicitGC -XX:MaxDirectMemorySize=256m" 可验证旧名称区不依赖 System.gc() 回收
+ */
+
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class UserStoreStressTest {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 100_000);
+    private static final int READERS = Integer.getInteger("benchmark.readers", 4);
+    private static final int WRITERS = Integer.getInteger("benchmark.writers", 2);
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 3);
+    private static final int ARENA_USERS = Integer.getInteger("benchmark.arena.users", 5_000_000);
+
+    @Test
+    public void objectStoreTest() throws Exception {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(users(USERS));
+        Target target = new Target("对象仓库", USERS, random -> {
+            UserSnapshot snapshot = userStore.snapshot();
+            User user = snapshot.get(random.nextInt(snapshot.size()));
+            return user.equals(snapshot.getById(user.getId()));
+        }, userStore::create, userStore::update, userStore::delete, () -> userStore.snapshot().version());
+        stress(target);
+    }
+
+    @Test
+    public void columnarStoreTest() throws Exception {
+        ColumnarUserStore userStore = new ColumnarUserStore();
+        userStore.replaceAll(users(USERS));
+        Target target = new Target("列式仓库", USERS, random -> {
+            ColumnarUserSnapshot snapshot = userStore.snapshot();
+            User user = snapshot.get(random.nextInt(snapshot.size()));
+            return user.equals(snapshot.getById(user.getId()));
+        }, userStore::create, userStore::update, userStore::delete, () -> userStore.snapshot().version());
+        stress(target);
+    }
+
+    /**
+     * 关闭名称索引，只看快照本身；名称区在写入期间不应整体复制，用户数大致不变时名称区保持在有效名称字节的 2 倍以内
+     */
+    @Test
+    public void columnarArenaTest() throws Exception {
+        ColumnarUserStore userStore = new ColumnarUserStore(false);
+        userStore.replaceAll(users(ARENA_USERS));
+        long capacity = userStore.snapshot().offHeapBytes();
+        Target target = new Target("列式仓库（名称区）", ARENA_USERS, random -> {
+            ColumnarUserSnapshot snapshot = userStore.snapshot();
+            User user = snapshot.get(random.nextInt(snapshot.size()));
+            return user.equals(snapshot.getById(user.getId()));
+        }, userStore::create, userStore::update, userStore::delete, () -> userStore.snapshot().version());
+        Result busy = run(target, WRITERS);
+
+        ColumnarUserSnapshot snapshot = userStore.snapshot();
+        log.info("========{} 用户数={} 写线程={}: 读={}/s 成功写入={}/s 版本={}/s 名称区={}MB（写入前{}MB） 有效名称={}MB direct={}MB========",
+                target.name, ARENA_USERS, WRITERS, busy.readsPerSecond, busy.writesPerSecond, busy.versionsPerSecond,
+                snapshot.offHeapBytes() >> 20, capacity >> 20, snapshot.nameBytes() >> 20, usedDirect() >> 20);
+        Assertions.assertTrue(snapshot.offHeapBytes() <= 2 * snapshot.nameBytes(),
+                "名称区 " + snapshot.offHeapBytes() + " 有效名称 " + snapshot.nameBytes());
+    }
+
+    private static void stress(Target target) throws Exception {
+        Result idle = run(target, 0);
+        Result busy = run(target, WRITERS);
+        log.info("========{} 用户数={} 读线程={} 无写入: 读={}/s========", target.name, target.users, READERS, idle.readsPerSecond);
+        log.info("========{} 写线程={}: 读={}/s（{}%） 成功写入={}/s 版本={}/s========", target.name, WRITERS,
+                busy.readsPerSecond, busy.readsPerSecond * 100 / Math.max(1, idle.readsPerSecond),
+                busy.writesPerSecond, busy.versionsPerSecond);
+    }
+
+    private static Result run(Target target, int writers) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + writers);
+        try {
+            List<Future<Long>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    start.await();
+                    long reads = 0;
+                    while (running.get()) {
+                        Assertions.assertTrue(target.read.test(random), "快照前后不一致");
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+            List<Future<Long>> writes = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                writes.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    start.await();
+                    long succeeded = 0;
+                    while (running.get()) {
+                        // 新增与删除的比例相同，用户数大致不变
+                        int id = random.nextInt(target.users + target.users / 10);
+                        int op = random.nextInt(4);
+                        boolean ok = op < 2 ? target.update.test(new User(id, "修改" + random.nextInt()))
+                                : op == 2 ? target.create.test(new User(id, "新增" + id))
+                                : target.delete.test(id);
+                        succeeded += ok ? 1 : 0;
+                    }
+                    return succeeded;
+                }));
+            }
+            long version = target.version.getAsLong();
+            long begin = System.nanoTime();
+            start.countDown();
+            TimeUnit.SECONDS.sleep(SECONDS);
+            running.set(false);
+            long reads = 0;
+            for (Future<Long> reader : readers) {
+                reads += reader.get();
+            }
+            long succeeded = 0;
+            for (Future<Long> write : writes) {
+                succeeded += write.get();
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            return new Result((long) (reads / seconds), (long) (succeeded / seconds),
+                    (long) ((target.version.getAsLong() - version) / seconds));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User(i, "用户名" + i));
+        }
+        return users;
+    }
+
+    private static long usedDirect() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private record Target(String name, int users, Predicate<ThreadLocalRandom> read, Predicate<User> create,
+                          Predicate<User> update, IntPredicate delete, LongSupplier version) {
+    }
+
+    private record Result(long readsPerSecond, long writesPerSecond, long versionsPerSecond) {
+    }
+}
@@ -0,0 +1,258 @@
+package com.farm.store;
+
+
+import com.farm.entity.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @ClassName UserStoreTest
+ * @Author phx
+ * @Date 2025/5/6 14:20
+ * @Description 测试内存用户仓库的快照、索引与版本
+ */
+
+public class UserStoreTest {
+
+    /**
+     * 快照按 id 升序排列，按下标、按 id 查询结果一致，越界和不存在的 id 返回 null
+     */
+    @Test
+    public void snapshotLookupTest() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(30, "张三"), new User(10, "李四"), new User(20, "王五")));
+
+        UserSnapshot snapshot = userStore.snapshot();
+        Assertions.assertEquals(3, snapshot.size());
+        Assertions.assertEquals(10, snapshot.get(0).getId());
+        Assertions.assertEquals("王五", snapshot.getById(20).getName());
+        Assertions.assertEquals(2, snapshot.indexOf(30));
+        Assertions.assertNull(snapshot.get(3));
+        Assertions.assertNull(snapshot.get(-1));
+        Assertions.assertNull(snapshot.getById(40));
+        Assertions.assertEquals(-1, snapshot.indexOf(40));
+    }
+
+    /**
+     * id 重复时保留后出现的用户
+     */
+    @Test
+    public void duplicateIdTest() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "旧名称"), new User(2, "用户名2"), new User(1, "新名称")));
+
+        Assertions.assertEquals(2, userStore.snapshot().size());
+        Assertions.assertEquals("新名称", userStore.snapshot().getById(1).getName());
+    }
+
+    /**
+     * 列表视图只读，并且同一个快照多次读取返回同一个实例
+     */
+    @Test
+    public void readOnlyViewTest() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "用户名1")));
+
+        List<User> view = userStore.snapshot().asList();
+        Assertions.assertSame(view, userStore.snapshot().asList());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> view.add(new User(2, "用户名2")));
+    }
+
+    /**
+     * 大量、不连续的 id 都能通过索引命中
+     */
+    @Test
+    public void largeIndexTest() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            users.add(new User(i * 7 - 5000, "用户" + i));
+        }
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(users);
+
+        UserSnapshot snapshot = userStore.snapshot();
+        for (User user : users) {
+            Assertions.assertSame(user, snapshot.getById(user.getId()));
+        }
+        Assertions.assertNull(snapshot.getById(1));
+    }
+
+    /**
+     * 每次写入版本号加 1；增量只包含新增和内容变化的用户，未变化的用户保留原来的修改版本
+     */
+    @Test
+    public void changedSinceTest() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(2, "用户名2"), new User(3, "用户名3")));
+        long v1 = userStore.snapshot().version();
+
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(2, "新名称"), new User(3, "用户名3"), new User(4, "用户名4")));
+        UserSnapshot v2 = userStore.snapshot();
+        Assertions.assertEquals(v1 + 1, v2.version());
+        Assertions.assertEquals(List.of(new User(2, "新名称"), new User(4, "用户名4")), v2.changedSince(v1));
+        Assertions.assertTrue(v2.changedSince(v2.version()).isEmpty());
+        Assertions.assertEquals(4, v2.changedSince(v1 - 1).size());
+        Assertions.assertFalse(v2.removedSince(v1));
+
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(3, "用户名3")));
+        UserSnapshot v3 = userStore.snapshot();
+        Assertions.assertTrue(v3.changedSince(v2.version()).isEmpty());
+        Assertions.assertTrue(v3.removedSince(v2.version()));
+        Assertions.assertFalse(v3.removedSince(v3.version()));
+    }
+
+    /**
+     * 合并写入：按 id 新增或覆盖，其余用户不变；只有内容变化的用户计入增量，名称索引同步更新
+     */
+    @Test
+    public void putAllTest() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(3, "用户名3"), new User(5, "用户名5")));
+        long v1 = userStore.snapshot().version();
+
+        userStore.putAll(List.of(new User(4, "张三"), new User(3, "用户名3"), new User(1, "李四"), new User(4, "王五")));
+        UserSnapshot v2 = userStore.snapshot();
+        Assertions.assertEquals(v1 + 1, v2.version());
+        Assertions.assertEquals(List.of(new User(1, "李四"), new User(3, "用户名3"), new User(4, "王五"), new User(5, "用户名5")),
+                v2.asList());
+        Assertions.assertEquals(List.of(new User(1, "李四"), new User(4, "王五")), v2.changedSince(v1));
+        Assertions.assertFalse(v2.removedSince(v1));
+        Assertions.assertEquals(List.of(new User(1, "李四")), userStore.nameIndex().search("李", 10, v2::getById));
+        Assertions.assertTrue(userStore.nameIndex().search("张三", 10, v2::getById).isEmpty());
+        Assertions.assertTrue(userStore.nameIndex().search("用户名1", 10, v2::getById).isEmpty());
+
+        userStore.putAll(List.of());
+        Assertions.assertSame(v2, userStore.snapshot());
+        userStore.putAll(List.of(new User(6, "用户名6")));
+        Assertions.assertEquals(List.of(new User(6, "用户名6")), userStore.snapshot().changedSince(v2.version()));
+        Assertions.assertEquals(List.of(new User(1, "李四"), new User(4, "王五"), new User(6, "用户名6")),
+                userStore.snapshot().changedSince(v1));
+    }
+
+    /**
+     * 单个用户的新增、修改、删除：新增已存在、修改或删除不存在的用户返回 false 且不产生新版本；
+     * 删除计入 removedSince，名称索引同步更新
+     */
+    @Test
+    public void writeTest() {
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(1, "用户名1"), new User(3, "用户名3")));
+        UserSnapshot v1 = userStore.snapshot();
+
+        Assertions.assertTrue(userStore.create(new User(2, "张三")));
+        Assertions.assertFalse(userStore.create(new User(2, "李四")));
+        Assertions.assertFalse(userStore.update(new User(4, "王五")));
+        Assertions.assertFalse(userStore.delete(4));
+        UserSnapshot v2 = userStore.snapshot();
+        Assertions.assertEquals(v1.version() + 1, v2.version());
+        Assertions.assertEquals(List.of(new User(1, "用户名1"), new User(2, "张三"), new User(3, "用户名3")), v2.asList());
+        Assertions.assertEquals(List.of(new User(2, "张三")), v2.changedSince(v1.version()));
+        Assertions.assertFalse(v2.removedSince(v1.version()));
+
+        Assertions.assertTrue(userStore.update(new User(2, "李四")));
+        Assertions.assertTrue(userStore.delete(1));
+        UserSnapshot v4 = userStore.snapshot();
+        Assertions.assertEquals(v2.version() + 2, v4.version());
+        Assertions.assertEquals(List.of(new User(2, "李四"), new User(3, "用户名3")), v4.asList());
+        Assertions.assertTrue(v4.removedSince(v2.version()));
+        Assertions.assertEquals(List.of(new User(2, "李四")), userStore.nameIndex().search("李", 10, v4::getById));
+        Assertions.assertTrue(userStore.nameIndex().search("张三", 10, v4::getById).isEmpty());
+        Assertions.assertTrue(userStore.nameIndex().search("用户名1", 10, v4::getById).isEmpty());
+
+        // 旧快照不受后续写入影响
+        Assertions.assertEquals(List.of(new User(1, "用户名1"), new User(3, "用户名3")), v1.asList());
+        Assertions.assertTrue(userStore.create(new User(1, "用户名1")));
+        Assertions.assertEquals(new User(1, "用户名1"), userStore.snapshot().getById(1));
+    }
+
+    /**
+     * 多个线程并发新增、修改、删除各自的用户，读线程同时检查每个快照按 id 升序且前后一致；
+     * 所有写入完成后的数据与逐个执行的结果相同，合并提交使版本数不超过写入数
+     */
+    @Test
+    public void concurrentWriteTest() throws Exception {
+        UserStore userStore = new UserStore();
+        int writers = 4;
+        int perWriter = 500;
+        long v0 = userStore.snapshot().version();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        try {
+            Future<Integer> reader = executor.submit(() -> {
+                int reads = 0;
+                while (running.get()) {
+                    UserSnapshot snapshot = userStore.snapshot();
+                    List<User> users = snapshot.asList();
+                    for (int i = 1; i < users.size(); i++) {
+                        Assertions.assertTrue(users.get(i - 1).getId() < users.get(i).getId());
+                    }
+                    for (User user : users) {
+                        Assertions.assertEquals(user, snapshot.getById(user.getId()));
+                    }
+                    reads++;
+                }
+                return reads;
+            });
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int base = w * perWriter;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= perWriter; i++) {
+                        Assertions.assertTrue(userStore.create(new User(base + i, "用户名" + (base + i))));
+                    }
+                    for (int i = 1; i <= perWriter; i += 2) {
+                        Assertions.assertTrue(userStore.update(new User(base + i, "修改" + (base + i))));
+                    }
+                    for (int i = 2; i <= perWriter; i += 2) {
+                        Assertions.assertTrue(userStore.delete(base + i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            running.set(false);
+            Assertions.assertTrue(reader.get() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        UserSnapshot snapshot = userStore.snapshot();
+        Assertions.assertEquals(writers * perWriter / 2, snapshot.size());
+        for (int id = 1; id <= writers * perWriter; id++) {
+            Assertions.assertEquals(id % 2 == 1 ? new User(id, "修改" + id) : null, snapshot.getById(id));
+        }
+        Assertions.assertTrue(snapshot.version() - v0 <= 2L * writers * perWriter);
+        Assertions.assertEquals(List.of(new User(1, "修改1")), userStore.nameIndex().search("修改1", 1, snapshot::getById));
+        Assertions.assertTrue(userStore.nameIndex().search("用户名", 10, snapshot::getById).isEmpty());
+    }
+
+    /**
+     * 关闭名称索引时不构建索引，搜索逐个扫描快照，结果与启用索引时相同
+     */
+    @Test
+    public void searchWithoutNameIndexTest() {
+        List<User> users = List.of(new User(1, "张三"), new User(2, "李四"), new User(3, "张三丰"));
+        UserStore indexed = new UserStore(true);
+        indexed.replaceAll(users);
+        UserStore scanned = new UserStore(false);
+        scanned.replaceAll(users);
+        scanned.update(new User(2, "张四"));
+        indexed.update(new User(2, "张四"));
+
+        Assertions.assertNull(scanned.nameIndex());
+        Assertions.assertFalse(scanned.isNameIndexReady());
+        for (String query : List.of("张", "张三", "四", "王")) {
+            Assertions.assertEquals(indexed.search(indexed.snapshot(), query, 10),
+                    scanned.search(scanned.snapshot(), query, 10), query);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.farm.userimport;
+
+
+import com.farm.entity.UserImportResult;
+import com.farm.store.ColumnarUserStore;
+import com.farm.store.UserStore;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * @ClassName UserImportThroughputTest
+ * @Author phx
+ * @Date 2025/6/12 14:00
+ * @Description 批量导入的吞吐（行/秒），分别导入对象仓库与列式仓库，各自启用与关闭名称索引
+ * <p>
+ * 先生成临时 CSV、NDJSON 文件（id 打乱，名称为中文），每个文件在新仓库中导入一次，结果写日志。
+ * <p>
+ * 默认不执行，运行方式：
+ * mvn test -pl family-farm-demo -am -Dtest=UserImportThroughputTest -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ * 可选参数：-Dbenchmark.users=1000000
+ */
+
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class UserImportThroughputTest {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 1_000_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void throughputTest() throws IOException {
+        Path csv = dir.resolve("users.csv");
+        Path ndjson = dir.resolve("users.ndjson");
+        try (BufferedWriter csvWriter = Files.newBufferedWriter(csv, StandardCharsets.UTF_8);
+             BufferedWriter ndjsonWriter = Files.newBufferedWriter(ndjson, StandardCharsets.UTF_8)) {
+            csvWriter.write("id,name\n");
+            for (int i = 0; i < USERS; i++) {
+                // 乘一个奇数再取模，id 不重复且无序
+                int id = (int) ((i * 2_654_435_761L) % USERS) + 1;
+                String name = "用户" + Integer.toString(id, 36) + "号";
+                csvWriter.write(id + "," + name + "\n");
+                ndjsonWriter.write("{\"id\":" + id + ",\"name\":\"" + name + "\"}\n");
+            }
+        }
+        UserImportProperties properties = new UserImportProperties();
+        for (Path file : new Path[]{csv, ndjson}) {
+            UserImportFormat format = UserImportFormat.ofFileName(file.getFileName().toString());
+            for (boolean nameIndex : new boolean[]{true, false}) {
+                String suffix = nameIndex ? "（含名称索引）" : "（无名称索引）";
+                UserStore objectStore = new UserStore(nameIndex);
+                report("对象仓库" + suffix, format, importFile(new UserImporter(objectStore::putAll, properties), file, format));
+                Assertions.assertEquals(USERS, objectStore.snapshot().size());
+
+                ColumnarUserStore columnarStore = new ColumnarUserStore(nameIndex);
+                report("列式仓库" + suffix, format, importFile(new UserImporter(columnarStore::putAll, properties), file, format));
+                Assertions.assertEquals(USERS, columnarStore.snapshot().size());
+            }
+        }
+    }
+
+    private static UserImportResult importFile(UserImporter importer, Path file, UserImportFormat format)
+            throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return importer.importFrom(in, format);
+        }
+    }
+
+    private static void report(String store, UserImportFormat format, UserImportResult result) {
+        Assertions.assertEquals(USERS, result.getImported());
+        log.info("========{} {} 行数={} 批次={} 耗时={}ms 吞吐={}行/秒========",
+                store, format, result.getRows(), result.getBatches(), result.getMillis(), result.getRowsPerSecond());
+    }
+}
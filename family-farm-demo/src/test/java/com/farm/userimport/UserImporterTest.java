@@ -0,0 +1,113 @@
+package com.farm.userimport;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserImportResult;
+import com.farm.store.UserStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @ClassName UserImporterTest
+ * @Author phx
+ * @Date 2025/6/12 11:20
+ * @Description 流式批量导入的解析、校验、分批写入
+ */
+
+public class UserImporterTest {
+
+    /**
+     * CSV：表头、BOM、引号字段跳过或正确解析，校验失败的行计入 rejected 并给出行号
+     */
+    @Test
+    public void csvTest() throws IOException {
+        String csv = "\uFEFFid,name\n"
+                + "1,用户名1\n"
+                + "2,\"张,三\"\n"
+                + "3,\"说\"\"你好\"\"\"\n"
+                + "\n"
+                + "abc,用户\n"
+                + "4,\n"
+                + "5,\"未闭合\n"
+                + "6,a,b\r\n"
+                + "-1,负数\n"
+                + "7,李四\r\n";
+        UserStore userStore = new UserStore();
+        UserImportResult result = importText(userStore, csv, UserImportFormat.CSV, new UserImportProperties());
+
+        Assertions.assertEquals(9, result.getRows());
+        Assertions.assertEquals(4, result.getImported());
+        Assertions.assertEquals(5, result.getRejected());
+        Assertions.assertEquals(List.of("第6行: id不是整数", "第7行: name不能为空", "第8行: 引号未闭合",
+                "第9行: 应为两列 id,name", "第10行: id必须为正整数"), result.getErrors());
+        Assertions.assertEquals(List.of(new User(1, "用户名1"), new User(2, "张,三"), new User(3, "说\"你好\""),
+                new User(7, "李四")), userStore.snapshot().asList());
+    }
+
+    /**
+     * NDJSON：忽略其它字段，非法 JSON、类型错误的行被跳过
+     */
+    @Test
+    public void ndjsonTest() throws IOException {
+        String ndjson = "{\"id\":1,\"name\":\"用户名1\",\"age\":18}\n"
+                + "{\"name\":\"张三\",\"id\":2,\"tags\":[1,{\"a\":2}]}\n"
+                + "{\"id\":3,\"name\":\n"
+                + "{\"id\":\"4\",\"name\":\"王五\"}\n"
+                + "{\"id\":5}\n"
+                + "{\"id\":6,\"name\":\"赵六\"} {\"id\":7}\n"
+                + "[1]\n"
+                + "{\"id\":4294967296,\"name\":\"溢出\"}\n";
+        UserStore userStore = new UserStore();
+        UserImportResult result = importText(userStore, ndjson, UserImportFormat.NDJSON, new UserImportProperties());
+
+        Assertions.assertEquals(8, result.getRows());
+        Assertions.assertEquals(2, result.getImported());
+        Assertions.assertEquals(List.of("第3行: JSON格式错误", "第4行: id不是整数", "第5行: name不能为空",
+                "第6行: 一行只能有一个JSON对象", "第7行: 应为JSON对象", "第8行: id不是整数"), result.getErrors());
+        Assertions.assertEquals(List.of(new User(1, "用户名1"), new User(2, "张三")), userStore.snapshot().asList());
+    }
+
+    /**
+     * 多线程分块解析、多批写入：文件中靠后的同 id 用户覆盖靠前的，已有用户保留
+     */
+    @Test
+    public void batchOrderTest() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 10_000; i++) {
+            csv.append(i).append(',').append("用户").append(i).append('\n');
+        }
+        for (int i = 1; i <= 10_000; i += 2) {
+            csv.append(i).append(',').append("改名").append(i).append('\n');
+        }
+        UserImportProperties properties = new UserImportProperties();
+        properties.setChunkSize(100);
+        properties.setBatchSize(1000);
+        properties.setParallelism(4);
+        UserStore userStore = new UserStore();
+        userStore.replaceAll(List.of(new User(20_000, "已有用户")));
+
+        UserImportResult result = importText(userStore, csv.toString(), UserImportFormat.CSV, properties);
+
+        Assertions.assertEquals(15_000, result.getRows());
+        Assertions.assertEquals(15_000, result.getImported());
+        Assertions.assertEquals(15, result.getBatches());
+        Assertions.assertEquals(10_001, userStore.snapshot().size());
+        for (int i = 1; i <= 10_000; i++) {
+            Assertions.assertEquals((i % 2 == 1 ? "改名" : "用户") + i, userStore.snapshot().getById(i).getName());
+        }
+        Assertions.assertEquals(new User(20_000, "已有用户"), userStore.snapshot().getById(20_000));
+        Assertions.assertEquals(List.of(new User(9999, "改名9999")),
+                userStore.nameIndex().search("改名9999", 10, userStore.snapshot()::getById));
+    }
+
+    private static UserImportResult importText(UserStore userStore, String text, UserImportFormat format,
+                                               UserImportProperties properties) throws IOException {
+        UserImporter importer = new UserImporter(userStore::putAll, properties);
+        return importer.importFrom(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), format);
+    }
+}
@@ -0,0 +1,18 @@
+package com.farm.order;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * @ClassName FamilyFarmOrderApplication
+ * @Author phx
+ * @Date 2025/5/23 9:10
+ * @Description 订单服务
+ */
+
+@SpringBootApplication
+public class FamilyFarmOrderApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(FamilyFarmOrderApplication.class, args);
+    }
+}
@@ -0,0 +1,30 @@
+package com.farm.order.config;
+
+
+import com.farm.order.journal.JournalProperties;
+import com.farm.order.journal.OrderJournal;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @ClassName JournalConfig
+ * @Author phx
+ * @Date 2025/5/27 10:30
+ * @Description 订单日志配置，farm.order.journal.enabled=false 时不创建日志，订单只保存在内存中
+ */
+
+@Configuration
+@EnableConfigurationProperties(JournalProperties.class)
+public class JournalConfig {
+
+    /**
+     * 摄入服务依赖日志，关闭时先停止摄入写完剩余事件，再关闭日志
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "farm.order.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public OrderJournal orderJournal(JournalProperties properties) {
+        return new OrderJournal(properties);
+    }
+}
@@ -0,0 +1,135 @@
+package com.farm.order.controller;
+
+
+import com.farm.order.entity.IngestionStats;
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderRequest;
+import com.farm.order.journal.JournalStats;
+import com.farm.order.journal.OrderJournal;
+import com.farm.order.service.OrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * @ClassName OrderController
+ * @Author phx
+ * @Date 2025/5/23 11:30
+ * @Description 订单接口
+ */
+
+@RestController
+@RequestMapping("/family/farm/order")
+@Tag(name = "订单模块", description = "订单的添加、查询与取消")
+public class OrderController {
+
+    /**
+     * 商品名最大长度，订单日志中商品名按 UTF-8 最多占 65535 字节
+     */
+    private static final int MAX_PRODUCT_LENGTH = 200;
+
+    /**
+     * 列表查询单次最多返回的订单数
+     */
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ObjectProvider<OrderJournal> orderJournal;
+
+    @PostMapping("/order")
+    @Operation(summary = "下单", description = "异步写入仓库，返回202与已分配ID的订单；启用订单日志时写入日志并组提交后才返回。摄入队列已满时返回429，摄入因写入失败停止时返回503")
+    public ResponseEntity<Order> placeOrder(@RequestBody OrderRequest request) {
+        if (request.getUserId() <= 0 || request.getAmount() <= 0 || !StringUtils.hasText(request.getProduct())
+                || request.getProduct().length() > MAX_PRODUCT_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "userId、amount必须大于0，product不能为空且不超过" + MAX_PRODUCT_LENGTH + "个字符");
+        }
+        return ResponseEntity.accepted().body(orderService.placeOrder(request));
+    }
+
+    @DeleteMapping("/order/{id}")
+    @Operation(summary = "取消订单", description = "异步生效，返回202；启用订单日志时写入日志并组提交后才返回。摄入队列已满时返回429，摄入因写入失败停止时返回503")
+    public ResponseEntity<Void> cancelOrder(
+            @Parameter(name = "id", description = "订单ID", example = "1", required = true)
+            @PathVariable long id
+    ) {
+        orderService.cancelOrder(id);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/order/{id}")
+    @Operation(summary = "查询订单", description = "刚下单的订单在写入仓库前返回404")
+    public Order getOrder(
+            @Parameter(name = "id", description = "订单ID", example = "1", required = true)
+            @PathVariable long id
+    ) {
+        return orderService.getOrder(id);
+    }
+
+    @GetMapping("/user/{userId}/orders")
+    @Operation(summary = "查询用户的订单", description = "按用户索引查询，从新到旧，最多返回limit个")
+    public List<Order> getUserOrders(
+            @Parameter(name = "userId", description = "用户ID", example = "1", required = true)
+            @PathVariable int userId,
+            @Parameter(name = "limit", description = "最多返回的订单数，1到1000", example = "20")
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        checkLimit(limit);
+        return orderService.getUserOrders(userId, limit);
+    }
+
+    @GetMapping("/orders")
+    @Operation(summary = "按下单时间查询订单", description = "按时间索引查询下单时间在[from, to]内的订单，返回其中下单时间最早的limit个，按下单时间、订单ID从早到晚排序")
+    public List<Order> getOrdersByCreatedAt(
+            @Parameter(name = "from", description = "起始时间（毫秒时间戳，含）", example = "1747962000000", required = true)
+            @RequestParam long from,
+            @Parameter(name = "to", description = "结束时间（毫秒时间戳，含）", example = "1747965600000", required = true)
+            @RequestParam long to,
+            @Parameter(name = "limit", description = "最多返回的订单数，1到1000", example = "100")
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        checkLimit(limit);
+        if (from > to) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from不能大于to");
+        }
+        return orderService.getOrdersByCreatedAt(from, to, limit);
+    }
+
+    @GetMapping("/ingestion/stats")
+    @Operation(summary = "查询订单摄入统计", description = "接收、拒绝、已写入、写入失败的事件数与平均吞吐量，摄入停止时返回原因")
+    public IngestionStats getIngestionStats() {
+        return orderService.getIngestionStats();
+    }
+
+    @GetMapping("/journal/stats")
+    @Operation(summary = "查询订单日志统计", description = "段数、追加记录数、组提交次数与启动回放耗时，未启用订单日志时返回空")
+    public JournalStats getJournalStats() {
+        OrderJournal journal = orderJournal.getIfAvailable();
+        return journal == null ? null : journal.stats();
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit必须在1到" + MAX_LIMIT + "之间");
+        }
+    }
+}
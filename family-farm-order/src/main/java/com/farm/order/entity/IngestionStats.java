@@ -0,0 +1,34 @@
+package com.farm.order.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+/**
+ * @ClassName IngestionStats
+ * @Author phx
+ * @Date 2025/5/23 9:40
+ * @Description 订单摄入的计数与吞吐量
+ */
+
+@Value
+public class IngestionStats {
+    @Schema(description = "进入队列的事件数（下单与取消）", example = "100000")
+    private long accepted;
+    @Schema(description = "队列满且等待超时后被拒绝的事件数", example = "0")
+    private long rejected;
+    @Schema(description = "已写入订单仓库的事件数", example = "99800")
+    private long applied;
+    @Schema(description = "写入订单仓库的批次数", example = "120")
+    private long batches;
+    @Schema(description = "因写入失败未生效的事件数", example = "0")
+    private long failed;
+    @Schema(description = "队列中等待写入的事件数", example = "200")
+    private int pending;
+    @Schema(description = "启动以来平均每秒写入的事件数", example = "50000.0")
+    private double appliedPerSecond;
+    @Schema(description = "订单仓库中的订单数", example = "99800")
+    private int orders;
+    @Schema(description = "摄入停止的原因，正常运行时为空")
+    private String error;
+}
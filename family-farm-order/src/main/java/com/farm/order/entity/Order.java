@@ -0,0 +1,30 @@
+package com.farm.order.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+import lombok.With;
+
+/**
+ * @ClassName Order
+ * @Author phx
+ * @Date 2025/5/23 9:20
+ * @Description 订单，不可变，状态变化时生成新的实例
+ */
+
+@Value
+public class Order {
+    @Schema(description = "订单ID", example = "1")
+    private long id;
+    @Schema(description = "下单用户ID，与 com.farm.entity.User 的 id 一致", example = "1")
+    private int userId;
+    @Schema(description = "商品名称", example = "土鸡蛋")
+    private String product;
+    @Schema(description = "金额（分）", example = "2990")
+    private long amount;
+    @With
+    @Schema(description = "订单状态", example = "CREATED")
+    private OrderStatus status;
+    @Schema(description = "下单时间（毫秒时间戳）", example = "1747962000000")
+    private long createdAt;
+}
@@ -0,0 +1,26 @@
+package com.farm.order.entity;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @ClassName OrderRequest
+ * @Author phx
+ * @Date 2025/5/23 9:30
+ * @Description 下单请求体
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRequest {
+    @Schema(description = "下单用户ID", example = "1")
+    private int userId;
+    @Schema(description = "商品名称", example = "土鸡蛋")
+    private String product;
+    @Schema(description = "金额（分）", example = "2990")
+    private long amount;
+}
@@ -0,0 +1,20 @@
+package com.farm.order.entity;
+
+
+/**
+ * @ClassName OrderStatus
+ * @Author phx
+ * @Date 2025/5/23 9:15
+ * @Description 订单状态
+ */
+
+public enum OrderStatus {
+    /**
+     * 已下单
+     */
+    CREATED,
+    /**
+     * 已取消
+     */
+    CANCELLED
+}
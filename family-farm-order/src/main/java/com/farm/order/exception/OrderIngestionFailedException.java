@@ -0,0 +1,20 @@
+package com.farm.order.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * @ClassName OrderIngestionFailedException
+ * @Author phx
+ * @Date 2025/5/23 11:10
+ * @Description 订单摄入已因写入失败而停止，接口返回 503，需要排查原因后重启服务
+ */
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderIngestionFailedException extends RuntimeException {
+
+    public OrderIngestionFailedException(Throwable cause) {
+        super("订单摄入已停止: " + cause.getMessage(), cause);
+    }
+}
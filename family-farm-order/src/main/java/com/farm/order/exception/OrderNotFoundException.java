@@ -0,0 +1,20 @@
+package com.farm.order.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * @ClassName OrderNotFoundException
+ * @Author phx
+ * @Date 2025/5/23 9:50
+ * @Description 订单不存在，接口返回 404，不填充异常栈
+ */
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class OrderNotFoundException extends RuntimeException {
+
+    public OrderNotFoundException(long id) {
+        super("订单不存在，id=" + id, null, false, false);
+    }
+}
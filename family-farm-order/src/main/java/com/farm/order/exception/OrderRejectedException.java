@@ -0,0 +1,22 @@
+package com.farm.order.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * @ClassName OrderRejectedException
+ * @Author phx
+ * @Date 2025/5/23 9:55
+ * @Description 摄入队列已满且等待超时，接口返回 429，客户端应稍后重试
+ * <p>
+ * 过载时会高频出现，不填充异常栈
+ */
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class OrderRejectedException extends RuntimeException {
+
+    public OrderRejectedException() {
+        super("订单摄入队列已满，请稍后重试", null, false, false);
+    }
+}
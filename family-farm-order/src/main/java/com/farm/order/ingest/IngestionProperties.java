@@ -0,0 +1,34 @@
+package com.farm.order.ingest;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @ClassName IngestionProperties
+ * @Author phx
+ * @Date 2025/5/23 10:30
+ * @Description 订单摄入配置，前缀 farm.order.ingestion
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.order.ingestion")
+public class IngestionProperties {
+
+    /**
+     * 摄入队列容量
+     */
+    private int bufferSize = 65536;
+
+    /**
+     * 每批最多写入订单仓库的事件数
+     */
+    private int batchSize = 4096;
+
+    /**
+     * 队列满时请求线程最多等待多久，超时后拒绝（429）
+     */
+    private Duration offerTimeout = Duration.ofMillis(50);
+}
@@ -0,0 +1,33 @@
+package com.farm.order.ingest;
+
+
+import com.farm.order.entity.Order;
+import lombok.Value;
+
+/**
+ * @ClassName OrderEvent
+ * @Author phx
+ * @Date 2025/5/23 10:05
+ * @Description 进入摄入队列的事件：下单（携带完整订单）或取消（只携带订单ID）
+ */
+
+@Value
+public class OrderEvent {
+
+    public enum Type {
+        PLACE,
+        CANCEL
+    }
+
+    private Type type;
+    private Order order;
+    private long orderId;
+
+    public static OrderEvent place(Order order) {
+        return new OrderEvent(Type.PLACE, order, order.getId());
+    }
+
+    public static OrderEvent cancel(long orderId) {
+        return new OrderEvent(Type.CANCEL, null, orderId);
+    }
+}
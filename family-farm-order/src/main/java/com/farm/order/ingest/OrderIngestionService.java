@@ -0,0 +1,298 @@
+package com.farm.order.ingest;
+
+
+import com.farm.common.concurrent.MpscRingBuffer;
+import com.farm.order.entity.IngestionStats;
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderStatus;
+import com.farm.order.exception.OrderIngestionFailedException;
+import com.farm.order.exception.OrderRejectedException;
+import com.farm.order.journal.OrderJournal;
+import com.farm.order.store.OrderStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @ClassName OrderIngestionService
+ * @Author phx
+ * @Date 2025/5/23 10:40
+ * @Description 订单摄入：多个请求线程并发提交，单个摄入线程批量写入订单仓库
+ * <p>
+ * 请求线程只分配订单ID并把事件放入无锁的多生产者队列，不竞争任何锁；
+ * 摄入线程每次取出一批事件，按提交顺序写入订单仓库，同一订单的下单一定先于取消生效。
+ * 背压：队列满时请求线程短暂等待，超过 offer-timeout 仍无空间则拒绝（429），不会无限堆积。
+ * 启用订单日志时，每批事件先追加到日志并组提交，再写入仓库；启动时先回放日志恢复仓库和订单ID序列。
+ * 此时每个事件携带一个 future，组提交返回后才完成，下单与取消等待它完成后才返回，
+ * 返回 202 即表示事件已写入日志，重启后一定能恢复；未启用日志时入队即返回。
+ * <p>
+ * 某一批写入失败时摄入停止：只有成功写入的批次计入 applied，失败批次及之后的事件计入 failed，
+ * 失败原因在统计中返回，之后的下单与取消直接拒绝（503），不会再把请求当作已接收。
+ */
+
+@Slf4j
+@Service
+@EnableConfigurationProperties(IngestionProperties.class)
+public class OrderIngestionService {
+
+    /**
+     * 队列满时请求线程每次等待的时间
+     */
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * 队列空时摄入线程每次休眠的时间
+     */
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * 等待组提交时每隔多久检查一次摄入线程是否还在运行
+     */
+    private static final long ACK_CHECK_MILLIS = 100;
+
+    private final OrderStore orderStore;
+    @Nullable
+    private final OrderJournal journal;
+    private final MpscRingBuffer<Submission> queue;
+    private final int batchSize;
+    private final long offerTimeoutNanos;
+
+    private final AtomicLong idSequence = new AtomicLong();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    /**
+     * 只由摄入线程修改
+     */
+    private volatile long applied;
+    private volatile long batches;
+    private volatile long failed;
+    /**
+     * 写入失败的原因，非空时摄入已停止
+     */
+    private volatile RuntimeException failure;
+    private final long startNanos = System.nanoTime();
+
+    private volatile boolean running;
+    private volatile Thread ingestThread;
+
+    public OrderIngestionService(OrderStore orderStore, IngestionProperties properties) {
+        this(orderStore, properties, null);
+    }
+
+    @Autowired
+    public OrderIngestionService(OrderStore orderStore, IngestionProperties properties,
+                                 @Nullable OrderJournal journal) {
+        this.orderStore = orderStore;
+        this.journal = journal;
+        this.queue = new MpscRingBuffer<>(properties.getBufferSize());
+        this.batchSize = properties.getBatchSize();
+        this.offerTimeoutNanos = properties.getOfferTimeout().toNanos();
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (journal != null && ingestThread == null) {
+            recover();
+        }
+        running = true;
+        ingestThread = new Thread(this::run, "order-ingest");
+        ingestThread.setDaemon(true);
+        ingestThread.start();
+    }
+
+    /**
+     * 停止接收新的批次，写完队列中剩余的事件后返回
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(ingestThread);
+        try {
+            ingestThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 下单，分配订单ID后放入摄入队列，返回时订单尚未写入仓库；启用订单日志时返回前已写入日志
+     *
+     * @throws OrderRejectedException 队列满且等待超时
+     * @throws OrderIngestionFailedException 摄入已因写入失败而停止
+     */
+    public Order place(int userId, String product, long amount) {
+        Order order = new Order(idSequence.incrementAndGet(), userId, product, amount,
+                OrderStatus.CREATED, System.currentTimeMillis());
+        submit(OrderEvent.place(order));
+        return order;
+    }
+
+    /**
+     * 取消订单，放入摄入队列后返回；启用订单日志时返回前已写入日志
+     *
+     * @throws OrderRejectedException 队列满且等待超时
+     * @throws OrderIngestionFailedException 摄入已因写入失败而停止
+     */
+    public void cancel(long orderId) {
+        submit(OrderEvent.cancel(orderId));
+    }
+
+    private void submit(OrderEvent event) {
+        RuntimeException failure = this.failure;
+        if (failure != null) {
+            throw new OrderIngestionFailedException(failure);
+        }
+        Submission submission = new Submission(event, journal != null ? new CompletableFuture<>() : null);
+        if (!offer(submission)) {
+            rejected.increment();
+            throw new OrderRejectedException();
+        }
+        accepted.increment();
+        if (submission.durable() != null) {
+            awaitDurable(submission.durable());
+        }
+    }
+
+    private boolean offer(Submission submission) {
+        if (queue.offer(submission)) {
+            return true;
+        }
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        while (System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(BACKOFF_NANOS);
+            if (queue.offer(submission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 等待事件所在批次组提交完成；摄入线程已退出而事件仍未处理时不再等待
+     */
+    private void awaitDurable(CompletableFuture<Void> durable) {
+        while (true) {
+            try {
+                durable.get(ACK_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (ExecutionException e) {
+                throw new OrderIngestionFailedException(e.getCause());
+            } catch (TimeoutException e) {
+                Thread thread = ingestThread;
+                if ((thread == null || !thread.isAlive()) && !durable.isDone()) {
+                    throw new OrderIngestionFailedException(new IllegalStateException("摄入线程未运行"));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待订单日志写入时被中断", e);
+            }
+        }
+    }
+
+    /**
+     * 回放订单日志写入仓库，并把订单ID序列推进到已有的最大ID之后
+     */
+    private void recover() {
+        List<OrderEvent> batch = new ArrayList<>(batchSize);
+        long[] maxId = new long[1];
+        journal.replay(event -> {
+            batch.add(event);
+            maxId[0] = Math.max(maxId[0], event.getOrderId());
+            if (batch.size() == batchSize) {
+                orderStore.apply(batch);
+                batch.clear();
+            }
+        });
+        orderStore.apply(batch);
+        idSequence.accumulateAndGet(maxId[0], Math::max);
+    }
+
+    public IngestionStats stats() {
+        long applied = this.applied;
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        RuntimeException failure = this.failure;
+        return new IngestionStats(accepted.sum(), rejected.sum(), applied, batches, failed, queue.size(),
+                seconds > 0 ? applied / seconds : 0, orderStore.size(),
+                failure == null ? null : String.valueOf(failure.getMessage()));
+    }
+
+    private void run() {
+        List<OrderEvent> batch = new ArrayList<>(batchSize);
+        List<CompletableFuture<Void>> acks = new ArrayList<>(journal != null ? batchSize : 0);
+        while (running) {
+            if (ingestBatch(batch, acks) == 0) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+        while (ingestBatch(batch, acks) > 0) {
+            // 写完剩余的事件
+        }
+    }
+
+    /**
+     * 写入一批事件，只有成功写入的批次计入 applied；失败后摄入停止，之后取出的事件直接计入 failed。
+     * 组提交返回后立即通知等待的请求线程，不必等仓库写完
+     */
+    private int ingestBatch(List<OrderEvent> batch, List<CompletableFuture<Void>> acks) {
+        queue.drain(submission -> {
+            batch.add(submission.event());
+            if (submission.durable() != null) {
+                acks.add(submission.durable());
+            }
+        }, batchSize);
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+        try {
+            if (failure == null) {
+                if (journal != null) {
+                    journal.append(batch);
+                    acks.forEach(ack -> ack.complete(null));
+                }
+                orderStore.apply(batch);
+                applied += size;
+                batches++;
+            } else {
+                failed += size;
+                acks.forEach(ack -> ack.completeExceptionally(failure));
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            failed += size;
+            // 日志已写入时 future 已完成，这里不会改变结果：这些事件重启后由日志回放恢复
+            acks.forEach(ack -> ack.completeExceptionally(e));
+            log.error("写入订单日志或仓库失败，摄入停止，本批 {} 个事件未写入", size, e);
+        } finally {
+            batch.clear();
+            acks.clear();
+        }
+        return size;
+    }
+
+    /**
+     * 队列中的元素：事件和组提交完成时通知的 future（未启用订单日志时为空）
+     */
+    private record Submission(OrderEvent event, @Nullable CompletableFuture<Void> durable) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.farm.order.journal;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @ClassName JournalProperties
+ * @Author phx
+ * @Date 2025/5/27 9:20
+ * @Description 订单日志配置，前缀 farm.order.journal
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.order.journal")
+public class JournalProperties {
+
+    /**
+     * 是否启用订单日志，关闭后重启会丢失所有订单
+     */
+    private boolean enabled = true;
+
+    /**
+     * 日志段文件所在目录
+     */
+    private String dir = "data/order-journal";
+
+    /**
+     * 单个日志段文件的大小，写满后滚动到下一个段
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 每批写入后是否强制刷盘（组提交），关闭后由操作系统决定何时落盘，掉电可能丢失最近的订单
+     */
+    private boolean fsync = true;
+
+    /**
+     * 已写满的段达到多少个时触发合并
+     */
+    private int compactThreshold = 4;
+}
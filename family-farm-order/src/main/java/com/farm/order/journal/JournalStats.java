@@ -0,0 +1,30 @@
+package com.farm.order.journal;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+/**
+ * @ClassName JournalStats
+ * @Author phx
+ * @Date 2025/5/27 9:25
+ * @Description 订单日志的计数
+ */
+
+@Value
+public class JournalStats {
+    @Schema(description = "日志段文件数（含当前写入的段）", example = "3")
+    private int segments;
+    @Schema(description = "启动以来追加的记录数", example = "100000")
+    private long appended;
+    @Schema(description = "启动以来追加的字节数", example = "4500000")
+    private long bytesWritten;
+    @Schema(description = "组提交（刷盘）次数", example = "120")
+    private long groupCommits;
+    @Schema(description = "启动时回放的记录数", example = "0")
+    private long replayed;
+    @Schema(description = "启动时回放耗时（毫秒）", example = "0")
+    private long replayMillis;
+    @Schema(description = "合并次数", example = "0")
+    private long compactions;
+}
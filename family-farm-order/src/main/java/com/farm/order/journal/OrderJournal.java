@@ -0,0 +1,522 @@
+package com.farm.order.journal;
+
+
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderStatus;
+import com.farm.order.ingest.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * @ClassName OrderJournal
+ * @Author phx
+ * @Date 2025/5/27 9:40
+ * @Description 只追加的订单日志，基于内存映射的段文件
+ * <p>
+ * 段文件命名为 journal-序号.seg，按序号顺序回放。每条记录为 [长度 int][CRC32C int][内容]，
+ * 长度为0表示段内数据结束（新段映射时由文件系统填0）。
+ * 内容：下单 [1][订单ID][用户ID][金额][下单时间][状态][商品名长度 ushort][商品名 UTF-8]，取消 [2][订单ID]。
+ * <p>
+ * 写入只由摄入线程调用：一批事件编码进映射区后只刷盘一次（组提交）。
+ * 启动时回放全部段，遇到长度或校验和不合法的记录即视为崩溃时写了一半的尾部，从该位置继续写入。
+ * 写满的段达到 compact-threshold 个时在后台合并：回放这些段得到每个订单的最终状态，
+ * 写成一个段替换它们，被取消覆盖的下单记录和取消记录都不再占用空间。
+ */
+
+@Slf4j
+public class OrderJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+    private static final String COMPACTED_SUFFIX = ".compacted";
+
+    private static final int HEADER_SIZE = 8;
+    private static final byte TYPE_PLACE = 1;
+    private static final byte TYPE_CANCEL = 2;
+    private static final int CANCEL_SIZE = 1 + 8;
+    private static final int PLACE_FIXED_SIZE = 1 + 8 + 4 + 8 + 8 + 1 + 2;
+    private static final int MAX_PRODUCT_BYTES = 0xFFFF;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final Path dir;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final int compactThreshold;
+
+    /**
+     * 已写满的段，序号 -> 文件，写入线程滚动时加入，合并线程替换
+     */
+    private final TreeMap<Long, Path> sealed = new TreeMap<>();
+    private final ExecutorService compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * 以下字段只由写入线程访问
+     */
+    private final CRC32C crc = new CRC32C();
+    private long activeSeq;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private ByteBuffer crcView;
+    private int forcedPosition;
+    private boolean replayed;
+
+    private volatile long appended;
+    private volatile long bytesWritten;
+    private volatile long groupCommits;
+    private volatile long replayedRecords;
+    private volatile long replayMillis;
+    private volatile long compactions;
+
+    public OrderJournal(JournalProperties properties) {
+        this.dir = Paths.get(properties.getDir());
+        long segmentBytes = properties.getSegmentSize().toBytes();
+        if (segmentBytes < 1024 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segment-size 必须在 1KB 到 2GB 之间: " + properties.getSegmentSize());
+        }
+        this.segmentSize = (int) segmentBytes;
+        this.fsync = properties.isFsync();
+        this.compactThreshold = Math.max(2, properties.getCompactThreshold());
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "order-journal-compact");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Files.createDirectories(dir);
+            recoverCompaction();
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开订单日志目录失败: " + dir, e);
+        }
+    }
+
+    /**
+     * 按写入顺序回放全部记录，完成后日志才能追加，只能调用一次
+     *
+     * @return 回放的记录数
+     */
+    public synchronized long replay(Consumer<OrderEvent> consumer) {
+        if (replayed) {
+            throw new IllegalStateException("订单日志已经回放过");
+        }
+        long start = System.nanoTime();
+        long[] count = new long[1];
+        Consumer<OrderEvent> counting = event -> {
+            count[0]++;
+            consumer.accept(event);
+        };
+        try {
+            TreeMap<Long, Path> segments = listSegments();
+            if (segments.isEmpty()) {
+                openSegment(1);
+            } else {
+                long lastSeq = segments.lastKey();
+                for (Map.Entry<Long, Path> entry : segments.headMap(lastSeq, false).entrySet()) {
+                    readSegment(entry.getValue(), counting);
+                    sealed.put(entry.getKey(), entry.getValue());
+                }
+                openSegment(lastSeq);
+                int end = readRecords(active, counting);
+                active.position(end);
+                truncateTail(end);
+                forcedPosition = end;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("回放订单日志失败: " + dir, e);
+        }
+        replayed = true;
+        replayedRecords = count[0];
+        replayMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("订单日志回放完成，{} 个段，{} 条记录，耗时 {} ms", sealed.size() + 1, count[0], replayMillis);
+        maybeCompact();
+        return count[0];
+    }
+
+    /**
+     * 追加一批事件并组提交，只能由单个写入线程调用
+     */
+    public void append(List<OrderEvent> batch) {
+        if (!replayed) {
+            throw new IllegalStateException("订单日志回放前不能追加");
+        }
+        int written = 0;
+        for (OrderEvent event : batch) {
+            written += write(event);
+        }
+        commit();
+        appended += batch.size();
+        bytesWritten += written;
+    }
+
+    public JournalStats stats() {
+        int segments;
+        synchronized (sealed) {
+            segments = sealed.size() + (active != null ? 1 : 0);
+        }
+        return new JournalStats(segments, appended, bytesWritten, groupCommits, replayedRecords,
+                replayMillis, compactions);
+    }
+
+    /**
+     * 立即合并所有已写满的段，合并在后台线程进行，返回的 future 完成时合并结束
+     */
+    public Future<?> compact() {
+        return compactor.submit(this::compactSealed);
+    }
+
+    @Override
+    public synchronized void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (active != null) {
+            active.force();
+            closeQuietly(activeChannel);
+            active = null;
+            activeChannel = null;
+        }
+    }
+
+    private int write(OrderEvent event) {
+        byte[] product = null;
+        int payload;
+        if (event.getType() == OrderEvent.Type.PLACE) {
+            product = event.getOrder().getProduct().getBytes(StandardCharsets.UTF_8);
+            if (product.length > MAX_PRODUCT_BYTES) {
+                throw new IllegalArgumentException("商品名超过 " + MAX_PRODUCT_BYTES + " 字节");
+            }
+            payload = PLACE_FIXED_SIZE + product.length;
+        } else {
+            payload = CANCEL_SIZE;
+        }
+        int size = HEADER_SIZE + payload;
+        if (active.remaining() < size) {
+            roll(size);
+        }
+        int start = active.position();
+        active.position(start + HEADER_SIZE);
+        if (product != null) {
+            encodePlace(active, event.getOrder(), product);
+        } else {
+            active.put(TYPE_CANCEL).putLong(event.getOrderId());
+        }
+        active.putInt(start + 4, checksum(crcView, crc, start + HEADER_SIZE, payload));
+        active.putInt(start, payload);
+        return size;
+    }
+
+    private void commit() {
+        int position = active.position();
+        if (fsync && position > forcedPosition) {
+            active.force(forcedPosition, position - forcedPosition);
+            groupCommits++;
+        }
+        forcedPosition = position;
+    }
+
+    private void roll(int recordSize) {
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("单条记录 " + recordSize + " 字节超过段大小 " + segmentSize);
+        }
+        commit();
+        closeQuietly(activeChannel);
+        synchronized (sealed) {
+            sealed.put(activeSeq, segmentPath(activeSeq, SEGMENT_SUFFIX));
+        }
+        try {
+            openSegment(activeSeq + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建订单日志段失败", e);
+        }
+        maybeCompact();
+    }
+
+    private void openSegment(long seq) throws IOException {
+        activeSeq = seq;
+        activeChannel = FileChannel.open(segmentPath(seq, SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, activeChannel.size()));
+        crcView = active.duplicate();
+        forcedPosition = 0;
+    }
+
+    /**
+     * 清零崩溃时写了一半的尾部，避免后续追加的记录与残留字节拼成看似合法的记录
+     */
+    private void truncateTail(int end) {
+        int limit = active.limit();
+        int i = end;
+        while (i + Long.BYTES <= limit && active.getLong(i) == 0) {
+            i += Long.BYTES;
+        }
+        for (; i < limit; i++) {
+            if (active.get(i) != 0) {
+                for (int j = end; j < limit; j++) {
+                    active.put(j, (byte) 0);
+                }
+                active.force();
+                log.warn("订单日志段 {} 在位置 {} 之后有不完整的记录，已丢弃", activeSeq, end);
+                return;
+            }
+        }
+    }
+
+    private void maybeCompact() {
+        int count;
+        synchronized (sealed) {
+            count = sealed.size();
+        }
+        if (count >= compactThreshold && compacting.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    try {
+                        compactSealed();
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                compacting.set(false);
+            }
+        }
+    }
+
+    /**
+     * 合并所有已写满的段为一个段，以最后一个段的序号命名，保证回放顺序不变
+     * <p>
+     * 先写 .compacting 并刷盘，改名为 .compacted 表示合并结果完整，再删除旧段并改名为正式段；
+     * 任何一步崩溃都能在启动时由 {@link #recoverCompaction()} 收尾
+     */
+    private void compactSealed() {
+        TreeMap<Long, Path> segments;
+        synchronized (sealed) {
+            segments = new TreeMap<>(sealed);
+        }
+        if (segments.size() < 2) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            LinkedHashMap<Long, Order> orders = new LinkedHashMap<>();
+            for (Path segment : segments.values()) {
+                readSegment(segment, event -> {
+                    if (event.getType() == OrderEvent.Type.PLACE) {
+                        orders.put(event.getOrderId(), event.getOrder());
+                    } else {
+                        orders.computeIfPresent(event.getOrderId(), (id, order) -> order.getStatus() == OrderStatus.CREATED
+                                ? order.withStatus(OrderStatus.CANCELLED) : order);
+                    }
+                });
+            }
+            long lastSeq = segments.lastKey();
+            Path compactingPath = segmentPath(lastSeq, COMPACTING_SUFFIX);
+            writeCompacted(compactingPath, orders.values());
+            Path compactedPath = segmentPath(lastSeq, COMPACTED_SUFFIX);
+            Files.move(compactingPath, compactedPath, StandardCopyOption.ATOMIC_MOVE);
+            for (Path segment : segments.values()) {
+                Files.deleteIfExists(segment);
+            }
+            Path target = segmentPath(lastSeq, SEGMENT_SUFFIX);
+            Files.move(compactedPath, target, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (sealed) {
+                sealed.keySet().removeAll(segments.keySet());
+                sealed.put(lastSeq, target);
+            }
+            compactions++;
+            log.info("订单日志合并完成，{} 个段合并为 1 个，{} 个订单，耗时 {} ms", segments.size(), orders.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            log.error("订单日志合并失败，保留原有的段", e);
+        }
+    }
+
+    private void writeCompacted(Path path, Iterable<Order> orders) throws IOException {
+        List<byte[]> products = new ArrayList<>();
+        long size = 0;
+        for (Order order : orders) {
+            byte[] product = order.getProduct().getBytes(StandardCharsets.UTF_8);
+            products.add(product);
+            size += HEADER_SIZE + PLACE_FIXED_SIZE + product.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("合并后的段超过 2GB");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            ByteBuffer view = buffer.duplicate();
+            CRC32C checksum = new CRC32C();
+            int i = 0;
+            for (Order order : orders) {
+                byte[] product = products.get(i++);
+                int start = buffer.position();
+                int payload = PLACE_FIXED_SIZE + product.length;
+                buffer.position(start + HEADER_SIZE);
+                encodePlace(buffer, order, product);
+                buffer.putInt(start, payload);
+                buffer.putInt(start + 4, checksum(view, checksum, start + HEADER_SIZE, payload));
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * 收尾上次崩溃时未完成的合并：未完整的 .compacting 直接删除，完整的 .compacted 替换掉它覆盖的段
+     */
+    private void recoverCompaction() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(COMPACTING_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                    log.warn("删除未完成的订单日志合并文件 {}", name);
+                } else if (name.endsWith(COMPACTED_SUFFIX)) {
+                    long seq = parseSeq(name, COMPACTED_SUFFIX);
+                    for (Map.Entry<Long, Path> entry : listSegments().headMap(seq, true).entrySet()) {
+                        Files.deleteIfExists(entry.getValue());
+                    }
+                    Files.move(file, segmentPath(seq, SEGMENT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+                    log.warn("完成上次中断的订单日志合并，段 {}", seq);
+                }
+            }
+        }
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.put(parseSeq(name, SEGMENT_SUFFIX), file);
+                }
+            });
+        }
+        return segments;
+    }
+
+    private void readSegment(Path segment, Consumer<OrderEvent> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int end = readRecords(buffer, consumer);
+            if (end < buffer.limit() && buffer.getInt(end) != 0) {
+                log.error("订单日志段 {} 在位置 {} 的记录损坏，跳过该段剩余部分", segment.getFileName(), end);
+            }
+        }
+    }
+
+    /**
+     * 从头读取缓冲区中的合法记录，返回第一条不合法记录（或数据结束）的位置
+     */
+    private int readRecords(ByteBuffer buffer, Consumer<OrderEvent> consumer) {
+        ByteBuffer view = buffer.duplicate();
+        CRC32C checksum = new CRC32C();
+        int position = 0;
+        int limit = buffer.limit();
+        while (limit - position >= HEADER_SIZE) {
+            int payload = buffer.getInt(position);
+            if (payload < CANCEL_SIZE || payload > limit - position - HEADER_SIZE) {
+                break;
+            }
+            if (buffer.getInt(position + 4) != checksum(view, checksum, position + HEADER_SIZE, payload)) {
+                break;
+            }
+            OrderEvent event = decode(buffer, position + HEADER_SIZE, payload);
+            if (event == null) {
+                break;
+            }
+            consumer.accept(event);
+            position += HEADER_SIZE + payload;
+        }
+        return position;
+    }
+
+    private static OrderEvent decode(ByteBuffer buffer, int offset, int payload) {
+        byte type = buffer.get(offset);
+        long id = buffer.getLong(offset + 1);
+        if (type == TYPE_CANCEL) {
+            return payload == CANCEL_SIZE ? OrderEvent.cancel(id) : null;
+        }
+        if (type != TYPE_PLACE || payload < PLACE_FIXED_SIZE) {
+            return null;
+        }
+        int userId = buffer.getInt(offset + 9);
+        long amount = buffer.getLong(offset + 13);
+        long createdAt = buffer.getLong(offset + 21);
+        int status = buffer.get(offset + 29);
+        int productLength = buffer.getShort(offset + 30) & 0xFFFF;
+        if (status < 0 || status >= STATUSES.length || PLACE_FIXED_SIZE + productLength != payload) {
+            return null;
+        }
+        byte[] product = new byte[productLength];
+        buffer.get(offset + PLACE_FIXED_SIZE, product);
+        return OrderEvent.place(new Order(id, userId, new String(product, StandardCharsets.UTF_8), amount,
+                STATUSES[status], createdAt));
+    }
+
+    private static void encodePlace(ByteBuffer buffer, Order order, byte[] product) {
+        buffer.put(TYPE_PLACE)
+                .putLong(order.getId())
+                .putInt(order.getUserId())
+                .putLong(order.getAmount())
+                .putLong(order.getCreatedAt())
+                .put((byte) order.getStatus().ordinal())
+                .putShort((short) product.length)
+                .put(product);
+    }
+
+    private static int checksum(ByteBuffer view, CRC32C checksum, int offset, int length) {
+        view.limit(offset + length).position(offset);
+        checksum.reset();
+        checksum.update(view);
+        return (int) checksum.getValue();
+    }
+
+    private Path segmentPath(long seq, String suffix) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, seq, suffix));
+    }
+
+    private static long parseSeq(String name, String suffix) {
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - suffix.length()));
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.warn("关闭订单日志段失败", e);
+        }
+    }
+}
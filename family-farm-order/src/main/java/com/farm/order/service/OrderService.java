@@ -0,0 +1,42 @@
+package com.farm.order.service;
+
+
+import com.farm.order.entity.IngestionStats;
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderRequest;
+
+import java.util.List;
+
+/**
+ * @ClassName OrderService
+ * @Author phx
+ * @Date 2025/5/23 11:10
+ * @Description 订单服务
+ */
+
+public interface OrderService {
+
+    /**
+     * 下单，异步写入，返回已分配ID的订单
+     */
+    Order placeOrder(OrderRequest request);
+
+    /**
+     * 取消订单，异步生效
+     */
+    void cancelOrder(long id);
+
+    Order getOrder(long id);
+
+    /**
+     * 查询用户最近的订单，从新到旧
+     */
+    List<Order> getUserOrders(int userId, int limit);
+
+    /**
+     * 查询下单时间在 [from, to] 内的订单，按下单时间排序
+     */
+    List<Order> getOrdersByCreatedAt(long from, long to, int limit);
+
+    IngestionStats getIngestionStats();
+}
@@ -0,0 +1,65 @@
+package com.farm.order.service.impl;
+
+
+import com.farm.order.entity.IngestionStats;
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderRequest;
+import com.farm.order.exception.OrderNotFoundException;
+import com.farm.order.ingest.OrderIngestionService;
+import com.farm.order.service.OrderService;
+import com.farm.order.store.OrderStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * @ClassName OrderServiceImpl
+ * @Author phx
+ * @Date 2025/5/23 11:15
+ * @Description 写操作交给摄入服务异步执行，读操作直接查询订单仓库
+ */
+
+@Service
+public class OrderServiceImpl implements OrderService {
+
+    @Autowired
+    private OrderIngestionService orderIngestionService;
+
+    @Autowired
+    private OrderStore orderStore;
+
+    @Override
+    public Order placeOrder(OrderRequest request) {
+        return orderIngestionService.place(request.getUserId(), request.getProduct(), request.getAmount());
+    }
+
+    @Override
+    public void cancelOrder(long id) {
+        orderIngestionService.cancel(id);
+    }
+
+    @Override
+    public Order getOrder(long id) {
+        Order order = orderStore.get(id);
+        if (order == null) {
+            throw new OrderNotFoundException(id);
+        }
+        return order;
+    }
+
+    @Override
+    public List<Order> getUserOrders(int userId, int limit) {
+        return orderStore.getByUser(userId, limit);
+    }
+
+    @Override
+    public List<Order> getOrdersByCreatedAt(long from, long to, int limit) {
+        return orderStore.getByCreatedAt(from, to, limit);
+    }
+
+    @Override
+    public IngestionStats getIngestionStats() {
+        return orderIngestionService.stats();
+    }
+}
@@ -0,0 +1,85 @@
+package com.farm.order.store;
+
+
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderStatus;
+import com.farm.order.ingest.OrderEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @ClassName OrderStore
+ * @Author phx
+ * @Date 2025/5/23 10:20
+ * @Description 内存订单仓库
+ * <p>
+ * 只有摄入线程按批次写入（单写者），查询可由任意线程并发进行。
+ * 新订单写入时同步维护按用户和按下单时间的二级索引，按用户、按时间范围查询只访问命中的订单，不扫描全表
+ */
+
+@Component
+public class OrderStore {
+
+    private final ConcurrentHashMap<Long, Order> orders = new ConcurrentHashMap<>();
+    private final UserOrderIndex userIndex = new UserOrderIndex();
+    private final TimeOrderIndex timeIndex = new TimeOrderIndex();
+
+    public Order get(long id) {
+        return orders.get(id);
+    }
+
+    public int size() {
+        return orders.size();
+    }
+
+    /**
+     * 按顺序应用一批事件，只能由摄入线程调用
+     * <p>
+     * 取消不存在或已取消的订单时忽略
+     */
+    public void apply(List<OrderEvent> batch) {
+        for (OrderEvent event : batch) {
+            if (event.getType() == OrderEvent.Type.PLACE) {
+                Order order = event.getOrder();
+                if (orders.put(order.getId(), order) == null) {
+                    userIndex.add(order.getUserId(), order.getId());
+                    timeIndex.add(order.getCreatedAt(), order.getId());
+                }
+            } else {
+                Order order = orders.get(event.getOrderId());
+                if (order != null && order.getStatus() == OrderStatus.CREATED) {
+                    orders.put(order.getId(), order.withStatus(OrderStatus.CANCELLED));
+                }
+            }
+        }
+    }
+
+    /**
+     * 查询用户最近的订单，从新到旧
+     */
+    public List<Order> getByUser(int userId, int limit) {
+        return resolve(userIndex.latest(userId, limit));
+    }
+
+    public int countByUser(int userId) {
+        return userIndex.count(userId);
+    }
+
+    /**
+     * 查询下单时间在 [from, to] 内最早的 limit 个订单，按下单时间、订单ID排序
+     */
+    public List<Order> getByCreatedAt(long from, long to, int limit) {
+        return resolve(timeIndex.between(from, to, limit));
+    }
+
+    private List<Order> resolve(long[] ids) {
+        List<Order> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(orders.get(id));
+        }
+        return result;
+    }
+}
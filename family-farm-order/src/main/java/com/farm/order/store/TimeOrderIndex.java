@@ -0,0 +1,178 @@
+package com.farm.order.store;
+
+
+import java.util.Arrays;
+
+/**
+ * @ClassName TimeOrderIndex
+ * @Author phx
+ * @Date 2025/5/28 10:10
+ * @Description 下单时间 -> 订单ID 的二级索引，按写入顺序追加，支持时间范围查询
+ * <p>
+ * 下单时间由各请求线程读取时钟，写入顺序与时间只是大致一致。除了每个订单的时间，
+ * 还记录写入顺序上的时间前缀最大值（单调不减，可以二分查找）和最大倒退量 skew（某个订单比它之前出现过的最大时间早多少）。
+ * 查询 [from, to] 时，二分找到前缀最大值首次 >= from 的位置，之前的订单时间都早于 from；
+ * 向后扫描到前缀最大值超过 to + skew 为止，之后的订单时间都晚于 to。扫描的范围只比结果多出 skew 时间窗内的订单。
+ * 带 limit 的查询用大小为 limit 的最大堆保留时间最早的订单，而不是写入顺序上的前 limit 个；
+ * 堆满后一旦前缀最大值减 skew 超过堆顶时间，之后的订单都不可能更早，提前结束扫描。
+ * <p>
+ * 只由摄入线程写入（单写者），数组扩容时复制后替换，先写数据再递增 volatile 的 size 发布
+ */
+
+final class TimeOrderIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * 三个数组一起替换，保证读线程拿到的是同一组
+     */
+    private static final class Columns {
+        private final long[] times;
+        private final long[] prefixMax;
+        private final long[] orderIds;
+
+        private Columns(int capacity) {
+            this.times = new long[capacity];
+            this.prefixMax = new long[capacity];
+            this.orderIds = new long[capacity];
+        }
+
+        private Columns(Columns old, int capacity) {
+            this.times = Arrays.copyOf(old.times, capacity);
+            this.prefixMax = Arrays.copyOf(old.prefixMax, capacity);
+            this.orderIds = Arrays.copyOf(old.orderIds, capacity);
+        }
+    }
+
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+    private volatile int size;
+    private volatile long skew;
+
+    /**
+     * 追加一个订单，只能由写线程调用
+     */
+    void add(long createdAt, long orderId) {
+        Columns columns = this.columns;
+        int n = size;
+        if (n == columns.times.length) {
+            columns = new Columns(columns, n << 1);
+            this.columns = columns;
+        }
+        long max = n == 0 ? createdAt : Math.max(columns.prefixMax[n - 1], createdAt);
+        columns.times[n] = createdAt;
+        columns.prefixMax[n] = max;
+        columns.orderIds[n] = orderId;
+        if (max - createdAt > skew) {
+            skew = max - createdAt;
+        }
+        size = n + 1;
+    }
+
+    /**
+     * 查询下单时间在 [from, to] 内时间最早的 limit 个订单ID，按下单时间、订单ID从早到晚返回
+     *
+     * @param limit 最多返回的个数
+     */
+    long[] between(long from, long to, int limit) {
+        int n = size;
+        long skew = this.skew;
+        Columns columns = this.columns;
+        // 以 (时间, 订单ID) 为键的最大堆，堆顶是已选中的订单里最晚的一个
+        long[] heapTimes = new long[Math.min(limit, 64)];
+        long[] heapIds = new long[heapTimes.length];
+        int count = 0;
+        long stop = to > Long.MAX_VALUE - skew ? Long.MAX_VALUE : to + skew;
+        for (int i = firstAtLeast(columns.prefixMax, n, from); i < n; i++) {
+            long prefixMax = columns.prefixMax[i];
+            if (prefixMax > stop || count == limit && prefixMax - skew > heapTimes[0]) {
+                break;
+            }
+            long time = columns.times[i];
+            if (time < from || time > to) {
+                continue;
+            }
+            long orderId = columns.orderIds[i];
+            if (count < limit) {
+                if (count == heapTimes.length) {
+                    int capacity = Math.min(limit, count << 1);
+                    heapTimes = Arrays.copyOf(heapTimes, capacity);
+                    heapIds = Arrays.copyOf(heapIds, capacity);
+                }
+                siftUp(heapTimes, heapIds, count++, time, orderId);
+            } else if (before(time, orderId, heapTimes[0], heapIds[0])) {
+                siftDown(heapTimes, heapIds, count, time, orderId);
+            }
+        }
+        // 依次弹出堆顶（最晚的）从后往前填，得到从早到晚的顺序
+        long[] result = new long[count];
+        for (int last = count - 1; last >= 0; last--) {
+            result[last] = heapIds[0];
+            siftDown(heapTimes, heapIds, last, heapTimes[last], heapIds[last]);
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static boolean before(long time, long orderId, long otherTime, long otherId) {
+        return time < otherTime || time == otherTime && orderId < otherId;
+    }
+
+    /**
+     * 把 (time, orderId) 放到堆的第 index 个位置并上浮
+     */
+    private static void siftUp(long[] times, long[] ids, int index, long time, long orderId) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(times[parent], ids[parent], time, orderId)) {
+                break;
+            }
+            times[index] = times[parent];
+            ids[index] = ids[parent];
+            index = parent;
+        }
+        times[index] = time;
+        ids[index] = orderId;
+    }
+
+    /**
+     * 用 (time, orderId) 替换大小为 size 的堆的堆顶并下沉
+     */
+    private static void siftDown(long[] times, long[] ids, int size, long time, long orderId) {
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+            if (right < size && before(times[child], ids[child], times[right], ids[right])) {
+                child = right;
+            }
+            if (!before(time, orderId, times[child], ids[child])) {
+                break;
+            }
+            times[index] = times[child];
+            ids[index] = ids[child];
+            index = child;
+        }
+        if (size > 0) {
+            times[index] = time;
+            ids[index] = orderId;
+        }
+    }
+
+    private static int firstAtLeast(long[] sorted, int n, long value) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
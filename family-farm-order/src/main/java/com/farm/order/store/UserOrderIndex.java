@@ -0,0 +1,137 @@
+package com.farm.order.store;
+
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @ClassName UserOrderIndex
+ * @Author phx
+ * @Date 2025/5/28 9:30
+ * @Description 用户ID -> 订单ID 的二级索引，开放寻址哈希（线性探测），每个用户的订单ID存放在 long[] 中
+ * <p>
+ * 只由摄入线程写入（单写者），读线程无锁并发查询：
+ * 新用户的槽位通过 AtomicReferenceArray 发布，扩容时整张表替换为新的 volatile 引用；
+ * 订单ID先写入数组再递增 volatile 的 size，读线程读到 size 后即可看到前 size 个ID
+ */
+
+final class UserOrderIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * 某个用户的订单ID，按写入顺序追加
+     */
+    private static final class Entry {
+        private final int userId;
+        private volatile long[] orderIds = new long[4];
+        private volatile int size;
+
+        private Entry(int userId) {
+            this.userId = userId;
+        }
+
+        private void add(long orderId) {
+            long[] ids = orderIds;
+            int n = size;
+            if (n == ids.length) {
+                ids = Arrays.copyOf(ids, n << 1);
+                orderIds = ids;
+            }
+            ids[n] = orderId;
+            size = n + 1;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(MIN_CAPACITY);
+    /**
+     * 只由写线程访问
+     */
+    private int users;
+
+    /**
+     * 追加一个订单，只能由写线程调用
+     */
+    void add(int userId, long orderId) {
+        AtomicReferenceArray<Entry> table = this.table;
+        int mask = table.length() - 1;
+        int pos = mix(userId) & mask;
+        Entry entry;
+        while ((entry = table.get(pos)) != null) {
+            if (entry.userId == userId) {
+                entry.add(orderId);
+                return;
+            }
+            pos = (pos + 1) & mask;
+        }
+        entry = new Entry(userId);
+        entry.add(orderId);
+        table.set(pos, entry);
+        // 负载因子不超过 0.5
+        if (++users * 2 > table.length()) {
+            resize(table);
+        }
+    }
+
+    /**
+     * 查询用户最近的订单ID，从新到旧
+     *
+     * @param limit 最多返回的个数
+     */
+    long[] latest(int userId, int limit) {
+        Entry entry = find(userId);
+        if (entry == null) {
+            return new long[0];
+        }
+        int n = entry.size;
+        long[] ids = entry.orderIds;
+        long[] result = new long[Math.min(n, limit)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids[n - 1 - i];
+        }
+        return result;
+    }
+
+    int count(int userId) {
+        Entry entry = find(userId);
+        return entry == null ? 0 : entry.size;
+    }
+
+    private Entry find(int userId) {
+        AtomicReferenceArray<Entry> table = this.table;
+        int mask = table.length() - 1;
+        int pos = mix(userId) & mask;
+        Entry entry;
+        while ((entry = table.get(pos)) != null) {
+            if (entry.userId == userId) {
+                return entry;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+
+    private void resize(AtomicReferenceArray<Entry> old) {
+        AtomicReferenceArray<Entry> resized = new AtomicReferenceArray<>(old.length() << 1);
+        int mask = resized.length() - 1;
+        for (int i = 0; i < old.length(); i++) {
+            Entry entry = old.get(i);
+            if (entry != null) {
+                int pos = mix(entry.userId) & mask;
+                while (resized.get(pos) != null) {
+                    pos = (pos + 1) & mask;
+                }
+                resized.set(pos, entry);
+            }
+        }
+        table = resized;
+    }
+
+    /**
+     * 打散连续的 id，避免线性探测时形成长簇
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
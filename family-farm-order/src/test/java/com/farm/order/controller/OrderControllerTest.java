@@ -0,0 +1,103 @@
+package com.farm.order.controller;
+
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+/**
+ * @ClassName OrderControllerTest
+ * @Author phx
+ * @Date 2025/5/23 14:40
+ * @Description 测试订单接口
+ * <p>
+ * 下单、取消都是异步写入，查询前需要等待摄入线程写入仓库
+ */
+
+@SpringBootTest(properties = "farm.order.journal.dir=target/order-journal-${random.uuid}")
+@AutoConfigureMockMvc
+public class OrderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * 下单返回202，写入后可以查询到；取消后状态变为CANCELLED
+     *
+     * @throws Exception
+     */
+    @Test
+    public void placeAndCancelTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/family/farm/order/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":1,\"product\":\"土鸡蛋\",\"amount\":2990}")
+                )
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(1))
+                .andDo(MockMvcResultHandlers.print());
+
+        awaitStatus(1, "CREATED");
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/family/farm/order/order/1"))
+                .andExpect(MockMvcResultMatchers.status().isAccepted());
+
+        awaitStatus(1, "CANCELLED");
+
+        // 按用户、按下单时间都能查询到该订单
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/order/user/1/orders"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("CANCELLED"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/order/orders")
+                        .param("from", "0")
+                        .param("to", String.valueOf(Long.MAX_VALUE)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(1));
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/order/user/2/orders"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(0));
+    }
+
+    /**
+     * 参数不合法返回400
+     *
+     * @throws Exception
+     */
+    @Test
+    public void badRequestTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/family/farm/order/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":0,\"product\":\"\",\"amount\":0}")
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/order/user/1/orders").param("limit", "0"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/order/orders")
+                        .param("from", "2")
+                        .param("to", "1"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    private void awaitStatus(long id, String status) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/family/farm/order/order/" + id)).andReturn();
+            if (result.getResponse().getStatus() == 200
+                    && result.getResponse().getContentAsString().contains("\"status\":\"" + status + "\"")) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("订单" + id + "未在1秒内变为" + status);
+    }
+}
@@ -0,0 +1,208 @@
+package com.farm.order.ingest;
+
+
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderStatus;
+import com.farm.order.exception.OrderIngestionFailedException;
+import com.farm.order.exception.OrderRejectedException;
+import com.farm.order.journal.JournalProperties;
+import com.farm.order.journal.OrderJournal;
+import com.farm.order.store.OrderStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ClassName OrderIngestionServiceTest
+ * @Author phx
+ * @Date 2025/5/23 14:10
+ * @Description 测试订单摄入：并发提交、顺序生效、背压、写入失败、重启恢复
+ */
+
+public class OrderIngestionServiceTest {
+
+    private static IngestionProperties properties(int bufferSize) {
+        IngestionProperties properties = new IngestionProperties();
+        properties.setBufferSize(bufferSize);
+        properties.setBatchSize(256);
+        properties.setOfferTimeout(Duration.ofMillis(20));
+        return properties;
+    }
+
+    /**
+     * 多个线程并发下单，被拒绝时像客户端一样重试，停止后所有订单都已写入仓库，订单ID不重复
+     */
+    @Test
+    public void concurrentPlaceTest() throws Exception {
+        OrderStore orderStore = new OrderStore();
+        OrderIngestionService ingestionService = new OrderIngestionService(orderStore, properties(1024));
+        ingestionService.start();
+
+        int threads = 4;
+        int perThread = 20_000;
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    while (true) {
+                        try {
+                            ingestionService.place(i % 100 + 1, "土鸡蛋", 2990);
+                            break;
+                        } catch (OrderRejectedException e) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        ingestionService.stop();
+
+        Assertions.assertEquals(threads * perThread, orderStore.size());
+        Assertions.assertEquals(threads * perThread, ingestionService.stats().getApplied());
+        Assertions.assertEquals(threads * perThread, ingestionService.stats().getAccepted());
+    }
+
+    /**
+     * 同一个线程先下单后取消，取消一定在下单之后生效；取消不存在的订单被忽略
+     */
+    @Test
+    public void cancelTest() {
+        OrderStore orderStore = new OrderStore();
+        OrderIngestionService ingestionService = new OrderIngestionService(orderStore, properties(1024));
+        ingestionService.start();
+
+        Order order = ingestionService.place(1, "土鸡蛋", 2990);
+        ingestionService.cancel(order.getId());
+        ingestionService.cancel(999);
+        ingestionService.stop();
+
+        Assertions.assertEquals(OrderStatus.CANCELLED, orderStore.get(order.getId()).getStatus());
+        Assertions.assertNull(orderStore.get(999));
+    }
+
+    /**
+     * 摄入线程未运行时队列很快写满，等待超时后拒绝
+     */
+    @Test
+    public void backpressureTest() {
+        OrderStore orderStore = new OrderStore();
+        OrderIngestionService ingestionService = new OrderIngestionService(orderStore, properties(4));
+
+        for (int i = 0; i < 4; i++) {
+            ingestionService.place(1, "土鸡蛋", 2990);
+        }
+        Assertions.assertThrows(OrderRejectedException.class, () -> ingestionService.place(1, "土鸡蛋", 2990));
+        Assertions.assertEquals(1, ingestionService.stats().getRejected());
+        Assertions.assertEquals(4, ingestionService.stats().getPending());
+    }
+
+    /**
+     * 仓库写入失败的批次不计入 applied，摄入停止，之后的下单直接拒绝
+     */
+    @Test
+    public void storeFailureTest() {
+        OrderStore orderStore = new OrderStore() {
+            @Override
+            public void apply(List<OrderEvent> batch) {
+                throw new IllegalStateException("仓库不可写");
+            }
+        };
+        OrderIngestionService ingestionService = new OrderIngestionService(orderStore, properties(1024));
+        for (int i = 0; i < 10; i++) {
+            ingestionService.place(1, "土鸡蛋", 2990);
+        }
+        ingestionService.start();
+        ingestionService.stop();
+
+        Assertions.assertEquals(0, ingestionService.stats().getApplied());
+        Assertions.assertEquals(0, ingestionService.stats().getBatches());
+        Assertions.assertEquals(10, ingestionService.stats().getFailed());
+        Assertions.assertEquals("仓库不可写", ingestionService.stats().getError());
+        Assertions.assertThrows(OrderIngestionFailedException.class, () -> ingestionService.place(1, "土鸡蛋", 2990));
+    }
+
+    /**
+     * 订单日志写入失败时请求收到异常而不是已接收，applied 不增加，仓库中没有这些订单
+     */
+    @Test
+    public void journalFailureTest(@TempDir Path dir) {
+        JournalProperties journalProperties = new JournalProperties();
+        journalProperties.setDir(dir.toString());
+        OrderJournal journal = new OrderJournal(journalProperties) {
+            @Override
+            public void append(List<OrderEvent> batch) {
+                throw new IllegalStateException("磁盘已满");
+            }
+        };
+        OrderStore orderStore = new OrderStore();
+        OrderIngestionService ingestionService = new OrderIngestionService(orderStore, properties(1024), journal);
+        ingestionService.start();
+
+        Assertions.assertThrows(OrderIngestionFailedException.class, () -> ingestionService.place(1, "土鸡蛋", 2990));
+        Assertions.assertThrows(OrderIngestionFailedException.class, () -> ingestionService.place(1, "土鸡蛋", 2990));
+        ingestionService.stop();
+        journal.close();
+
+        Assertions.assertEquals(0, ingestionService.stats().getApplied());
+        Assertions.assertEquals(1, ingestionService.stats().getFailed());
+        Assertions.assertEquals("磁盘已满", ingestionService.stats().getError());
+        Assertions.assertEquals(0, orderStore.size());
+    }
+
+    /**
+     * 启用订单日志时下单返回前已写入日志并组提交
+     */
+    @Test
+    public void durableAckTest(@TempDir Path dir) {
+        JournalProperties journalProperties = new JournalProperties();
+        journalProperties.setDir(dir.toString());
+        OrderJournal journal = new OrderJournal(journalProperties);
+        OrderIngestionService ingestionService = new OrderIngestionService(new OrderStore(), properties(1024), journal);
+        ingestionService.start();
+        ingestionService.place(1, "土鸡蛋", 2990);
+        Assertions.assertEquals(1, journal.stats().getAppended());
+        ingestionService.stop();
+        journal.close();
+    }
+
+    /**
+     * 启用订单日志时重启后仓库恢复原状，新订单的ID接在已有订单之后
+     */
+    @Test
+    public void recoverFromJournalTest(@TempDir Path dir) {
+        JournalProperties journalProperties = new JournalProperties();
+        journalProperties.setDir(dir.toString());
+
+        OrderStore orderStore = new OrderStore();
+        OrderJournal journal = new OrderJournal(journalProperties);
+        OrderIngestionService ingestionService = new OrderIngestionService(orderStore, properties(1024), journal);
+        ingestionService.start();
+        for (int i = 0; i < 10_000; i++) {
+            ingestionService.place(i % 100 + 1, "土鸡蛋", 2990);
+        }
+        ingestionService.cancel(5);
+        ingestionService.stop();
+        journal.close();
+
+        OrderStore recovered = new OrderStore();
+        OrderJournal reopened = new OrderJournal(journalProperties);
+        OrderIngestionService restarted = new OrderIngestionService(recovered, properties(1024), reopened);
+        restarted.start();
+        Assertions.assertEquals(10_000, recovered.size());
+        Assertions.assertEquals(OrderStatus.CANCELLED, recovered.get(5).getStatus());
+        Assertions.assertEquals(orderStore.get(10_000), recovered.get(10_000));
+        Assertions.assertEquals(10_001, restarted.place(1, "土鸡蛋", 2990).getId());
+        restarted.stop();
+        reopened.close();
+    }
+}
@@ -0,0 +1,163 @@
+package com.farm.order.journal;
+
+
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderStatus;
+import com.farm.order.ingest.OrderEvent;
+import com.farm.order.store.OrderStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @ClassName OrderJournalTest
+ * @Author phx
+ * @Date 2025/5/27 11:00
+ * @Description 测试订单日志：回放、段滚动、崩溃尾部、合并
+ */
+
+public class OrderJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private JournalProperties properties(DataSize segmentSize) {
+        JournalProperties properties = new JournalProperties();
+        properties.setDir(dir.toString());
+        properties.setSegmentSize(segmentSize);
+        properties.setCompactThreshold(Integer.MAX_VALUE);
+        return properties;
+    }
+
+    private static Order order(long id) {
+        return new Order(id, (int) (id % 100) + 1, "土鸡蛋" + id, 2990, OrderStatus.CREATED, 1747962000000L + id);
+    }
+
+    private static List<OrderEvent> replay(OrderJournal journal) {
+        List<OrderEvent> events = new ArrayList<>();
+        journal.replay(events::add);
+        return events;
+    }
+
+    private long segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    /**
+     * 追加的事件重新打开后按原顺序回放，内容不变
+     */
+    @Test
+    public void replayTest() {
+        OrderJournal journal = new OrderJournal(properties(DataSize.ofMegabytes(1)));
+        Assertions.assertTrue(replay(journal).isEmpty());
+        journal.append(List.of(OrderEvent.place(order(1)), OrderEvent.place(order(2))));
+        journal.append(List.of(OrderEvent.cancel(1)));
+        Assertions.assertEquals(3, journal.stats().getAppended());
+        Assertions.assertEquals(2, journal.stats().getGroupCommits());
+        journal.close();
+
+        OrderJournal reopened = new OrderJournal(properties(DataSize.ofMegabytes(1)));
+        List<OrderEvent> events = replay(reopened);
+        Assertions.assertEquals(List.of(OrderEvent.place(order(1)), OrderEvent.place(order(2)), OrderEvent.cancel(1)), events);
+
+        // 回放后继续追加，再次打开时新旧记录都在
+        reopened.append(List.of(OrderEvent.place(order(3))));
+        reopened.close();
+        Assertions.assertEquals(4, replay(new OrderJournal(properties(DataSize.ofMegabytes(1)))).size());
+    }
+
+    /**
+     * 段写满后滚动到新段，回放跨越所有段
+     */
+    @Test
+    public void rollTest() throws IOException {
+        OrderJournal journal = new OrderJournal(properties(DataSize.ofKilobytes(4)));
+        replay(journal);
+        for (long id = 1; id <= 1000; id++) {
+            journal.append(List.of(OrderEvent.place(order(id))));
+        }
+        journal.close();
+        Assertions.assertTrue(segments() > 5);
+
+        List<OrderEvent> events = replay(new OrderJournal(properties(DataSize.ofKilobytes(4))));
+        Assertions.assertEquals(1000, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Assertions.assertEquals(order(i + 1), events.get(i).getOrder());
+        }
+    }
+
+    /**
+     * 崩溃时写了一半的尾部记录被丢弃，之前的记录完整回放，之后的追加正常
+     */
+    @Test
+    public void tornTailTest() throws IOException {
+        OrderJournal journal = new OrderJournal(properties(DataSize.ofMegabytes(1)));
+        replay(journal);
+        journal.append(List.of(OrderEvent.place(order(1)), OrderEvent.place(order(2))));
+        int end = (int) journal.stats().getBytesWritten();
+        journal.close();
+
+        // 模拟崩溃：只写了长度和部分内容，校验和不匹配
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(12).putInt(41).putInt(12345).putInt(0x01000000).flip(), end);
+        }
+
+        OrderJournal recovered = new OrderJournal(properties(DataSize.ofMegabytes(1)));
+        Assertions.assertEquals(2, replay(recovered).size());
+        recovered.append(List.of(OrderEvent.cancel(2)));
+        recovered.close();
+
+        List<OrderEvent> events = replay(new OrderJournal(properties(DataSize.ofMegabytes(1))));
+        Assertions.assertEquals(List.of(OrderEvent.place(order(1)), OrderEvent.place(order(2)), OrderEvent.cancel(2)), events);
+    }
+
+    /**
+     * 合并后段数减少，取消记录折叠进订单状态，回放得到的仓库状态与合并前一致
+     */
+    @Test
+    public void compactTest() throws Exception {
+        OrderJournal journal = new OrderJournal(properties(DataSize.ofKilobytes(4)));
+        replay(journal);
+        for (long id = 1; id <= 1000; id++) {
+            journal.append(List.of(OrderEvent.place(order(id))));
+            if (id % 2 == 0) {
+                journal.append(List.of(OrderEvent.cancel(id)));
+            }
+        }
+        long before = segments();
+        journal.compact().get();
+        Assertions.assertEquals(1, journal.stats().getCompactions());
+        // 合并后只剩合并出的段和当前写入的段
+        Assertions.assertEquals(2, segments());
+        Assertions.assertTrue(before > 2);
+        journal.append(List.of(OrderEvent.cancel(1)));
+        journal.close();
+
+        OrderStore recovered = new OrderStore();
+        List<OrderEvent> events = replay(new OrderJournal(properties(DataSize.ofKilobytes(4))));
+        Assertions.assertTrue(events.size() < 1500);
+        recovered.apply(events);
+        Assertions.assertEquals(1000, recovered.size());
+        for (long id = 1; id <= 1000; id++) {
+            OrderStatus status = id % 2 == 0 || id == 1 ? OrderStatus.CANCELLED : OrderStatus.CREATED;
+            Assertions.assertEquals(order(id).withStatus(status), recovered.get(id));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.farm.order.store;
+
+
+import com.farm.order.entity.Order;
+import com.farm.order.entity.OrderStatus;
+import com.farm.order.ingest.OrderEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @ClassName OrderStoreTest
+ * @Author phx
+ * @Date 2025/5/28 11:00
+ * @Description 测试订单仓库的按用户、按下单时间索引
+ */
+
+public class OrderStoreTest {
+
+    private static Order order(long id, int userId, long createdAt) {
+        return new Order(id, userId, "土鸡蛋", 2990, OrderStatus.CREATED, createdAt);
+    }
+
+    /**
+     * 按用户查询从新到旧，取消后返回最新状态，重复写入同一订单不重复索引
+     */
+    @Test
+    public void userIndexTest() {
+        OrderStore orderStore = new OrderStore();
+        List<OrderEvent> batch = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            batch.add(OrderEvent.place(order(id, (int) (id % 300) + 1, id)));
+        }
+        batch.add(OrderEvent.cancel(300));
+        batch.add(OrderEvent.place(order(300, 1, 300)));
+        orderStore.apply(batch);
+
+        Assertions.assertEquals(10, orderStore.countByUser(1));
+        List<Order> orders = orderStore.getByUser(1, 3);
+        Assertions.assertEquals(List.of(3000L, 2700L, 2400L), orders.stream().map(Order::getId).toList());
+        Assertions.assertEquals(OrderStatus.CREATED, orders.get(0).getStatus());
+        Assertions.assertEquals(10, orderStore.getByUser(1, 100).size());
+        Assertions.assertTrue(orderStore.getByUser(9999, 10).isEmpty());
+    }
+
+    /**
+     * 下单时间与写入顺序不完全一致时，时间范围查询仍然准确
+     */
+    @Test
+    public void timeIndexTest() {
+        OrderStore orderStore = new OrderStore();
+        Random random = new Random(42);
+        List<OrderEvent> batch = new ArrayList<>();
+        List<Order> all = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            // 时间大致递增，随机倒退最多 20ms
+            Order order = order(id, 1, 1_000_000 + id * 2 - random.nextInt(20));
+            all.add(order);
+            batch.add(OrderEvent.place(order));
+        }
+        orderStore.apply(batch);
+
+        for (int i = 0; i < 100; i++) {
+            long from = 1_000_000 + random.nextInt(10_000);
+            long to = from + random.nextInt(500);
+            List<Order> expected = all.stream()
+                    .filter(order -> order.getCreatedAt() >= from && order.getCreatedAt() <= to)
+                    .sorted((a, b) -> a.getCreatedAt() != b.getCreatedAt()
+                            ? Long.compare(a.getCreatedAt(), b.getCreatedAt()) : Long.compare(a.getId(), b.getId()))
+                    .toList();
+            Assertions.assertEquals(expected, orderStore.getByCreatedAt(from, to, 1000));
+            int limit = 1 + random.nextInt(20);
+            Assertions.assertEquals(expected.subList(0, Math.min(limit, expected.size())),
+                    orderStore.getByCreatedAt(from, to, limit));
+        }
+        Assertions.assertEquals(10, orderStore.getByCreatedAt(0, Long.MAX_VALUE, 10).size());
+        Assertions.assertTrue(orderStore.getByCreatedAt(0, 999_000, 10).isEmpty());
+    }
+
+    /**
+     * 后写入的订单下单时间更早时，limit 取的是时间最早的订单，而不是先写入的订单
+     */
+    @Test
+    public void timeIndexLimitTest() {
+        OrderStore orderStore = new OrderStore();
+        orderStore.apply(List.of(
+                OrderEvent.place(order(1, 1, 1000)),
+                OrderEvent.place(order(2, 1, 1003)),
+                OrderEvent.place(order(3, 1, 1001)),
+                OrderEvent.place(order(4, 1, 1000)),
+                OrderEvent.place(order(5, 1, 1002))));
+
+        Assertions.assertEquals(List.of(1L, 4L), orderStore.getByCreatedAt(1000, 1003, 2).stream().map(Order::getId).toList());
+        Assertions.assertEquals(List.of(1L, 4L, 3L), orderStore.getByCreatedAt(0, Long.MAX_VALUE, 3).stream().map(Order::getId).toList());
+        Assertions.assertEquals(List.of(3L, 5L), orderStore.getByCreatedAt(1001, 1002, 10).stream().map(Order::getId).toList());
+    }
+
+    /**
+     * 写线程持续写入时读线程并发查询，读到的订单都存在且不重复
+     */
+    @Test
+    public void concurrentReadTest() throws Exception {
+        OrderStore orderStore = new OrderStore();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    List<Order> orders = orderStore.getByUser(7, 1000);
+                    for (int i = 1; i < orders.size(); i++) {
+                        Assertions.assertTrue(orders.get(i - 1).getId() > orders.get(i).getId());
+                    }
+                    orderStore.getByCreatedAt(0, Long.MAX_VALUE, 1000).forEach(Assertions::assertNotNull);
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        for (long id = 1; id <= 100_000; id++) {
+            orderStore.apply(List.of(OrderEvent.place(order(id, (int) (id % 10), id))));
+        }
+        done.set(true);
+        reader.join();
+        Assertions.assertNull(failure.get());
+        Assertions.assertEquals(10_000, orderStore.countByUser(7));
+    }
+}
@@ -0,0 +1,20 @@
+package com.farm.reactive;
+
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * @ClassName FamilyFarmReactiveApplication
+ * @Author phx
+ * @Date 2025/6/3 9:30
+ * @Description 用户接口的响应式版本，基于 WebFlux + Netty，路由与 family-farm-demo 相同
+ */
+
+@SpringBootApplication
+public class FamilyFarmReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(FamilyFarmReactiveApplication.class, args);
+    }
+}
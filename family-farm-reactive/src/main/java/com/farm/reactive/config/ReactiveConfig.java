@@ -0,0 +1,39 @@
+package com.farm.reactive.config;
+
+
+import com.farm.config.UserServiceConfig;
+import com.farm.metrics.MetricsRegistry;
+import com.farm.reactive.service.ReactiveUserService;
+import com.farm.service.UserService;
+import com.farm.service.impl.UserServiceImpl;
+import com.farm.store.UserStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * @ClassName ReactiveConfig
+ * @Author phx
+ * @Date 2025/6/3 9:50
+ * @Description 从 family-farm-demo 引入用户仓库与 UserService 装饰器链，外面包一层 ReactiveUserService
+ * <p>
+ * 只引入需要的 Bean，不扫描 com.farm，Spring MVC 的过滤器、控制器不会进入响应式应用。
+ * 反过来，family-farm-demo 以 Servlet 方式启动且本模块在类路径上时，会扫描到 com.farm.reactive，
+ * 因此本模块的 Bean 都限定为只在响应式应用中生效
+ */
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(ReactiveProperties.class)
+@Import({UserStore.class, UserServiceImpl.class, MetricsRegistry.class, UserServiceConfig.class})
+public class ReactiveConfig {
+
+    @Bean
+    public ReactiveUserService reactiveUserService(UserService userService, ReactiveProperties properties) {
+        return new ReactiveUserService(userService,
+                properties.isOffloadBlocking() ? Schedulers.boundedElastic() : Schedulers.immediate());
+    }
+}
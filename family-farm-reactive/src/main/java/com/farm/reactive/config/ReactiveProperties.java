@@ -0,0 +1,25 @@
+package com.farm.reactive.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @ClassName ReactiveProperties
+ * @Author phx
+ * @Date 2025/6/3 9:40
+ * @Description 响应式模块配置，前缀 farm.reactive
+ */
+
+@Data
+@ConfigurationProperties(prefix = "farm.reactive")
+public class ReactiveProperties {
+
+    /**
+     * 是否把 UserService 的调用切换到 boundedElastic 线程池执行
+     * <p>
+     * 默认的内存实现不会阻塞，直接在事件循环上执行开销最小；UserService 换成会阻塞的实现（数据库、远程调用）时必须打开，
+     * 否则会卡住事件循环
+     */
+    private boolean offloadBlocking = false;
+}
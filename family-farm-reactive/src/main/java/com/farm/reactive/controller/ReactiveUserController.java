@@ -0,0 +1,187 @@
+package com.farm.reactive.controller;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserBatchRequest;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserDelta;
+import com.farm.entity.UserPage;
+import com.farm.reactive.service.ReactiveUserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * @ClassName ReactiveUserController
+ * @Author phx
+ * @Date 2025/6/3 10:40
+ * @Description 用户接口的响应式版本，路由、参数、响应与 family-farm-demo 的 UserController 一致
+ * <p>
+ * 带 ETag 的接口返回 ResponseEntity，由 WebFlux 比较 If-None-Match：未变化时直接返回 304，
+ * 响应体的 Mono/Flux 不会被订阅，不查询、不序列化
+ */
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/family/farm/demo")
+@Tag(name = "用户模块（响应式）", description = "用户的查询")
+public class ReactiveUserController {
+
+    /**
+     * 分页查询单页最多返回的用户数
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 批量查询单次最多的用户ID数
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * 名称搜索单次最多返回的用户数
+     */
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    /**
+     * 名称搜索查询串的最大长度
+     */
+    private static final int MAX_QUERY_LENGTH = 64;
+
+    /**
+     * NDJSON 表示的 ETag 后缀，与同一 URL 的 JSON 表示区分
+     */
+    private static final String NDJSON_ETAG_SUFFIX = "-ndjson";
+
+    @Autowired
+    private ReactiveUserService reactiveUserService;
+
+    @GetMapping("/user")
+    @Operation(summary = "查询用户信息", description = "这里固定获取第一个用户，无需参数")
+    public Mono<User> getUser() {
+        return reactiveUserService.getUser();
+    }
+
+    @GetMapping("/one")
+    @Operation(summary = "查询用户信息", description = "这里固定获取第一个用户，无需参数")
+    public Mono<User> getOne() {
+        return reactiveUserService.getUser();
+    }
+
+    @GetMapping("/list")
+    @Operation(summary = "查询用户列表", description = "以JSON数组输出所有用户，按客户端的接收速度逐个编码；支持ETag")
+    public ResponseEntity<Flux<User>> getUserList() {
+        return ResponseEntity.ok()
+                .eTag(etag(reactiveUserService.getVersion()))
+                .body(reactiveUserService.getUserList());
+    }
+
+    @GetMapping(value = "/list", params = {"since", "!limit"})
+    @Operation(summary = "增量同步用户列表", description = "返回版本since之后新增或修改的用户与当前版本号；full为true时返回的是全部用户；支持ETag")
+    public ResponseEntity<Mono<UserDelta>> getUsersChangedSince(
+            @Parameter(name = "since", description = "上次同步得到的版本号", example = "1748570000001", required = true)
+            @RequestParam long since
+    ) {
+        return ResponseEntity.ok()
+                .eTag(etag(reactiveUserService.getVersion()))
+                .body(reactiveUserService.getUsersChangedSince(since));
+    }
+
+    @GetMapping(value = "/list", params = "limit")
+    @Operation(summary = "分页查询用户列表", description = "游标分页，返回用户ID大于after的前limit个用户，响应中的nextCursor作为下一页的after；支持ETag")
+    public ResponseEntity<Mono<UserPage>> getUserPage(
+            @Parameter(name = "after", description = "游标，即上一页的nextCursor，为空时从第一个用户开始", example = "1")
+            @RequestParam(required = false) Integer after,
+            @Parameter(name = "limit", description = "每页数量，取值范围1~1000", example = "100", required = true)
+            @RequestParam int limit
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit取值范围1~" + MAX_PAGE_SIZE);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag(reactiveUserService.getVersion()))
+                .body(reactiveUserService.getUserPage(after, limit));
+    }
+
+    @GetMapping(value = "/list", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式查询用户列表", description = "Accept: application/x-ndjson，每行一个用户，按客户端的接收速度发送（背压）")
+    public ResponseEntity<Flux<User>> streamUserList(
+            @Parameter(name = "after", description = "游标，只输出用户ID大于after的用户，为空时从第一个用户开始", example = "1")
+            @RequestParam(required = false) Integer after
+    ) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .eTag(etag(reactiveUserService.getVersion() + NDJSON_ETAG_SUFFIX))
+                .body(reactiveUserService.streamUsers(after));
+    }
+
+    @GetMapping("/user/{index}")
+    @Operation(summary = "查询用户信息", description = "需提供用户列表的INDEX；支持ETag")
+    public ResponseEntity<Mono<User>> getUserByIndex(
+            @Parameter(name = "index", description = "列表下标", example = "1", required = true)
+            @PathVariable int index
+    ) {
+        return ResponseEntity.ok()
+                .eTag(etag(reactiveUserService.getVersion()))
+                .body(reactiveUserService.getUserByIndex(index));
+    }
+
+    @GetMapping("/user/info")
+    @Operation(summary = "查询用户信息", description = "需提供用户列表的INDEX；支持ETag")
+    public ResponseEntity<Mono<User>> getUserInfo(
+            @Parameter(name = "index", description = "列表下标", example = "1", required = true)
+            @RequestParam int index
+    ) {
+        return getUserByIndex(index);
+    }
+
+    @GetMapping("/user/search")
+    @Operation(summary = "按名称搜索用户", description = "精确匹配在前，其次前缀匹配，最后子串匹配，同一类按用户ID升序；不区分大小写，全角与半角等价；支持ETag")
+    public ResponseEntity<Flux<User>> searchUsers(
+            @Parameter(name = "q", description = "查询串，1~64个字符", example = "张三", required = true)
+            @RequestParam String q,
+            @Parameter(name = "limit", description = "最多返回的用户数，取值范围1~100", example = "20")
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        if (q.isBlank() || q.length() > MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q不能为空，且最多" + MAX_QUERY_LENGTH + "个字符");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit取值范围1~" + MAX_SEARCH_LIMIT);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag(reactiveUserService.getVersion()))
+                .body(reactiveUserService.searchUsers(q, limit));
+    }
+
+    @PostMapping("/users:batchGet")
+    @Operation(summary = "批量查询用户信息", description = "一次请求按用户ID查询多个用户，不存在的ID在missingIds中返回；ids为空数组时返回空结果")
+    public Mono<UserBatchResult> batchGetUsers(@RequestBody UserBatchRequest request) {
+        int[] ids = request.getIds();
+        if (ids == null || ids.length > MAX_BATCH_SIZE) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids必填，且最多" + MAX_BATCH_SIZE + "个"));
+        }
+        return reactiveUserService.getUsersByIds(ids);
+    }
+
+    /**
+     * 强 ETag，先读版本号再订阅数据：数据只会比版本号新，客户端最多多拉取一次，不会缓存到旧数据
+     */
+    private static String etag(Object version) {
+        return "\"" + version + "\"";
+    }
+}
@@ -0,0 +1,78 @@
+package com.farm.reactive.service;
+
+
+import com.farm.entity.User;
+import com.farm.entity.UserBatchResult;
+import com.farm.entity.UserDelta;
+import com.farm.entity.UserPage;
+import com.farm.service.UserService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * @ClassName ReactiveUserService
+ * @Author phx
+ * @Date 2025/6/3 10:10
+ * @Description UserService 的响应式适配器
+ * <p>
+ * 所有方法都是惰性的：订阅时才调用 UserService，在订阅所在的 scheduler 上执行。
+ * 列表以 Flux 逐个发出快照中的用户，按下游的请求量发送（背压），慢速客户端不会让数据在内存中堆积
+ */
+
+public class ReactiveUserService {
+
+    private final UserService delegate;
+    private final Scheduler scheduler;
+
+    /**
+     * @param scheduler 调用 UserService 的线程，内存实现用 Schedulers.immediate()，阻塞实现用 boundedElastic
+     */
+    public ReactiveUserService(UserService delegate, Scheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    public Mono<User> getUser() {
+        return Mono.fromCallable(delegate::getUser).subscribeOn(scheduler);
+    }
+
+    public Mono<User> getUserByIndex(int index) {
+        return Mono.fromCallable(() -> delegate.getUserByIndex(index)).subscribeOn(scheduler);
+    }
+
+    public Flux<User> getUserList() {
+        return Flux.defer(() -> Flux.fromIterable(delegate.getUserList())).subscribeOn(scheduler);
+    }
+
+    public Mono<UserPage> getUserPage(Integer after, int limit) {
+        return Mono.fromCallable(() -> delegate.getUserPage(after, limit)).subscribeOn(scheduler);
+    }
+
+    /**
+     * 逐个发出用户ID大于 after 的所有用户，订阅时取定快照
+     */
+    public Flux<User> streamUsers(Integer after) {
+        return Flux.defer(() -> Flux.fromIterable(delegate.getUserPage(after, Integer.MAX_VALUE).getUsers()))
+                .subscribeOn(scheduler);
+    }
+
+    public Mono<UserBatchResult> getUsersByIds(int[] ids) {
+        return Mono.fromCallable(() -> delegate.getUsersByIds(ids)).subscribeOn(scheduler);
+    }
+
+    public Mono<UserDelta> getUsersChangedSince(long since) {
+        return Mono.fromCallable(() -> delegate.getUsersChangedSince(since)).subscribeOn(scheduler);
+    }
+
+    public Flux<User> searchUsers(String query, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(delegate.searchUsers(query, limit))).subscribeOn(scheduler);
+    }
+
+    /**
+     * 只读取一个 volatile 字段，直接返回，用于生成 ETag
+     */
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+}
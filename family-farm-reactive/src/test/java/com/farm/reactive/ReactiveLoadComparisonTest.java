@@ -0,0 +1,119 @@
+package com.farm.reactive;
+
+
+import com.farm.FamilyFarmDemoApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @ClassName ReactiveLoadComparisonTest
+ * @Author phx
+ * @Date 2025/6/3 16:20
+ * @Description Servlet（family-farm-demo）与 WebFlux（family-farm-reactive）两种实现在高并发下的吞吐量、p99对比
+ * <p>
+ * 依次在随机端口启动两个应用，用大量并发连接压测 /family/farm/demo/list，打印吞吐量与 p50/p99。
+ * Servlet 模式下并发受 Tomcat 线程池（默认200）限制，WebFlux 模式下由少量事件循环线程处理全部连接。
+ * <p>
+ * 耗时较长，默认不执行，运行方式：
+ * mvn test -pl family-farm-reactive -Dtest=ReactiveLoadComparisonTest -Dbenchmark=true
+ * 可选参数：-Dbenchmark.concurrency=2000 -Dbenchmark.seconds=10
+ */
+
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ReactiveLoadComparisonTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 2000);
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 10);
+
+    @Test
+    public void compareTest() throws Exception {
+        // 两个模块的 application.yml 同名，类路径上以本模块的为准，Servlet 应用的差异项用命令行参数覆盖
+        String servlet = run(FamilyFarmDemoApplication.class,
+                "--spring.main.web-application-type=servlet",
+                "--farm.access-log.enabled=false");
+        String reactive = run(FamilyFarmReactiveApplication.class,
+                "--spring.main.web-application-type=reactive");
+        log.info("========Servlet：{}========", servlet);
+        log.info("========WebFlux：{}========", reactive);
+    }
+
+    private String run(Class<?> application, String... args) throws Exception {
+        String[] all = Arrays.copyOf(args, args.length + 2);
+        all[args.length] = "--server.port=0";
+        all[args.length + 1] = "--logging.level.org.springframework=warn";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(application).run(all)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/family/farm/demo/list");
+            // 预热
+            load(uri, Duration.ofSeconds(2));
+            return load(uri, Duration.ofSeconds(SECONDS));
+        }
+    }
+
+    /**
+     * 每个客户端一个虚拟线程，收到响应后立即发下一个请求
+     */
+    private String load(URI uri, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        List<Future<long[]>> futures = new ArrayList<>(CONCURRENCY);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        double throughput = all.length / (double) duration.toSeconds();
+        return String.format("并发=%d 请求数=%d 吞吐量=%.0f req/s p50=%.1fms p99=%.1fms",
+                CONCURRENCY, all.length, throughput, percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,134 @@
+package com.farm.reactive.controller;
+
+
+import com.farm.entity.User;
+import com.farm.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * @ClassName ReactiveUserControllerTest
+ * @Author phx
+ * @Date 2025/6/3 14:00
+ * @Description 测试响应式用户接口，响应与 family-farm-demo 的 UserController 一致
+ */
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+public class ReactiveUserControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 查询用户列表，JSON数组，带ETag
+     */
+    @Test
+    public void getUserListTest() {
+        webTestClient.get().uri("/family/farm/demo/list")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"" + userService.getVersion() + "\"")
+                .expectBody().json("[{\"id\":1,\"name\":\"用户名1\"},{\"id\":2,\"name\":\"用户名2\"}]");
+    }
+
+    /**
+     * 带上If-None-Match时数据未变化返回304，没有响应体
+     */
+    @Test
+    public void notModifiedTest() {
+        webTestClient.get().uri("/family/farm/demo/list")
+                .header("If-None-Match", "\"" + userService.getVersion() + "\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        webTestClient.get().uri("/family/farm/demo/user/0")
+                .header("If-None-Match", "\"0\"")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    /**
+     * 流式查询，NDJSON每行一个用户，按需逐个接收
+     */
+    @Test
+    public void streamUserListTest() {
+        Flux<User> users = webTestClient.get().uri("/family/farm/demo/list")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(User.class)
+                .getResponseBody();
+        StepVerifier.create(users, 1)
+                .expectNext(new User(1, "用户名1"))
+                .thenRequest(1)
+                .expectNext(new User(2, "用户名2"))
+                .verifyComplete();
+    }
+
+    /**
+     * 分页、增量同步、批量查询
+     */
+    @Test
+    public void queryTest() {
+        webTestClient.get().uri("/family/farm/demo/list?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.users[0].id").isEqualTo(1)
+                .jsonPath("$.nextCursor").isEqualTo(1);
+        webTestClient.get().uri("/family/farm/demo/list?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri("/family/farm/demo/list?since=" + userService.getVersion())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.full").isEqualTo(false)
+                .jsonPath("$.users.length()").isEqualTo(0);
+
+        webTestClient.post().uri("/family/farm/demo/users:batchGet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"ids\":[2,3]}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.missingIds[0]").isEqualTo(3)
+                .jsonPath("$.users[0].name").isEqualTo("用户名2");
+    }
+
+    /**
+     * 按名称搜索
+     */
+    @Test
+    public void searchUsersTest() {
+        webTestClient.get().uri("/family/farm/demo/user/search?q={q}", "名2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[{\"id\":2,\"name\":\"用户名2\"}]");
+        webTestClient.get().uri("/family/farm/demo/user/search?q={q}&limit=0", "用户")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    /**
+     * 下标不存在时返回404
+     */
+    @Test
+    public void notFoundTest() {
+        webTestClient.get().uri("/family/farm/demo/user/99")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+#
+# family-farm-demo 启动耗时与内存测量：启动进程 -> 轮询到第一个成功请求（time-to-first-request）-> 读取 RSS -> 结束进程
+#
+# 先构建：
+#   mvn -B package -Pfast-startup -pl family-farm-demo -am -DskipTests
+#   （可选）mvn -B -Pnative native:compile -pl family-farm-demo -am -DskipTests
+# 运行：
+#   scripts/startup-benchmark.sh [次数，默认5]
+# 测量的模式：
+#   jvm     普通 JVM，运行时扫描类路径
+#   aot     -Dspring.aot.enabled=true，使用编译期生成的 Bean 定义
+#   aot+cds 再加 -XX:SharedArchiveFile，从 CDS 归档加载类
+#   native  GraalVM 原生镜像（target/family-farm-demo 存在时）
+# 每种模式输出启动耗时与 RSS 的中位数
+
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+TARGET="$(cd "$(dirname "$0")/.." && pwd)/family-farm-demo/target"
+JAR="$TARGET/family-farm-demo-1.0-SNAPSHOT.jar"
+JSA="$TARGET/family-farm-demo.jsa"
+NATIVE="$TARGET/family-farm-demo"
+URL="http://localhost:$PORT/family/farm/demo/user"
+APP_ARGS=(--server.port="$PORT")
+
+if [[ ! -f "$JAR" ]]; then
+    echo "未找到 $JAR，请先执行 mvn -B package -Pfast-startup -pl family-farm-demo -am -DskipTests" >&2
+    exit 1
+fi
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# 输出 "耗时ms RSS_KB"
+measure() {
+    local start pid elapsed rss
+    start=$(now_ms)
+    "$@" "${APP_ARGS[@]}" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "进程已退出：$*" >&2
+            exit 1
+        fi
+        sleep 0.1
+    done
+    elapsed=$(( $(now_ms) - start ))
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$elapsed $rss"
+}
+
+median() {
+    sort -n | awk '{a[NR] = $1} END {print a[int((NR + 1) / 2)]}'
+}
+
+bench() {
+    local name=$1 times="" rsss="" result
+    shift
+    for ((i = 0; i < RUNS; i++)); do
+        result=$(measure "$@")
+        times+="${result% *}"$'\n'
+        rsss+="${result#* }"$'\n'
+    done
+    printf "%-8s 首个请求=%6sms  RSS=%6sMB\n" "$name" \
+        "$(printf "%s" "$times" | median)" "$(( $(printf "%s" "$rsss" | median) / 1024 ))"
+}
+
+bench jvm java -jar "$JAR"
+bench aot java -Dspring.aot.enabled=true -jar "$JAR"
+if [[ -f "$JSA" ]]; then
+    bench aot+cds java -XX:SharedArchiveFile="$JSA" -Xlog:cds=off -Dspring.aot.enabled=true -jar "$JAR"
+fi
+if [[ -x "$NATIVE" ]]; then
+    bench native "$NATIVE"
+fi